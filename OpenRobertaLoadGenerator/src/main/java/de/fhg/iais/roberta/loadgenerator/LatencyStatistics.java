@@ -0,0 +1,96 @@
+package de.fhg.iais.roberta.loadgenerator;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * latencies and errors of the requests sent by the simulated robots, grouped by the kind of the request ("register", "push", "download", ...). Thread-safe.
+ */
+public final class LatencyStatistics {
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+
+    /**
+     * record a successful request
+     *
+     * @param kind the kind of the request
+     * @param latencyMsec the time from sending the request until the response was read
+     */
+    public void success(String kind, long latencyMsec) {
+        recorder(kind).add(latencyMsec, false);
+    }
+
+    /**
+     * record a failed request (exception, unexpected HTTP status or unexpected response)
+     */
+    public void error(String kind, long latencyMsec) {
+        recorder(kind).add(latencyMsec, true);
+    }
+
+    /**
+     * @return the summary of all kinds of requests, one line per kind, ordered by kind
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-12s %8s %7s %8s %8s %8s %8s%n", "request", "count", "errors%", "p50", "p90", "p99", "max"));
+        for ( Map.Entry<String, Recorder> entry : new TreeMap<>(this.recorders).entrySet() ) {
+            Recorder recorder = entry.getValue();
+            long[] latencies;
+            long errors;
+            synchronized ( recorder ) {
+                latencies = Arrays.copyOf(recorder.latencies, recorder.count);
+                errors = recorder.errors;
+            }
+            Arrays.sort(latencies);
+            sb
+                .append(
+                    String
+                        .format(
+                            Locale.ROOT,
+                            "%-12s %8d %7.2f %8d %8d %8d %8d%n",
+                            entry.getKey(),
+                            latencies.length,
+                            latencies.length == 0 ? 0.0 : 100.0 * errors / latencies.length,
+                            percentile(latencies, 50),
+                            percentile(latencies, 90),
+                            percentile(latencies, 99),
+                            latencies.length == 0 ? 0 : latencies[latencies.length - 1]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param sortedValues values sorted ascending
+     * @param percent 0 to 100
+     * @return the nearest-rank percentile, 0 if no value is available
+     */
+    static long percentile(long[] sortedValues, int percent) {
+        if ( sortedValues.length == 0 ) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sortedValues.length);
+        return sortedValues[Math.max(0, rank - 1)];
+    }
+
+    private Recorder recorder(String kind) {
+        return this.recorders.computeIfAbsent(kind, k -> new Recorder());
+    }
+
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int count = 0;
+        private long errors = 0;
+
+        private synchronized void add(long latencyMsec, boolean error) {
+            if ( this.count == this.latencies.length ) {
+                this.latencies = Arrays.copyOf(this.latencies, 2 * this.count);
+            }
+            this.latencies[this.count++] = latencyMsec;
+            if ( error ) {
+                this.errors++;
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package de.fhg.iais.roberta.loadgenerator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * simulates a fleet of robots against a locally started server to measure the robot protocol under load. Usage (after <code>mvn package</code>):<br>
+ * <code>java -jar OpenRobertaLoadGenerator/target/OpenRobertaLoadGenerator.jar [key=value ...]</code><br>
+ * The jar expects its dependencies in the directory <code>lib</code> beside it, the build copies them there.<br>
+ * The keys are described in the resource "loadgenerator.properties". While running, a report with the latency percentiles and error rates per kind of
+ * request and the number of threads of the server is logged periodically. The last report is logged after all robots are stopped.
+ */
+public final class LoadGenerator {
+    private static final Logger LOG = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final int APPROVAL_THREADS = 16;
+
+    private final LoadGeneratorConfig config;
+    private final LatencyStatistics statistics = new LatencyStatistics();
+    private final List<VirtualRobot> robots = new ArrayList<>();
+    private final List<Thread> robotThreads = new ArrayList<>();
+
+    public LoadGenerator(LoadGeneratorConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadGeneratorConfig config = new LoadGeneratorConfig(args);
+        // each robot keeps its own connection alive, as a real robot does. Must be set before the first connection is opened, see ServerConnection
+        if ( System.getProperty("http.maxConnections") == null ) {
+            System.setProperty("http.maxConnections", String.valueOf(config.getInt("robots")));
+        }
+        new LoadGenerator(config).run();
+    }
+
+    public void run() throws InterruptedException {
+        int numberOfRobots = this.config.getInt("robots");
+        long rampUpMsec = TimeUnit.SECONDS.toMillis(this.config.getInt("rampUp.sec"));
+        long durationMsec = TimeUnit.SECONDS.toMillis(this.config.getInt("duration.sec"));
+        long reportMsec = TimeUnit.SECONDS.toMillis(this.config.getInt("report.sec"));
+        LOG.info("starting {} robots within {} sec against {}. The test runs {} sec", numberOfRobots, rampUpMsec / 1000, this.config.getString("server.url"), durationMsec / 1000);
+
+        ScheduledExecutorService approvalExecutor = Executors.newScheduledThreadPool(APPROVAL_THREADS);
+        ScheduledExecutorService reportExecutor = Executors.newSingleThreadScheduledExecutor();
+        reportExecutor.scheduleAtFixedRate(this::report, reportMsec, reportMsec, TimeUnit.MILLISECONDS);
+        long start = System.currentTimeMillis();
+        Random random = new Random(42);
+        for ( int i = 0; i < numberOfRobots; i++ ) {
+            long startOfThisRobot = start + (numberOfRobots <= 1 ? 0 : rampUpMsec * i / (numberOfRobots - 1));
+            long wait = startOfThisRobot - System.currentTimeMillis();
+            if ( wait > 0 ) {
+                Thread.sleep(wait);
+            }
+            VirtualRobot robot = new VirtualRobot(i, this.config.chooseRobotType(random), this.config, this.statistics, approvalExecutor, random.nextLong());
+            Thread thread = new Thread(robot, "robot-" + i);
+            thread.setDaemon(true);
+            this.robots.add(robot);
+            this.robotThreads.add(thread);
+            thread.start();
+        }
+        long remaining = start + durationMsec - System.currentTimeMillis();
+        if ( remaining > 0 ) {
+            Thread.sleep(remaining);
+        }
+
+        LOG.info("stopping the robots");
+        for ( VirtualRobot robot : this.robots ) {
+            robot.stop();
+        }
+        approvalExecutor.shutdownNow();
+        for ( Thread thread : this.robotThreads ) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        reportExecutor.shutdownNow();
+        report();
+    }
+
+    private void report() {
+        int alive = 0;
+        for ( Thread thread : this.robotThreads ) {
+            alive += thread.isAlive() ? 1 : 0;
+        }
+        LOG.info("running robots: {}, server: {}\n{}", alive, serverResources(), this.statistics.summary());
+    }
+
+    /**
+     * @return the thread and session usage of the server, or a message, if it could not be retrieved
+     */
+    private String serverResources() {
+        try {
+            byte[] response = ServerConnection.get(this.config.getRestUrl() + "/data/server/resources");
+            JSONObject resources = new JSONObject(new String(response, StandardCharsets.UTF_8));
+            return "threads " + resources.opt("threads") + " (peak " + resources.opt("peakThreads") + "), http sessions " + resources.opt("httpSessions");
+        } catch ( IOException e ) {
+            return "not available (" + e.getMessage() + ")";
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package de.fhg.iais.roberta.loadgenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * configuration of the load generator. The defaults are read from the resource "loadgenerator.properties", each property may be overwritten by a command line
+ * argument <code>key=value</code>. See the resource for a description of the properties.
+ */
+public final class LoadGeneratorConfig {
+    private final Properties properties = new Properties();
+    private final List<RobotType> robotTypes = new ArrayList<>();
+    private final int sumOfShares;
+
+    public LoadGeneratorConfig(String... args) {
+        try (InputStream defaults = LoadGeneratorConfig.class.getResourceAsStream("/loadgenerator.properties")) {
+            this.properties.load(defaults);
+        } catch ( IOException e ) {
+            throw new IllegalStateException("could not read the default configuration", e);
+        }
+        for ( String arg : args ) {
+            int assignment = arg.indexOf('=');
+            if ( assignment <= 0 ) {
+                throw new IllegalArgumentException("argument is not of the form key=value: " + arg);
+            }
+            this.properties.setProperty(arg.substring(0, assignment).trim(), arg.substring(assignment + 1).trim());
+        }
+        int shares = 0;
+        for ( String name : getList("robot.types") ) {
+            String prefix = "robot.type." + name + ".";
+            RobotType robotType =
+                new RobotType(
+                    name,
+                    getString(prefix + "robot"),
+                    getString(prefix + "firmwarename"),
+                    getString(prefix + "plugin"),
+                    getList(prefix + "update"),
+                    getInt(prefix + "share"));
+            this.robotTypes.add(robotType);
+            shares += robotType.share;
+        }
+        if ( shares <= 0 ) {
+            throw new IllegalArgumentException("no robot type with a positive share is configured");
+        }
+        this.sumOfShares = shares;
+    }
+
+    public String getString(String key) {
+        String value = this.properties.getProperty(key);
+        if ( value == null ) {
+            throw new IllegalArgumentException("property " + key + " is missing");
+        }
+        return value.trim();
+    }
+
+    public int getInt(String key) {
+        return Integer.parseInt(getString(key));
+    }
+
+    public List<String> getList(String key) {
+        String value = this.properties.getProperty(key, "").trim();
+        if ( value.isEmpty() ) {
+            return Collections.emptyList();
+        }
+        List<String> values = new ArrayList<>();
+        for ( String element : Arrays.asList(value.split(",")) ) {
+            values.add(element.trim());
+        }
+        return values;
+    }
+
+    /**
+     * @return the base URL of the REST API of the server, e.g. http://localhost:1999/rest
+     */
+    public String getRestUrl() {
+        return getString("server.url") + getString("server.restPrefix");
+    }
+
+    public List<RobotType> getRobotTypes() {
+        return Collections.unmodifiableList(this.robotTypes);
+    }
+
+    /**
+     * choose a robot type randomly, weighted by the configured shares
+     */
+    public RobotType chooseRobotType(Random random) {
+        int choice = random.nextInt(this.sumOfShares);
+        for ( RobotType robotType : this.robotTypes ) {
+            choice -= robotType.share;
+            if ( choice < 0 ) {
+                return robotType;
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    /**
+     * the properties of a type of simulated robots
+     */
+    public static final class RobotType {
+        public final String name;
+        public final String robot;
+        public final String firmwareName;
+        public final String plugin;
+        public final List<String> updateResources;
+        public final int share;
+
+        private RobotType(String name, String robot, String firmwareName, String plugin, List<String> updateResources, int share) {
+            this.name = name;
+            this.robot = robot;
+            this.firmwareName = firmwareName;
+            this.plugin = plugin;
+            this.updateResources = Collections.unmodifiableList(updateResources);
+            this.share = share;
+        }
+    }
+}
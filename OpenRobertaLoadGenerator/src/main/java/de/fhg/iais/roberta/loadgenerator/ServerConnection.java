@@ -0,0 +1,110 @@
+package de.fhg.iais.roberta.loadgenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONObject;
+
+/**
+ * the HTTP requests of robots and browser frontends. Uses {@link HttpURLConnection}, which keeps connections alive and reuses them, as the robots do. The
+ * JDK keeps at most <code>http.maxConnections</code> idle connections per destination, 5 by default. Further connections are closed after their request.
+ * Because all robots talk to the same server, {@link LoadGenerator#main(String[])} raises the limit to the number of robots, unless it is set by
+ * <code>-Dhttp.maxConnections=...</code>
+ */
+public final class ServerConnection {
+    private static final int CONNECT_TIMEOUT_MSEC = 10000;
+    // /pushcmd requests are parked by the server until a command is available or the push timeout expires
+    private static final int READ_TIMEOUT_MSEC = 60000;
+
+    private ServerConnection() {
+        // no objects
+    }
+
+    /**
+     * POST a JSON object and read the JSON response
+     *
+     * @param url the URL of the endpoint
+     * @param request the JSON to send
+     * @return the JSON response
+     * @throws IOException if the request failed or the HTTP status is not 200
+     */
+    public static JSONObject postJson(String url, JSONObject request) throws IOException {
+        HttpURLConnection connection = open(url);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+        connection.setRequestProperty("Accept", "application/json");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(request.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return new JSONObject(new String(readResponse(connection), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * POST a JSON object and read the (binary) response, as done by /download
+     *
+     * @return the number of bytes of the response
+     * @throws IOException if the request failed or the HTTP status is not 200
+     */
+    public static int postJsonForBytes(String url, JSONObject request) throws IOException {
+        HttpURLConnection connection = open(url);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(request.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return readResponse(connection).length;
+    }
+
+    /**
+     * GET a resource, as done by the /update requests
+     *
+     * @return the response
+     * @throws IOException if the request failed or the HTTP status is not 200
+     */
+    public static byte[] get(String url) throws IOException {
+        HttpURLConnection connection = open(url);
+        connection.setRequestMethod("GET");
+        return readResponse(connection);
+    }
+
+    private static HttpURLConnection open(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MSEC);
+        connection.setReadTimeout(READ_TIMEOUT_MSEC);
+        connection.setUseCaches(false);
+        return connection;
+    }
+
+    private static byte[] readResponse(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        if ( status != HttpURLConnection.HTTP_OK ) {
+            // read the error stream to allow the reuse of the connection
+            try (InputStream err = connection.getErrorStream()) {
+                if ( err != null ) {
+                    readAll(err);
+                }
+            }
+            throw new IOException("HTTP status " + status + " for " + connection.getURL());
+        }
+        try (InputStream in = connection.getInputStream()) {
+            return readAll(in);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int length;
+        while ( (length = in.read(chunk)) != -1 ) {
+            buffer.write(chunk, 0, length);
+        }
+        return buffer.toByteArray();
+    }
+}
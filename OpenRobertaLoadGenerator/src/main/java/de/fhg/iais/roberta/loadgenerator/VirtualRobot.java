@@ -0,0 +1,240 @@
+package de.fhg.iais.roberta.loadgenerator;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fhg.iais.roberta.loadgenerator.LoadGeneratorConfig.RobotType;
+
+/**
+ * a simulated robot. It behaves like the robot firmware: it downloads its updates, registers with a fresh token and then sends /pushcmd requests until the
+ * load generator is stopped. The user, who approves the token in the browser frontend, is simulated, too: after a delay the /init, /admin/setRobot and
+ * /admin/setToken requests are sent by the approval executor.<br>
+ * <br>
+ * Each kind of request is recorded in the {@link LatencyStatistics}: "update", "register", "push", "download" for the robot, "init", "setRobot" and
+ * "setToken" for the simulated user.
+ */
+public final class VirtualRobot implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualRobot.class);
+    private static final String TOKEN_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final long PAUSE_AFTER_ERROR_MSEC = 5000;
+
+    private final int number;
+    private final RobotType robotType;
+    private final LoadGeneratorConfig config;
+    private final LatencyStatistics statistics;
+    private final ScheduledExecutorService approvalExecutor;
+    private final Random random;
+    private final String macAddress;
+    private final int thinkMsec;
+    private final int jitterMsec;
+    private final int approvalDelayMsec;
+
+    private volatile boolean running = true;
+
+    public VirtualRobot(
+        int number,
+        RobotType robotType,
+        LoadGeneratorConfig config,
+        LatencyStatistics statistics,
+        ScheduledExecutorService approvalExecutor,
+        long seed) //
+    {
+        this.number = number;
+        this.robotType = robotType;
+        this.config = config;
+        this.statistics = statistics;
+        this.approvalExecutor = approvalExecutor;
+        this.random = new Random(seed);
+        this.macAddress = String.format(Locale.ROOT, "10:00:%02x:%02x:%02x:%02x", (number >> 24) & 0xff, (number >> 16) & 0xff, (number >> 8) & 0xff, number & 0xff);
+        this.thinkMsec = config.getInt("push.think.msec");
+        this.jitterMsec = config.getInt("push.jitter.msec");
+        this.approvalDelayMsec = config.getInt("approval.delay.msec");
+    }
+
+    /**
+     * stop the robot. A /pushcmd request, that is running, is finished before the thread terminates
+     */
+    public void stop() {
+        this.running = false;
+    }
+
+    @Override
+    public void run() {
+        try {
+            downloadUpdates();
+            while ( this.running ) {
+                String token = register();
+                if ( token == null ) {
+                    pause(PAUSE_AFTER_ERROR_MSEC);
+                } else {
+                    pushLoop(token);
+                }
+            }
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void downloadUpdates() {
+        for ( String resource : this.robotType.updateResources ) {
+            long start = System.currentTimeMillis();
+            try {
+                ServerConnection.get(this.config.getString("server.url") + resource);
+                this.statistics.success("update", System.currentTimeMillis() - start);
+            } catch ( IOException e ) {
+                this.statistics.error("update", System.currentTimeMillis() - start);
+                LOG.debug("robot {}: update {} failed: {}", this.number, resource, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * register a fresh token and let the simulated user approve it
+     *
+     * @return the token, if it was approved; null otherwise
+     */
+    private String register() {
+        String token = newToken();
+        this.approvalExecutor.schedule(() -> approve(token), this.approvalDelayMsec, TimeUnit.MILLISECONDS);
+        JSONObject request = robotRequest("register", token);
+        long start = System.currentTimeMillis();
+        try {
+            JSONObject response = ServerConnection.postJson(this.config.getString("server.url") + "/pushcmd", request);
+            boolean approved = "ok".equals(response.optString("response"));
+            record("register", start, approved);
+            return approved ? token : null;
+        } catch ( IOException e ) {
+            record("register", start, false);
+            LOG.debug("robot {}: register failed: {}", this.number, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * send /pushcmd requests and execute the commands until the server aborts the connection or the robot is stopped
+     */
+    private void pushLoop(String token) throws InterruptedException {
+        while ( this.running ) {
+            JSONObject request = robotRequest("push", token);
+            request.put("nepoexitvalue", 0);
+            long start = System.currentTimeMillis();
+            String cmd;
+            try {
+                cmd = ServerConnection.postJson(this.config.getString("server.url") + "/pushcmd", request).optString("cmd", "");
+                record("push", start, true);
+            } catch ( IOException e ) {
+                record("push", start, false);
+                LOG.debug("robot {}: push failed: {}", this.number, e.getMessage());
+                return; // the server lost the connection, register again
+            }
+            switch ( cmd ) {
+                case "repeat":
+                    pause(this.thinkMsec + (this.jitterMsec > 0 ? this.random.nextInt(this.jitterMsec) : 0));
+                    break;
+                case "download":
+                    download(token);
+                    break;
+                case "update":
+                    downloadUpdates();
+                    return;
+                case "abort":
+                    return;
+                default:
+                    LOG.debug("robot {}: unexpected command {}", this.number, cmd);
+                    return;
+            }
+        }
+    }
+
+    private void download(String token) {
+        long start = System.currentTimeMillis();
+        try {
+            ServerConnection.postJsonForBytes(this.config.getString("server.url") + "/download", new JSONObject().put("token", token));
+            record("download", start, true);
+        } catch ( IOException e ) {
+            record("download", start, false);
+            LOG.debug("robot {}: download failed: {}", this.number, e.getMessage());
+        }
+    }
+
+    /**
+     * the simulated user: open a session, select the robot plugin and enter the token
+     */
+    private void approve(String token) {
+        String restUrl = this.config.getRestUrl();
+        String initToken = userRequest("init", restUrl + "/init", null, new JSONObject());
+        if ( initToken == null ) {
+            return;
+        }
+        if ( userRequest("setRobot", restUrl + "/admin/setRobot", initToken, new JSONObject().put("robot", this.robotType.plugin)) == null ) {
+            return;
+        }
+        userRequest("setToken", restUrl + "/admin/setToken", initToken, new JSONObject().put("token", token));
+    }
+
+    /**
+     * @return the initToken of the response, if the request succeeded; null otherwise
+     */
+    private String userRequest(String kind, String url, String initToken, JSONObject data) {
+        JSONObject request = new JSONObject().put("log", new JSONArray()).put("data", data);
+        if ( initToken != null ) {
+            request.put("initToken", initToken);
+        }
+        long start = System.currentTimeMillis();
+        try {
+            JSONObject response = ServerConnection.postJson(url, request);
+            boolean ok = "ok".equals(response.optString("rc"));
+            record(kind, start, ok);
+            return ok ? response.optString("initToken", initToken) : null;
+        } catch ( IOException e ) {
+            record(kind, start, false);
+            LOG.debug("robot {}: {} failed: {}", this.number, kind, e.getMessage());
+            return null;
+        }
+    }
+
+    private JSONObject robotRequest(String cmd, String token) {
+        return new JSONObject()
+            .put("cmd", cmd)
+            .put("token", token)
+            .put("macaddr", this.macAddress)
+            .put("robot", this.robotType.robot)
+            .put("firmwarename", this.robotType.firmwareName)
+            .put("brickname", "lg-" + this.number)
+            .put("battery", "8.1")
+            .put("menuversion", "1.0.0")
+            .put("runtimeversion", "1.0.0")
+            .put("firmwareversion", "1.0.0");
+    }
+
+    private String newToken() {
+        StringBuilder token = new StringBuilder(8);
+        for ( int i = 0; i < 8; i++ ) {
+            token.append(TOKEN_CHARACTERS.charAt(this.random.nextInt(TOKEN_CHARACTERS.length())));
+        }
+        return token.toString();
+    }
+
+    private void record(String kind, long start, boolean success) {
+        long latency = System.currentTimeMillis() - start;
+        if ( success ) {
+            this.statistics.success(kind, latency);
+        } else {
+            this.statistics.error(kind, latency);
+        }
+    }
+
+    private void pause(long msec) throws InterruptedException {
+        if ( this.running ) {
+            Thread.sleep(msec);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package de.fhg.iais.roberta.loadgenerator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyStatisticsTest {
+
+    @Test
+    public void testPercentiles() {
+        long[] values = new long[100];
+        for ( int i = 0; i < values.length; i++ ) {
+            values[i] = i + 1;
+        }
+        Assert.assertEquals(50, LatencyStatistics.percentile(values, 50));
+        Assert.assertEquals(90, LatencyStatistics.percentile(values, 90));
+        Assert.assertEquals(99, LatencyStatistics.percentile(values, 99));
+        Assert.assertEquals(7, LatencyStatistics.percentile(new long[] {
+            7
+        }, 50));
+        Assert.assertEquals(0, LatencyStatistics.percentile(new long[0], 99));
+    }
+
+    @Test
+    public void testSummaryContainsErrorRateOfEachKind() {
+        LatencyStatistics statistics = new LatencyStatistics();
+        for ( int i = 0; i < 3000; i++ ) {
+            statistics.success("push", i % 100);
+        }
+        statistics.error("register", 10);
+        statistics.success("register", 20);
+        String summary = statistics.summary();
+        Assert.assertTrue(summary, summary.matches("(?s).*push\\s+3000\\s+0\\.00\\s+49\\s+89\\s+98\\s+99.*"));
+        Assert.assertTrue(summary, summary.matches("(?s).*register\\s+2\\s+50\\.00\\s+.*"));
+    }
+}
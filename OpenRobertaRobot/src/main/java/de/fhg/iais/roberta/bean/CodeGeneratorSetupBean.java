@@ -6,11 +6,9 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.json.JSONObject;
-
+import de.fhg.iais.roberta.util.HelperMethodCatalog;
 import de.fhg.iais.roberta.util.HelperMethodGenerator;
 import de.fhg.iais.roberta.util.HelperMethodGenerator.Language;
-import de.fhg.iais.roberta.util.Util;
 import de.fhg.iais.roberta.util.dbc.Assert;
 import de.fhg.iais.roberta.util.dbc.DbcException;
 
@@ -35,6 +33,7 @@ public class CodeGeneratorSetupBean implements IProjectBean {
         private final CodeGeneratorSetupBean codeGeneratorBean = new CodeGeneratorSetupBean();
 
         private String helperMethodFile = null;
+        private HelperMethodCatalog helperMethodCatalog = null;
         private String fileExtension = null;
         private final Collection<Class<? extends Enum<?>>> additionalEnums = new ArrayList<>();
 
@@ -43,6 +42,14 @@ public class CodeGeneratorSetupBean implements IProjectBean {
             return this;
         }
 
+        /**
+         * Sets the catalog of helper methods loaded by the robot factory. If set, the helper method file is not read again.
+         */
+        public Builder setHelperMethodCatalog(HelperMethodCatalog helperMethodCatalog) {
+            this.helperMethodCatalog = helperMethodCatalog;
+            return this;
+        }
+
         public Builder addUsedMethods(Collection<Enum<?>> usedMethods) {
             this.codeGeneratorBean.usedMethods.addAll(usedMethods);
             return this;
@@ -59,18 +66,18 @@ public class CodeGeneratorSetupBean implements IProjectBean {
         }
 
         /**
-         * Builds a bean from the provided information. Creates a {@link HelperMethodGenerator} from the provided helper method file and file extension.
+         * Builds a bean from the provided information. Creates a {@link HelperMethodGenerator} from the provided helper method catalog (or, if no catalog is
+         * set, from the provided helper method file) and file extension.
          *
          * @return the finished bean
          */
         @Override
         public CodeGeneratorSetupBean build() {
-            Assert.notNull(this.helperMethodFile, "Helper method file has to be set");
+            Assert.isTrue(this.helperMethodCatalog != null || this.helperMethodFile != null, "Helper method catalog or file has to be set");
             Assert.notNull(this.fileExtension, "File extension has to be set");
 
-            JSONObject helperMethods = new JSONObject();
-            Util.loadYAMLRecursive("", helperMethods, this.helperMethodFile, true);
-            this.codeGeneratorBean.helperMethodGenerator = new HelperMethodGenerator(helperMethods, getLanguageFromFileExtension(this.fileExtension));
+            HelperMethodCatalog catalog = this.helperMethodCatalog != null ? this.helperMethodCatalog : HelperMethodCatalog.load(this.helperMethodFile);
+            this.codeGeneratorBean.helperMethodGenerator = new HelperMethodGenerator(catalog, getLanguageFromFileExtension(this.fileExtension));
             for ( Class<? extends Enum<?>> additionalEnum : this.additionalEnums ) {
                 this.codeGeneratorBean.helperMethodGenerator.addAdditionalEnum(additionalEnum);
             }
@@ -1,14 +1,11 @@
 package de.fhg.iais.roberta.components;
 
-import java.io.StringWriter;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
 
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -19,7 +16,6 @@ import com.google.common.collect.MutableClassToInstanceMap;
 
 import de.fhg.iais.roberta.bean.IProjectBean;
 import de.fhg.iais.roberta.blockly.generated.BlockSet;
-import de.fhg.iais.roberta.blockly.generated.Instance;
 import de.fhg.iais.roberta.factory.IRobotFactory;
 import de.fhg.iais.roberta.inter.mode.action.ILanguage;
 import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
@@ -29,9 +25,12 @@ import de.fhg.iais.roberta.transformer.Jaxb2ConfigurationAst;
 import de.fhg.iais.roberta.transformer.Jaxb2ProgramAst;
 import de.fhg.iais.roberta.typecheck.NepoInfo;
 import de.fhg.iais.roberta.util.Key;
+import de.fhg.iais.roberta.util.WorkflowMetrics;
 import de.fhg.iais.roberta.util.dbc.Assert;
 import de.fhg.iais.roberta.util.dbc.DbcException;
+import de.fhg.iais.roberta.util.jaxb.BlocklyXmlWriter;
 import de.fhg.iais.roberta.util.jaxb.JaxbHelper;
+import de.fhg.iais.roberta.util.jaxb.XmlValidationPolicy;
 
 /**
  * This class stores the AST representation of the program and the configuration as well as everything needed for executing workflows it contains the result of
@@ -40,6 +39,10 @@ import de.fhg.iais.roberta.util.jaxb.JaxbHelper;
 public final class Project {
 
     private static final Logger LOG = LoggerFactory.getLogger(Project.class);
+    /**
+     * name used in the {@link WorkflowMetrics} for the transformation of the XML into the AST
+     */
+    public static final String BUILD_WORKFLOW = "build";
     private final Map<String, JSONObject> confAnnotationList = new HashMap<String, JSONObject>();
     private final ClassToInstanceMap<IProjectBean> workerResults = MutableClassToInstanceMap.create();
     private final StringBuilder indentationBuilder = new StringBuilder();
@@ -65,54 +68,34 @@ public final class Project {
     private Project() {
     }
 
-    private static String jaxbToXml(BlockSet blockSet) throws JAXBException {
-        JAXBContext jaxbContext = JAXBContext.newInstance(BlockSet.class);
-        Marshaller marshaller = jaxbContext.createMarshaller();
-        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
-        StringWriter writer = new StringWriter();
-        marshaller.marshal(blockSet, writer);
-        return writer.toString();
-    }
-
-    private static BlockSet astToJaxb(ProgramAst<Void> program) {
+    private static String astToXml(ProgramAst<Void> program) throws JAXBException {
         Assert.notNull(program);
-        List<List<Phrase<Void>>> astProgram = program.getTree();
-        BlockSet blockSet = new BlockSet();
-        blockSet.setDescription(program.getDescription());
-        blockSet.setRobottype(program.getRobotType());
-        blockSet.setTags(program.getTags());
-        blockSet.setXmlversion(program.getXmlVersion());
-
-        for ( List<Phrase<Void>> tree : astProgram ) {
-            Instance instance = new Instance();
-            blockSet.getInstance().add(instance);
+        BlocklyXmlWriter writer = new BlocklyXmlWriter(program.getRobotType(), program.getXmlVersion(), program.getDescription(), program.getTags());
+        for ( List<Phrase<Void>> tree : program.getTree() ) {
+            Location<Void> location = null;
             for ( Phrase<Void> phrase : tree ) {
                 if ( phrase.getKind().hasName("LOCATION") ) {
-                    instance.setX(((Location<Void>) phrase).getX());
-                    instance.setY(((Location<Void>) phrase).getY());
+                    location = (Location<Void>) phrase;
                 }
-                instance.getBlock().add(phrase.astToBlock());
             }
+            writer.startInstance(location == null ? null : location.getX(), location == null ? null : location.getY());
+            for ( Phrase<Void> phrase : tree ) {
+                writer.writeBlock(phrase.astToBlock());
+            }
+            writer.endInstance();
         }
-        return blockSet;
+        return writer.finish();
     }
 
-    private static BlockSet astToJaxb(ConfigurationAst config) {
+    private static String astToXml(ConfigurationAst config) throws JAXBException {
         Assert.notNull(config);
-        Map<String, ConfigurationComponent> configurationComponents = config.getConfigurationComponents();
-        BlockSet blockSet = new BlockSet();
-        blockSet.setRobottype(config.getRobotType());
-        blockSet.setXmlversion(config.getXmlVersion());
-        blockSet.setDescription(config.getDescription());
-        blockSet.setTags(config.getTags());
-        for ( ConfigurationComponent configComp : configurationComponents.values() ) {
-            Instance instance = new Instance();
-            blockSet.getInstance().add(instance);
-            instance.setX(String.valueOf(configComp.getX()));
-            instance.setY(String.valueOf(configComp.getY()));
-            instance.getBlock().add(configComp.astToBlock());
+        BlocklyXmlWriter writer = new BlocklyXmlWriter(config.getRobotType(), config.getXmlVersion(), config.getDescription(), config.getTags());
+        for ( ConfigurationComponent configComp : config.getConfigurationComponents().values() ) {
+            writer.startInstance(String.valueOf(configComp.getX()), String.valueOf(configComp.getY()));
+            writer.writeBlock(configComp.astToBlock());
+            writer.endInstance();
         }
-        return blockSet;
+        return writer.finish();
     }
 
     public String getToken() {
@@ -268,7 +251,7 @@ public final class Project {
 
     public String getAnnotatedProgramAsXml() {
         try {
-            return jaxbToXml(astToJaxb(this.program));
+            return astToXml(this.program);
         } catch ( JAXBException e ) {
             throw new DbcException("Transformation of program AST into blockset and into XML failed.", e);
         }
@@ -276,7 +259,7 @@ public final class Project {
 
     public String getAnnotatedConfigurationAsXml() {
         try {
-            return jaxbToXml(astToJaxb(this.configuration));
+            return astToXml(this.configuration);
         } catch ( JAXBException e ) {
             throw new DbcException("Transformation of configuration AST into blockset and into XML failed.", e);
         }
@@ -297,6 +280,7 @@ public final class Project {
         private String programXml;
         private String programNativeSource;
         private String compiledProgramPath;
+        private XmlValidationPolicy xmlValidationPolicy = XmlValidationPolicy.FULL;
 
         public Builder setToken(String token) {
             this.project.token = token;
@@ -348,6 +332,15 @@ public final class Project {
             return this;
         }
 
+        /**
+         * @param xmlValidationPolicy how the program and configuration XML is checked. The default is {@link XmlValidationPolicy#FULL}, as the XML is
+         *        usually sent by a client. Use {@link XmlValidationPolicy#STREAMING} only for XML, that is stored already or created by the server
+         */
+        public Builder setXmlValidationPolicy(XmlValidationPolicy xmlValidationPolicy) {
+            this.xmlValidationPolicy = xmlValidationPolicy;
+            return this;
+        }
+
         public Builder setProgramXml(String programXml) {
             this.programXml = programXml;
             return this;
@@ -377,11 +370,18 @@ public final class Project {
                 Assert.isNull(this.programXml, "Program XML should not be set when using native compile");
                 this.project.setSourceCode(this.programNativeSource);
             } else { // STANDARD CASE - Used to follow the default generation, compilation, run from blockly
+                String robot = this.project.robotFactory == null ? null : this.project.robotFactory.getPluginProperties().getRobotName();
                 if ( this.project.configuration == null ) {
+                    long startNanos = System.nanoTime();
+                    long startBytes = WorkflowMetrics.allocatedBytes();
                     transformConfiguration();
+                    WorkflowMetrics.record(robot, BUILD_WORKFLOW, "transformConfiguration", startNanos, startBytes);
                 }
                 if ( this.project.program == null ) {
+                    long startNanos = System.nanoTime();
+                    long startBytes = WorkflowMetrics.allocatedBytes();
                     transformProgram();
+                    WorkflowMetrics.record(robot, BUILD_WORKFLOW, "transformProgram", startNanos, startBytes);
                 }
             }
             return this.project;
@@ -395,7 +395,7 @@ public final class Project {
                 this.project.result = Key.COMPILERWORKFLOW_ERROR_PROGRAM_NOT_FOUND;
             } else {
                 try {
-                    BlockSet blockSet = JaxbHelper.xml2BlockSet(this.programXml);
+                    BlockSet blockSet = JaxbHelper.xml2BlockSet(this.programXml, this.xmlValidationPolicy);
                     // Assume any program without or an empty xmlVersion is 2.0
                     String xmlversion = blockSet.getXmlversion();
                     if ( (xmlversion == null) || xmlversion.isEmpty() ) {
@@ -418,7 +418,7 @@ public final class Project {
                 this.project.result = Key.COMPILERWORKFLOW_ERROR_CONFIGURATION_NOT_FOUND;
             } else {
                 try {
-                    BlockSet blockSet = JaxbHelper.xml2BlockSet(this.configurationXml);
+                    BlockSet blockSet = JaxbHelper.xml2BlockSet(this.configurationXml, this.xmlValidationPolicy);
                     // Assume any program without or an empty xmlVersion is 2.0
                     String xmlversion = blockSet.getXmlversion();
                     if ( (xmlversion == null) || xmlversion.isEmpty() ) {
@@ -429,7 +429,7 @@ public final class Project {
                         // if the program has a new configuration but still has the old top block in the XML, the new default configuration should be loaded
                         if ( topBlock != null ) {
                             if ( this.configurationXml.contains(topBlock) ) {
-                                blockSet = JaxbHelper.xml2BlockSet(this.project.robotFactory.getConfigurationDefault());
+                                blockSet = JaxbHelper.xml2BlockSet(this.project.robotFactory.getConfigurationDefault(), this.xmlValidationPolicy);
                             }
                         }
                         this.project.configuration = Jaxb2ConfigurationAst.blocks2NewConfig(blockSet, this.project.robotFactory.getBlocklyDropdownFactory());
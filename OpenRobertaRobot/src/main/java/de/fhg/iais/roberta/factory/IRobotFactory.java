@@ -3,6 +3,7 @@ package de.fhg.iais.roberta.factory;
 import java.util.List;
 import java.util.Set;
 
+import de.fhg.iais.roberta.util.HelperMethodCatalog;
 import de.fhg.iais.roberta.util.PluginProperties;
 import de.fhg.iais.roberta.worker.IWorker;
 
@@ -95,6 +96,13 @@ public interface IRobotFactory {
      */
     String getFirmwareDefaultProgramName();
 
+    /**
+     * Returns the helper methods of this robot, loaded once from the file given by the property "robot.helperMethods".
+     *
+     * @return the catalog of helper methods, null if the robot has no helper methods
+     */
+    HelperMethodCatalog getHelperMethodCatalog();
+
     List<IWorker> getWorkerPipe(String workflow);
 
     /**
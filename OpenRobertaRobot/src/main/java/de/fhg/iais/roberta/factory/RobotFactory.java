@@ -12,10 +12,12 @@ import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import de.fhg.iais.roberta.util.HelperMethodCatalog;
 import de.fhg.iais.roberta.util.PluginProperties;
 import de.fhg.iais.roberta.util.Util;
 import de.fhg.iais.roberta.util.dbc.Assert;
 import de.fhg.iais.roberta.util.dbc.DbcException;
+import de.fhg.iais.roberta.worker.FusedValidatorCollectorWorker;
 import de.fhg.iais.roberta.worker.IWorker;
 
 public class RobotFactory implements IRobotFactory {
@@ -28,6 +30,7 @@ public class RobotFactory implements IRobotFactory {
     protected final String programDefault;
     protected final String configurationToolbox;
     protected final String configurationDefault;
+    protected final HelperMethodCatalog helperMethodCatalog;
     protected Map<String, IWorker> workers = new HashMap<>(); //worker type to implementing class(es) collect->de.fhg.iais.roberta.visitor.collect.Ev3UsedHardwareCollectorWorker
     protected Map<String, List<String>> workflows = new HashMap<>(); //workflow name to a list of types of applicable workers: showsource->collect,generate
 
@@ -39,6 +42,8 @@ public class RobotFactory implements IRobotFactory {
         this.programDefault = Util.readResourceContent(this.pluginProperties.getStringProperty("robot.program.default"));
         this.configurationToolbox = Util.readResourceContent(this.pluginProperties.getStringProperty("robot.configuration.toolbox"));
         this.configurationDefault = Util.readResourceContent(this.pluginProperties.getStringProperty("robot.configuration.default"));
+        String helperMethodFile = this.pluginProperties.getStringProperty("robot.helperMethods");
+        this.helperMethodCatalog = helperMethodFile == null ? null : HelperMethodCatalog.load(helperMethodFile);
         loadWorkers();
     }
 
@@ -227,7 +232,30 @@ public class RobotFactory implements IRobotFactory {
                 this.workflows.put(workflowName, Stream.of(v.toString().trim().split("\\s*,\\s*")).collect(Collectors.toList()));
             }
         });
+        loadFusedWorkers();
+    }
+
+    /**
+     * a workflow step like "validate.robot+collect.hardware+collect.method" executes the workers in one pass over the AST, see
+     * {@link FusedValidatorCollectorWorker}
+     */
+    private void loadFusedWorkers() {
+        this.workflows.values().forEach(workerTypes -> workerTypes.forEach(workerType -> {
+            if ( workerType.contains("+") && !this.workers.containsKey(workerType) ) {
+                List<IWorker> fusedWorkers = new ArrayList<>();
+                for ( String fusedWorkerType : workerType.split("\\s*\\+\\s*") ) {
+                    IWorker worker = this.workers.get(fusedWorkerType);
+                    Assert.notNull(worker, "Worker for type %s is null, check the properties, worker names may not match", fusedWorkerType);
+                    fusedWorkers.add(worker);
+                }
+                this.workers.put(workerType, new FusedValidatorCollectorWorker(fusedWorkers));
+            }
+        }));
+    }
 
+    @Override
+    public final HelperMethodCatalog getHelperMethodCatalog() {
+        return this.helperMethodCatalog;
     }
 
     @Override
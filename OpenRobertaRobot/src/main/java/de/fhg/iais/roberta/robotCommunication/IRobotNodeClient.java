@@ -0,0 +1,45 @@
+package de.fhg.iais.roberta.robotCommunication;
+
+import org.json.JSONObject;
+
+import de.fhg.iais.roberta.util.Key;
+
+/**
+ * forwards commands of browser sessions to the node of a cluster, that owns the robot token, see {@link IRobotTokenDirectory}. The methods mirror the
+ * methods of {@link RobotCommunicator}, that the owning node executes. Implementations must be thread-safe.
+ */
+public interface IRobotNodeClient {
+    /**
+     * @see RobotCommunicator#aTokenAgreementWasSent(String, String)
+     * @param node the owning node
+     * @return the result of the owning node. {@link Key#TOKEN_SET_ERROR_NO_ROBOT_WAITING}, if the node is not reachable
+     */
+    Key aTokenAgreementWasSent(String node, String token, String robot);
+
+    /**
+     * @see RobotCommunicator#run(String, String, String)
+     * @param node the owning node
+     * @return the result of the owning node. {@link Key#ROBOT_NOT_CONNECTED}, if the node is not reachable
+     */
+    Key run(String node, String token, String robotName, String programName);
+
+    /**
+     * @see RobotCommunicator#disconnect(String)
+     * @param node the owning node
+     */
+    void disconnect(String node, String token);
+
+    /**
+     * @see RobotCommunicator#firmwareUpdateRequested(String)
+     * @param node the owning node
+     * @return the result of the owning node. false, if the node is not reachable
+     */
+    boolean firmwareUpdateRequested(String node, String token);
+
+    /**
+     * @see RobotCommunicator#getRobotInfo(String)
+     * @param node the owning node
+     * @return the info of the owning node about the robot. null, if the robot is not connected or the node is not reachable
+     */
+    JSONObject getRobotInfo(String node, String token);
+}
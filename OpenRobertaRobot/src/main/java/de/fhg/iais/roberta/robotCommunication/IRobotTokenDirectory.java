@@ -0,0 +1,33 @@
+package de.fhg.iais.roberta.robotCommunication;
+
+/**
+ * the backend shared by the nodes of a cluster of servers, that knows which node owns a robot token. The {@link RobotCommunicationData} of a robot lives on
+ * the node, that received the registration of the robot, because the long poll requests of the robot are parked there. A node receiving a command of a
+ * browser for a token it doesn't own, asks the directory for the owner and forwards the command by a {@link IRobotNodeClient}.<br>
+ * <br>
+ * Implementations must be thread-safe. {@link InMemoryRobotTokenDirectory} is the default for a single node and the stand-in for a shared backend in tests.
+ */
+public interface IRobotTokenDirectory {
+    /**
+     * claim a token for a node. Must be atomic: if two nodes claim the same token concurrently, at most one succeeds
+     *
+     * @param token the token presented by a robot, never null
+     * @param node the identification of the claiming node, never null
+     * @return true, if the token was free or is owned by the node already; false, if another node owns the token
+     */
+    boolean claim(String token, String node);
+
+    /**
+     * @param token the token, never null
+     * @return the node owning the token; null, if the token is not owned by any node
+     */
+    String getOwner(String token);
+
+    /**
+     * release a token, if it is owned by the node. Otherwise nothing happens
+     *
+     * @param token the token, never null
+     * @param node the identification of the releasing node, never null
+     */
+    void release(String token, String node);
+}
@@ -0,0 +1,28 @@
+package de.fhg.iais.roberta.robotCommunication;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * a {@link IRobotTokenDirectory}, that keeps the owners in memory. Sufficient for a single node. In tests one object shared by several
+ * {@link RobotCommunicator}s simulates the shared backend of a cluster.
+ */
+public class InMemoryRobotTokenDirectory implements IRobotTokenDirectory {
+    private final Map<String, String> ownerByToken = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean claim(String token, String node) {
+        String owner = this.ownerByToken.putIfAbsent(token, node);
+        return owner == null || owner.equals(node);
+    }
+
+    @Override
+    public String getOwner(String token) {
+        return this.ownerByToken.get(token);
+    }
+
+    @Override
+    public void release(String token, String node) {
+        this.ownerByToken.remove(token, node);
+    }
+}
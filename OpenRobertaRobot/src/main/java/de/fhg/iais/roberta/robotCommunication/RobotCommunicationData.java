@@ -1,5 +1,11 @@
 package de.fhg.iais.roberta.robotCommunication;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,11 +15,15 @@ import de.fhg.iais.roberta.util.Clock;
 /**
  * This class is responsible for the synchronisation between the one browser client and one robot. The synchronisation is based on a agreed upon token. This
  * token is stored redundantly in objects of this class.<br>
- * As no push technology to the robot is available, the robot issues a push request command, the thread acting upon this request is frozen and waits until the
- * user has issued a command in the browser (in most cases a run) or a timer expires . This unfreezes the thread and the responses tells the robot what to do.
- * E.g. if a run command has been issued, the already generated jar is requested to be downloaded to the robot.<br>
+ * As no push technology to the robot is available, the robot issues a push request command. The request is suspended (long polling) until the user has
+ * issued a command in the browser (in most cases a run) or a timer expires. This completes the future of the request and the response tells the robot what
+ * to do. E.g. if a run command has been issued, the already generated jar is requested to be downloaded to the robot.<br>
  * <br>
- * TODO: This implementation is resource intensive as it freezes an expensive resource, namely a thread. It should be replaced later by async technology.
+ * The requests of the robot are handled as an event-driven state machine: a pending request is a {@link CompletableFuture}, that is completed by the events
+ * "user approved the token", "run button pressed", "disconnect" or by a timeout. No thread is blocked while a robot waits. Thus thousands of idle robots cost
+ * memory, not threads.<br>
+ * A command of the user, that arrives while the robot is between two push requests, is queued and delivered with the next push request. The server thread
+ * of the user never waits for the robot.
  *
  * @author rbudde
  */
@@ -22,6 +32,11 @@ public class RobotCommunicationData {
     private static final int TIMEOUT_UNTIL_TOKEN_EXPIRES_WHEN_USER_DOESNT_APPROVE = 300000;
     private static final int TIMEOUT_UNTIL_ASSUME_DISCONNECTED_IF_ROBOT_DOESNT_PUSH = 10000;
     private static final int PUSH_TIMEOUT_INTERVALL = 10000;
+    private static final String CMD_REPEAT = "repeat";
+    private static final String CMD_DOWNLOAD = "download";
+    private static final String CMD_UPDATE = "update";
+    // one thread for the timeouts of all pending robot requests. Completing a request must be cheap, e.g. dispatch the response to the container
+    private static final ScheduledExecutorService TIMEOUTS = createTimeoutScheduler();
 
     private final String token;
     private final String robot;
@@ -32,6 +47,7 @@ public class RobotCommunicationData {
     private final String firmwarename;
     private final String firmwareversion;
     private JSONObject sensorvalues;
+    private final SensorTelemetry sensorTelemetry = new SensorTelemetry();
     private int nepoExitValue;
 
     private Clock timerStartedByLastRequest;
@@ -43,6 +59,13 @@ public class RobotCommunicationData {
     private String command;
     private String programName;
 
+    private CompletableFuture<Boolean> pendingTokenApproval;
+    private ScheduledFuture<?> pendingTokenApprovalTimeout;
+    private CompletableFuture<String> pendingPush;
+    private ScheduledFuture<?> pendingPushTimeout;
+    private State stateAfterDeliveryOfQueuedCommand;
+    private ScheduledFuture<?> queuedCommandTimeout;
+
     public RobotCommunicationData(
         String token,
         String robot,
@@ -74,87 +97,104 @@ public class RobotCommunicationData {
     }
 
     /**
-     * BLOCKING a REQUEST from a ROBOT. Called from a thread, which is triggered by a ROBOT, that presents a token for approval and waits:<br>
-     * - for a timeout. Then token is not expected<br>
-     * - until the user approved the token or denied it
+     * ASYNCHRONOUS REQUEST from a ROBOT, that presents a token for approval. The returned future is completed:<br>
+     * - after a timeout. Then the token is not expected<br>
+     * - when the user approved the token or the robot was disconnected
      *
-     * @return true, if user approved the token; false otherwise
+     * @return future, that is completed with true, if user approved the token; false otherwise. The future is never completed while the lock of this object
+     *         is held
      */
-    public synchronized boolean robotTokenAgreementRequest() {
-        LOG.info("ROBOT_RCD: robot [" + this.robotIdentificator + "] sends token " + this.token + " and waits for the user to approve it");
-        this.state = State.WAIT_FOR_TOKENAPPROVAL_FROM_USER;
-        this.timerStartedByLastRequest = Clock.start();
-        while ( this.state == State.WAIT_FOR_TOKENAPPROVAL_FROM_USER //
-            && this.timerStartedByLastRequest.elapsedMsec() < TIMEOUT_UNTIL_TOKEN_EXPIRES_WHEN_USER_DOESNT_APPROVE ) //
-        {
-            try {
-                wait(TIMEOUT_UNTIL_TOKEN_EXPIRES_WHEN_USER_DOESNT_APPROVE);
-            } catch ( InterruptedException e ) { //NOSONAR : repeat the loop until timer elapses or another thread changed the state
-                LOG
-                    .info(
-                        "ROBOT_RCD: spurious interrupt in robotTokenAgreementRequest. Restarting the wait for "
-                            + TIMEOUT_UNTIL_TOKEN_EXPIRES_WHEN_USER_DOESNT_APPROVE
-                            + " msec");
+    public CompletableFuture<Boolean> robotTokenAgreementRequest() {
+        CompletableFuture<Boolean> approval = new CompletableFuture<>();
+        CompletableFuture<Boolean> replacedApproval;
+        synchronized ( this ) {
+            if ( this.state == State.GARBAGE ) {
+                // replaced by a concurrent registration of the same robot or disconnected before the request started
+                return CompletableFuture.completedFuture(false);
             }
+            LOG.info("ROBOT_RCD: robot [" + this.robotIdentificator + "] sends token " + this.token + " and waits for the user to approve it");
+            this.state = State.WAIT_FOR_TOKENAPPROVAL_FROM_USER;
+            this.timerStartedByLastRequest = Clock.start();
+            replacedApproval = takePendingTokenApproval();
+            this.pendingTokenApproval = approval;
+            this.pendingTokenApprovalTimeout =
+                TIMEOUTS.schedule(() -> tokenApprovalTimedOut(approval), TIMEOUT_UNTIL_TOKEN_EXPIRES_WHEN_USER_DOESNT_APPROVE, TimeUnit.MILLISECONDS);
         }
-        if ( this.state == State.WAIT_FOR_PUSH_CMD_FROM_ROBOT ) {
-            LOG.info("ROBOT_RCD: robot [" + this.robotIdentificator + "] has sent token " + this.token + ". User agreed on that. SUCCESS");
-            return true;
-        } else if ( this.state == State.WAIT_FOR_TOKENAPPROVAL_FROM_USER ) {
+        complete(replacedApproval, false);
+        return approval;
+    }
+
+    private void tokenApprovalTimedOut(CompletableFuture<Boolean> approval) {
+        synchronized ( this ) {
+            if ( this.pendingTokenApproval != approval ) {
+                return; // completed already
+            }
             LOG.info("ROBOT_RCD: robot [" + this.robotIdentificator + "] has sent token " + this.token + ". Timed out!");
-            abort();
-            return false;
-        } else {
-            LOG
-                .info(
-                    "ROBOT_RCD: robot ["
-                        + this.robotIdentificator
-                        + "] has sent token "
-                        + this.token
-                        + " "
-                        + this.timerStartedByLastRequest.elapsedMsecFormatted()
-                        + " ago, but we force the robot to be disconnected, because state "
-                        + this.state
-                        + " is unexpected");
-            abort();
-            return false;
         }
+        abort();
     }
 
     /**
-     * NO WAITING: method called from a server thread. This method wakes up the thread serving the robot request for token approval
+     * NO WAITING: method called from a server thread. This method completes the pending token approval request of the robot
      */
-    public synchronized void userApprovedTheRobotToken() {
-        if ( this.state == State.WAIT_FOR_TOKENAPPROVAL_FROM_USER ) {
-            LOG.info("ROBOT_RCD: user approved the token. The approval request was scheduled " + this.timerStartedByLastRequest.elapsedSecFormatted() + " ago");
-            this.state = State.WAIT_FOR_PUSH_CMD_FROM_ROBOT;
-            this.timerStartedByLastRequest = Clock.start();
-            this.timerStartedByTokenApproval = Clock.start();
-            notifyAll();
-        } else {
-            LOG
-                .error(
-                    "ROBOT_RCD: user approval arrived, but is not expected. State is: "
-                        + this.state
-                        + ". Last request was scheduled "
-                        + this.timerStartedByLastRequest.elapsedSecFormatted()
-                        + " ago");
+    public void userApprovedTheRobotToken() {
+        CompletableFuture<Boolean> approval = null;
+        synchronized ( this ) {
+            if ( this.state == State.WAIT_FOR_TOKENAPPROVAL_FROM_USER ) {
+                LOG
+                    .info(
+                        "ROBOT_RCD: user approved the token. The approval request was scheduled " + this.timerStartedByLastRequest.elapsedSecFormatted() + " ago");
+                LOG.info("ROBOT_RCD: robot [" + this.robotIdentificator + "] has sent token " + this.token + ". User agreed on that. SUCCESS");
+                this.state = State.WAIT_FOR_PUSH_CMD_FROM_ROBOT;
+                this.timerStartedByLastRequest = Clock.start();
+                this.timerStartedByTokenApproval = Clock.start();
+                approval = takePendingTokenApproval();
+            } else {
+                LOG
+                    .error(
+                        "ROBOT_RCD: user approval arrived, but is not expected. State is: "
+                            + this.state
+                            + ". Last request was scheduled "
+                            + this.timerStartedByLastRequest.elapsedSecFormatted()
+                            + " ago");
+            }
         }
+        complete(approval, true);
     }
 
     /**
-     * causes WAITING of a ROBOT. Called from a thread, which is triggered by a ROBOT /pushcmd command request. The thread waits:<br>
-     * - for a timeout. Then the robot should repeat the command<br>
-     * - for a RUN command from the user
+     * ASYNCHRONOUS REQUEST from a ROBOT. Called when a ROBOT sends a /pushcmd command request. The returned future is completed:<br>
+     * - after a timeout. Then the robot should repeat the command<br>
+     * - when the user issues a RUN command or the robot is disconnected
+     *
+     * @return future, that is completed with the command for the robot. The command may be null, if the robot is not connected. The future is never completed
+     *         while the lock of this object is held
      */
-    public synchronized void robotHasSentAPushRequest() {
-        if ( this.state == State.WAIT_FOR_TOKENAPPROVAL_FROM_USER ) {
-            LOG
-                .info(
-                    "ROBOT_RCD: robot has sent a push request, but the server is waiting for a token approval from the user. The request is ignored. Waiting started "
-                        + this.timerStartedByLastRequest.elapsedSecFormatted()
-                        + " ago. ");
-        } else {
+    public CompletableFuture<String> robotHasSentAPushRequest() {
+        CompletableFuture<String> push = new CompletableFuture<>();
+        CompletableFuture<String> replacedPush;
+        synchronized ( this ) {
+            if ( this.state == State.WAIT_FOR_TOKENAPPROVAL_FROM_USER ) {
+                LOG
+                    .info(
+                        "ROBOT_RCD: robot has sent a push request, but the server is waiting for a token approval from the user. The request is ignored. Waiting started "
+                            + this.timerStartedByLastRequest.elapsedSecFormatted()
+                            + " ago. ");
+                return CompletableFuture.completedFuture(this.command);
+            }
+            if ( this.state == State.COMMAND_QUEUED_FOR_ROBOT ) {
+                LOG
+                    .info(
+                        "ROBOT_RCD: robot has sent a push request. The queued command "
+                            + this.command
+                            + " is delivered. The last request was scheduled "
+                            + this.timerStartedByLastRequest.elapsedSecFormatted()
+                            + " ago");
+                this.state = this.stateAfterDeliveryOfQueuedCommand;
+                this.timerStartedByLastRequest = Clock.start();
+                takeQueuedCommandTimeout();
+                return CompletableFuture.completedFuture(this.command);
+            }
             if ( this.state != State.WAIT_FOR_PUSH_CMD_FROM_ROBOT && this.state != State.ROBOT_IS_BUSY ) {
                 LOG
                     .info(
@@ -166,89 +206,162 @@ public class RobotCommunicationData {
             }
             this.state = State.ROBOT_WAITING_FOR_PUSH_FROM_SERVER;
             this.timerStartedByLastRequest = Clock.start();
-            while ( this.state == State.ROBOT_WAITING_FOR_PUSH_FROM_SERVER ) {
-                try {
-                    wait(PUSH_TIMEOUT_INTERVALL);
-                    if ( this.state == State.ROBOT_WAITING_FOR_PUSH_FROM_SERVER ) {
-                        this.state = State.WAIT_FOR_PUSH_CMD_FROM_ROBOT;
-                        this.command = "repeat";
-                    }
-                    break;
-                } catch ( InterruptedException e ) { //NOSONAR : repeat the loop until another thread changed the state
-                    LOG.info("ROBOT_RCD: spurious interrupt in robotHasSentAPushRequest. Restarting the wait for " + PUSH_TIMEOUT_INTERVALL + " msec");
-                }
+            replacedPush = takePendingPush();
+            this.pendingPush = push;
+            this.pendingPushTimeout = TIMEOUTS.schedule(() -> pushTimedOut(push), PUSH_TIMEOUT_INTERVALL, TimeUnit.MILLISECONDS);
+        }
+        complete(replacedPush, CMD_REPEAT); // the robot doesn't wait for the old request anymore
+        return push;
+    }
+
+    private void pushTimedOut(CompletableFuture<String> push) {
+        String command;
+        synchronized ( this ) {
+            if ( this.pendingPush != push ) {
+                return; // completed already
+            }
+            takePendingPush();
+            if ( this.state == State.ROBOT_WAITING_FOR_PUSH_FROM_SERVER ) {
+                this.state = State.WAIT_FOR_PUSH_CMD_FROM_ROBOT;
+                this.command = CMD_REPEAT;
+                // the robot is asked to push again now. It is probably disconnected, if it doesn't within the timeout, counted from now
+                this.timerStartedByLastRequest = Clock.start();
             }
+            command = this.command;
         }
+        complete(push, command);
     }
 
     /**
-     * NO WAITING: this object is outdated. This method is called to abort an eventually pending request from a robot. The notifyAll is for that. This object
-     * will be removed from the map holding all valid robot-server connection.
+     * NO WAITING: this object is outdated. This method is called to abort an eventually pending request from a robot. This object will be removed from the map
+     * holding all valid robot-server connection.
      */
-    public synchronized void abort() {
-        this.state = State.GARBAGE;
-        notifyAll();
+    public void abort() {
+        CompletableFuture<Boolean> approval;
+        CompletableFuture<String> push;
+        String command;
+        synchronized ( this ) {
+            this.state = State.GARBAGE;
+            approval = takePendingTokenApproval();
+            push = takePendingPush();
+            takeQueuedCommandTimeout();
+            command = this.command;
+        }
+        complete(approval, false);
+        complete(push, command);
     }
 
     /**
-     * NO WAITING: method called from a server thread. This method terminates immediately (if the robot waits for a push command) or after 1 sec (if we expect a
-     * push command in the very near future. It wakes up the thread, which runs on behalf of a push command request from the robot.
+     * NO WAITING: method called from a server thread. If the robot waits for a push command, its pending request is completed with a "download" command.
+     * If the robot is between two push requests, the command is queued and delivered with the next push request. The client sees the delivery as robot state
+     * "busy", an expired command as robot state "disconnected".
      *
-     * @return true, if the robot was waiting for a "run" command, false otherwise
+     * @return true, if the command was delivered or queued; false, if the robot is busy or probably disconnected
      */
-    public synchronized boolean runButtonPressed(String programName) {
-        if ( !isRobotWaitingForPushCommandNowOrWithinTheNextSecond() ) {
-            LOG.info("RUN button pressed, but robot is not waiting for that event. Bad luck!");
-            return false;
-        } else {
-            LOG
-                .info(
-                    "RUN button pressed and robot is waiting for that event. Wait state entered "
-                        + this.timerStartedByLastRequest.elapsedSecFormatted()
-                        + " ago");
-            this.command = "download";
+    public boolean runButtonPressed(String programName) {
+        CompletableFuture<String> push;
+        synchronized ( this ) {
+            if ( !isRobotAcceptingACommand() ) {
+                LOG.info("RUN button pressed, but robot is not waiting for that event. Bad luck!");
+                return false;
+            }
+            this.command = CMD_DOWNLOAD;
             this.programName = programName;
-            this.timerStartedByLastRequest = Clock.start();
-            this.state = State.ROBOT_IS_BUSY;
-            notifyAll();
-            return true;
+            push = deliverOrQueueCommand(State.ROBOT_IS_BUSY);
         }
+        complete(push, CMD_DOWNLOAD);
+        return true;
     }
 
     /**
-     * method called from a server thread. This method terminates immediately (if the robot waits for a push command) or after 1 sec (if we expect a push
-     * command in the very near future. It wakes up the thread, which runs on behalf of a push command request from the robot.
+     * NO WAITING: method called from a server thread. Like {@link #runButtonPressed(String)}, but with an "update" command. The robot is disconnected after the
+     * update was delivered.
      *
      * @return true, if the update is accepted; false otherwise
      */
-    public synchronized boolean firmwareUpdate() {
-        if ( !isRobotWaitingForPushCommandNowOrWithinTheNextSecond() ) {
-            LOG.info("UPDATE button pressed, but the robot is not waiting. Bad luck!");
-            return false;
-        } else {
-            LOG.info("UPDATE button pressed. Wait state entered " + this.timerStartedByLastRequest.elapsedSecFormatted() + " ago");
-            this.command = "update";
+    public boolean firmwareUpdate() {
+        CompletableFuture<String> push;
+        synchronized ( this ) {
+            if ( !isRobotAcceptingACommand() ) {
+                LOG.info("UPDATE button pressed, but the robot is not waiting. Bad luck!");
+                return false;
+            }
+            this.command = CMD_UPDATE;
+            push = deliverOrQueueCommand(State.GARBAGE);
+        }
+        complete(push, CMD_UPDATE);
+        return true;
+    }
+
+    /**
+     * deliver the command of the user to the waiting robot or queue it for the next push request of the robot. Must be called while the lock of this object is
+     * held
+     *
+     * @param stateAfterDelivery the state of the robot after it received the command
+     * @return the pending push request of the robot to be completed with the command outside of the lock; null, if the command was queued
+     */
+    private CompletableFuture<String> deliverOrQueueCommand(State stateAfterDelivery) {
+        if ( this.state == State.ROBOT_WAITING_FOR_PUSH_FROM_SERVER ) {
+            LOG.info("ROBOT_RCD: command " + this.command + " delivered. Wait state entered " + this.timerStartedByLastRequest.elapsedSecFormatted() + " ago");
+            this.state = stateAfterDelivery;
             this.timerStartedByLastRequest = Clock.start();
+            return takePendingPush();
+        }
+        long msecUntilDisconnected = Math.max(0, TIMEOUT_UNTIL_ASSUME_DISCONNECTED_IF_ROBOT_DOESNT_PUSH - getElapsedMsecOfStartOfLastRequest());
+        LOG.info("ROBOT_RCD: command " + this.command + " queued. The robot must send a push request within " + msecUntilDisconnected + " msec");
+        this.state = State.COMMAND_QUEUED_FOR_ROBOT;
+        this.stateAfterDeliveryOfQueuedCommand = stateAfterDelivery;
+        this.queuedCommandTimeout = TIMEOUTS.schedule(this::queuedCommandTimedOut, msecUntilDisconnected, TimeUnit.MILLISECONDS);
+        return null;
+    }
+
+    private synchronized void queuedCommandTimedOut() {
+        if ( this.state == State.COMMAND_QUEUED_FOR_ROBOT ) {
+            LOG.info("ROBOT_RCD: robot [" + this.robotIdentificator + "] didn't fetch the queued command " + this.command + ". It is dropped");
+            this.state = State.WAIT_FOR_PUSH_CMD_FROM_ROBOT;
+            this.command = CMD_REPEAT;
+            this.queuedCommandTimeout = null;
+        }
+    }
 
-            // the robot is disconnected after firmware update
-            abort();
-            return true;
+    private CompletableFuture<Boolean> takePendingTokenApproval() {
+        CompletableFuture<Boolean> approval = this.pendingTokenApproval;
+        if ( approval != null ) {
+            this.pendingTokenApproval = null;
+            this.pendingTokenApprovalTimeout.cancel(false);
+        }
+        return approval;
+    }
+
+    private CompletableFuture<String> takePendingPush() {
+        CompletableFuture<String> push = this.pendingPush;
+        if ( push != null ) {
+            this.pendingPush = null;
+            this.pendingPushTimeout.cancel(false);
+        }
+        return push;
+    }
+
+    private void takeQueuedCommandTimeout() {
+        if ( this.queuedCommandTimeout != null ) {
+            this.queuedCommandTimeout.cancel(false);
+            this.queuedCommandTimeout = null;
+        }
+    }
+
+    private static <T> void complete(CompletableFuture<T> request, T result) {
+        if ( request != null ) {
+            request.complete(result);
         }
     }
 
     /**
-     * is the robot waiting for a push command? In the case, that WE expect the push within the next second, WE will wait a second and check again
+     * can a command of the user be delivered now or queued for the next push request of the robot? Must be called while the lock of this object is held
      *
-     * @return true, if the robot is waiting for a push command
+     * @return true, if the robot waits for a push command or is expected to send its next push request soon
      */
-    private boolean isRobotWaitingForPushCommandNowOrWithinTheNextSecond() {
-        if ( this.state == State.WAIT_FOR_PUSH_CMD_FROM_ROBOT ) {
-            try {
-                wait(TIMEOUT_UNTIL_ASSUME_DISCONNECTED_IF_ROBOT_DOESNT_PUSH);
-            } catch ( InterruptedException e ) { //NOSONAR : expect, that the robot is waiting for a server push
-            }
-        }
-        return this.state == State.ROBOT_WAITING_FOR_PUSH_FROM_SERVER;
+    private boolean isRobotAcceptingACommand() {
+        return this.state == State.ROBOT_WAITING_FOR_PUSH_FROM_SERVER || this.state == State.WAIT_FOR_PUSH_CMD_FROM_ROBOT && !isRobotProbablyDisconnected();
     }
 
     /**
@@ -285,8 +398,12 @@ public class RobotCommunicationData {
         this.battery = battery;
     }
 
+    /**
+     * set the most recent sensor values of the robot. They are added to the history, too
+     */
     public void setSensorValues(JSONObject sensorvalues) {
         this.sensorvalues = sensorvalues;
+        this.sensorTelemetry.add(System.currentTimeMillis(), sensorvalues);
     }
 
     public void setNepoExitValue(int nepoExitValue) {
@@ -341,14 +458,28 @@ public class RobotCommunicationData {
         return this.sensorvalues;
     }
 
+    public SensorTelemetry getSensorTelemetry() {
+        return this.sensorTelemetry;
+    }
+
     public int getNepoExitValue() {
         return this.nepoExitValue;
     }
 
+    private static ScheduledExecutorService createTimeoutScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "robot-request-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
     /**
      * the states of communication between the robot and the browser client.
      */
     public enum State {
-        WAIT_FOR_TOKENAPPROVAL_FROM_USER, WAIT_FOR_PUSH_CMD_FROM_ROBOT, ROBOT_WAITING_FOR_PUSH_FROM_SERVER, ROBOT_IS_BUSY, GARBAGE;
+        WAIT_FOR_TOKENAPPROVAL_FROM_USER, WAIT_FOR_PUSH_CMD_FROM_ROBOT, ROBOT_WAITING_FOR_PUSH_FROM_SERVER, COMMAND_QUEUED_FOR_ROBOT, ROBOT_IS_BUSY, GARBAGE;
     }
 }
\ No newline at end of file
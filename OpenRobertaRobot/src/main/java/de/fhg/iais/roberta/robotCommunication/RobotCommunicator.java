@@ -5,14 +5,17 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.fhg.iais.roberta.robotCommunication.RobotCommunicationData.State;
 import de.fhg.iais.roberta.util.Key;
+import de.fhg.iais.roberta.util.MetricsRegistry;
 import de.fhg.iais.roberta.util.dbc.Assert;
 
 /**
@@ -26,14 +29,57 @@ import de.fhg.iais.roberta.util.dbc.Assert;
 public class RobotCommunicator {
     private static final Logger LOG = LoggerFactory.getLogger(RobotCommunicator.class);
 
+    private static final int NUMBER_OF_REGISTRATION_LOCKS = 64;
+    private static final State[] STATES = State.values();
+    private static final long REMOTE_ROBOT_INFO_TTL_MSEC = 2000;
+    private static final int MAX_REMOTE_ROBOT_INFOS = 10000;
+    private static final MetricsRegistry.Counter REGISTRATIONS =
+        MetricsRegistry.getInstance().counter("roberta_robot_registrations_total", "register requests of robots, that were accepted for approval");
+    private static final MetricsRegistry.Counter PUSH_REQUESTS =
+        MetricsRegistry.getInstance().counter("roberta_robot_push_requests_total", "push requests of robots, that have a matching state");
+    private static final MetricsRegistry.Counter UNKNOWN_PUSH_REQUESTS =
+        MetricsRegistry.getInstance().counter("roberta_robot_unknown_push_requests_total", "push requests of robots without a matching state");
+
     private final Map<String, RobotCommunicationData> allStates = new ConcurrentHashMap<>();
+    // index from robot identificator (mac address) to token. Maintained for identificators, which identify one robot, see isUniqueIdentificator()
+    private final Map<String, String> tokenByIdentificator = new ConcurrentHashMap<>();
+    // registrations of the same robot are serialized by one of these locks. Registrations of different robots run in parallel
+    private final Object[] registrationLocks = new Object[NUMBER_OF_REGISTRATION_LOCKS];
+    // info about robots, whose tokens are not owned by this node. Is requested at most once per REMOTE_ROBOT_INFO_TTL_MSEC, as it is needed for every REST
+    // response of the browser. That no robot is connected is cached, too. Commands for a token remove its entry
+    private final Map<String, RemoteRobotInfo> remoteRobotInfos = new ConcurrentHashMap<>();
     private String subtype = ""; // The robot subtype, currently used for Arduino type differentiation
+    // the cluster this node belongs to. Null for a single node, then no directory is asked and no command is forwarded
+    private volatile Cluster cluster = null;
 
     public RobotCommunicator() {
+        for ( int i = 0; i < NUMBER_OF_REGISTRATION_LOCKS; i++ ) {
+            this.registrationLocks[i] = new Object();
+        }
     }
 
     /**
-     * check the new registration ticket. only used by brickWantsTokenToBeApproved(), extracted for testing
+     * make this node a member of a cluster of servers. From now on tokens of robots registering at this node are claimed in the shared directory. Commands
+     * for tokens owned by other nodes are forwarded to them. Robots, that registered before, are claimed, too.
+     *
+     * @param node the identification of this node, used by other nodes to forward commands. Never null
+     * @param directory the directory shared by all nodes, never null
+     * @param nodeClient forwards commands to other nodes, never null
+     */
+    public void joinCluster(String node, IRobotTokenDirectory directory, IRobotNodeClient nodeClient) {
+        Assert.notNull(node);
+        Assert.notNull(directory);
+        Assert.notNull(nodeClient);
+        this.cluster = new Cluster(node, directory, nodeClient);
+        for ( String token : this.allStates.keySet() ) {
+            directory.claim(token, node);
+        }
+        LOG.info("ROBOT_RC: this server is node " + node + " of a cluster");
+    }
+
+    /**
+     * check the new registration ticket. only used by brickWantsTokenToBeApproved(), extracted for testing. A pending registration of the same robot is
+     * replaced and aborted. The pending registration is found by the index from the robot identificator to the token, no scan of all states is needed.
      *
      * @throws assertions for various types of issues
      * @return true if the ticket has been accepted
@@ -42,35 +88,57 @@ public class RobotCommunicator {
         String token = newRobotCommunicationData.getToken();
         String newIdentificator = newRobotCommunicationData.getRobotIdentificator();
         Assert.isTrue(token != null && newIdentificator != null);
-        RobotCommunicationData existingRobotCommunicationData = this.allStates.get(token);
-        if ( existingRobotCommunicationData != null ) {
-            String existingIdentificator = existingRobotCommunicationData.getRobotIdentificator();
-            if ( existingIdentificator == null
-                || !existingIdentificator.equals(newIdentificator)
-                || existingIdentificator.equals("usb")
-                || existingIdentificator.equals("unknown") ) {
+        Cluster cluster = this.cluster;
+        if ( cluster != null && !cluster.directory.claim(token, cluster.node) ) {
+            LOG.info("ROBOT_RC: token already used at another node. New token required");
+            return false;
+        }
+        RobotCommunicationData replacedRobotCommunicationData;
+        String releasedToken = null;
+        synchronized ( this.registrationLocks[Math.floorMod(newIdentificator.hashCode(), NUMBER_OF_REGISTRATION_LOCKS)] ) {
+            RobotCommunicationData existingRobotCommunicationData = this.allStates.get(token);
+            if ( existingRobotCommunicationData == null ) {
+                if ( this.allStates.putIfAbsent(token, newRobotCommunicationData) != null ) {
+                    LOG.info("ROBOT_RC: token already used by a concurrent registration. New token required");
+                    return false;
+                }
+            } else if ( !isUniqueIdentificator(newIdentificator)
+                || !newIdentificator.equals(existingRobotCommunicationData.getRobotIdentificator())
+                || !this.allStates.replace(token, existingRobotCommunicationData, newRobotCommunicationData) ) {
                 LOG.info("ROBOT_RC: token already used. New token required");
                 return false;
             }
-        }
-        for ( String storedToken : this.allStates.keySet() ) {
-            RobotCommunicationData storedState = this.allStates.get(storedToken);
-            if ( newIdentificator.equals(storedState.getRobotIdentificator()) && !newIdentificator.equals("usb") && !newIdentificator.equals("unknown") ) {
-                LOG.info("ROBOT_RC: token approval request for robot [" + newIdentificator + "], but an old request is pending. Start abort old request");
-                this.allStates.remove(storedToken);
-                storedState.abort(); // notifyAll() executed
-                LOG.info("ROBOT_RC: token approval request for robot [" + newIdentificator + "], but an old request is pending. End abort old request.");
+            replacedRobotCommunicationData = existingRobotCommunicationData;
+            if ( isUniqueIdentificator(newIdentificator) ) {
+                String oldToken = this.tokenByIdentificator.put(newIdentificator, token);
+                if ( oldToken != null && !oldToken.equals(token) ) {
+                    replacedRobotCommunicationData = this.allStates.remove(oldToken);
+                    releasedToken = oldToken;
+                }
             }
         }
-        this.allStates.put(token, newRobotCommunicationData);
+        if ( replacedRobotCommunicationData != null ) {
+            LOG.info("ROBOT_RC: token approval request for robot [" + newIdentificator + "], but an old request is pending. Abort old request");
+            replacedRobotCommunicationData.abort(); // the pending request is completed
+        }
+        if ( cluster != null && releasedToken != null ) {
+            cluster.directory.release(releasedToken, cluster.node);
+        }
         return true;
     }
 
-    public boolean brickWantsTokenToBeApproved(RobotCommunicationData newRobotCommunicationData) {
+    /**
+     * called by the robot to get its token approved by the user. Does not block.
+     *
+     * @param newRobotCommunicationData the data of the robot presenting the token
+     * @return future, that is completed with true, if the user approved the token; false otherwise (e.g. timeout, token already used)
+     */
+    public CompletableFuture<Boolean> brickWantsTokenToBeApproved(RobotCommunicationData newRobotCommunicationData) {
         if ( addNewRegistration(newRobotCommunicationData) ) {
-            return newRobotCommunicationData.robotTokenAgreementRequest(); // this will freeze the request until another thread issues a notifyAll()
+            REGISTRATIONS.increment();
+            return newRobotCommunicationData.robotTokenAgreementRequest(); // completed, when the user approves the token, or the request times out
         } else {
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
     }
 
@@ -80,18 +148,20 @@ public class RobotCommunicator {
      * @param token identifying the robot
      * @param batteryvoltage changes over time
      * @param nepoExitValue the return value of the last user program, that was executed. Is 0 if no exitvalue is provided by the robot system.
-     * @return a legal command for the robot (in 99% a "repeat" :)
+     * @return future, that is completed with a legal command for the robot (in 99% a "repeat" :), or with null, if the robot is not connected. Does not
+     *         block.
      */
-    public String brickWaitsForAServerPush(String token, String batteryvoltage, int nepoExitValue) {
+    public CompletableFuture<String> brickWaitsForAServerPush(String token, String batteryvoltage, int nepoExitValue) {
         RobotCommunicationData state = getState(token);
         if ( state != null ) {
             state.setBattery(batteryvoltage);
             state.setNepoExitValue(nepoExitValue);
-            state.robotHasSentAPushRequest();
-            return state.getCommand();
+            PUSH_REQUESTS.increment();
+            return state.robotHasSentAPushRequest();
         } else {
+            UNKNOWN_PUSH_REQUESTS.increment();
             LOG.error("ROBOT_RC: /pushcmd from a robot arrived, no matching state was found - we return a server error");
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
     }
 
@@ -99,6 +169,12 @@ public class RobotCommunicator {
         RobotCommunicationData state = this.allStates.get(token);
 
         if ( state == null ) {
+            String owner = getRemoteOwner(token);
+            if ( owner != null ) {
+                LOG.info("ROBOT_RC: token " + token + " is owned by node " + owner + ". The approval is forwarded");
+                this.remoteRobotInfos.remove(token);
+                return this.cluster.nodeClient.aTokenAgreementWasSent(owner, token, robot);
+            }
             LOG.info("ROBOT_RC: token " + token + " is not waiting for. Typing error of the user?");
             return Key.TOKEN_SET_ERROR_NO_ROBOT_WAITING;
         } else if ( !checkRobotMatchesClient(robot, state) ) {
@@ -124,13 +200,23 @@ public class RobotCommunicator {
         if ( token == null ) {
             return; // was not connected
         } else {
-            RobotCommunicationData state = this.allStates.get(token);
+            RobotCommunicationData state = this.allStates.remove(token);
             if ( state == null ) {
-                LOG.info("ROBOT_RC: token " + token + " is not waited for. Ok.");
+                this.remoteRobotInfos.remove(token);
+                String owner = getRemoteOwner(token);
+                if ( owner != null ) {
+                    this.cluster.nodeClient.disconnect(owner, token);
+                } else {
+                    LOG.info("ROBOT_RC: token " + token + " is not waited for. Ok.");
+                }
             } else {
+                Cluster cluster = this.cluster;
+                if ( cluster != null ) {
+                    cluster.directory.release(token, cluster.node);
+                }
                 LOG.info("ROBOT_RC: Robot [" + state.getRobotIdentificator() + "] with token " + token + " start disconnect");
-                this.allStates.remove(token);
-                state.abort(); // notifyAll() executed
+                this.tokenByIdentificator.remove(state.getRobotIdentificator(), token);
+                state.abort(); // the pending request is completed
                 LOG.info("ROBOT_RC: Robot [" + state.getRobotIdentificator() + "] with token " + token + " end disconnect");
             }
         }
@@ -141,11 +227,52 @@ public class RobotCommunicator {
         return state.runButtonPressed(programName);
     }
 
+    /**
+     * @return true, if the robot accepted the firmware update; false, if the robot is not connected or can't be updated
+     */
     public boolean firmwareUpdateRequested(String token) {
         RobotCommunicationData state = getState(token);
+        if ( state == null ) {
+            this.remoteRobotInfos.remove(token);
+            String owner = getRemoteOwner(token);
+            return owner != null && this.cluster.nodeClient.firmwareUpdateRequested(owner, token);
+        }
         return state.firmwareUpdate();
     }
 
+    /**
+     * the info about a robot, that is shown in the browser: the fields wait, battery, name, version, firmwareName, sensorvalues, nepoexitvalue and state,
+     * which is one of "busy", "disconnected" or "wait". For a token owned by another node of the cluster the info is requested from that node and cached
+     * for {@link #REMOTE_ROBOT_INFO_TTL_MSEC} msec.
+     *
+     * @param token the token of the robot
+     * @return the info, which is shared and must not be modified; null, if no robot with this token is connected
+     */
+    public JSONObject getRobotInfo(String token) {
+        RobotCommunicationData state = getState(token);
+        if ( state == null ) {
+            return this.cluster == null ? null : getRemoteRobotInfo(token);
+        }
+        State communicationState = state.getState();
+        String infoAboutState;
+        if ( communicationState == State.ROBOT_IS_BUSY || communicationState == State.COMMAND_QUEUED_FOR_ROBOT ) {
+            infoAboutState = "busy";
+        } else if ( state.isRobotProbablyDisconnected() || communicationState == State.GARBAGE ) {
+            infoAboutState = "disconnected";
+        } else {
+            infoAboutState = "wait"; // is there a need to distinguish the communication state more detailed?
+        }
+        return new JSONObject()
+            .put("wait", state.getElapsedMsecOfStartApproval())
+            .put("battery", state.getBattery())
+            .put("name", state.getRobotName())
+            .put("version", state.getMenuVersion())
+            .put("firmwareName", state.getFirmwareName())
+            .put("sensorvalues", state.getSensorValues())
+            .put("nepoexitvalue", state.getNepoExitValue())
+            .put("state", infoAboutState);
+    }
+
     public RobotCommunicationData getState(String token) {
         return this.allStates.get(token);
     }
@@ -158,6 +285,31 @@ public class RobotCommunicator {
         return this.allStates.size();
     }
 
+    /**
+     * register the gauges of the robot connections: the number of robots by state and the longest time a robot is waiting. The values are computed when the
+     * metrics are scraped, by iterating over the states without allocating objects per robot
+     *
+     * @param registry the registry of the server
+     */
+    public void registerMetrics(MetricsRegistry registry) {
+        registry.register("roberta_robots", "robots connected to the server by state of the robot communication", "gauge", writer -> {
+            int[] robotsByState = new int[STATES.length];
+            for ( RobotCommunicationData rcd : this.allStates.values() ) {
+                robotsByState[rcd.getState().ordinal()]++;
+            }
+            for ( int i = 0; i < STATES.length; i++ ) {
+                writer.sample().label("state", STATES[i].name()).value(robotsByState[i]);
+            }
+        });
+        registry.gauge("roberta_robot_longest_wait_msec", "the longest time in msec a robot is waiting since its last request", () -> {
+            long robotLongestWaitingTime = 0;
+            for ( RobotCommunicationData rcd : this.allStates.values() ) {
+                robotLongestWaitingTime = Math.max(robotLongestWaitingTime, rcd.getElapsedMsecOfStartOfLastRequest());
+            }
+            return robotLongestWaitingTime;
+        });
+    }
+
     /**
      * return an overview about the states of the robots connected to the lab<br>
      * <b>This method must NEVER throw an exception</b>
@@ -243,6 +395,13 @@ public class RobotCommunicator {
         return false;
     }
 
+    /**
+     * robots connected by USB or with an unknown mac address share their identificator. Only the other identificators identify one robot
+     */
+    private static boolean isUniqueIdentificator(String identificator) {
+        return !identificator.equals("usb") && !identificator.equals("unknown");
+    }
+
     private long sanitize(long val) {
         return val;
     }
@@ -251,8 +410,20 @@ public class RobotCommunicator {
         return val == null ? "???" : val;
     }
 
+    /**
+     * NO WAITING: deliver a run command to the robot or queue it for the next push request of the robot, see
+     * {@link RobotCommunicationData#runButtonPressed(String)}
+     *
+     * @return {@link Key#ROBOT_PUSH_RUN}, if the command was delivered or queued
+     */
     public Key run(String token, String robotName, String programName) {
-        if ( this.getState(token) != null ) {
+        if ( this.getState(token) == null ) {
+            this.remoteRobotInfos.remove(token);
+            String owner = getRemoteOwner(token);
+            if ( owner != null ) {
+                return this.cluster.nodeClient.run(owner, token, robotName, programName);
+            }
+        } else {
             this.subtype = robotName;
             boolean wasRobotWaiting = this.theRunButtonWasPressed(token, programName);
             if ( wasRobotWaiting ) {
@@ -263,4 +434,53 @@ public class RobotCommunicator {
         }
         return Key.ROBOT_NOT_CONNECTED;
     }
+
+    /**
+     * @return the node owning a token, that is not owned by this node; null for a single node or if no other node owns the token
+     */
+    private String getRemoteOwner(String token) {
+        Cluster cluster = this.cluster;
+        if ( cluster == null ) {
+            return null;
+        }
+        String owner = cluster.directory.getOwner(token);
+        return owner == null || owner.equals(cluster.node) ? null : owner;
+    }
+
+    private JSONObject getRemoteRobotInfo(String token) {
+        long now = System.currentTimeMillis();
+        RemoteRobotInfo cached = this.remoteRobotInfos.get(token);
+        if ( cached != null && cached.validUntil > now ) {
+            return cached.info;
+        }
+        String owner = getRemoteOwner(token);
+        JSONObject info = owner == null ? null : this.cluster.nodeClient.getRobotInfo(owner, token);
+        if ( this.remoteRobotInfos.size() >= MAX_REMOTE_ROBOT_INFOS ) {
+            this.remoteRobotInfos.values().removeIf(remoteRobotInfo -> remoteRobotInfo.validUntil <= now);
+        }
+        this.remoteRobotInfos.put(token, new RemoteRobotInfo(info, now + REMOTE_ROBOT_INFO_TTL_MSEC));
+        return info;
+    }
+
+    private static final class RemoteRobotInfo {
+        private final JSONObject info; // null, if no node owns the token
+        private final long validUntil;
+
+        private RemoteRobotInfo(JSONObject info, long validUntil) {
+            this.info = info;
+            this.validUntil = validUntil;
+        }
+    }
+
+    private static final class Cluster {
+        private final String node;
+        private final IRobotTokenDirectory directory;
+        private final IRobotNodeClient nodeClient;
+
+        private Cluster(String node, IRobotTokenDirectory directory, IRobotNodeClient nodeClient) {
+            this.node = node;
+            this.directory = directory;
+            this.nodeClient = nodeClient;
+        }
+    }
 }
@@ -0,0 +1,238 @@
+package de.fhg.iais.roberta.robotCommunication;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * history of the sensor values sent by one robot. Numeric sensor values (booleans are stored as 0 and 1, arrays of numbers as one channel per element) are
+ * stored per channel in primitive arrays:
+ * <ul>
+ * <li>the most recent {@link #SAMPLE_CAPACITY} samples are stored as they arrived
+ * <li>if this ring buffer is full, the oldest sample is moved into a bucket. A bucket stores the average of {@link #SAMPLES_PER_BUCKET} consecutive samples.
+ * The most recent {@link #BUCKET_CAPACITY} buckets are stored, older buckets are dropped
+ * </ul>
+ * The arrays are allocated, when the first sample arrives and when a channel is seen the first time. After that no allocation is done when a sample is
+ * added. Thread-safe.
+ */
+public final class SensorTelemetry {
+    public static final int SAMPLE_CAPACITY = 256;
+    public static final int BUCKET_CAPACITY = 256;
+    public static final int SAMPLES_PER_BUCKET = 8;
+    public static final int MAX_CHANNELS = 32;
+    private static final int NO_CHANNEL_YET = -2;
+
+    private final List<String> channelNames = new ArrayList<>();
+    private final Map<String, Integer> channelIndex = new HashMap<>();
+    // the channels of the elements of an array sent by a sensor, indexed by the position in the array. The channel names "key[i]" are built once
+    private final Map<String, int[]> elementChannels = new HashMap<>();
+
+    // ring buffer of the recent samples. Values of a channel not contained in a sample are NaN
+    private long[] sampleTime;
+    private final double[][] sampleValue = new double[MAX_CHANNELS][];
+    private int sampleStart = 0;
+    private int sampleCount = 0;
+
+    // ring buffer of the buckets. The time of a bucket is the time of its first sample
+    private long[] bucketTime;
+    private final double[][] bucketValue = new double[MAX_CHANNELS][];
+    private int bucketStart = 0;
+    private int bucketCount = 0;
+
+    // the bucket, that is filled with the samples evicted from the sample ring buffer
+    private long openBucketTime;
+    private final double[] openBucketSum = new double[MAX_CHANNELS];
+    private final int[] openBucketValues = new int[MAX_CHANNELS];
+    private int openBucketSamples = 0;
+
+    /**
+     * add the sensor values sent by the robot. Values, that are neither numbers nor booleans nor arrays of them, are ignored
+     *
+     * @param timestamp msec since the epoch, when the values arrived
+     * @param sensorValues the sensor values as sent by the robot, never null
+     */
+    public synchronized void add(long timestamp, JSONObject sensorValues) {
+        if ( this.sampleTime == null ) {
+            this.sampleTime = new long[SAMPLE_CAPACITY];
+            this.bucketTime = new long[BUCKET_CAPACITY];
+        }
+        if ( this.sampleCount == SAMPLE_CAPACITY ) {
+            evictOldestSample();
+        }
+        int slot = (this.sampleStart + this.sampleCount) % SAMPLE_CAPACITY;
+        this.sampleCount++;
+        this.sampleTime[slot] = timestamp;
+        for ( int channel = 0; channel < this.channelNames.size(); channel++ ) {
+            this.sampleValue[channel][slot] = Double.NaN;
+        }
+        for ( String key : sensorValues.keySet() ) {
+            Object value = sensorValues.opt(key);
+            if ( value instanceof JSONArray ) {
+                JSONArray values = (JSONArray) value;
+                int[] channels = getElementChannels(key, values.length());
+                for ( int i = 0; i < values.length(); i++ ) {
+                    double numericValue = toNumericValue(values.opt(i));
+                    if ( !Double.isNaN(numericValue) ) {
+                        if ( channels[i] == NO_CHANNEL_YET ) {
+                            channels[i] = getOrCreateChannel(key + "[" + i + "]");
+                        }
+                        store(channels[i], numericValue, slot);
+                    }
+                }
+            } else {
+                double numericValue = toNumericValue(value);
+                if ( !Double.isNaN(numericValue) ) {
+                    store(getOrCreateChannel(key), numericValue, slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * get the sensor values in a time range. The result is a JSON object with the arrays "time" (msec since the epoch) and "values" (an object mapping the
+     * channel names to arrays of the same length as "time", null if a value is missing). The first "downsampled" entries are averages of
+     * {@link #SAMPLES_PER_BUCKET} samples, the others are the samples as they arrived.
+     *
+     * @param from msec since the epoch, inclusive
+     * @param to msec since the epoch, inclusive
+     * @return the history, never null
+     */
+    public synchronized JSONObject query(long from, long to) {
+        JSONArray time = new JSONArray();
+        JSONObject values = new JSONObject();
+        JSONArray[] valuesOfChannel = new JSONArray[this.channelNames.size()];
+        for ( int channel = 0; channel < valuesOfChannel.length; channel++ ) {
+            valuesOfChannel[channel] = new JSONArray();
+            values.put(this.channelNames.get(channel), valuesOfChannel[channel]);
+        }
+        int downsampled = 0;
+        for ( int i = 0; i < this.bucketCount; i++ ) {
+            int slot = (this.bucketStart + i) % BUCKET_CAPACITY;
+            if ( appendIfInRange(from, to, this.bucketTime[slot], this.bucketValue, slot, time, valuesOfChannel) ) {
+                downsampled++;
+            }
+        }
+        if ( this.openBucketSamples > 0 && this.openBucketTime >= from && this.openBucketTime <= to ) {
+            time.put(this.openBucketTime);
+            for ( int channel = 0; channel < valuesOfChannel.length; channel++ ) {
+                int count = this.openBucketValues[channel];
+                valuesOfChannel[channel].put(count == 0 ? JSONObject.NULL : this.openBucketSum[channel] / count);
+            }
+            downsampled++;
+        }
+        for ( int i = 0; i < this.sampleCount; i++ ) {
+            int slot = (this.sampleStart + i) % SAMPLE_CAPACITY;
+            appendIfInRange(from, to, this.sampleTime[slot], this.sampleValue, slot, time, valuesOfChannel);
+        }
+        return new JSONObject().put("time", time).put("values", values).put("downsampled", downsampled);
+    }
+
+    /**
+     * @return the value as number; NaN, if the value is neither a number nor a boolean
+     */
+    private static double toNumericValue(Object value) {
+        if ( value instanceof Number ) {
+            return ((Number) value).doubleValue();
+        } else if ( value instanceof Boolean ) {
+            return (Boolean) value ? 1.0 : 0.0;
+        } else {
+            return Double.NaN;
+        }
+    }
+
+    private void store(int channel, double numericValue, int slot) {
+        if ( channel >= 0 ) {
+            this.sampleValue[channel][slot] = numericValue;
+        }
+    }
+
+    /**
+     * @return the channels of the elements of an array of a sensor. At least of length numberOfElements. {@link #NO_CHANNEL_YET} marks elements, for which
+     *         no numeric value was sent yet
+     */
+    private int[] getElementChannels(String key, int numberOfElements) {
+        int[] channels = this.elementChannels.get(key);
+        if ( channels == null || channels.length < numberOfElements ) {
+            int known = channels == null ? 0 : channels.length;
+            channels = channels == null ? new int[numberOfElements] : Arrays.copyOf(channels, numberOfElements);
+            Arrays.fill(channels, known, numberOfElements, NO_CHANNEL_YET);
+            this.elementChannels.put(key, channels);
+        }
+        return channels;
+    }
+
+    private int getOrCreateChannel(String channelName) {
+        Integer channel = this.channelIndex.get(channelName);
+        if ( channel != null ) {
+            return channel;
+        }
+        int newChannel = this.channelNames.size();
+        if ( newChannel == MAX_CHANNELS ) {
+            return -1;
+        }
+        this.channelNames.add(channelName);
+        this.channelIndex.put(channelName, newChannel);
+        this.sampleValue[newChannel] = new double[SAMPLE_CAPACITY];
+        this.bucketValue[newChannel] = new double[BUCKET_CAPACITY];
+        // the new channel has no values in the samples and buckets stored before
+        Arrays.fill(this.sampleValue[newChannel], Double.NaN);
+        Arrays.fill(this.bucketValue[newChannel], Double.NaN);
+        return newChannel;
+    }
+
+    private void evictOldestSample() {
+        int slot = this.sampleStart;
+        if ( this.openBucketSamples == 0 ) {
+            this.openBucketTime = this.sampleTime[slot];
+        }
+        for ( int channel = 0; channel < this.channelNames.size(); channel++ ) {
+            double value = this.sampleValue[channel][slot];
+            if ( !Double.isNaN(value) ) {
+                this.openBucketSum[channel] += value;
+                this.openBucketValues[channel]++;
+            }
+        }
+        this.sampleStart = (this.sampleStart + 1) % SAMPLE_CAPACITY;
+        this.sampleCount--;
+        this.openBucketSamples++;
+        if ( this.openBucketSamples == SAMPLES_PER_BUCKET ) {
+            closeOpenBucket();
+        }
+    }
+
+    private void closeOpenBucket() {
+        int slot;
+        if ( this.bucketCount == BUCKET_CAPACITY ) {
+            slot = this.bucketStart; // the oldest bucket is dropped
+            this.bucketStart = (this.bucketStart + 1) % BUCKET_CAPACITY;
+        } else {
+            slot = (this.bucketStart + this.bucketCount) % BUCKET_CAPACITY;
+            this.bucketCount++;
+        }
+        this.bucketTime[slot] = this.openBucketTime;
+        for ( int channel = 0; channel < this.channelNames.size(); channel++ ) {
+            int count = this.openBucketValues[channel];
+            this.bucketValue[channel][slot] = count == 0 ? Double.NaN : this.openBucketSum[channel] / count;
+            this.openBucketSum[channel] = 0.0;
+            this.openBucketValues[channel] = 0;
+        }
+        this.openBucketSamples = 0;
+    }
+
+    private boolean appendIfInRange(long from, long to, long timestamp, double[][] valueArrays, int slot, JSONArray time, JSONArray[] valuesOfChannel) {
+        if ( timestamp < from || timestamp > to ) {
+            return false;
+        }
+        time.put(timestamp);
+        for ( int channel = 0; channel < valuesOfChannel.length; channel++ ) {
+            double value = valueArrays[channel][slot];
+            valuesOfChannel[channel].put(Double.isNaN(value) ? JSONObject.NULL : value);
+        }
+        return true;
+    }
+}
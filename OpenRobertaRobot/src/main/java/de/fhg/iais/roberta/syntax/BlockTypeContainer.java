@@ -1,5 +1,10 @@
 package de.fhg.iais.roberta.syntax;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -10,6 +15,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Functions;
 
+import de.fhg.iais.roberta.blockly.generated.Block;
 import de.fhg.iais.roberta.components.Category;
 import de.fhg.iais.roberta.syntax.lang.blocksequence.Location;
 import de.fhg.iais.roberta.syntax.lang.expr.ActionExpr;
@@ -24,6 +30,7 @@ import de.fhg.iais.roberta.syntax.lang.stmt.FunctionStmt;
 import de.fhg.iais.roberta.syntax.lang.stmt.MethodStmt;
 import de.fhg.iais.roberta.syntax.lang.stmt.SensorStmt;
 import de.fhg.iais.roberta.syntax.lang.stmt.StmtList;
+import de.fhg.iais.roberta.transformer.AbstractJaxb2Ast;
 import de.fhg.iais.roberta.util.dbc.Assert;
 import de.fhg.iais.roberta.util.dbc.DbcException;
 
@@ -33,13 +40,19 @@ import de.fhg.iais.roberta.util.dbc.DbcException;
  * - either by their (globally) unique name or<br>
  * - a list of (globally) unique names, each of which is used as element name in blockly XML.<br>
  * A robot can add dynamically new elements to this container, when the robot is registered during robot startup (this is why this container is <i>not</i>
- * implemented as a enum type. During registraion of new block types the uniqueness of names is guaranteed by this container.
+ * implemented as a enum type. During registraion of new block types the uniqueness of names is guaranteed by this container.<br>
+ * <br>
+ * For each blockly name the container holds a method handle of the static method <code>jaxbToAst(Block, AbstractJaxb2Ast)</code> of the AST class. It is
+ * resolved once, when the block type is registered. Thus the transformation of blockly XML into the AST needs no class lookup and no reflective method
+ * search per block.
  */
 public class BlockTypeContainer {
     private static final Logger LOG = LoggerFactory.getLogger(BlockTypeContainer.class);
 
     private static final Map<String, BlockType> blockTypesByName = new HashMap<>();
     private static final Map<String, BlockType> blockTypesByBlocklyName = new HashMap<>();
+    private static final Map<String, MethodHandle> jaxbToAstByBlocklyName = new HashMap<>();
+    private static final MethodType JAXB_TO_AST_TYPE = MethodType.methodType(Phrase.class, Block.class, AbstractJaxb2Ast.class);
 
     static {
         add("EXPR_LIST", Category.EXPR, ExprList.class);
@@ -87,9 +100,13 @@ public class BlockTypeContainer {
                 LOG.error("blocktype " + name + " is extended!");
             }
         }
+        MethodHandle jaxbToAst = newNames.isEmpty() ? null : findJaxbToAst(astClass);
         for ( String blocklyName : newNames ) {
             BlockType checkBlocktype = blockTypesByBlocklyName.put(blocklyName.toLowerCase(), blockType);
             Assert.isNull(checkBlocktype, "In block %s the blockly name %s is mapped twice. Initialization aborted", name, blocklyName);
+            if ( jaxbToAst != null ) {
+                jaxbToAstByBlocklyName.put(blocklyName.toLowerCase(), jaxbToAst);
+            }
         }
     }
 
@@ -117,4 +134,30 @@ public class BlockTypeContainer {
         Assert.notNull(blockType, "blockly name is not found: " + blocklyName);
         return blockType;
     }
+
+    /**
+     * access the factory method, that creates the AST object from a jaxb block, by its unique blockly name. The method handle has the type
+     * <code>(Block, AbstractJaxb2Ast)Phrase</code> and can be called with <code>invokeExact</code>.
+     *
+     * @param blocklyName the unique blockly name of the block type in lower case, never null
+     * @return the method handle of <code>jaxbToAst</code>; null, if the blockly name is not known or its AST class has no <code>jaxbToAst</code> method
+     */
+    public static MethodHandle getJaxbToAstByBlocklyName(String blocklyName) {
+        return jaxbToAstByBlocklyName.get(blocklyName);
+    }
+
+    private static MethodHandle findJaxbToAst(Class<?> astClass) {
+        if ( astClass == null ) {
+            return null;
+        }
+        try {
+            Method method = astClass.getMethod("jaxbToAst", Block.class, AbstractJaxb2Ast.class);
+            if ( !Modifier.isStatic(method.getModifiers()) ) {
+                return null;
+            }
+            return MethodHandles.publicLookup().unreflect(method).asType(JAXB_TO_AST_TYPE);
+        } catch ( NoSuchMethodException | IllegalAccessException | SecurityException e ) {
+            return null; // the block type cannot be created from blockly XML. This is reported when the transformation fails
+        }
+    }
 }
\ No newline at end of file
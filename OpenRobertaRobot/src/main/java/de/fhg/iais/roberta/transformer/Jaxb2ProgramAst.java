@@ -1,7 +1,8 @@
 package de.fhg.iais.roberta.transformer;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -67,36 +68,50 @@ public class Jaxb2ProgramAst<V> extends AbstractJaxb2Ast<V> {
             throw new DbcException("Invalid block: " + block);
         }
         String type = block.getType().trim().toLowerCase();
-        BlockType matchingBlockType = BlockTypeContainer.getByBlocklyName(type);
-        Assert.notNull(matchingBlockType, "Invalid Block: " + block.getType());
-        return invokeMethod(block, matchingBlockType.getAstClass().getName());
+        MethodHandle jaxbToAst = BlockTypeContainer.getJaxbToAstByBlocklyName(type);
+        if ( jaxbToAst == null ) {
+            BlockType matchingBlockType = BlockTypeContainer.getByBlocklyName(type);
+            Assert.notNull(matchingBlockType, "Invalid Block: " + block.getType());
+            throw new DbcException("Could not get method for " + matchingBlockType.getAstClass().getName());
+        }
+        return invokeMethod(block, jaxbToAst);
     }
 
+    /**
+     * invoke the transformation of a block. Errors and runtime exceptions of the transformation are rethrown unchanged. A method handle, that doesn't match
+     * the signature expected, and checked exceptions are wrapped into a {@link DbcException}, that describes the block
+     */
     @SuppressWarnings("unchecked")
-    private Phrase<V> invokeMethod(Block block, String className) {
-        Method method = null;
+    private Phrase<V> invokeMethod(Block block, MethodHandle jaxbToAst) {
         try {
-            method = Class.forName(className).getMethod("jaxbToAst", Block.class, AbstractJaxb2Ast.class);
-            return (Phrase<V>) method.invoke(null, block, this);
-        } catch ( NoSuchMethodException | SecurityException | ClassNotFoundException | IllegalAccessException | IllegalArgumentException
-            | InvocationTargetException | DbcException e ) {
-            if ( method == null ) {
-                throw new DbcException("Could not get method for " + className, e.getCause());
+            return (Phrase<V>) jaxbToAst.invokeExact(block, (AbstractJaxb2Ast<V>) this);
+        } catch ( WrongMethodTypeException e ) {
+            throw new DbcException(describe(block), e);
+        } catch ( Error | RuntimeException e ) {
+            throw e;
+        } catch ( Throwable e ) {
+            Throwable cause = e instanceof InvocationTargetException && e.getCause() != null ? e.getCause() : e;
+            if ( cause instanceof Error ) {
+                throw (Error) cause;
+            } else if ( cause instanceof RuntimeException ) {
+                throw (RuntimeException) cause;
             } else {
-                StringBuilder sb = new StringBuilder();
-                sb.append("Could not invoke method ");
-                sb.append(method.getName());
-                sb.append(" for block ");
-                sb.append(block.getType());
-                sb.append(" with fields ");
-                block.getField().forEach(field -> {
-                    sb.append(field.getName());
-                    sb.append(" ");
-                    sb.append(field.getValue());
-                    sb.append(" ");
-                });
-                throw new DbcException(sb.toString(), e.getCause());
+                throw new DbcException(describe(block), cause);
             }
         }
     }
+
+    private static String describe(Block block) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Could not invoke method jaxbToAst for block ");
+        sb.append(block.getType());
+        sb.append(" with fields ");
+        block.getField().forEach(field -> {
+            sb.append(field.getName());
+            sb.append(" ");
+            sb.append(field.getValue());
+            sb.append(" ");
+        });
+        return sb.toString();
+    }
 }
@@ -40,6 +40,17 @@ public class AliveData {
         return answer;
     }
 
+    /**
+     * register the totals as counters. The deltas are not exported, they are computed by the consumer of the metrics
+     *
+     * @param registry the registry of the server
+     */
+    public static void registerMetrics(MetricsRegistry registry) {
+        registry.counter("roberta_client_calls_total", "REST calls of browser frontends", clientCallsTotal::get);
+        registry.counter("roberta_robot_calls_total", "REST calls of robots", robotCallsTotal::get);
+        registry.counter("roberta_logins_total", "logins of users", loginsTotal::get);
+    }
+
     public static void rememberClientCall() {
         clientCallsTotal.incrementAndGet();
         clientCallsDelta.incrementAndGet();
@@ -1,12 +1,10 @@
 package de.fhg.iais.roberta.util;
 
-import java.util.Date;
-
 public class Clock {
     private final long time;
 
     private Clock() {
-        this.time = new Date().getTime();
+        this.time = System.currentTimeMillis();
     }
 
     public static Clock start() {
@@ -14,7 +12,7 @@ public class Clock {
     }
 
     public long elapsedMsec() {
-        return new Date().getTime() - this.time;
+        return System.currentTimeMillis() - this.time;
     }
 
     public long elapsedSec() {
@@ -0,0 +1,114 @@
+package de.fhg.iais.roberta.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.json.JSONObject;
+
+import de.fhg.iais.roberta.util.dbc.Assert;
+
+/**
+ * a histogram of non negative long values (e.g. durations in nanoseconds or allocated bytes) with lock-free recording. Like a HDR histogram the buckets are
+ * log-linear: each power of 2 is split into {@link #SUB_BUCKETS} buckets of equal width. Thus the relative error of a percentile is at most 1/
+ * {@link #SUB_BUCKETS}, independent of the magnitude of the values. The memory needed is constant, recording never allocates. Thread-safe.
+ */
+public final class ConcurrentHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int NUMBER_OF_BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUMBER_OF_BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong(0);
+    private final AtomicLong totalSum = new AtomicLong(0);
+    private final AtomicLong max = new AtomicLong(0);
+
+    /**
+     * record a value. Negative values are recorded as 0
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        this.counts.incrementAndGet(bucketOf(v));
+        this.totalCount.incrementAndGet();
+        this.totalSum.addAndGet(v);
+        this.max.accumulateAndGet(v, Math::max);
+    }
+
+    public long getCount() {
+        return this.totalCount.get();
+    }
+
+    public long getSum() {
+        return this.totalSum.get();
+    }
+
+    public long getMax() {
+        return this.max.get();
+    }
+
+    public long getMean() {
+        long count = this.totalCount.get();
+        return count == 0 ? 0 : this.totalSum.get() / count;
+    }
+
+    /**
+     * @param percentile the percentile, between 0.0 and 100.0
+     * @return the value at the percentile. This is the upper bound of the bucket containing the percentile, but never more than the maximum recorded. 0 if
+     *         nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        Assert.isTrue(percentile >= 0.0 && percentile <= 100.0, "invalid percentile");
+        long count = this.totalCount.get();
+        if ( count == 0 ) {
+            return 0;
+        }
+        long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long countSoFar = 0;
+        for ( int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++ ) {
+            countSoFar += this.counts.get(bucket);
+            if ( countSoFar >= countAtPercentile ) {
+                return Math.min(upperBoundOf(bucket), this.max.get());
+            }
+        }
+        return this.max.get(); // recording concurrently to this method
+    }
+
+    /**
+     * @param scale the divisor applied to all values, e.g. 1000000 to show nanoseconds as milliseconds
+     * @return count, mean, p50, p90, p99 and max as JSON object, never null
+     */
+    public JSONObject toJson(long scale) {
+        JSONObject json = new JSONObject();
+        json.put("count", getCount());
+        json.put("mean", getMean() / scale);
+        json.put("p50", getValueAtPercentile(50.0) / scale);
+        json.put("p90", getValueAtPercentile(90.0) / scale);
+        json.put("p99", getValueAtPercentile(99.0) / scale);
+        json.put("max", getMax() / scale);
+        return json;
+    }
+
+    /**
+     * values less than {@link #SUB_BUCKETS} have a bucket of their own. Larger values are mapped to the sub bucket of their highest power of 2
+     */
+    static int bucketOf(long value) {
+        if ( value < SUB_BUCKETS ) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if ( bucket < SUB_BUCKETS ) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        long upperBound = lowerBound + (1L << shift) - 1;
+        return upperBound < 0 ? Long.MAX_VALUE : upperBound;
+    }
+}
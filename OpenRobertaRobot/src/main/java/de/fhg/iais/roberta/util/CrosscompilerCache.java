@@ -0,0 +1,431 @@
+package de.fhg.iais.roberta.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import de.fhg.iais.roberta.util.dbc.Assert;
+
+/**
+ * a persistent, content-addressed cache for the artifacts generated by the crosscompilers. Classrooms often compile the very same program many times. If the
+ * generated source is byte-identical, the crosscompiler is not called again, but the artifact is taken from the cache.<br>
+ * <br>
+ * An artifact is identified by a key made of
+ * <ul>
+ * <li>the robot (e.g. "uno", "calliope2017")</li>
+ * <li>a variant, that covers all parameters of the crosscompiler call, that are not derived from the source (e.g. the board variant of an arduino)</li>
+ * <li>the version of the crosscompiler resources. Either given by the plugin property {@link #RESOURCES_VERSION_PROPERTY} or computed from the resource
+ * directory. If the resources change, the version changes and the old artifacts are not found anymore (and are evicted later)</li>
+ * <li>the hash of the generated source</li>
+ * </ul>
+ * The artifacts are stored in a directory on disk, one subdirectory per robot. The total size is bounded, eviction is LRU. Thread-safe: an artifact file is
+ * moved into the cache and deleted while the lock of the cache is held, thus the files and the LRU entries are consistent.<br>
+ * <br>
+ * The cache is configured once at server startup with {@link #configure(ServerProperties)}. If it is not configured or its size is 0, it is disabled: it never
+ * finds an artifact and doesn't store artifacts.
+ */
+public final class CrosscompilerCache {
+    private static final Logger LOG = LoggerFactory.getLogger(CrosscompilerCache.class);
+
+    public static final String CACHE_DIR_PROPERTY = "robot.crosscompiler.cache.dir";
+    public static final String CACHE_SIZE_MB_PROPERTY = "robot.crosscompiler.cache.size.mb";
+    public static final String RESOURCES_VERSION_PROPERTY = "robot.plugin.compiler.resources.version";
+
+    private static final long ONE_MB = 1024L * 1024L;
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final CrosscompilerCache DISABLED = new CrosscompilerCache(null, 0);
+
+    private static volatile CrosscompilerCache instance = DISABLED;
+
+    private final Path cacheDir;
+    private final long maxBytes;
+    private final Map<String, Long> lruEntries = new LinkedHashMap<>(16, 0.75f, true); // key -> size of the artifact. Access ordered. Guarded by "this"
+    private long totalBytes = 0; // guarded by "this"
+    private final Map<String, String> resourcesVersions = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong stores = new AtomicLong(0);
+    private final AtomicLong evictions = new AtomicLong(0);
+
+    /**
+     * create a cache. Use {@link #configure(ServerProperties)} for the server, use this constructor for tests only
+     *
+     * @param cacheDir the directory to store the artifacts; null, if the cache is disabled
+     * @param maxBytes the maximal size of all artifacts stored; 0, if the cache is disabled
+     */
+    public CrosscompilerCache(Path cacheDir, long maxBytes) {
+        this.cacheDir = cacheDir;
+        this.maxBytes = cacheDir == null ? 0 : maxBytes;
+        if ( isEnabled() ) {
+            try {
+                Files.createDirectories(cacheDir);
+            } catch ( IOException e ) {
+                LOG.error("could not create the crosscompiler cache directory " + cacheDir + ". The cache may not work", e);
+            }
+            loadExistingEntries();
+        }
+    }
+
+    /**
+     * configure the cache used by the crosscompiler workers. Called once at server startup.
+     *
+     * @param serverProperties the server properties, never null
+     */
+    public static void configure(ServerProperties serverProperties) {
+        int sizeInMb = serverProperties.getIntProperty(CACHE_SIZE_MB_PROPERTY, 0);
+        if ( sizeInMb <= 0 ) {
+            LOG.info("crosscompiler cache is disabled");
+            instance = DISABLED;
+            return;
+        }
+        String cacheDir = serverProperties.getStringProperty(CACHE_DIR_PROPERTY);
+        if ( cacheDir == null || cacheDir.trim().isEmpty() ) {
+            cacheDir = serverProperties.getTempDir() + "crosscompilerCache";
+        }
+        instance = new CrosscompilerCache(Paths.get(cacheDir), sizeInMb * ONE_MB);
+        LOG.info("crosscompiler cache uses directory " + cacheDir + " with at most " + sizeInMb + " MB");
+    }
+
+    /**
+     * @return the cache used by the crosscompiler workers. Never null, but maybe disabled
+     */
+    public static CrosscompilerCache getInstance() {
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return this.maxBytes > 0;
+    }
+
+    /**
+     * compute the key of an artifact
+     *
+     * @param pluginProperties the properties of the plugin, whose crosscompiler is used. Needed to get the version of the crosscompiler resources. Never null
+     * @param robot the name of the robot, never null
+     * @param variant all parameters of the crosscompiler call, which are NOT derived from the source. Use "" if there are none. Never null
+     * @param source the generated source, which is given to the crosscompiler, never null
+     * @return the key; null, if the cache is disabled
+     */
+    public String makeKey(PluginProperties pluginProperties, String robot, String variant, String source) {
+        if ( !isEnabled() ) {
+            return null;
+        }
+        Assert.notNull(robot);
+        Assert.notNull(variant);
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(variant, StandardCharsets.UTF_8).putChar('\0');
+        hasher.putString(getResourcesVersion(pluginProperties), StandardCharsets.UTF_8).putChar('\0');
+        hasher.putString(source, StandardCharsets.UTF_8);
+        return robot + "/" + hasher.hash().toString();
+    }
+
+    /**
+     * get an artifact from the cache
+     *
+     * @param key the key of the artifact. If null, the cache is disabled
+     * @return the artifact; null, if not found
+     */
+    public byte[] get(String key) {
+        if ( key == null || !isEnabled() ) {
+            return null;
+        }
+        Path artifact = this.cacheDir.resolve(key);
+        synchronized ( this ) {
+            if ( this.lruEntries.get(key) == null ) {
+                this.misses.incrementAndGet();
+                return null;
+            }
+        }
+        try {
+            byte[] content = Files.readAllBytes(artifact);
+            artifact.toFile().setLastModified(System.currentTimeMillis()); // keeps the LRU order after a restart
+            this.hits.incrementAndGet();
+            LOG.debug("crosscompiler cache hit for {}", key);
+            return content;
+        } catch ( IOException e ) {
+            LOG.info("crosscompiler cache entry " + key + " could not be read. It is removed", e);
+            removeIfMissing(key, artifact);
+            this.misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * get an artifact from the cache and write it to a file. This is the file, the crosscompiler would have generated.
+     *
+     * @param key the key of the artifact. If null, the cache is disabled
+     * @param targetFileName the name of the file the artifact is written to
+     * @return true, if the artifact was found and written; false otherwise
+     */
+    public boolean restore(String key, String targetFileName) {
+        byte[] artifact = get(key);
+        if ( artifact == null ) {
+            return false;
+        }
+        try {
+            Path target = Paths.get(targetFileName);
+            Files.createDirectories(target.getParent());
+            Files.write(target, artifact);
+            return true;
+        } catch ( IOException e ) {
+            LOG.error("crosscompiler cache hit for " + key + ", but writing the artifact to " + targetFileName + " failed", e);
+            return false;
+        }
+    }
+
+    /**
+     * store an artifact in the cache. Evict the least recently used artifacts, if the cache would become too large.
+     *
+     * @param key the key of the artifact. If null, the cache is disabled
+     * @param artifact the artifact to store, never null
+     */
+    public void put(String key, byte[] artifact) {
+        if ( key == null || !isEnabled() ) {
+            return;
+        }
+        if ( artifact.length > this.maxBytes ) {
+            LOG.info("crosscompiler artifact for " + key + " is too large for the cache and is not stored");
+            return;
+        }
+        Path target = this.cacheDir.resolve(key);
+        Path tmp = null;
+        try {
+            Files.createDirectories(target.getParent());
+            tmp = Files.createTempFile(target.getParent(), "artifact", TMP_SUFFIX);
+            Files.write(tmp, artifact);
+            synchronized ( this ) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Long oldSize = this.lruEntries.put(key, (long) artifact.length);
+                this.totalBytes += artifact.length - (oldSize == null ? 0 : oldSize);
+            }
+        } catch ( IOException e ) {
+            LOG.error("storing the crosscompiler artifact for " + key + " failed", e);
+            if ( tmp != null ) {
+                deleteQuietly(tmp);
+            }
+            return;
+        }
+        this.stores.incrementAndGet();
+        evictLeastRecentlyUsed(key);
+    }
+
+    /**
+     * read the file generated by the crosscompiler and store it in the cache
+     *
+     * @param key the key of the artifact. If null, the cache is disabled
+     * @param artifactFileName the name of the file generated by the crosscompiler
+     */
+    public void store(String key, String artifactFileName) {
+        if ( key == null || !isEnabled() ) {
+            return;
+        }
+        try {
+            put(key, Files.readAllBytes(Paths.get(artifactFileName)));
+        } catch ( IOException e ) {
+            LOG.error("the crosscompiler artifact " + artifactFileName + " could not be read and is not cached", e);
+        }
+    }
+
+    /**
+     * remove all artifacts of one robot. Should be called, if the crosscompiler resources of a robot changed, but its resource version did not
+     *
+     * @param robot the name of the robot, never null
+     */
+    public void invalidate(String robot) {
+        if ( !isEnabled() ) {
+            return;
+        }
+        String prefix = robot + "/";
+        List<String> removed;
+        synchronized ( this ) {
+            removed = this.lruEntries.keySet().stream().filter(key -> key.startsWith(prefix)).collect(Collectors.toList());
+            for ( String key : removed ) {
+                this.totalBytes -= this.lruEntries.remove(key);
+                deleteQuietly(this.cacheDir.resolve(key));
+            }
+        }
+        this.resourcesVersions.clear();
+        LOG.info("crosscompiler cache: " + removed.size() + " artifacts of robot " + robot + " invalidated");
+    }
+
+    /**
+     * remove all artifacts from the cache and forget the versions of the crosscompiler resources
+     */
+    public void invalidateAll() {
+        if ( !isEnabled() ) {
+            return;
+        }
+        List<String> removed;
+        synchronized ( this ) {
+            removed = new ArrayList<>(this.lruEntries.keySet());
+            this.lruEntries.clear();
+            this.totalBytes = 0;
+            for ( String key : removed ) {
+                deleteQuietly(this.cacheDir.resolve(key));
+            }
+        }
+        this.resourcesVersions.clear();
+        LOG.info("crosscompiler cache: all " + removed.size() + " artifacts invalidated");
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    public long getEvictions() {
+        return this.evictions.get();
+    }
+
+    public synchronized int getNumberOfEntries() {
+        return this.lruEntries.size();
+    }
+
+    public synchronized long getSizeInBytes() {
+        return this.totalBytes;
+    }
+
+    /**
+     * @return the state of the cache as JSON for administrative purposes
+     */
+    public JSONObject getStatistics() {
+        JSONObject statistics = new JSONObject();
+        statistics.put("enabled", isEnabled());
+        statistics.put("hits", getHits()).put("misses", getMisses()).put("stores", this.stores.get()).put("evictions", getEvictions());
+        statistics.put("entries", getNumberOfEntries()).put("sizeInBytes", getSizeInBytes()).put("maxSizeInBytes", this.maxBytes);
+        return statistics;
+    }
+
+    /**
+     * get the version of the crosscompiler resources. If a version is supplied as plugin property, it is taken. Otherwise a fingerprint is computed from the
+     * relative paths, sizes and modification dates of all files in the resource directory and its subdirectories. Deploying new resources changes the
+     * fingerprint. The fingerprint is computed once per directory.
+     *
+     * @param pluginProperties the properties of the plugin
+     * @return the version, never null
+     */
+    private String getResourcesVersion(PluginProperties pluginProperties) {
+        String version = pluginProperties.getStringProperty(RESOURCES_VERSION_PROPERTY);
+        if ( version != null ) {
+            return version;
+        }
+        return this.resourcesVersions.computeIfAbsent(pluginProperties.getCompilerResourceDir(), CrosscompilerCache::computeResourcesVersion);
+    }
+
+    private static String computeResourcesVersion(String compilerResourcesDir) {
+        Path root;
+        List<Path> files;
+        try {
+            root = Paths.get(compilerResourcesDir).toRealPath(); // the resource directory may be a link, links below it are not followed
+            try (Stream<Path> paths = Files.walk(root)) {
+                files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+        } catch ( IOException e ) {
+            LOG.info("the crosscompiler resources " + compilerResourcesDir + " could not be read. Their version is unknown", e);
+            return "";
+        }
+        Hasher hasher = Hashing.sha256().newHasher();
+        List<String> relativePaths =
+            files.stream().map(file -> root.relativize(file).toString().replace(File.separatorChar, '/')).sorted().collect(Collectors.toList());
+        for ( String relativePath : relativePaths ) {
+            File file = root.resolve(relativePath).toFile();
+            hasher.putString(relativePath, StandardCharsets.UTF_8).putChar('\0').putLong(file.length()).putLong(file.lastModified());
+        }
+        return hasher.hash().toString();
+    }
+
+    private void loadExistingEntries() {
+        try (Stream<Path> paths = Files.walk(this.cacheDir, 2)) {
+            List<Path> artifacts =
+                paths
+                    .filter(Files::isRegularFile)
+                    .sorted(Comparator.comparingLong(path -> path.toFile().lastModified()))
+                    .collect(Collectors.toList());
+            for ( Path artifact : artifacts ) {
+                if ( artifact.getFileName().toString().endsWith(TMP_SUFFIX) ) {
+                    deleteQuietly(artifact);
+                } else {
+                    String key = this.cacheDir.relativize(artifact).toString().replace(File.separatorChar, '/');
+                    long size = artifact.toFile().length();
+                    synchronized ( this ) {
+                        this.lruEntries.put(key, size);
+                        this.totalBytes += size;
+                    }
+                }
+            }
+            LOG.info("crosscompiler cache: " + getNumberOfEntries() + " artifacts with " + getSizeInBytes() + " bytes found");
+            evictLeastRecentlyUsed(null);
+        } catch ( IOException e ) {
+            LOG.error("could not read the crosscompiler cache directory " + this.cacheDir, e);
+        }
+    }
+
+    /**
+     * evict the least recently used artifacts until the size of the cache is within its bound
+     *
+     * @param keyToKeep the key of the artifact just stored, it is never evicted; null, if all artifacts may be evicted
+     */
+    private void evictLeastRecentlyUsed(String keyToKeep) {
+        int evicted = 0;
+        synchronized ( this ) {
+            Iterator<Map.Entry<String, Long>> iterator = this.lruEntries.entrySet().iterator();
+            while ( this.totalBytes > this.maxBytes && iterator.hasNext() ) {
+                Map.Entry<String, Long> eldest = iterator.next();
+                if ( eldest.getKey().equals(keyToKeep) ) {
+                    continue;
+                }
+                this.totalBytes -= eldest.getValue();
+                evicted++;
+                deleteQuietly(this.cacheDir.resolve(eldest.getKey()));
+                iterator.remove();
+            }
+        }
+        this.evictions.addAndGet(evicted);
+    }
+
+    /**
+     * remove the entry of an artifact, whose file could not be read. If the file exists, it was stored again meanwhile and the entry is kept
+     */
+    private synchronized void removeIfMissing(String key, Path artifact) {
+        if ( Files.exists(artifact) ) {
+            return;
+        }
+        Long size = this.lruEntries.remove(key);
+        if ( size != null ) {
+            this.totalBytes -= size;
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch ( IOException e ) {
+            LOG.info("could not delete the crosscompiler cache entry " + path, e);
+        }
+    }
+}
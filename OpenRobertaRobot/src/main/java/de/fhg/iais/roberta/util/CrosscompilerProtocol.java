@@ -0,0 +1,138 @@
+package de.fhg.iais.roberta.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * the binary protocol between {@link RemoteCrosscompiler} and {@link CrosscompilerWorker}. A TCP connection carries one request and its response.<br>
+ * <br>
+ * request: magic, version, secret, toolchain family, session, the aliases of the workspace directory, the executable with its parameters, the source (for
+ * logging only) and the files of the workspace directory without its target directory.<br>
+ * response: status, the messages of the crosscompiler and the files of the target directory.<br>
+ * <br>
+ * Strings are UTF-8 encoded and prefixed by their length. A file is its path relative to the workspace (with '/' as separator) and its length-prefixed content.
+ */
+final class CrosscompilerProtocol {
+    static final int MAGIC = 0x4F524343; // "ORCC"
+    static final int VERSION = 1;
+
+    static final byte STATUS_SUCCESS = 0;
+    static final byte STATUS_COMPILE_FAILED = 1;
+    static final byte STATUS_QUEUE_FULL = 2;
+    static final byte STATUS_REJECTED = 3;
+
+    /**
+     * the directory of the workspace, into which the crosscompilers write their artifacts. Its files are returned to the client
+     */
+    static final String TARGET_DIR = "target";
+
+    private static final int MAX_STRING_BYTES = 16 * 1024 * 1024;
+    private static final int MAX_FILE_BYTES = 64 * 1024 * 1024;
+    private static final int MAX_COUNT = 10000;
+
+    private CrosscompilerProtocol() {
+        // no objects
+    }
+
+    static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in, MAX_STRING_BYTES), StandardCharsets.UTF_8);
+    }
+
+    static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+        out.writeInt(strings.length);
+        for ( String string : strings ) {
+            writeString(out, string);
+        }
+    }
+
+    static String[] readStrings(DataInputStream in) throws IOException {
+        String[] strings = new String[readCount(in)];
+        for ( int i = 0; i < strings.length; i++ ) {
+            strings[i] = readString(in);
+        }
+        return strings;
+    }
+
+    /**
+     * write the regular files below a directory
+     *
+     * @param out the stream to write to
+     * @param workspace the files are written with a path relative to this directory
+     * @param directory the directory, whose files are written. If it doesn't exist, no file is written
+     * @param exclude files not to be written. The predicate gets absolute paths
+     */
+    static void writeFiles(DataOutputStream out, Path workspace, Path directory, Predicate<Path> exclude) throws IOException {
+        Path root = workspace.toAbsolutePath().normalize();
+        Path start = directory.toAbsolutePath().normalize();
+        List<Path> files;
+        if ( Files.isDirectory(start) ) {
+            try (Stream<Path> walk = Files.walk(start)) {
+                files = walk.filter(Files::isRegularFile).filter(exclude.negate()).collect(Collectors.toList());
+            }
+        } else {
+            files = Collections.emptyList();
+        }
+        out.writeInt(files.size());
+        for ( Path file : files ) {
+            writeString(out, root.relativize(file).toString().replace('\\', '/'));
+            byte[] content = Files.readAllBytes(file);
+            out.writeInt(content.length);
+            out.write(content);
+        }
+    }
+
+    /**
+     * read files and store them below the workspace directory. A file, whose path leaves the workspace, is rejected
+     *
+     * @param in the stream to read from
+     * @param workspace the directory to store the files into
+     * @throws IOException if reading or writing fails or a path leaves the workspace. The files read so far remain
+     */
+    static void readFiles(DataInputStream in, Path workspace) throws IOException {
+        Path root = workspace.toAbsolutePath().normalize();
+        int count = readCount(in);
+        for ( int i = 0; i < count; i++ ) {
+            String relativePath = readString(in);
+            Path file = root.resolve(relativePath).normalize();
+            if ( !file.startsWith(root) || file.equals(root) ) {
+                throw new IOException("file " + relativePath + " leaves the workspace");
+            }
+            byte[] content = readBytes(in, MAX_FILE_BYTES);
+            Files.createDirectories(file.getParent());
+            Files.write(file, content);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in, int maxLength) throws IOException {
+        int length = in.readInt();
+        if ( length < 0 || length > maxLength ) {
+            throw new IOException("invalid length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if ( count < 0 || count > MAX_COUNT ) {
+            throw new IOException("invalid count " + count);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,311 @@
+package de.fhg.iais.roberta.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fhg.iais.roberta.util.dbc.Assert;
+import de.fhg.iais.roberta.util.dbc.DbcKeyException;
+
+/**
+ * central scheduler for all crosscompiler runs. A crosscompiler run starts an OS process (gcc, avr-gcc, python, ...). Without a limit a burst of "run"
+ * requests at the beginning of a lesson forks dozens of toolchains at once and the server thrashes.<br>
+ * <br>
+ * The crosscompilers are grouped into toolchain families (see {@link #AVR}, {@link #ARM}, {@link #MBED}, {@link #PYTHON}). For each family
+ * <ul>
+ * <li>a configurable number of crosscompiler runs may execute concurrently (slots)</li>
+ * <li>further runs wait in a bounded queue. The queue is fair: waiting runs are granted a slot round robin by session, thus one session clicking "run"
+ * repeatedly cannot starve the others. Runs of the same session are served FIFO</li>
+ * <li>if the queue is full, the run is rejected immediately with a {@link DbcKeyException} carrying
+ * {@link Key#COMPILERWORKFLOW_ERROR_CROSSCOMPILER_QUEUE_FULL}</li>
+ * <li>queue time and run time are measured</li>
+ * </ul>
+ * The run itself is executed in the thread of the caller. The scheduler is configured once at server startup with {@link #configure(ServerProperties)}.
+ * Thread-safe.
+ */
+public final class CrosscompilerScheduler {
+    private static final Logger LOG = LoggerFactory.getLogger(CrosscompilerScheduler.class);
+
+    public static final String AVR = "avr";
+    public static final String ARM = "arm";
+    public static final String MBED = "mbed";
+    public static final String PYTHON = "python";
+
+    public static final String SLOTS_PROPERTY = "robot.crosscompiler.scheduler.slots";
+    public static final String QUEUE_SIZE_PROPERTY = "robot.crosscompiler.scheduler.queue.size";
+
+    private static final int DEFAULT_SLOTS = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private static final int DEFAULT_QUEUE_SIZE = 50;
+    private static final String[] FAMILIES =
+        {
+            AVR,
+            ARM,
+            MBED,
+            PYTHON
+        };
+
+    private static volatile CrosscompilerScheduler instance = new CrosscompilerScheduler(DEFAULT_SLOTS, new HashMap<>(), DEFAULT_QUEUE_SIZE);
+
+    private final int defaultSlots;
+    private final Map<String, Integer> slotsOfFamily;
+    private final int maxQueueSize;
+    private final Map<String, Toolchain> toolchains = new ConcurrentHashMap<>();
+
+    /**
+     * create a scheduler. Use {@link #configure(ServerProperties)} for the server, use this constructor for tests only
+     *
+     * @param defaultSlots the number of concurrent runs of a toolchain family, if not given in slotsOfFamily; at least 1
+     * @param slotsOfFamily the number of concurrent runs for some toolchain families, never null
+     * @param maxQueueSize the maximal number of runs waiting for a slot per toolchain family; 0 rejects runs if all slots are used
+     */
+    public CrosscompilerScheduler(int defaultSlots, Map<String, Integer> slotsOfFamily, int maxQueueSize) {
+        Assert.isTrue(defaultSlots > 0 && maxQueueSize >= 0, "invalid configuration of the crosscompiler scheduler");
+        this.defaultSlots = defaultSlots;
+        this.slotsOfFamily = new HashMap<>(slotsOfFamily);
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    /**
+     * configure the scheduler used by the crosscompiler workers. Called once at server startup. The number of slots is taken from
+     * {@link #SLOTS_PROPERTY}, it may be overwritten for a toolchain family by appending "." and the family name to the property name.
+     *
+     * @param serverProperties the server properties, never null
+     */
+    public static void configure(ServerProperties serverProperties) {
+        int defaultSlots = serverProperties.getIntProperty(SLOTS_PROPERTY, DEFAULT_SLOTS);
+        Map<String, Integer> slotsOfFamily = new HashMap<>();
+        for ( String family : FAMILIES ) {
+            slotsOfFamily.put(family, serverProperties.getIntProperty(SLOTS_PROPERTY + "." + family, defaultSlots));
+        }
+        int maxQueueSize = serverProperties.getIntProperty(QUEUE_SIZE_PROPERTY, DEFAULT_QUEUE_SIZE);
+        instance = new CrosscompilerScheduler(defaultSlots, slotsOfFamily, maxQueueSize);
+        LOG.info("crosscompiler scheduler uses slots " + slotsOfFamily + " and a queue size of " + maxQueueSize);
+    }
+
+    /**
+     * @return the scheduler used by the crosscompiler workers. Never null
+     */
+    public static CrosscompilerScheduler getInstance() {
+        return instance;
+    }
+
+    /**
+     * run a crosscompiler job, if a slot of the toolchain family is free. Otherwise wait in the queue of the toolchain family.
+     *
+     * @param family the toolchain family, e.g. {@link #AVR}. Never null
+     * @param session the session (e.g. the token) requesting the run. Used for fair scheduling. Never null
+     * @param job the job, that runs the crosscompiler. Never null
+     * @return the result of the job
+     * @throws DbcKeyException with {@link Key#COMPILERWORKFLOW_ERROR_CROSSCOMPILER_QUEUE_FULL}, if the queue is full or the thread is interrupted while waiting
+     */
+    public <T> T run(String family, String session, Supplier<T> job) {
+        Toolchain toolchain = getToolchain(family);
+        long queueStart = System.nanoTime();
+        toolchain.acquire(session == null ? "" : session);
+        long runStart = System.nanoTime();
+        try {
+            return job.get();
+        } finally {
+            long runEnd = System.nanoTime();
+            toolchain.release(runStart - queueStart, runEnd - runStart);
+        }
+    }
+
+    /**
+     * @return the metrics of all toolchain families used so far as JSON object, never null
+     */
+    public JSONObject getStatistics() {
+        JSONObject statistics = new JSONObject();
+        statistics.put("maxQueueSize", this.maxQueueSize);
+        for ( Toolchain toolchain : this.toolchains.values() ) {
+            statistics.put(toolchain.family, toolchain.getStatistics());
+        }
+        return statistics;
+    }
+
+    /**
+     * @param family the toolchain family, never null
+     * @return the metrics of the toolchain family as JSON object, never null
+     */
+    public JSONObject getStatistics(String family) {
+        return getToolchain(family).getStatistics();
+    }
+
+    /**
+     * register the metrics of the toolchain families: queue length, running jobs, rejected jobs and the durations of queueing and running. The scheduler is
+     * looked up when the metrics are scraped, thus a later {@link #configure(ServerProperties)} is respected
+     *
+     * @param registry the registry of the server
+     */
+    public static void registerMetrics(MetricsRegistry registry) {
+        registry.register("roberta_crosscompiler_queue_length", "crosscompiler runs waiting for a slot", "gauge", writer -> {
+            for ( Toolchain toolchain : instance.toolchains.values() ) {
+                writer.sample().label("toolchain", toolchain.family).value(toolchain.getWaiting());
+            }
+        });
+        registry.register("roberta_crosscompiler_running", "crosscompiler runs holding a slot", "gauge", writer -> {
+            for ( Toolchain toolchain : instance.toolchains.values() ) {
+                writer.sample().label("toolchain", toolchain.family).value(toolchain.getRunning());
+            }
+        });
+        registry.register("roberta_crosscompiler_rejected_total", "crosscompiler runs rejected, because the queue was full", "counter", writer -> {
+            for ( Toolchain toolchain : instance.toolchains.values() ) {
+                writer.sample().label("toolchain", toolchain.family).value(toolchain.rejected.get());
+            }
+        });
+        registry.register("roberta_crosscompiler_queue_seconds", "time crosscompiler runs waited for a slot", "summary", writer -> {
+            for ( Toolchain toolchain : instance.toolchains.values() ) {
+                writer.sample("_sum").label("toolchain", toolchain.family).value(toolchain.queueTimeNanos.get() / 1e9);
+                writer.sample("_count").label("toolchain", toolchain.family).value(toolchain.completed.get());
+            }
+        });
+        registry.register("roberta_crosscompiler_run_seconds", "time crosscompiler runs held a slot", "summary", writer -> {
+            for ( Toolchain toolchain : instance.toolchains.values() ) {
+                writer.sample("_sum").label("toolchain", toolchain.family).value(toolchain.runTimeNanos.get() / 1e9);
+                writer.sample("_count").label("toolchain", toolchain.family).value(toolchain.completed.get());
+            }
+        });
+    }
+
+    private Toolchain getToolchain(String family) {
+        Assert.notNull(family);
+        return this.toolchains.computeIfAbsent(family, f -> new Toolchain(f, this.slotsOfFamily.getOrDefault(f, this.defaultSlots), this.maxQueueSize));
+    }
+
+    /**
+     * a run waiting for a slot. Guarded by the monitor of its toolchain
+     */
+    private static final class Ticket {
+        private boolean granted = false;
+    }
+
+    /**
+     * slots, queue and metrics of one toolchain family. The queue is a map from the session to the FIFO of its waiting runs. The iteration order of the map is
+     * the round robin order of the sessions.
+     */
+    private static final class Toolchain {
+        private final String family;
+        private final int slots;
+        private final int maxQueueSize;
+
+        private final LinkedHashMap<String, Deque<Ticket>> waitingBySession = new LinkedHashMap<>(); // guarded by "this"
+        private int running = 0; // guarded by "this"
+        private int waiting = 0; // guarded by "this"
+
+        private final AtomicLong completed = new AtomicLong(0);
+        private final AtomicLong rejected = new AtomicLong(0);
+        private final AtomicLong queueTimeNanos = new AtomicLong(0);
+        private final AtomicLong maxQueueTimeNanos = new AtomicLong(0);
+        private final AtomicLong runTimeNanos = new AtomicLong(0);
+        private final AtomicLong maxRunTimeNanos = new AtomicLong(0);
+
+        Toolchain(String family, int slots, int maxQueueSize) {
+            this.family = family;
+            this.slots = slots;
+            this.maxQueueSize = maxQueueSize;
+        }
+
+        synchronized void acquire(String session) {
+            if ( this.running < this.slots && this.waiting == 0 ) {
+                this.running++;
+                return;
+            }
+            if ( this.waiting >= this.maxQueueSize ) {
+                this.rejected.incrementAndGet();
+                LOG.warn("crosscompiler queue of toolchain " + this.family + " is full. Run rejected");
+                throw new DbcKeyException("crosscompiler queue full", Key.COMPILERWORKFLOW_ERROR_CROSSCOMPILER_QUEUE_FULL, null);
+            }
+            Ticket ticket = new Ticket();
+            this.waitingBySession.computeIfAbsent(session, s -> new ArrayDeque<>()).addLast(ticket);
+            this.waiting++;
+            while ( !ticket.granted ) {
+                try {
+                    wait();
+                } catch ( InterruptedException e ) {
+                    if ( ticket.granted ) {
+                        Thread.currentThread().interrupt(); // the slot is ours, keep the interrupt for the caller
+                        return;
+                    }
+                    removeTicket(session, ticket);
+                    this.rejected.incrementAndGet();
+                    Thread.currentThread().interrupt();
+                    throw new DbcKeyException("interrupted while waiting for the crosscompiler", Key.COMPILERWORKFLOW_ERROR_CROSSCOMPILER_QUEUE_FULL, null);
+                }
+            }
+        }
+
+        synchronized void release(long queueTime, long runTime) {
+            this.running--;
+            grantWaitingTickets();
+            this.completed.incrementAndGet();
+            this.queueTimeNanos.addAndGet(queueTime);
+            this.maxQueueTimeNanos.accumulateAndGet(queueTime, Math::max);
+            this.runTimeNanos.addAndGet(runTime);
+            this.maxRunTimeNanos.accumulateAndGet(runTime, Math::max);
+        }
+
+        /**
+         * grant free slots round robin to the sessions waiting. A session that got a slot moves to the end of the round robin order.
+         */
+        private void grantWaitingTickets() {
+            boolean granted = false;
+            while ( this.running < this.slots && !this.waitingBySession.isEmpty() ) {
+                Iterator<Entry<String, Deque<Ticket>>> iterator = this.waitingBySession.entrySet().iterator();
+                Entry<String, Deque<Ticket>> next = iterator.next();
+                iterator.remove();
+                Deque<Ticket> ticketsOfSession = next.getValue();
+                ticketsOfSession.removeFirst().granted = true;
+                if ( !ticketsOfSession.isEmpty() ) {
+                    this.waitingBySession.put(next.getKey(), ticketsOfSession);
+                }
+                this.waiting--;
+                this.running++;
+                granted = true;
+            }
+            if ( granted ) {
+                notifyAll();
+            }
+        }
+
+        private void removeTicket(String session, Ticket ticket) {
+            Deque<Ticket> ticketsOfSession = this.waitingBySession.get(session);
+            if ( ticketsOfSession != null && ticketsOfSession.remove(ticket) ) {
+                this.waiting--;
+                if ( ticketsOfSession.isEmpty() ) {
+                    this.waitingBySession.remove(session);
+                }
+            }
+        }
+
+        synchronized int getWaiting() {
+            return this.waiting;
+        }
+
+        synchronized int getRunning() {
+            return this.running;
+        }
+
+        synchronized JSONObject getStatistics() {
+            long completedRuns = this.completed.get();
+            JSONObject statistics = new JSONObject();
+            statistics.put("slots", this.slots).put("running", this.running).put("waiting", this.waiting);
+            statistics.put("completed", completedRuns).put("rejected", this.rejected.get());
+            statistics.put("avgQueueTimeMs", completedRuns == 0 ? 0 : this.queueTimeNanos.get() / completedRuns / 1000000L);
+            statistics.put("maxQueueTimeMs", this.maxQueueTimeNanos.get() / 1000000L);
+            statistics.put("avgRunTimeMs", completedRuns == 0 ? 0 : this.runTimeNanos.get() / completedRuns / 1000000L);
+            statistics.put("maxRunTimeMs", this.maxRunTimeNanos.get() / 1000000L);
+            return statistics;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package de.fhg.iais.roberta.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fhg.iais.roberta.util.dbc.Assert;
+import de.fhg.iais.roberta.util.dbc.DbcKeyException;
+
+/**
+ * a compile worker: runs the crosscompilers for the servers, that use {@link RemoteCrosscompiler}. The worker listens on a TCP port, each connection carries
+ * one request (see {@link CrosscompilerProtocol}). For each request
+ * <ul>
+ * <li>the secret is checked</li>
+ * <li>the files received are stored in a fresh workspace directory below the work directory of the worker</li>
+ * <li>the workspace directory of the server is replaced by the fresh directory in the parameters of the crosscompiler call</li>
+ * <li>the executable is checked against the executables allowed</li>
+ * <li>the crosscompiler is run with the {@link CrosscompilerScheduler} of the worker, thus the number of concurrent runs and the queue are bounded as on a
+ * server</li>
+ * <li>the messages and the files of the target directory are returned, the workspace directory is deleted</li>
+ * </ul>
+ * The worker process is started by the class <code>CrosscompilerWorkerStarter</code> of the server, tests may start workers in-process. Thread-safe.
+ */
+public final class CrosscompilerWorker implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(CrosscompilerWorker.class);
+
+    public static final String PORT_PROPERTY = "robot.crosscompiler.worker.port";
+    public static final String EXECUTABLES_PROPERTY = "robot.crosscompiler.worker.executables";
+
+    private static final int READ_TIMEOUT_MSEC = 60000;
+
+    private final Path workDir;
+    private final byte[] secret;
+    private final List<String> allowedExecutables;
+    private final CrosscompilerScheduler scheduler;
+    private final BiFunction<String[], String, Pair<Boolean, String>> crosscompiler;
+    private final AtomicLong completed = new AtomicLong(0);
+    private final AtomicLong rejected = new AtomicLong(0);
+
+    private ServerSocket serverSocket;
+    private ExecutorService connections;
+
+    /**
+     * create a worker
+     *
+     * @param workDir the directory, below which the workspaces of the runs are created. Never null
+     * @param secret the secret shared with the servers. Never null
+     * @param allowedExecutables the executables, that may be called. An entry ending with "/" allows all executables below this directory. Never null
+     * @param scheduler the scheduler for the runs. Never null
+     * @param crosscompiler runs the crosscompiler call given as first parameter. The second parameter is the source for logging only
+     */
+    public CrosscompilerWorker(
+        Path workDir,
+        String secret,
+        List<String> allowedExecutables,
+        CrosscompilerScheduler scheduler,
+        BiFunction<String[], String, Pair<Boolean, String>> crosscompiler) {
+        Assert.notNull(workDir);
+        Assert.isTrue(secret != null && !secret.isEmpty(), "a crosscompiler worker needs a secret");
+        this.workDir = workDir.toAbsolutePath().normalize();
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.allowedExecutables = new ArrayList<>(allowedExecutables);
+        this.scheduler = scheduler;
+        this.crosscompiler = crosscompiler;
+    }
+
+    /**
+     * create the worker of a worker process. The secret is {@link RemoteCrosscompiler#SECRET_PROPERTY}, the work directory is below the plugin temp
+     * directory. The executables allowed are taken from {@link #EXECUTABLES_PROPERTY} as comma separated list, the crosscompiler resource directory is always
+     * allowed. The scheduler must be configured before.
+     *
+     * @param serverProperties the properties of the worker process, never null
+     * @return the worker, not started yet
+     */
+    public static CrosscompilerWorker create(ServerProperties serverProperties) {
+        List<String> allowedExecutables = new ArrayList<>();
+        allowedExecutables.add(serverProperties.getCrosscompilerResourceDir());
+        String executables = serverProperties.getStringProperty(EXECUTABLES_PROPERTY);
+        if ( executables != null ) {
+            for ( String executable : executables.split(",") ) {
+                if ( !executable.trim().isEmpty() ) {
+                    allowedExecutables.add(executable.trim());
+                }
+            }
+        }
+        return new CrosscompilerWorker(
+            Paths.get(serverProperties.getTempDir(), "crosscompilerWorker"),
+            serverProperties.getStringProperty(RemoteCrosscompiler.SECRET_PROPERTY),
+            allowedExecutables,
+            CrosscompilerScheduler.getInstance(),
+            Util::runCrossCompiler);
+    }
+
+    /**
+     * start to accept requests
+     *
+     * @param port the port to listen on; 0 for any free port
+     * @param bindAddress the address to listen on; null for all addresses
+     * @return the port the worker listens on
+     */
+    public synchronized int start(int port, InetAddress bindAddress) throws IOException {
+        Assert.isTrue(this.serverSocket == null, "the crosscompiler worker is started already");
+        Files.createDirectories(this.workDir);
+        this.serverSocket = new ServerSocket(port, 50, bindAddress);
+        AtomicInteger threadNumber = new AtomicInteger(0);
+        this.connections = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "crosscompiler-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ServerSocket acceptingSocket = this.serverSocket;
+        ExecutorService acceptingConnections = this.connections;
+        Thread acceptor = new Thread(() -> accept(acceptingSocket, acceptingConnections), "crosscompiler-worker-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        LOG.info("crosscompiler worker listens on port " + this.serverSocket.getLocalPort() + ", the work directory is " + this.workDir);
+        return this.serverSocket.getLocalPort();
+    }
+
+    /**
+     * stop to accept requests. Requests in progress are aborted
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if ( this.serverSocket != null ) {
+            this.serverSocket.close();
+            this.connections.shutdownNow();
+            this.serverSocket = null;
+        }
+    }
+
+    /**
+     * @return the number of crosscompiler runs executed (successful or not)
+     */
+    public long getCompleted() {
+        return this.completed.get();
+    }
+
+    /**
+     * @return the number of requests rejected (bad secret, executable not allowed, queue full, ...)
+     */
+    public long getRejected() {
+        return this.rejected.get();
+    }
+
+    private void accept(ServerSocket acceptingSocket, ExecutorService acceptingConnections) {
+        while ( !acceptingSocket.isClosed() ) {
+            try {
+                Socket socket = acceptingSocket.accept();
+                acceptingConnections.execute(() -> handle(socket));
+            } catch ( SocketException e ) {
+                // the worker was closed
+            } catch ( Exception e ) {
+                LOG.error("crosscompiler worker could not accept a connection", e);
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        Path workspace = this.workDir.resolve(UUID.randomUUID().toString());
+        try (Socket connection = socket) {
+            connection.setSoTimeout(READ_TIMEOUT_MSEC);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            if ( in.readInt() != CrosscompilerProtocol.MAGIC || in.readInt() != CrosscompilerProtocol.VERSION ) {
+                reject(out, "unknown protocol or protocol version");
+                return;
+            }
+            if ( !MessageDigest.isEqual(this.secret, CrosscompilerProtocol.readString(in).getBytes(StandardCharsets.UTF_8)) ) {
+                reject(out, "wrong secret");
+                return;
+            }
+            String family = CrosscompilerProtocol.readString(in);
+            String session = CrosscompilerProtocol.readString(in);
+            String[] aliases = CrosscompilerProtocol.readStrings(in);
+            String[] executableWithParameters = CrosscompilerProtocol.readStrings(in);
+            String crosscompilerSourceForDebuggingOnly = CrosscompilerProtocol.readString(in);
+            Files.createDirectories(workspace);
+            CrosscompilerProtocol.readFiles(in, workspace);
+            if ( executableWithParameters.length == 0 || !isAllowed(executableWithParameters[0]) ) {
+                reject(out, "crosscompiler not allowed");
+                return;
+            }
+            String localWorkspace = workspace.toString() + "/";
+            for ( int i = 0; i < executableWithParameters.length; i++ ) {
+                for ( String alias : aliases ) {
+                    executableWithParameters[i] = executableWithParameters[i].replace(alias, localWorkspace);
+                }
+            }
+            byte status;
+            String messages;
+            try {
+                Pair<Boolean, String> result =
+                    this.scheduler.run(family, session, () -> this.crosscompiler.apply(executableWithParameters, crosscompilerSourceForDebuggingOnly));
+                this.completed.incrementAndGet();
+                status = result.getFirst() ? CrosscompilerProtocol.STATUS_SUCCESS : CrosscompilerProtocol.STATUS_COMPILE_FAILED;
+                messages = result.getSecond() == null ? "" : result.getSecond().replace(localWorkspace, aliases.length == 0 ? "" : aliases[0]);
+            } catch ( DbcKeyException e ) {
+                this.rejected.incrementAndGet();
+                status = CrosscompilerProtocol.STATUS_QUEUE_FULL;
+                messages = e.getMessage();
+            }
+            out.writeByte(status);
+            CrosscompilerProtocol.writeString(out, messages);
+            CrosscompilerProtocol.writeFiles(out, workspace, workspace.resolve(CrosscompilerProtocol.TARGET_DIR), file -> false);
+            delete(workspace); // before the client gets the response
+            out.flush();
+        } catch ( Exception e ) {
+            LOG.error("crosscompiler worker could not process a request", e);
+        } finally {
+            delete(workspace);
+        }
+    }
+
+    private void reject(DataOutputStream out, String reason) throws IOException {
+        LOG.error("crosscompiler worker rejected a request: " + reason);
+        this.rejected.incrementAndGet();
+        out.writeByte(CrosscompilerProtocol.STATUS_REJECTED);
+        CrosscompilerProtocol.writeString(out, reason);
+        out.writeInt(0); // no files
+        out.flush();
+    }
+
+    private boolean isAllowed(String executable) {
+        String normalized = executable.contains("/") ? Paths.get(executable).toAbsolutePath().normalize().toString() : executable;
+        for ( String allowed : this.allowedExecutables ) {
+            if ( allowed.endsWith("/") ) {
+                if ( normalized.startsWith(Paths.get(allowed).toAbsolutePath().normalize().toString() + "/") ) {
+                    return true;
+                }
+            } else if ( allowed.equals(executable) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void delete(Path workspace) {
+        if ( !Files.exists(workspace) ) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(workspace)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch ( IOException e ) {
+            LOG.error("could not delete the workspace " + workspace, e);
+        }
+    }
+}
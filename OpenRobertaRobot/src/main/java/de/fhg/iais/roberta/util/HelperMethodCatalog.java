@@ -0,0 +1,114 @@
+package de.fhg.iais.roberta.util;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.json.JSONObject;
+
+import de.fhg.iais.roberta.util.HelperMethodGenerator.Language;
+import de.fhg.iais.roberta.util.dbc.Assert;
+
+/**
+ * Immutable catalog of the helper methods of a robot plugin, loaded once from the method definition YAML file (including all files included from it). For
+ * each language the implementation, the declaration and the function name of a helper method are computed when the catalog is created. Thus a catalog is
+ * created once per robot factory and shared by all code generations; a {@link HelperMethodGenerator} only selects from it.
+ */
+public final class HelperMethodCatalog {
+    private static final Pattern PYTHON_FUNCTION_NAME = Pattern.compile("def (.*)\\(.*\\):");
+    private static final Pattern C_FUNCTION_NAME = Pattern.compile(".* &?\\*?(.*)\\(.*\\) \\{"); // Java and C matchers are identical
+
+    private final Map<Language, Map<String, HelperMethod>> helperMethodsByLanguage = new EnumMap<>(Language.class);
+
+    /**
+     * Constructs the catalog from the loaded JSON of the method definition YAML file.
+     *
+     * @param jsonHelperMethods the loaded JSON of the YAML file
+     */
+    public HelperMethodCatalog(JSONObject jsonHelperMethods) {
+        Assert.notNull(jsonHelperMethods);
+        for ( Language language : Language.values() ) {
+            Map<String, HelperMethod> helperMethods = new HashMap<>();
+            for ( String methodName : jsonHelperMethods.keySet() ) {
+                String implementation = jsonHelperMethods.getJSONObject(methodName).optString(language.toString(), null);
+                if ( implementation != null ) {
+                    helperMethods.put(methodName, new HelperMethod(language, implementation));
+                }
+            }
+            this.helperMethodsByLanguage.put(language, Collections.unmodifiableMap(helperMethods));
+        }
+    }
+
+    /**
+     * Loads the catalog from a method definition YAML file. Included files are loaded, too.
+     *
+     * @param helperMethodFile URI of the YAML file, see {@link Util#loadYAMLRecursive(String, JSONObject, String, boolean)}
+     * @return the catalog, never null
+     */
+    public static HelperMethodCatalog load(String helperMethodFile) {
+        JSONObject helperMethods = new JSONObject();
+        Util.loadYAMLRecursive("", helperMethods, helperMethodFile, true);
+        return new HelperMethodCatalog(helperMethods);
+    }
+
+    /**
+     * @param language the language of the helper methods
+     * @return the unmodifiable map from method names to the helper methods available in the language, never null
+     */
+    public Map<String, HelperMethod> getHelperMethods(Language language) {
+        return this.helperMethodsByLanguage.get(language);
+    }
+
+    /**
+     * Implementation of a helper method in one language together with its declaration and function name.
+     */
+    public static final class HelperMethod {
+        private final String implementation;
+        private final String declaration;
+        private final String functionName;
+
+        private HelperMethod(Language language, String implementation) {
+            this.implementation = implementation;
+            String firstLine = implementation.split("\n")[0];
+            switch ( language ) { // format declaration as necessary for the language
+                case C:
+                case JAVA:
+                    this.declaration = firstLine.replace("{", "").trim() + ";"; // remove brace if it exists and trailing whitespace
+                    this.functionName = extractFunctionName(C_FUNCTION_NAME, firstLine);
+                    break;
+                case PYTHON:
+                    this.declaration = firstLine;
+                    this.functionName = extractFunctionName(PYTHON_FUNCTION_NAME, firstLine);
+                    break;
+                case JSON: // json/stackmachine should not need helper functions
+                default:
+                    this.declaration = firstLine;
+                    this.functionName = null;
+                    break;
+            }
+        }
+
+        public String getImplementation() {
+            return this.implementation;
+        }
+
+        public String getDeclaration() {
+            return this.declaration;
+        }
+
+        /**
+         * @return the function name to use in code generation, null if it cannot be extracted from the implementation
+         */
+        public String getFunctionName() {
+            return this.functionName;
+        }
+
+        private static String extractFunctionName(Pattern pattern, String declaration) {
+            Matcher nameMatcher = pattern.matcher(declaration);
+            return nameMatcher.find() ? nameMatcher.group(1) : null;
+        }
+    }
+}
@@ -1,20 +1,18 @@
 package de.fhg.iais.roberta.util;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.IntStream;
 
 import org.json.JSONObject;
 
 import de.fhg.iais.roberta.mode.general.ListElementOperations;
 import de.fhg.iais.roberta.syntax.lang.functions.FunctionNames;
+import de.fhg.iais.roberta.util.HelperMethodCatalog.HelperMethod;
 import de.fhg.iais.roberta.util.dbc.DbcException;
 
 /**
@@ -29,12 +27,11 @@ public class HelperMethodGenerator {
         PYTHON, C, JAVA, JSON
     }
 
-    private final JSONObject jsonHelperMethods;
     private final Language language;
 
-    private final Collection<Class<? extends Enum<?>>> enums = new ArrayList<>();
+    private final Set<Class<? extends Enum<?>>> enums = new HashSet<>();
 
-    private final Map<? super Enum, String> helperMethods = new HashMap<>();
+    private final Map<String, HelperMethod> helperMethods;
 
     /**
      * Constructs a generator from the loaded JSON of the method definition YAML file. By default, it adds {@link FunctionNames} to the list of Enums which can
@@ -44,39 +41,36 @@ public class HelperMethodGenerator {
      * @param baseProgLanguage the base programming language
      */
     public HelperMethodGenerator(JSONObject jsonHelperMethods, Language baseProgLanguage) {
-        this.jsonHelperMethods = jsonHelperMethods;
+        this(new HelperMethodCatalog(jsonHelperMethods), baseProgLanguage);
+    }
+
+    /**
+     * Constructs a generator, that selects the helper methods of the base programming language from a catalog shared by all code generations of a robot. By
+     * default, it adds {@link FunctionNames} to the list of Enums which can be used to select a helper method.
+     *
+     * @param helperMethodCatalog the catalog loaded from the method definition YAML file
+     * @param baseProgLanguage the base programming language
+     */
+    public HelperMethodGenerator(HelperMethodCatalog helperMethodCatalog, Language baseProgLanguage) {
         this.language = baseProgLanguage;
+        this.helperMethods = helperMethodCatalog.getHelperMethods(baseProgLanguage);
 
         this.enums.add(FunctionNames.class);
         this.enums.add(ListElementOperations.class);
-
-        loadFromJson(jsonHelperMethods, baseProgLanguage);
-    }
-
-    private void loadFromJson(JSONObject jsonHelperMethods, Language baseProgLanguage) {
-        for ( String methodName : jsonHelperMethods.keySet() ) {
-            JSONObject jsonHelperMethod = jsonHelperMethods.getJSONObject(methodName);
-            String implementation = jsonHelperMethod.optString(baseProgLanguage.toString(), null);
-            if ( implementation != null ) {
-                for ( Class<? extends Enum> anEnum : this.enums ) {
-                    try {
-                        this.helperMethods.put(Enum.valueOf(anEnum, methodName), implementation);
-                    } catch ( IllegalArgumentException e ) {
-                        // not all enum values need to have an implementation
-                    }
-                }
-            }
-        }
     }
 
     /**
-     * Adds an additional enum to the list of enums loaded from the YAML file. Reloads the contents from the YAML file.
+     * Adds an additional enum to the list of enums whose values select helper methods from the YAML file.
      *
      * @param anEnum the additional enum to be loaded
      */
     public void addAdditionalEnum(Class<? extends Enum<?>> anEnum) {
         this.enums.add(anEnum);
-        loadFromJson(this.jsonHelperMethods, this.language);
+    }
+
+    private HelperMethod getHelperMethod(Enum<?> method) {
+        // not all enum values need to have an implementation, and only values of registered enums are considered
+        return this.enums.contains(method.getDeclaringClass()) ? this.helperMethods.get(method.name()) : null;
     }
 
     /**
@@ -86,8 +80,11 @@ public class HelperMethodGenerator {
      * @return the function name to use in code generation
      */
     public String getHelperMethodName(Enum<?> method) {
-        String implementation = this.helperMethods.get(method);
-        return extractFunctionName(implementation);
+        HelperMethod helperMethod = getHelperMethod(method);
+        if ( helperMethod == null ) {
+            throw new DbcException("No helper method implementation for " + method);
+        }
+        return extractFunctionName(helperMethod);
     }
 
     /**
@@ -107,23 +104,10 @@ public class HelperMethodGenerator {
             IntStream.range(0, usedMethodsList.size()).boxed().sorted(Comparator.comparing(i -> usedMethodsList.get(i).toString())).mapToInt(e -> e).toArray();
 
         for ( int sortedIndex : sortedIndices ) {
-            String implementation = this.helperMethods.get(usedMethodsList.get(sortedIndex));
-
-            if ( implementation != null ) { // no implementation necessary for this method
+            HelperMethod helperMethod = getHelperMethod(usedMethodsList.get(sortedIndex));
+            if ( helperMethod != null ) { // no implementation necessary for this method
                 sb.append('\n');
-                String declaration = implementation.split("\n")[0];
-                switch ( this.language ) { // format declaration as necessary for the language
-                    case C:
-                    case JAVA:
-                        declaration = declaration.replace("{", ""); // remove brace if it exists
-                        declaration = declaration.trim(); // remove trailing whitespace
-                        declaration = declaration + ";";
-                        break;
-                    case PYTHON:
-                    case JSON:
-                        break; // nothing needed here
-                }
-                sb.append(declaration);
+                sb.append(helperMethod.getDeclaration());
             }
         }
 
@@ -147,10 +131,10 @@ public class HelperMethodGenerator {
             IntStream.range(0, usedMethodsList.size()).boxed().sorted(Comparator.comparing(i -> usedMethodsList.get(i).toString())).mapToInt(e -> e).toArray();
 
         for ( int sortedIndex : sortedIndices ) {
-            String implementation = this.helperMethods.get(usedMethodsList.get(sortedIndex));
-            if ( implementation != null ) { // no implementation necessary for this method
+            HelperMethod helperMethod = getHelperMethod(usedMethodsList.get(sortedIndex));
+            if ( helperMethod != null ) { // no implementation necessary for this method
                 sb.append('\n');
-                sb.append(implementation);
+                sb.append(helperMethod.getImplementation());
             }
         }
 
@@ -158,28 +142,23 @@ public class HelperMethodGenerator {
     }
 
     /**
-     * Extracts the function names from the implementation. Uses the current language.
+     * Returns the function name precomputed by the catalog. Uses the current language.
      *
-     * @param implementation the implementation of the helper method
+     * @param helperMethod the helper method
      * @return the extracted function name
      */
-    private String extractFunctionName(String implementation) {
-        String declaration = implementation.split("\n")[0];
-        Matcher nameMatcher;
+    private String extractFunctionName(HelperMethod helperMethod) {
         switch ( this.language ) {
             case PYTHON:
-                nameMatcher = Pattern.compile("def (.*)\\(.*\\):").matcher(declaration);
-                break;
-            case C: // Java and C matchers are identical
+            case C:
             case JAVA:
-                nameMatcher = Pattern.compile(".* &?\\*?(.*)\\(.*\\) \\{").matcher(declaration);
                 break;
             case JSON: // json/stackmachine should not need helper functions
             default:
                 throw new DbcException("Programming language is not supported");
         }
-        if ( nameMatcher.find() ) {
-            return nameMatcher.group(1);
+        if ( helperMethod.getFunctionName() != null ) {
+            return helperMethod.getFunctionName();
         } else {
             throw new DbcException("Method definition in helper methods is incorrect!");
         }
@@ -102,6 +102,8 @@ public enum Key {
     COMPILERWORKFLOW_ERROR_CONFIGURATION_TRANSFORM_FAILED( false ),
     COMPILERWORKFLOW_ERROR_PROGRAM_STORE_FAILED( false ),
     COMPILERWORKFLOW_ERROR_PROGRAM_COMPILE_FAILED( false ),
+    COMPILERWORKFLOW_ERROR_CROSSCOMPILER_QUEUE_FULL( false ),
+    COMPILERWORKFLOW_ERROR_JOB_NOT_FOUND( false ),
     COMPILERWORKFLOW_ERROR_PROGRAM_GENERATION_FAILED( false ),
     COMPILERWORKFLOW_ERROR_PROGRAM_GENERATION_FAILED_WITH_PARAMETERS( false ),
     COMPILERWORKFLOW_PROGRAM_GENERATION_SUCCESS( true ),
@@ -0,0 +1,252 @@
+package de.fhg.iais.roberta.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import de.fhg.iais.roberta.util.dbc.Assert;
+
+/**
+ * the registry of the metrics of the server, exported in the Prometheus text exposition format (version 0.0.4). A metric family is either a
+ * {@link Counter}, that is incremented by the code observed, or a {@link Collector}, that reads the current values when the metrics are scraped. Thread-safe.
+ * <br>
+ * <br>
+ * Scraping is cheap: collectors read counters and iterate over existing data structures, the samples are written directly into one {@link StringBuilder}
+ * by a reusable {@link SampleWriter}. No objects per sample are created. Thus scraping every few seconds is harmless.<br>
+ * <br>
+ * Usage:
+ *
+ * <pre>
+ * private static final MetricsRegistry.Counter PUSHES = MetricsRegistry.getInstance().counter("roberta_robot_pushes_total", "push requests of robots");
+ * ...
+ * PUSHES.increment();
+ * ...
+ * MetricsRegistry.getInstance().gauge("roberta_http_sessions", "number of http sessions", HttpSessionState::getNumberOfHttpSessionStates);
+ * </pre>
+ */
+public final class MetricsRegistry {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * get the counter of a name. If it doesn't exist, it is created
+     *
+     * @param name the name of the metric, should end with "_total"
+     * @param help the description of the metric
+     * @return the counter, never null
+     */
+    public Counter counter(String name, String help) {
+        Family family = this.families.computeIfAbsent(name, n -> {
+            Counter counter = new Counter();
+            return new Family(n, help, "counter", writer -> writer.sample().value(counter.get()), counter);
+        });
+        Assert.notNull(family.counter, "metric " + name + " is not a counter");
+        return family.counter;
+    }
+
+    /**
+     * register a counter maintained elsewhere, e.g. an {@link java.util.concurrent.atomic.AtomicLong}, whose value is read when the metrics are scraped. A
+     * metric of the same name is replaced
+     *
+     * @param name the name of the metric, should end with "_total"
+     * @param help the description of the metric
+     * @param value supplies the current value
+     */
+    public void counter(String name, String help, LongSupplier value) {
+        register(name, help, "counter", writer -> writer.sample().value(value.getAsLong()));
+    }
+
+    /**
+     * register a gauge, whose value is read when the metrics are scraped. A gauge of the same name is replaced
+     *
+     * @param name the name of the metric
+     * @param help the description of the metric
+     * @param value supplies the current value
+     */
+    public void gauge(String name, String help, LongSupplier value) {
+        register(name, help, "gauge", writer -> writer.sample().value(value.getAsLong()));
+    }
+
+    /**
+     * register a collector, that writes the samples of a metric family, e.g. a gauge with labels. A collector of the same name is replaced
+     *
+     * @param name the name of the metric family
+     * @param help the description of the metric family
+     * @param type the Prometheus type, one of "gauge", "counter", "summary" or "untyped"
+     * @param collector writes the samples
+     */
+    public void register(String name, String help, String type, Collector collector) {
+        Assert.notNull(collector);
+        this.families.put(name, new Family(name, help, type, collector, null));
+    }
+
+    /**
+     * remove a metric family. For tests
+     */
+    public void unregister(String name) {
+        this.families.remove(name);
+    }
+
+    /**
+     * @return all metric families in the Prometheus text exposition format, ordered by name. Never null
+     */
+    public String scrape() {
+        StringBuilder sb = new StringBuilder(this.families.size() * 256);
+        TextWriter writer = new TextWriter(sb);
+        for ( Family family : this.families.values() ) {
+            sb.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            sb.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            writer.family = family.name;
+            family.collector.collect(writer);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * a monotonic counter. Incrementing is lock-free and doesn't allocate
+     */
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        public void increment() {
+            this.value.increment();
+        }
+
+        public void add(long delta) {
+            this.value.add(delta);
+        }
+
+        public long get() {
+            return this.value.sum();
+        }
+    }
+
+    /**
+     * writes the samples of one metric family, when the metrics are scraped
+     */
+    @FunctionalInterface
+    public interface Collector {
+        void collect(SampleWriter writer);
+    }
+
+    /**
+     * writes one sample after the other. A sample is started by {@link #sample()} or {@link #sample(String)}, optionally gets labels and is terminated by
+     * one of the value methods:
+     *
+     * <pre>
+     * writer.sample("_sum").label("family", "avr").value(12.5);
+     * </pre>
+     */
+    public interface SampleWriter {
+        /**
+         * start a sample named as the metric family
+         */
+        SampleWriter sample();
+
+        /**
+         * start a sample named as the metric family with a suffix, e.g. "_sum" or "_count" of a summary
+         */
+        SampleWriter sample(String suffix);
+
+        SampleWriter label(String name, String value);
+
+        void value(long value);
+
+        void value(double value);
+    }
+
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final Collector collector;
+        private final Counter counter;
+
+        private Family(String name, String help, String type, Collector collector, Counter counter) {
+            Assert.isTrue(name.matches("[a-zA-Z_:][a-zA-Z0-9_:]*"), "invalid metric name " + name);
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.collector = collector;
+            this.counter = counter;
+        }
+    }
+
+    private static final class TextWriter implements SampleWriter {
+        private final StringBuilder sb;
+        private String family;
+        private boolean hasLabels;
+
+        private TextWriter(StringBuilder sb) {
+            this.sb = sb;
+        }
+
+        @Override
+        public SampleWriter sample() {
+            return sample("");
+        }
+
+        @Override
+        public SampleWriter sample(String suffix) {
+            this.sb.append(this.family).append(suffix);
+            this.hasLabels = false;
+            return this;
+        }
+
+        @Override
+        public SampleWriter label(String name, String value) {
+            this.sb.append(this.hasLabels ? ',' : '{').append(name).append("=\"");
+            String v = value == null ? "" : value;
+            for ( int i = 0; i < v.length(); i++ ) {
+                char c = v.charAt(i);
+                switch ( c ) {
+                    case '\\':
+                        this.sb.append("\\\\");
+                        break;
+                    case '"':
+                        this.sb.append("\\\"");
+                        break;
+                    case '\n':
+                        this.sb.append("\\n");
+                        break;
+                    default:
+                        this.sb.append(c);
+                }
+            }
+            this.sb.append('"');
+            this.hasLabels = true;
+            return this;
+        }
+
+        @Override
+        public void value(long value) {
+            endLabels();
+            this.sb.append(value).append('\n');
+        }
+
+        @Override
+        public void value(double value) {
+            endLabels();
+            if ( Double.isNaN(value) ) {
+                this.sb.append("NaN");
+            } else if ( Double.isInfinite(value) ) {
+                this.sb.append(value > 0 ? "+Inf" : "-Inf");
+            } else {
+                this.sb.append(value);
+            }
+            this.sb.append('\n');
+        }
+
+        private void endLabels() {
+            this.sb.append(this.hasLabels ? "} " : " ");
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package de.fhg.iais.roberta.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fhg.iais.roberta.util.dbc.Assert;
+import de.fhg.iais.roberta.util.dbc.DbcKeyException;
+
+/**
+ * runs crosscompilers on remote compile workers (see {@link CrosscompilerWorker}) instead of in a process of the server. Then the nodes serving the browsers
+ * don't need the crosscompiler resources and their CPUs are not used by crosscompilers.<br>
+ * <br>
+ * A crosscompiler run needs a workspace directory. The crosscompiler reads its sources from the workspace and writes its artifacts into the directory
+ * "target" of the workspace (the layout {@link Util#storeGeneratedProgram(String, String, String, String, String)} creates). The files of the workspace are
+ * sent to a worker, the worker replaces the workspace directory in the parameters of the crosscompiler call by a local directory, runs the crosscompiler and
+ * returns its messages and the files of its target directory. These are stored in the target directory of the workspace. All other paths (the crosscompiler
+ * resources, for instance) are used unchanged, thus the workers must install the crosscompiler resources at the same location as configured for the server.
+ * <br>
+ * <br>
+ * The workers are load-balanced: a run is sent to the worker with the fewest runs in progress, ties are broken round robin. If a worker is not reachable, it
+ * is skipped for {@link #DOWN_MSEC} msec and the run is sent to the next worker. If the queues of all workers are full, the run is rejected with a
+ * {@link DbcKeyException} carrying {@link Key#COMPILERWORKFLOW_ERROR_CROSSCOMPILER_QUEUE_FULL}, as a local run would be.<br>
+ * <br>
+ * Configured once at server startup with {@link #configure(ServerProperties)}. If no workers are configured, it is disabled and the crosscompilers run locally.
+ * Thread-safe.
+ */
+public final class RemoteCrosscompiler {
+    private static final Logger LOG = LoggerFactory.getLogger(RemoteCrosscompiler.class);
+
+    public static final String WORKERS_PROPERTY = "robot.crosscompiler.remote.workers";
+    public static final String SECRET_PROPERTY = "robot.crosscompiler.remote.secret";
+
+    static final long DOWN_MSEC = 10000;
+    private static final int CONNECT_TIMEOUT_MSEC = 2000;
+    private static final int READ_TIMEOUT_MSEC = 300000;
+    private static final RemoteCrosscompiler DISABLED = new RemoteCrosscompiler(Collections.emptyList(), "");
+
+    private static volatile RemoteCrosscompiler instance = DISABLED;
+
+    private final List<Worker> workers = new ArrayList<>();
+    private final String secret;
+    private final AtomicInteger nextWorker = new AtomicInteger(0);
+
+    /**
+     * create a client for compile workers. Use {@link #configure(ServerProperties)} for the server, use this constructor for tests only
+     *
+     * @param workers the addresses of the workers as "host:port", never null. If empty, remote compilation is disabled
+     * @param secret the secret shared with the workers, never null
+     */
+    public RemoteCrosscompiler(List<String> workers, String secret) {
+        Assert.notNull(secret);
+        for ( String worker : workers ) {
+            int colon = worker.lastIndexOf(':');
+            Assert.isTrue(colon > 0, "a crosscompiler worker must be given as host:port, but is: " + worker);
+            this.workers.add(new Worker(worker.substring(0, colon).trim(), Integer.parseInt(worker.substring(colon + 1).trim())));
+        }
+        this.secret = secret;
+    }
+
+    /**
+     * configure the remote compilation. Called once at server startup. The workers are taken from {@link #WORKERS_PROPERTY} as comma separated list of
+     * "host:port"
+     *
+     * @param serverProperties the server properties, never null
+     */
+    public static void configure(ServerProperties serverProperties) {
+        String workers = serverProperties.getStringProperty(WORKERS_PROPERTY);
+        if ( workers == null || workers.trim().isEmpty() ) {
+            LOG.info("crosscompilers run locally");
+            instance = DISABLED;
+            return;
+        }
+        String secret = serverProperties.getStringProperty(SECRET_PROPERTY);
+        Assert.isTrue(secret != null && !secret.trim().isEmpty(), "property " + SECRET_PROPERTY + " is needed for remote crosscompilation");
+        List<String> addresses = new ArrayList<>();
+        for ( String worker : workers.split(",") ) {
+            if ( !worker.trim().isEmpty() ) {
+                addresses.add(worker.trim());
+            }
+        }
+        instance = new RemoteCrosscompiler(addresses, secret.trim());
+        LOG.info("crosscompilers run on the remote workers " + addresses);
+    }
+
+    /**
+     * @return the client used by the crosscompiler workers. Never null, but maybe disabled
+     */
+    public static RemoteCrosscompiler getInstance() {
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return !this.workers.isEmpty();
+    }
+
+    /**
+     * run a crosscompiler on one of the workers
+     *
+     * @param family the toolchain family, e.g. {@link CrosscompilerScheduler#AVR}. The worker schedules the run with it. Never null
+     * @param session the session (e.g. the token) requesting the run. Used by the worker for fair scheduling. Never null
+     * @param workspaceDir the workspace directory as used in the parameters of the crosscompiler call. Never null
+     * @param executableWithParameters the crosscompiler call. Never null
+     * @param crosscompilerSourceForDebuggingOnly for logging if the crosscompiler fails
+     * @return true, when the crosscompiler succeeds; false, otherwise. The messages of the crosscompiler
+     * @throws DbcKeyException if the queues of all workers reachable are full
+     */
+    public Pair<Boolean, String> run(
+        String family,
+        String session,
+        String workspaceDir,
+        String[] executableWithParameters,
+        String crosscompilerSourceForDebuggingOnly) {
+        Assert.isTrue(isEnabled(), "remote crosscompilation is disabled");
+        Path workspace = Paths.get(workspaceDir).toAbsolutePath().normalize();
+        boolean queueFull = false;
+        for ( Worker worker : workersInOrderOfPreference() ) {
+            worker.running.incrementAndGet();
+            try {
+                Pair<Byte, String> response = send(worker, family, session, workspaceDir, workspace, executableWithParameters, crosscompilerSourceForDebuggingOnly);
+                switch ( response.getFirst() ) {
+                    case CrosscompilerProtocol.STATUS_QUEUE_FULL:
+                        queueFull = true;
+                        continue;
+                    case CrosscompilerProtocol.STATUS_REJECTED:
+                        LOG.error("crosscompiler worker " + worker + " rejected the run: " + response.getSecond());
+                        worker.failed.incrementAndGet();
+                        return Pair.of(false, response.getSecond());
+                    default:
+                        worker.completed.incrementAndGet();
+                        boolean success = response.getFirst() == CrosscompilerProtocol.STATUS_SUCCESS;
+                        if ( !success ) {
+                            Util.logCrosscompilerError(LOG, response.getSecond(), crosscompilerSourceForDebuggingOnly);
+                        }
+                        return Pair.of(success, response.getSecond());
+                }
+            } catch ( IOException e ) {
+                LOG.warn("crosscompiler worker " + worker + " failed. It is not used for " + DOWN_MSEC + " msec", e);
+                worker.failed.incrementAndGet();
+                worker.downUntil = System.currentTimeMillis() + DOWN_MSEC;
+            } finally {
+                worker.running.decrementAndGet();
+            }
+        }
+        if ( queueFull ) {
+            throw new DbcKeyException("crosscompiler queues of all workers full", Key.COMPILERWORKFLOW_ERROR_CROSSCOMPILER_QUEUE_FULL, null);
+        }
+        return Pair.of(false, "no crosscompiler worker available");
+    }
+
+    /**
+     * @return the state of all workers as JSON object, never null
+     */
+    public JSONObject getStatistics() {
+        JSONObject statistics = new JSONObject();
+        long now = System.currentTimeMillis();
+        for ( Worker worker : this.workers ) {
+            statistics
+                .put(
+                    worker.toString(),
+                    new JSONObject()
+                        .put("running", worker.running.get())
+                        .put("completed", worker.completed.get())
+                        .put("failed", worker.failed.get())
+                        .put("down", worker.isDown(now)));
+        }
+        return statistics;
+    }
+
+    /**
+     * @return all workers. Workers up before workers down, then the fewest runs in progress first. Workers of equal rank are rotated round robin
+     */
+    private List<Worker> workersInOrderOfPreference() {
+        int size = this.workers.size();
+        int start = Math.floorMod(this.nextWorker.getAndIncrement(), size);
+        List<Worker> workersInOrder = new ArrayList<>(size);
+        for ( int i = 0; i < size; i++ ) {
+            workersInOrder.add(this.workers.get((start + i) % size));
+        }
+        long now = System.currentTimeMillis();
+        // the sort is stable, thus workers of equal rank keep the round robin order
+        workersInOrder.sort(Comparator.comparing((Worker worker) -> worker.isDown(now)).thenComparingInt(worker -> worker.running.get()));
+        return workersInOrder;
+    }
+
+    private Pair<Byte, String> send(
+        Worker worker,
+        String family,
+        String session,
+        String workspaceDir,
+        Path workspace,
+        String[] executableWithParameters,
+        String crosscompilerSourceForDebuggingOnly)
+        throws IOException {
+        Path target = workspace.resolve(CrosscompilerProtocol.TARGET_DIR);
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(worker.host, worker.port), CONNECT_TIMEOUT_MSEC);
+            socket.setSoTimeout(READ_TIMEOUT_MSEC);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(CrosscompilerProtocol.MAGIC);
+            out.writeInt(CrosscompilerProtocol.VERSION);
+            CrosscompilerProtocol.writeString(out, this.secret);
+            CrosscompilerProtocol.writeString(out, family);
+            CrosscompilerProtocol.writeString(out, session == null ? "" : session);
+            CrosscompilerProtocol.writeStrings(out, aliasesOf(workspaceDir, workspace));
+            CrosscompilerProtocol.writeStrings(out, executableWithParameters);
+            CrosscompilerProtocol.writeString(out, crosscompilerSourceForDebuggingOnly == null ? "" : crosscompilerSourceForDebuggingOnly);
+            CrosscompilerProtocol.writeFiles(out, workspace, workspace, file -> file.startsWith(target));
+            out.flush();
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            byte status = in.readByte();
+            String messages = CrosscompilerProtocol.readString(in);
+            CrosscompilerProtocol.readFiles(in, workspace);
+            return Pair.of(status, messages);
+        }
+    }
+
+    /**
+     * @return the spellings of the workspace directory, that may occur in the parameters of a crosscompiler call. Longest first, always ending with "/"
+     */
+    private static String[] aliasesOf(String workspaceDir, Path workspace) {
+        Set<String> aliases = new LinkedHashSet<>();
+        aliases.add(withTrailingSlash(workspace.toString()));
+        aliases.add(withTrailingSlash(workspaceDir));
+        List<String> sorted = new ArrayList<>(aliases);
+        sorted.sort(Comparator.comparingInt(String::length).reversed());
+        return sorted.toArray(new String[0]);
+    }
+
+    private static String withTrailingSlash(String directory) {
+        return directory.endsWith("/") ? directory : directory + "/";
+    }
+
+    private static final class Worker {
+        private final String host;
+        private final int port;
+        private final AtomicInteger running = new AtomicInteger(0);
+        private final AtomicLong completed = new AtomicLong(0);
+        private final AtomicLong failed = new AtomicLong(0);
+        private volatile long downUntil = 0;
+
+        Worker(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        boolean isDown(long now) {
+            return now < this.downUntil;
+        }
+
+        @Override
+        public String toString() {
+            return this.host + ":" + this.port;
+        }
+    }
+}
@@ -39,6 +39,7 @@ import org.yaml.snakeyaml.Yaml;
 import de.fhg.iais.roberta.factory.IRobotFactory;
 import de.fhg.iais.roberta.util.dbc.Assert;
 import de.fhg.iais.roberta.util.dbc.DbcException;
+import de.fhg.iais.roberta.util.dbc.DbcKeyException;
 
 public class Util {
     private static final Logger LOG = LoggerFactory.getLogger(Util.class);
@@ -469,11 +470,56 @@ public class Util {
         return m;
     }
 
+    /**
+     * run a crosscompiler in a process of its own as soon as the {@link CrosscompilerScheduler} grants a slot of the toolchain family
+     *
+     * @param toolchainFamily the toolchain family of the crosscompiler, e.g. {@link CrosscompilerScheduler#AVR}
+     * @param session the session requesting the run, usually the token of the project
+     * @param executableWithParameters the crosscompiler executable, followed by its parameters
+     * @param crosscompilerSourceForDebuggingOnly for logging if the crosscompiler fails. Allows debugging of errors in the code generators
+     * @return true, when the crosscompiler succeeds; false, otherwise
+     * @throws DbcKeyException if the queue of the toolchain family is full
+     */
+    public static Pair<Boolean, String> runCrossCompiler(
+        String toolchainFamily,
+        String session,
+        String[] executableWithParameters,
+        String crosscompilerSourceForDebuggingOnly) {
+        return CrosscompilerScheduler.getInstance().run(toolchainFamily, session, () -> runCrossCompiler(executableWithParameters, crosscompilerSourceForDebuggingOnly));
+    }
+
+    /**
+     * run a crosscompiler on a remote compile worker, if the {@link RemoteCrosscompiler} is enabled. Otherwise run it locally as
+     * {@link #runCrossCompiler(String, String, String[], String)} does. The crosscompiler reads its sources from the workspace directory and writes its
+     * artifacts into the directory "target" of the workspace directory.
+     *
+     * @param toolchainFamily the toolchain family of the crosscompiler, e.g. {@link CrosscompilerScheduler#AVR}
+     * @param session the session requesting the run, usually the token of the project
+     * @param workspaceDir the workspace directory as used in executableWithParameters, usually tempDir + token + "/" + programName + "/"
+     * @param executableWithParameters the crosscompiler executable, followed by its parameters
+     * @param crosscompilerSourceForDebuggingOnly for logging if the crosscompiler fails. Allows debugging of errors in the code generators
+     * @return true, when the crosscompiler succeeds; false, otherwise
+     * @throws DbcKeyException if the queue of the toolchain family is full
+     */
+    public static Pair<Boolean, String> runCrossCompiler(
+        String toolchainFamily,
+        String session,
+        String workspaceDir,
+        String[] executableWithParameters,
+        String crosscompilerSourceForDebuggingOnly) {
+        RemoteCrosscompiler remoteCrosscompiler = RemoteCrosscompiler.getInstance();
+        if ( remoteCrosscompiler.isEnabled() ) {
+            return remoteCrosscompiler.run(toolchainFamily, session, workspaceDir, executableWithParameters, crosscompilerSourceForDebuggingOnly);
+        } else {
+            return runCrossCompiler(toolchainFamily, session, executableWithParameters, crosscompilerSourceForDebuggingOnly);
+        }
+    }
+
     /**
      * run a crosscompiler in a process of its own, store the compiler response in field crosscompilerResponse
      *
-     * @param executableWithParameters
-     * @param crosscompilerSourceForDebuggingOnly for logging if the crosscompiler fails. Allows debugging of erros in the code generators
+     * @param executableWithParameters the crosscompiler executable, followed by its parameters
+     * @param crosscompilerSourceForDebuggingOnly for logging if the crosscompiler fails. Allows debugging of errors in the code generators
      * @return true, when the crosscompiler succeeds; false, otherwise
      */
     public static Pair<Boolean, String> runCrossCompiler(String[] executableWithParameters, String crosscompilerSourceForDebuggingOnly) {
@@ -0,0 +1,152 @@
+package de.fhg.iais.roberta.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.json.JSONObject;
+
+/**
+ * latency and allocation metrics of the stages of the workflows (transformation of the XML into the AST, validation, code generation, crosscompiler,
+ * transfer, ...). Metrics are grouped by robot plugin, workflow name and stage. For each stage the wall time and the bytes allocated by the executing thread
+ * are recorded in {@link ConcurrentHistogram}s. Recording is lock-free and doesn't allocate once a stage is known. Thread-safe.<br>
+ * <br>
+ * Usage:
+ *
+ * <pre>
+ * long startNanos = System.nanoTime();
+ * long startBytes = WorkflowMetrics.allocatedBytes();
+ * ... execute the stage ...
+ * WorkflowMetrics.record(robot, workflow, stage, startNanos, startBytes);
+ * </pre>
+ *
+ * The allocated bytes are taken from the {@link com.sun.management.ThreadMXBean}. If the JVM doesn't support this, only the wall time is recorded.
+ */
+public final class WorkflowMetrics {
+    private static final long NANOS_PER_MSEC = 1000000L;
+    private static final long BYTES_PER_KB = 1024L;
+    private static final double NANOS_PER_SEC = 1e9;
+    private static final double[] QUANTILES = {
+        0.5,
+        0.9,
+        0.99
+    };
+    private static final String[] QUANTILE_LABELS = {
+        "0.5",
+        "0.9",
+        "0.99"
+    };
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = getAllocationBean();
+
+    private static final Map<String, Map<String, Map<String, Stage>>> stages = new ConcurrentHashMap<>();
+
+    private WorkflowMetrics() {
+        // no objects
+    }
+
+    /**
+     * @return the number of bytes allocated by the current thread so far; -1, if this is not supported by the JVM
+     */
+    public static long allocatedBytes() {
+        return ALLOCATION_BEAN == null ? -1 : ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * record the execution of a stage. Must be called by the thread, that executed the stage
+     *
+     * @param robot the name of the robot plugin, may be null
+     * @param workflow the name of the workflow, never null
+     * @param stage the name of the stage, never null
+     * @param startNanos the value of {@link System#nanoTime()} when the stage started
+     * @param startBytes the value of {@link #allocatedBytes()} when the stage started
+     */
+    public static void record(String robot, String workflow, String stage, long startNanos, long startBytes) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long allocated = startBytes < 0 ? -1 : allocatedBytes() - startBytes;
+        Stage metrics =
+            stages
+                .computeIfAbsent(robot == null ? "unknown" : robot, r -> new ConcurrentHashMap<>())
+                .computeIfAbsent(workflow, w -> new ConcurrentHashMap<>())
+                .computeIfAbsent(stage, s -> new Stage());
+        metrics.wallTime.record(elapsedNanos);
+        if ( allocated >= 0 ) {
+            metrics.allocation.record(allocated);
+        }
+    }
+
+    /**
+     * @return for each robot plugin, workflow and stage the percentiles of the wall time in msec and of the allocated memory in kB as JSON object. Never null
+     */
+    public static JSONObject getStatistics() {
+        JSONObject statistics = new JSONObject();
+        stages.forEach((robot, workflows) -> {
+            JSONObject workflowsJson = new JSONObject();
+            workflows.forEach((workflow, stagesOfWorkflow) -> {
+                JSONObject stagesJson = new JSONObject();
+                stagesOfWorkflow.forEach((stage, metrics) -> {
+                    JSONObject stageJson = new JSONObject();
+                    stageJson.put("wallTimeMs", metrics.wallTime.toJson(NANOS_PER_MSEC));
+                    if ( metrics.allocation.getCount() > 0 ) {
+                        stageJson.put("allocatedKb", metrics.allocation.toJson(BYTES_PER_KB));
+                    }
+                    stagesJson.put(stage, stageJson);
+                });
+                workflowsJson.put(workflow, stagesJson);
+            });
+            statistics.put(robot, workflowsJson);
+        });
+        return statistics;
+    }
+
+    /**
+     * register the wall time of the workflow stages as summary with the quantiles 0.5, 0.9 and 0.99
+     *
+     * @param registry the registry of the server
+     */
+    public static void registerMetrics(MetricsRegistry registry) {
+        registry.register("roberta_workflow_stage_seconds", "wall time of the stages of the workflows", "summary", writer -> {
+            stages.forEach((robot, workflows) -> workflows.forEach((workflow, stagesOfWorkflow) -> stagesOfWorkflow.forEach((stage, metrics) -> {
+                ConcurrentHistogram wallTime = metrics.wallTime;
+                for ( int i = 0; i < QUANTILES.length; i++ ) {
+                    writer
+                        .sample()
+                        .label("robot", robot)
+                        .label("workflow", workflow)
+                        .label("stage", stage)
+                        .label("quantile", QUANTILE_LABELS[i])
+                        .value(wallTime.getValueAtPercentile(QUANTILES[i] * 100.0) / NANOS_PER_SEC);
+                }
+                writer.sample("_sum").label("robot", robot).label("workflow", workflow).label("stage", stage).value(wallTime.getSum() / NANOS_PER_SEC);
+                writer.sample("_count").label("robot", robot).label("workflow", workflow).label("stage", stage).value(wallTime.getCount());
+            })));
+        });
+    }
+
+    /**
+     * remove all metrics recorded so far. For tests
+     */
+    public static void clear() {
+        stages.clear();
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationBean() {
+        try {
+            ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+            if ( threadBean instanceof com.sun.management.ThreadMXBean ) {
+                com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+                if ( allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled() ) {
+                    return allocationBean;
+                }
+            }
+        } catch ( RuntimeException | LinkageError e ) {
+            // not a HotSpot like JVM. Allocations are not recorded
+        }
+        return null;
+    }
+
+    private static final class Stage {
+        private final ConcurrentHistogram wallTime = new ConcurrentHistogram();
+        private final ConcurrentHistogram allocation = new ConcurrentHistogram();
+    }
+}
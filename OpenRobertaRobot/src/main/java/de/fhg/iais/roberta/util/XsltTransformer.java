@@ -1,68 +1,57 @@
 package de.fhg.iais.roberta.util;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
-import org.apache.commons.io.output.ByteArrayOutputStream;
-
-import com.google.common.base.Charsets;
-
-import de.fhg.iais.roberta.util.dbc.Assert;
 import de.fhg.iais.roberta.util.dbc.DbcException;
 
+/**
+ * transforms program and configuration XML of old versions by applying the stylesheets "mapping.xslt" and "expansion.xslt". The stylesheets are compiled once
+ * into {@link Templates}. The two stages are chained by SAX events, the result of the first stage is never serialized.<br>
+ * <br>
+ * Thread-safe, one instance may be shared by all requests.
+ */
 public final class XsltTransformer {
+    private static final String BLOCKLY_NAMESPACE = "xmlns=\"http://de.fhg.iais.roberta.blockly\"";
     private static final Pattern NAMESPACE_CHECK = Pattern.compile("<block_set", Pattern.LITERAL);
 
-    private static final TransformerFactory factory = TransformerFactory.newInstance();
-    private static final List<String> TRANSFORMER_SOURCES =
-        Arrays.asList(Util.readResourceContent("/mapping.xslt"), Util.readResourceContent("/expansion.xslt"));
-
-    private final ArrayList<Transformer> transformers = new ArrayList<>();
-
-    public XsltTransformer() {
-        // TransformerFactory factory = TransformerFactory.newInstance();
-        for ( String transformerSource : TRANSFORMER_SOURCES ) {
-            try {
-                InputStream inputStream = new ByteArrayInputStream(transformerSource.getBytes());
-                Source source = new StreamSource(inputStream);
-                final Transformer transformer = factory.newTransformer(source);
-                this.transformers.add(transformer);
-            } catch ( Exception e ) {
-                throw new DbcException("Could not create XSLT transformer!", e);
-            }
-        }
-    }
+    private static final SAXTransformerFactory factory = (SAXTransformerFactory) TransformerFactory.newInstance();
+    private static final Templates MAPPING = compile("/mapping.xslt");
+    private static final Templates EXPANSION = compile("/expansion.xslt");
 
     public String transform(String xml) {
         // Sometimes the namespace is missing, it needs to be appended, otherwise the XSLT does not detect anything
-        if ( !xml.contains("xmlns=\"http://de.fhg.iais.roberta.blockly\"") ) {
-            xml = NAMESPACE_CHECK.matcher(xml).replaceAll(Matcher.quoteReplacement("<block_set xmlns=\"http://de.fhg.iais.roberta.blockly\" "));
+        if ( !xml.contains(BLOCKLY_NAMESPACE) ) {
+            xml = NAMESPACE_CHECK.matcher(xml).replaceAll(Matcher.quoteReplacement("<block_set " + BLOCKLY_NAMESPACE + " "));
+        }
+        try {
+            StringWriter output = new StringWriter();
+            TransformerHandler expansion = factory.newTransformerHandler(EXPANSION);
+            expansion.setResult(new StreamResult(output));
+            MAPPING.newTransformer().transform(new StreamSource(new StringReader(xml)), new SAXResult(expansion));
+            return output.toString();
+        } catch ( TransformerException e ) {
+            throw new DbcException("Could not transform program or configuration!", e);
         }
-        Source input = new StreamSource(new ByteArrayInputStream(xml.getBytes(Charsets.UTF_8)));
-        String output = null;
-        for ( Transformer transformer : this.transformers ) {
-            try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-                transformer.transform(input, new StreamResult(outputStream));
-                output = outputStream.toString(Charsets.UTF_8);
-                input = new StreamSource(new ByteArrayInputStream(output.getBytes(Charsets.UTF_8)));
-            } catch ( TransformerException | IOException e ) {
-                throw new DbcException("Could not transform program or configuration!", e);
-            }
+    }
+
+    private static Templates compile(String stylesheet) {
+        try {
+            return factory.newTemplates(new StreamSource(new StringReader(Util.readResourceContent(stylesheet))));
+        } catch ( TransformerConfigurationException e ) {
+            throw new DbcException("Could not create XSLT transformer!", e);
         }
-        Assert.notNull(output, "Something went wrong while transforming program!");
-        return output;
     }
 }
@@ -0,0 +1,450 @@
+package de.fhg.iais.roberta.util.jaxb;
+
+import java.io.StringReader;
+import java.math.BigInteger;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.UnmarshalException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.fhg.iais.roberta.blockly.generated.Arg;
+import de.fhg.iais.roberta.blockly.generated.Block;
+import de.fhg.iais.roberta.blockly.generated.BlockSet;
+import de.fhg.iais.roberta.blockly.generated.Comment;
+import de.fhg.iais.roberta.blockly.generated.Data;
+import de.fhg.iais.roberta.blockly.generated.Error;
+import de.fhg.iais.roberta.blockly.generated.Field;
+import de.fhg.iais.roberta.blockly.generated.Instance;
+import de.fhg.iais.roberta.blockly.generated.Mutation;
+import de.fhg.iais.roberta.blockly.generated.Repetitions;
+import de.fhg.iais.roberta.blockly.generated.Shadow;
+import de.fhg.iais.roberta.blockly.generated.Statement;
+import de.fhg.iais.roberta.blockly.generated.Value;
+import de.fhg.iais.roberta.blockly.generated.Warning;
+
+/**
+ * streaming reader for blockly XML. Creates the same {@link BlockSet} as the jaxb unmarshaller, but reads the XML with StAX in one pass: no unmarshaller is
+ * created, no reflection is used and no XSD validation is done. Elements, that are not known to <code>blockly.xsd</code>, are rejected; the order of the
+ * elements and the presence of required attributes is <b>not</b> checked. Thus use this reader for XML created by the blockly workspace of the frontend
+ * only. Imported XML has to be read by {@link JaxbHelper#xml2BlockSet(String)}, which validates against the XSD.<br>
+ * <br>
+ * DTDs and external entities are not supported. Thread-safe.
+ */
+public final class BlocklyXmlReader {
+    public static final String BLOCKLY_NAMESPACE = "http://de.fhg.iais.roberta.blockly";
+
+    private static final XMLInputFactory xmlInputFactory;
+    static {
+        xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    }
+
+    private BlocklyXmlReader() {
+        // no objects
+    }
+
+    /**
+     * return the BlockSet for a given blockly XML string.
+     *
+     * @param blocklyXml the blockly XML as String, never null
+     * @return the BlockSet instance corresponding to the XML
+     * @throws JAXBException if the XML is not well-formed or contains elements not allowed in blockly XML
+     */
+    public static BlockSet xml2BlockSet(String blocklyXml) throws JAXBException {
+        XMLStreamReader reader = null;
+        try {
+            reader = xmlInputFactory.createXMLStreamReader(new StringReader(blocklyXml));
+            reader.nextTag();
+            if ( !"block_set".equals(localName(reader)) ) {
+                throw unexpectedElement(reader);
+            }
+            BlockSet blockSet = readBlockSet(reader);
+            while ( reader.hasNext() ) {
+                reader.next(); // trailing comments and whitespace. Everything else is rejected by the parser
+            }
+            return blockSet;
+        } catch ( XMLStreamException | IllegalArgumentException e ) {
+            throw new UnmarshalException(e.getMessage(), e);
+        } finally {
+            if ( reader != null ) {
+                try {
+                    reader.close();
+                } catch ( XMLStreamException e ) {
+                    // the reader works on a String, there is nothing to release
+                }
+            }
+        }
+    }
+
+    private static BlockSet readBlockSet(XMLStreamReader reader) throws XMLStreamException {
+        BlockSet blockSet = new BlockSet();
+        blockSet.setRobottype(reader.getAttributeValue(null, "robottype"));
+        blockSet.setXmlversion(reader.getAttributeValue(null, "xmlversion"));
+        blockSet.setDescription(reader.getAttributeValue(null, "description"));
+        blockSet.setTags(reader.getAttributeValue(null, "tags"));
+        while ( reader.nextTag() == XMLStreamConstants.START_ELEMENT ) {
+            if ( !"instance".equals(localName(reader)) ) {
+                throw unexpectedElement(reader);
+            }
+            blockSet.getInstance().add(readInstance(reader));
+        }
+        return blockSet;
+    }
+
+    private static Instance readInstance(XMLStreamReader reader) throws XMLStreamException {
+        Instance instance = new Instance();
+        instance.setX(reader.getAttributeValue(null, "x"));
+        instance.setY(reader.getAttributeValue(null, "y"));
+        while ( reader.nextTag() == XMLStreamConstants.START_ELEMENT ) {
+            if ( !"block".equals(localName(reader)) ) {
+                throw unexpectedElement(reader);
+            }
+            instance.getBlock().add(readBlock(reader));
+        }
+        return instance;
+    }
+
+    private static Block readBlock(XMLStreamReader reader) throws XMLStreamException {
+        Block block = new Block();
+        for ( int i = 0; i < reader.getAttributeCount(); i++ ) {
+            String value = reader.getAttributeValue(i);
+            switch ( reader.getAttributeLocalName(i) ) {
+                case "x":
+                    block.setX(value);
+                    break;
+                case "y":
+                    block.setY(value);
+                    break;
+                case "type":
+                    block.setType(value);
+                    break;
+                case "id":
+                    block.setId(value);
+                    break;
+                case "inline":
+                    block.setInline(parseBoolean(value));
+                    break;
+                case "collapsed":
+                    block.setCollapsed(parseBoolean(value));
+                    break;
+                case "disabled":
+                    block.setDisabled(parseBoolean(value));
+                    break;
+                case "intask":
+                    block.setIntask(parseBoolean(value));
+                    break;
+                case "deletable":
+                    block.setDeletable(parseBoolean(value));
+                    break;
+                case "movable":
+                    block.setMovable(parseBoolean(value));
+                    break;
+                case "shadow":
+                    block.setShadow(parseBoolean(value));
+                    break;
+                case "editable":
+                    block.setEditable(parseBoolean(value));
+                    break;
+                case "error_attribute":
+                    block.setErrorAttribute(parseBoolean(value));
+                    break;
+                default:
+                    // unknown attributes are ignored as jaxb does
+            }
+        }
+        while ( reader.nextTag() == XMLStreamConstants.START_ELEMENT ) {
+            switch ( localName(reader) ) {
+                case "mutation":
+                    block.setMutation(readMutation(reader));
+                    break;
+                case "field":
+                    block.getField().add(readField(reader));
+                    break;
+                case "repetitions":
+                    block.setRepetitions(readRepetitions(reader));
+                    break;
+                case "comment":
+                    block.setComment(readComment(reader));
+                    break;
+                case "error":
+                    block.setError(readError(reader));
+                    break;
+                case "warning":
+                    block.setWarning(readWarning(reader));
+                    break;
+                case "data":
+                    Data data = new Data();
+                    data.setValue(reader.getElementText());
+                    block.setData(data);
+                    break;
+                case "hide":
+                    skipElement(reader); // allowed by the XSD, but not part of the jaxb classes
+                    break;
+                case "value":
+                    block.getValue().add(readValue(reader));
+                    break;
+                case "statement":
+                    block.getStatement().add(readStatement(reader));
+                    break;
+                default:
+                    throw unexpectedElement(reader);
+            }
+        }
+        return block;
+    }
+
+    private static Mutation readMutation(XMLStreamReader reader) throws XMLStreamException {
+        Mutation mutation = new Mutation();
+        for ( int i = 0; i < reader.getAttributeCount(); i++ ) {
+            String value = reader.getAttributeValue(i);
+            switch ( reader.getAttributeLocalName(i) ) {
+                case "elseif":
+                    mutation.setElseif(parseInteger(value));
+                    break;
+                case "op":
+                    mutation.setOp(value);
+                    break;
+                case "else":
+                    mutation.setElse(parseInteger(value));
+                    break;
+                case "value":
+                    mutation.setValue(parseInteger(value));
+                    break;
+                case "items":
+                    mutation.setItems(parseInteger(value));
+                    break;
+                case "wait":
+                    mutation.setWait(parseInteger(value));
+                    break;
+                case "at":
+                    mutation.setAt(parseBoolean(value));
+                    break;
+                case "at1":
+                    mutation.setAt1(parseBoolean(value));
+                    break;
+                case "at2":
+                    mutation.setAt2(parseBoolean(value));
+                    break;
+                case "statement":
+                    mutation.setStatement(parseBoolean(value));
+                    break;
+                case "divisor_input":
+                    mutation.setDivisorInput(parseBoolean(value));
+                    break;
+                case "next":
+                    mutation.setNext(parseBoolean(value));
+                    break;
+                case "declare":
+                    mutation.setDeclare(parseBoolean(value));
+                    break;
+                case "input":
+                    mutation.setInput(value);
+                    break;
+                case "datatype":
+                    mutation.setDatatype(value);
+                    break;
+                case "declaration_type":
+                    mutation.setDeclarationType(value);
+                    break;
+                case "list_type":
+                    mutation.setListType(value);
+                    break;
+                case "return_type":
+                    mutation.setReturnType(value);
+                    break;
+                case "operator_range":
+                    mutation.setOperatorRange(value);
+                    break;
+                case "mode":
+                    mutation.setMode(value);
+                    break;
+                case "port":
+                    mutation.setPort(value);
+                    break;
+                case "name":
+                    mutation.setName(value);
+                    break;
+                case "output_type":
+                    mutation.setOutputType(value);
+                    break;
+                case "type":
+                    mutation.setType(value);
+                    break;
+                case "protocol":
+                    mutation.setProtocol(value);
+                    break;
+                default:
+                    // unknown attributes are ignored as jaxb does
+            }
+        }
+        while ( reader.nextTag() == XMLStreamConstants.START_ELEMENT ) {
+            if ( !"arg".equals(localName(reader)) ) {
+                throw unexpectedElement(reader);
+            }
+            Arg arg = new Arg();
+            arg.setName(reader.getAttributeValue(null, "name"));
+            arg.setType(reader.getAttributeValue(null, "type"));
+            skipElement(reader);
+            mutation.getArg().add(arg);
+        }
+        return mutation;
+    }
+
+    private static Field readField(XMLStreamReader reader) throws XMLStreamException {
+        Field field = new Field();
+        field.setName(reader.getAttributeValue(null, "name"));
+        field.setValue(reader.getElementText());
+        return field;
+    }
+
+    private static Comment readComment(XMLStreamReader reader) throws XMLStreamException {
+        Comment comment = new Comment();
+        comment.setPinned(parseBooleanOrFalse(reader.getAttributeValue(null, "pinned")));
+        comment.setH(reader.getAttributeValue(null, "h"));
+        comment.setW(reader.getAttributeValue(null, "w"));
+        comment.setValue(reader.getElementText());
+        return comment;
+    }
+
+    private static Error readError(XMLStreamReader reader) throws XMLStreamException {
+        Error error = new Error();
+        error.setPinned(parseBooleanOrFalse(reader.getAttributeValue(null, "pinned")));
+        error.setH(reader.getAttributeValue(null, "h"));
+        error.setW(reader.getAttributeValue(null, "w"));
+        error.setValue(reader.getElementText());
+        return error;
+    }
+
+    private static Warning readWarning(XMLStreamReader reader) throws XMLStreamException {
+        Warning warning = new Warning();
+        warning.setPinned(parseBooleanOrFalse(reader.getAttributeValue(null, "pinned")));
+        warning.setH(reader.getAttributeValue(null, "h"));
+        warning.setW(reader.getAttributeValue(null, "w"));
+        warning.setValue(reader.getElementText());
+        return warning;
+    }
+
+    private static Value readValue(XMLStreamReader reader) throws XMLStreamException {
+        Value value = new Value();
+        value.setName(reader.getAttributeValue(null, "name"));
+        while ( reader.nextTag() == XMLStreamConstants.START_ELEMENT ) {
+            switch ( localName(reader) ) {
+                case "shadow":
+                    value.setShadow(readShadow(reader));
+                    break;
+                case "block":
+                    value.setBlock(readBlock(reader));
+                    break;
+                default:
+                    throw unexpectedElement(reader);
+            }
+        }
+        return value;
+    }
+
+    private static Shadow readShadow(XMLStreamReader reader) throws XMLStreamException {
+        Shadow shadow = new Shadow();
+        shadow.setType(reader.getAttributeValue(null, "type"));
+        shadow.setId(reader.getAttributeValue(null, "id"));
+        String intask = reader.getAttributeValue(null, "intask");
+        if ( intask != null ) {
+            shadow.setIntask(parseBoolean(intask));
+        }
+        while ( reader.nextTag() == XMLStreamConstants.START_ELEMENT ) {
+            if ( !"field".equals(localName(reader)) ) {
+                throw unexpectedElement(reader);
+            }
+            shadow.setField(readField(reader));
+        }
+        return shadow;
+    }
+
+    private static Statement readStatement(XMLStreamReader reader) throws XMLStreamException {
+        Statement statement = new Statement();
+        statement.setName(reader.getAttributeValue(null, "name"));
+        while ( reader.nextTag() == XMLStreamConstants.START_ELEMENT ) {
+            if ( !"block".equals(localName(reader)) ) {
+                throw unexpectedElement(reader);
+            }
+            statement.getBlock().add(readBlock(reader));
+        }
+        return statement;
+    }
+
+    private static Repetitions readRepetitions(XMLStreamReader reader) throws XMLStreamException {
+        Repetitions repetitions = new Repetitions();
+        while ( reader.nextTag() == XMLStreamConstants.START_ELEMENT ) {
+            switch ( localName(reader) ) {
+                case "value":
+                    repetitions.getValueAndStatement().add(readValue(reader));
+                    break;
+                case "statement":
+                    repetitions.getValueAndStatement().add(readStatement(reader));
+                    break;
+                default:
+                    throw unexpectedElement(reader);
+            }
+        }
+        return repetitions;
+    }
+
+    /**
+     * @return the local name of the current start element, if it belongs to the blockly namespace
+     * @throws XMLStreamException if the element belongs to another namespace
+     */
+    private static String localName(XMLStreamReader reader) throws XMLStreamException {
+        if ( !BLOCKLY_NAMESPACE.equals(reader.getNamespaceURI()) ) {
+            throw unexpectedElement(reader);
+        }
+        return reader.getLocalName();
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while ( depth > 0 ) {
+            int event = reader.next();
+            if ( event == XMLStreamConstants.START_ELEMENT ) {
+                depth++;
+            } else if ( event == XMLStreamConstants.END_ELEMENT ) {
+                depth--;
+            }
+        }
+    }
+
+    private static XMLStreamException unexpectedElement(XMLStreamReader reader) {
+        return new XMLStreamException("unexpected element " + reader.getName(), reader.getLocation());
+    }
+
+    /**
+     * parse a xs:boolean like jaxb does
+     */
+    private static Boolean parseBoolean(String value) {
+        switch ( value.trim() ) {
+            case "true":
+            case "1":
+                return Boolean.TRUE;
+            case "false":
+            case "0":
+                return Boolean.FALSE;
+            default:
+                throw new IllegalArgumentException("invalid boolean value: " + value);
+        }
+    }
+
+    private static boolean parseBooleanOrFalse(String value) {
+        return value != null && parseBoolean(value);
+    }
+
+    /**
+     * parse a xs:integer like jaxb does
+     */
+    private static BigInteger parseInteger(String value) {
+        String trimmed = value.trim();
+        return new BigInteger(trimmed.startsWith("+") ? trimmed.substring(1) : trimmed);
+    }
+}
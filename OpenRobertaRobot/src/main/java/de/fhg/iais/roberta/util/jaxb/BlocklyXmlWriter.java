@@ -0,0 +1,277 @@
+package de.fhg.iais.roberta.util.jaxb;
+
+import java.io.StringWriter;
+import java.math.BigInteger;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.MarshalException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import de.fhg.iais.roberta.blockly.generated.Arg;
+import de.fhg.iais.roberta.blockly.generated.Block;
+import de.fhg.iais.roberta.blockly.generated.Comment;
+import de.fhg.iais.roberta.blockly.generated.Error;
+import de.fhg.iais.roberta.blockly.generated.Field;
+import de.fhg.iais.roberta.blockly.generated.Mutation;
+import de.fhg.iais.roberta.blockly.generated.Shadow;
+import de.fhg.iais.roberta.blockly.generated.Statement;
+import de.fhg.iais.roberta.blockly.generated.Value;
+import de.fhg.iais.roberta.blockly.generated.Warning;
+
+/**
+ * streaming writer for blockly XML. Writes the same XML fragment as the jaxb marshaller does for a {@link de.fhg.iais.roberta.blockly.generated.BlockSet},
+ * but the blocks are written one after the other. Thus a caller can transform an AST phrase by phrase into blocks and write them, without building the
+ * complete BlockSet first. Usage:
+ *
+ * <pre>
+ * BlocklyXmlWriter writer = new BlocklyXmlWriter(robotType, xmlVersion, description, tags);
+ * writer.startInstance(x, y);
+ * writer.writeBlock(block);
+ * ...
+ * writer.endInstance();
+ * String xml = writer.finish();
+ * </pre>
+ *
+ * Not thread-safe, use one writer per XML document.
+ */
+public final class BlocklyXmlWriter {
+    private static final String NS = BlocklyXmlReader.BLOCKLY_NAMESPACE;
+    private static final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newInstance();
+
+    private final StringWriter stringWriter = new StringWriter();
+    private final XMLStreamWriter writer;
+
+    /**
+     * start the XML document with the block_set element. Attributes, that are null, are not written
+     *
+     * @throws JAXBException if the XML writer cannot be created
+     */
+    public BlocklyXmlWriter(String robotType, String xmlVersion, String description, String tags) throws JAXBException {
+        try {
+            this.writer = xmlOutputFactory.createXMLStreamWriter(this.stringWriter);
+            this.writer.setDefaultNamespace(NS);
+            this.writer.writeStartElement(NS, "block_set");
+            this.writer.writeDefaultNamespace(NS);
+            attribute("robottype", robotType);
+            attribute("xmlversion", xmlVersion);
+            attribute("description", description);
+            attribute("tags", tags);
+        } catch ( XMLStreamException e ) {
+            throw new MarshalException(e);
+        }
+    }
+
+    /**
+     * start an instance. Must be followed by {@link #writeBlock(Block)} calls and {@link #endInstance()}
+     */
+    public void startInstance(String x, String y) throws JAXBException {
+        try {
+            this.writer.writeStartElement(NS, "instance");
+            attribute("x", x);
+            attribute("y", y);
+        } catch ( XMLStreamException e ) {
+            throw new MarshalException(e);
+        }
+    }
+
+    /**
+     * write a block of the current instance. A null block is ignored as jaxb does
+     */
+    public void writeBlock(Block block) throws JAXBException {
+        if ( block != null ) {
+            try {
+                block(block);
+            } catch ( XMLStreamException e ) {
+                throw new MarshalException(e);
+            }
+        }
+    }
+
+    public void endInstance() throws JAXBException {
+        try {
+            this.writer.writeEndElement();
+        } catch ( XMLStreamException e ) {
+            throw new MarshalException(e);
+        }
+    }
+
+    /**
+     * close the block_set element
+     *
+     * @return the XML document written
+     */
+    public String finish() throws JAXBException {
+        try {
+            this.writer.writeEndElement();
+            this.writer.close();
+            return this.stringWriter.toString();
+        } catch ( XMLStreamException e ) {
+            throw new MarshalException(e);
+        }
+    }
+
+    private void block(Block block) throws XMLStreamException {
+        this.writer.writeStartElement(NS, "block");
+        attribute("x", block.getX());
+        attribute("y", block.getY());
+        attribute("type", block.getType());
+        attribute("id", block.getId());
+        attribute("inline", block.isInline());
+        attribute("collapsed", block.isCollapsed());
+        attribute("disabled", block.isDisabled());
+        attribute("intask", block.isIntask());
+        attribute("deletable", block.isDeletable());
+        attribute("movable", block.isMovable());
+        attribute("shadow", block.isShadow());
+        attribute("editable", block.isEditable());
+        attribute("error_attribute", block.isErrorAttribute());
+        if ( block.getMutation() != null ) {
+            mutation(block.getMutation());
+        }
+        for ( Field field : block.getField() ) {
+            field(field);
+        }
+        if ( block.getRepetitions() != null ) {
+            this.writer.writeStartElement(NS, "repetitions");
+            for ( Object valueOrStatement : block.getRepetitions().getValueAndStatement() ) {
+                if ( valueOrStatement instanceof Value ) {
+                    value((Value) valueOrStatement);
+                } else {
+                    statement((Statement) valueOrStatement);
+                }
+            }
+            this.writer.writeEndElement();
+        }
+        Comment comment = block.getComment();
+        if ( comment != null ) {
+            textWithPosition("comment", comment.isPinned(), comment.getH(), comment.getW(), comment.getValue());
+        }
+        Error error = block.getError();
+        if ( error != null ) {
+            textWithPosition("error", error.isPinned(), error.getH(), error.getW(), error.getValue());
+        }
+        Warning warning = block.getWarning();
+        if ( warning != null ) {
+            textWithPosition("warning", warning.isPinned(), warning.getH(), warning.getW(), warning.getValue());
+        }
+        if ( block.getData() != null ) {
+            this.writer.writeStartElement(NS, "data");
+            text(block.getData().getValue());
+            this.writer.writeEndElement();
+        }
+        for ( Value value : block.getValue() ) {
+            value(value);
+        }
+        for ( Statement statement : block.getStatement() ) {
+            statement(statement);
+        }
+        this.writer.writeEndElement();
+    }
+
+    private void mutation(Mutation mutation) throws XMLStreamException {
+        this.writer.writeStartElement(NS, "mutation");
+        attribute("elseif", mutation.getElseif());
+        attribute("op", mutation.getOp());
+        attribute("else", mutation.getElse());
+        attribute("value", mutation.getValue());
+        attribute("items", mutation.getItems());
+        attribute("wait", mutation.getWait());
+        attribute("at", mutation.isAt());
+        attribute("at1", mutation.isAt1());
+        attribute("at2", mutation.isAt2());
+        attribute("statement", mutation.isStatement());
+        attribute("divisor_input", mutation.isDivisorInput());
+        attribute("next", mutation.isNext());
+        attribute("declare", mutation.isDeclare());
+        attribute("input", mutation.getInput());
+        attribute("datatype", mutation.getDatatype());
+        attribute("declaration_type", mutation.getDeclarationType());
+        attribute("list_type", mutation.getListType());
+        attribute("return_type", mutation.getReturnType());
+        attribute("operator_range", mutation.getOperatorRange());
+        attribute("mode", mutation.getMode());
+        attribute("port", mutation.getPort());
+        attribute("name", mutation.getName());
+        attribute("output_type", mutation.getOutputType());
+        attribute("type", mutation.getType());
+        attribute("protocol", mutation.getProtocol());
+        for ( Arg arg : mutation.getArg() ) {
+            this.writer.writeStartElement(NS, "arg");
+            attribute("name", arg.getName());
+            attribute("type", arg.getType());
+            this.writer.writeEndElement();
+        }
+        this.writer.writeEndElement();
+    }
+
+    private void field(Field field) throws XMLStreamException {
+        this.writer.writeStartElement(NS, "field");
+        attribute("name", field.getName());
+        text(field.getValue());
+        this.writer.writeEndElement();
+    }
+
+    private void value(Value value) throws XMLStreamException {
+        this.writer.writeStartElement(NS, "value");
+        attribute("name", value.getName());
+        Shadow shadow = value.getShadow();
+        if ( shadow != null ) {
+            this.writer.writeStartElement(NS, "shadow");
+            attribute("type", shadow.getType());
+            attribute("id", shadow.getId());
+            attribute("intask", shadow.isIntask());
+            if ( shadow.getField() != null ) {
+                field(shadow.getField());
+            }
+            this.writer.writeEndElement();
+        }
+        if ( value.getBlock() != null ) {
+            block(value.getBlock());
+        }
+        this.writer.writeEndElement();
+    }
+
+    private void statement(Statement statement) throws XMLStreamException {
+        this.writer.writeStartElement(NS, "statement");
+        attribute("name", statement.getName());
+        for ( Block block : statement.getBlock() ) {
+            block(block);
+        }
+        this.writer.writeEndElement();
+    }
+
+    private void textWithPosition(String element, boolean pinned, String h, String w, String text) throws XMLStreamException {
+        this.writer.writeStartElement(NS, element);
+        attribute("pinned", Boolean.valueOf(pinned));
+        attribute("h", h);
+        attribute("w", w);
+        text(text);
+        this.writer.writeEndElement();
+    }
+
+    private void text(String text) throws XMLStreamException {
+        if ( text != null ) {
+            this.writer.writeCharacters(text);
+        }
+    }
+
+    private void attribute(String name, String value) throws XMLStreamException {
+        if ( value != null ) {
+            this.writer.writeAttribute(name, value);
+        }
+    }
+
+    private void attribute(String name, Boolean value) throws XMLStreamException {
+        if ( value != null ) {
+            this.writer.writeAttribute(name, value.toString());
+        }
+    }
+
+    private void attribute(String name, BigInteger value) throws XMLStreamException {
+        if ( value != null ) {
+            this.writer.writeAttribute(name, value.toString());
+        }
+    }
+}
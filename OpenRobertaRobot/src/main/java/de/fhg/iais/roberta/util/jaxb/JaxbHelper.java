@@ -4,6 +4,8 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
@@ -26,6 +28,8 @@ public class JaxbHelper {
 
     private static final Schema blockSetSchema;
     private static final JAXBContext jaxbContext;
+    // marshallers are not thread-safe, but expensive to create. The pool grows up to the number of threads marshalling concurrently
+    private static final Queue<Marshaller> marshallerPool = new ConcurrentLinkedQueue<>();
     static {
         SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
         InputStream xsdStream = JaxbHelper.class.getResourceAsStream("/blockly.xsd");
@@ -58,6 +62,18 @@ public class JaxbHelper {
         return (BlockSet) jaxbUnmarshaller.unmarshal(src);
     }
 
+    /**
+     * return the BlockSet for a given blockly XML string. Depending on the validation policy the XML is unmarshalled by jaxb and validated against the XSD
+     * or read by the streaming {@link BlocklyXmlReader}.
+     *
+     * @param blocklyXml the blockly XML as String
+     * @param validationPolicy {@link XmlValidationPolicy#FULL} for imported or otherwise untrusted XML
+     * @return the BlockSet instance corresponding to the XML
+     */
+    public static BlockSet xml2BlockSet(String blocklyXml, XmlValidationPolicy validationPolicy) throws JAXBException {
+        return validationPolicy == XmlValidationPolicy.STREAMING ? BlocklyXmlReader.xml2BlockSet(blocklyXml) : xml2BlockSet(blocklyXml);
+    }
+
     /**
      * return the element of type T generated by an jaxb unmarshaller for a given blockly XML string.<br>
      * <b>This call is expensive. Use it not too often. It is ok to use it for the import/export of XML, for example.</b>
@@ -82,11 +98,15 @@ public class JaxbHelper {
      * @throws Exception
      */
     public static String blockSet2xml(BlockSet blockSet) throws Exception {
-        Marshaller jaxbmarshaller = jaxbContext.createMarshaller();
-        jaxbmarshaller.setProperty("com.sun.xml.bind.xmlDeclaration", Boolean.FALSE);
-        jaxbmarshaller.setSchema(blockSetSchema);
+        Marshaller jaxbmarshaller = marshallerPool.poll();
+        if ( jaxbmarshaller == null ) {
+            jaxbmarshaller = jaxbContext.createMarshaller();
+            jaxbmarshaller.setProperty("com.sun.xml.bind.xmlDeclaration", Boolean.FALSE);
+            jaxbmarshaller.setSchema(blockSetSchema);
+        }
         StringWriter writer = new StringWriter();
         jaxbmarshaller.marshal(blockSet, writer);
+        marshallerPool.offer(jaxbmarshaller); // not returned, if marshalling fails. The marshaller may be in an undefined state
         return writer.toString();
     }
 
@@ -0,0 +1,15 @@
+package de.fhg.iais.roberta.util.jaxb;
+
+/**
+ * how blockly XML is checked, when it is read, see {@link JaxbHelper#xml2BlockSet(String, XmlValidationPolicy)}
+ */
+public enum XmlValidationPolicy {
+    /**
+     * for imported or otherwise untrusted XML: unmarshalled by jaxb and validated against <code>blockly.xsd</code>
+     */
+    FULL,
+    /**
+     * for XML created by the blockly workspace of the frontend: read by the {@link BlocklyXmlReader}, only unknown elements are rejected
+     */
+    STREAMING;
+}
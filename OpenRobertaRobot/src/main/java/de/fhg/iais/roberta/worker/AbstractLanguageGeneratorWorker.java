@@ -25,7 +25,7 @@ public abstract class AbstractLanguageGeneratorWorker implements IWorker {
         // Prepare bean for the code generation visitor
         CodeGeneratorSetupBean.Builder codeGenSetupBeanBuilder = new CodeGeneratorSetupBean.Builder();
         codeGenSetupBeanBuilder.setFileExtension(project.getSourceCodeFileExtension());
-        codeGenSetupBeanBuilder.setHelperMethodFile(project.getRobotFactory().getPluginProperties().getStringProperty("robot.helperMethods"));
+        codeGenSetupBeanBuilder.setHelperMethodCatalog(project.getRobotFactory().getHelperMethodCatalog());
         codeGenSetupBeanBuilder.addAdditionalEnums(usedMethodBean.getAdditionalEnums());
         codeGenSetupBeanBuilder.addUsedMethods(usedMethodBean.getUsedMethods());
         ClassToInstanceMap<IProjectBean> beans =
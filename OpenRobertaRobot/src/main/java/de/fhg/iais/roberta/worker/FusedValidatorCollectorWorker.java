@@ -0,0 +1,157 @@
+package de.fhg.iais.roberta.worker;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableClassToInstanceMap;
+
+import de.fhg.iais.roberta.bean.IProjectBean;
+import de.fhg.iais.roberta.bean.UsedHardwareBean;
+import de.fhg.iais.roberta.bean.UsedMethodBean;
+import de.fhg.iais.roberta.components.Project;
+import de.fhg.iais.roberta.syntax.Phrase;
+import de.fhg.iais.roberta.util.Key;
+import de.fhg.iais.roberta.util.dbc.Assert;
+import de.fhg.iais.roberta.util.dbc.DbcException;
+import de.fhg.iais.roberta.visitor.IVisitor;
+import de.fhg.iais.roberta.visitor.collect.ICollectorVisitor;
+import de.fhg.iais.roberta.visitor.validate.AbstractCollectorVisitor;
+import de.fhg.iais.roberta.visitor.validate.AbstractProgramValidatorVisitor;
+
+/**
+ * Executes a validator worker, a used hardware collector worker and a used method collector worker in one pass over the AST. Instead of iterating the
+ * program once per worker, each phrase of the program is handed to the validator visitor and to the collector visitors one after the other. While the
+ * visitors walk a phrase, its subtree is still hot in the cache.<br>
+ * <br>
+ * The results are the same as if the workers are executed one after the other: if the validation fails, the error is reported and the beans of the
+ * collectors are <b>not</b> stored in the project, as the workflow would have stopped after the validator. The collectors expect a valid program (e.g. the
+ * hardware collector fails for a block using a port, that is not configured), thus after the first error only the validator visits the remaining phrases.
+ * A plugin opts in by joining the worker types
+ * with "+" in a workflow, e.g. <code>robot.plugin.workflow.compile = validate.robot+collect.hardware+collect.method,generate,setup,compile</code>. Each of
+ * the three workers is optional, but the order validator, hardware collector, method collector is mandatory. A validator overriding
+ * {@link AbstractValidatorWorker#execute(Project)} is executed on its own before the collectors are fused.
+ */
+public final class FusedValidatorCollectorWorker implements IWorker {
+    private final AbstractValidatorWorker validator;
+    private final boolean validatorIsFused;
+    private final AbstractUsedHardwareCollectorWorker hardwareCollector;
+    private final AbstractUsedMethodCollectorWorker methodCollector;
+
+    /**
+     * @param workers the workers to fuse, in the order of the workflow. Never null
+     * @throws DbcException if a worker cannot be fused or the order is wrong
+     */
+    public FusedValidatorCollectorWorker(List<IWorker> workers) {
+        AbstractValidatorWorker validator = null;
+        AbstractUsedHardwareCollectorWorker hardwareCollector = null;
+        AbstractUsedMethodCollectorWorker methodCollector = null;
+        for ( IWorker worker : workers ) {
+            if ( worker instanceof AbstractValidatorWorker && validator == null && hardwareCollector == null && methodCollector == null ) {
+                validator = (AbstractValidatorWorker) worker;
+            } else if ( worker instanceof AbstractUsedHardwareCollectorWorker && hardwareCollector == null && methodCollector == null ) {
+                hardwareCollector = (AbstractUsedHardwareCollectorWorker) worker;
+            } else if ( worker instanceof AbstractUsedMethodCollectorWorker && methodCollector == null ) {
+                methodCollector = (AbstractUsedMethodCollectorWorker) worker;
+            } else {
+                throw new DbcException("Worker " + worker.getClass().getSimpleName() + " cannot be fused. Expected: validator, hardware collector, method collector");
+            }
+        }
+        Assert.isTrue(workers.size() > 1, "fusing less than two workers makes no sense");
+        this.validator = validator;
+        this.validatorIsFused = validator != null && hasGenericExecute(validator);
+        this.hardwareCollector = hardwareCollector;
+        this.methodCollector = methodCollector;
+    }
+
+    @Override
+    public void execute(Project project) {
+        AbstractProgramValidatorVisitor validatorVisitor = null;
+        if ( this.validatorIsFused ) {
+            validatorVisitor = this.validator.getVisitor(project, ImmutableClassToInstanceMap.of(UsedHardwareBean.Builder.class, new UsedHardwareBean.Builder()));
+        } else if ( this.validator != null ) {
+            this.validator.execute(project);
+            if ( !project.hasSucceeded() ) {
+                return;
+            }
+        }
+        UsedHardwareBean.Builder usedHardwareBeanBuilder = new UsedHardwareBean.Builder();
+        UsedMethodBean.Builder usedMethodBeanBuilder = new UsedMethodBean.Builder();
+        AbstractCollectorVisitor hardwareVisitor = null;
+        if ( this.hardwareCollector != null ) {
+            ImmutableClassToInstanceMap<IProjectBean.IBuilder<?>> beanBuilders =
+                ImmutableClassToInstanceMap.<IProjectBean
+                    .IBuilder<?>> builder()
+                    .put(UsedHardwareBean.Builder.class, usedHardwareBeanBuilder)
+                    .put(UsedMethodBean.Builder.class, usedMethodBeanBuilder)
+                    .build();
+            hardwareVisitor = this.hardwareCollector.getVisitor(project, beanBuilders);
+        }
+        UsedMethodBean.Builder methodCollectorBuilder = new UsedMethodBean.Builder();
+        ICollectorVisitor methodVisitor = this.methodCollector == null ? null : this.methodCollector.getVisitor(methodCollectorBuilder);
+
+        List<List<Phrase<Void>>> tree = project.getProgramAst().getTree();
+        // same workaround as in the validator and the hardware collector: global variables must be known before the methods are visited
+        collectGlobalVariables(tree, validatorVisitor, hardwareVisitor);
+        for ( List<Phrase<Void>> phrases : tree ) {
+            for ( Phrase<Void> phrase : phrases ) {
+                if ( validatorVisitor != null ) {
+                    phrase.accept(validatorVisitor);
+                    if ( validatorVisitor.getErrorCount() > 0 ) {
+                        continue;
+                    }
+                }
+                if ( hardwareVisitor != null ) {
+                    if ( phrase.getKind().getName().equals("MAIN_TASK") ) {
+                        usedHardwareBeanBuilder.setProgramEmpty(phrases.size() == 2);
+                    } else {
+                        phrase.accept(hardwareVisitor);
+                    }
+                }
+                if ( methodVisitor != null ) {
+                    phrase.accept(methodVisitor);
+                }
+            }
+        }
+
+        if ( validatorVisitor != null ) {
+            int errorCounter = validatorVisitor.getErrorCount();
+            if ( errorCounter > 0 ) {
+                project.setResult(Key.PROGRAM_INVALID_STATEMETNS);
+                project.addToErrorCounter(errorCounter);
+                return;
+            }
+        }
+        if ( hardwareVisitor != null ) {
+            project.addWorkerResult(usedHardwareBeanBuilder.build());
+            project.addWorkerResult(usedMethodBeanBuilder.build());
+        }
+        if ( methodVisitor != null ) {
+            methodCollectorBuilder.addAdditionalEnums(this.methodCollector.getAdditionalMethodEnums());
+            project.appendWorkerResult(methodCollectorBuilder.build());
+        }
+    }
+
+    private static boolean hasGenericExecute(AbstractValidatorWorker validator) {
+        try {
+            return validator.getClass().getMethod("execute", Project.class).getDeclaringClass() == AbstractValidatorWorker.class;
+        } catch ( NoSuchMethodException e ) {
+            throw new DbcException("validator without execute method", e);
+        }
+    }
+
+    private static void collectGlobalVariables(
+        Iterable<List<Phrase<Void>>> phrasesSet,
+        AbstractProgramValidatorVisitor validatorVisitor,
+        IVisitor<Void> hardwareVisitor) {
+        for ( List<Phrase<Void>> phrases : phrasesSet ) {
+            Phrase<Void> phrase = phrases.get(1);
+            if ( phrase.getKind().getName().equals("MAIN_TASK") ) {
+                if ( validatorVisitor != null ) {
+                    phrase.accept(validatorVisitor);
+                }
+                if ( hardwareVisitor != null && (validatorVisitor == null || validatorVisitor.getErrorCount() == 0) ) {
+                    phrase.accept(hardwareVisitor);
+                }
+            }
+        }
+    }
+}
@@ -5,7 +5,8 @@ import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
 import de.fhg.iais.roberta.util.Key;
 
 /**
- * Transfers the previously compiled/saved result to the robot using the {@link RobotCommunicator}.
+ * Transfers the previously compiled/saved result to the robot using the {@link RobotCommunicator}. The worker doesn't wait for the robot: if the robot is
+ * between two push requests, the run command is queued and its delivery is reported to the client by the robot state.
  */
 public class TransferWorker implements IWorker {
 
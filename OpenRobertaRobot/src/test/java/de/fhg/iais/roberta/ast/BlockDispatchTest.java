@@ -0,0 +1,64 @@
+package de.fhg.iais.roberta.ast;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fhg.iais.roberta.blockly.generated.Block;
+import de.fhg.iais.roberta.blockly.generated.BlockSet;
+import de.fhg.iais.roberta.syntax.BlockTypeContainer;
+import de.fhg.iais.roberta.syntax.Phrase;
+import de.fhg.iais.roberta.transformer.AbstractJaxb2Ast;
+import de.fhg.iais.roberta.transformer.Jaxb2ProgramAst;
+import de.fhg.iais.roberta.util.Clock;
+import de.fhg.iais.roberta.util.jaxb.JaxbHelper;
+
+public class BlockDispatchTest extends AstTest {
+    private static final Logger LOG = LoggerFactory.getLogger(BlockDispatchTest.class);
+    private static final String PROGRAM =
+        "<block_set xmlns='http://de.fhg.iais.roberta.blockly' robottype='ev3' xmlversion='3.1'>"
+            + "<instance x='1' y='1'><block type='math_number' id='1'><field name='NUM'>42</field></block></instance>"
+            + "</block_set>";
+
+    @Test
+    public void testDispatchTableIsBuiltWhenBlockTypesAreRegistered() throws Exception {
+        Assert.assertNotNull(BlockTypeContainer.getJaxbToAstByBlocklyName("math_number"));
+        Assert.assertNull(BlockTypeContainer.getJaxbToAstByBlocklyName("no_block_has_this_name"));
+        BlockSet blockSet = JaxbHelper.xml2BlockSet(PROGRAM);
+        Jaxb2ProgramAst<Void> transformer = new Jaxb2ProgramAst<>(testFactory);
+        Assert.assertEquals("BlockAST [project=[[Location [x=1, y=1], NumConst [42]]]]", transformer.blocks2Ast(blockSet).toString());
+    }
+
+    /**
+     * compares the dispatch of a block by method handle with the reflective dispatch used before. Not executed by default, because it takes some seconds
+     */
+    @Ignore
+    @SuppressWarnings("unchecked")
+    @Test
+    public void benchmarkDispatch() throws Throwable {
+        Block block = JaxbHelper.xml2BlockSet(PROGRAM).getInstance().get(0).getBlock().get(0);
+        AbstractJaxb2Ast<Void> transformer = new Jaxb2ProgramAst<>(testFactory);
+        String className = BlockTypeContainer.getByBlocklyName("math_number").getAstClass().getName();
+        int runs = 1000000;
+        for ( int round = 0; round < 3; round++ ) {
+            Clock clock = Clock.start();
+            for ( int i = 0; i < runs; i++ ) {
+                Method method = Class.forName(className).getMethod("jaxbToAst", Block.class, AbstractJaxb2Ast.class);
+                ((Phrase<Void>) method.invoke(null, block, transformer)).getKind();
+            }
+            long reflectiveMsec = clock.elapsedMsec();
+            clock = Clock.start();
+            for ( int i = 0; i < runs; i++ ) {
+                MethodHandle jaxbToAst = BlockTypeContainer.getJaxbToAstByBlocklyName("math_number");
+                ((Phrase<Void>) jaxbToAst.invokeExact(block, transformer)).getKind();
+            }
+            long dispatchTableMsec = clock.elapsedMsec();
+            LOG.info("{} blocks. Reflective: {} msec, dispatch table: {} msec", runs, reflectiveMsec, dispatchTableMsec);
+        }
+    }
+}
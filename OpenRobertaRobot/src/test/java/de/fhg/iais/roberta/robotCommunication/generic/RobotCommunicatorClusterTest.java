@@ -0,0 +1,148 @@
+package de.fhg.iais.roberta.robotCommunication.generic;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fhg.iais.roberta.robotCommunication.IRobotNodeClient;
+import de.fhg.iais.roberta.robotCommunication.InMemoryRobotTokenDirectory;
+import de.fhg.iais.roberta.robotCommunication.RobotCommunicationData;
+import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
+import de.fhg.iais.roberta.util.Key;
+
+/**
+ * two nodes of a cluster share an in memory directory. The forwarding between the nodes is done in process
+ */
+public class RobotCommunicatorClusterTest {
+    private final Map<String, RobotCommunicator> nodes = new HashMap<>();
+    private final InMemoryRobotTokenDirectory directory = new InMemoryRobotTokenDirectory();
+    private RobotCommunicator nodeA;
+    private RobotCommunicator nodeB;
+    private int forwarded = 0;
+
+    @Before
+    public void setup() {
+        IRobotNodeClient nodeClient = new IRobotNodeClient() {
+            @Override
+            public Key aTokenAgreementWasSent(String node, String token, String robot) {
+                RobotCommunicatorClusterTest.this.forwarded++;
+                return RobotCommunicatorClusterTest.this.nodes.get(node).aTokenAgreementWasSent(token, robot);
+            }
+
+            @Override
+            public Key run(String node, String token, String robotName, String programName) {
+                RobotCommunicatorClusterTest.this.forwarded++;
+                return RobotCommunicatorClusterTest.this.nodes.get(node).run(token, robotName, programName);
+            }
+
+            @Override
+            public void disconnect(String node, String token) {
+                RobotCommunicatorClusterTest.this.forwarded++;
+                RobotCommunicatorClusterTest.this.nodes.get(node).disconnect(token);
+            }
+
+            @Override
+            public boolean firmwareUpdateRequested(String node, String token) {
+                RobotCommunicatorClusterTest.this.forwarded++;
+                return RobotCommunicatorClusterTest.this.nodes.get(node).firmwareUpdateRequested(token);
+            }
+
+            @Override
+            public JSONObject getRobotInfo(String node, String token) {
+                RobotCommunicatorClusterTest.this.forwarded++;
+                return RobotCommunicatorClusterTest.this.nodes.get(node).getRobotInfo(token);
+            }
+        };
+        this.nodeA = new RobotCommunicator();
+        this.nodeB = new RobotCommunicator();
+        this.nodes.put("A", this.nodeA);
+        this.nodes.put("B", this.nodeB);
+        this.nodeA.joinCluster("A", this.directory, nodeClient);
+        this.nodeB.joinCluster("B", this.directory, nodeClient);
+    }
+
+    @Test
+    public void testCommandsAreForwardedToTheOwningNode() throws Exception {
+        CompletableFuture<Boolean> registration = this.nodeA.brickWantsTokenToBeApproved(robot("T1", "m1"));
+        Assert.assertEquals("A", this.directory.getOwner("T1"));
+        Assert.assertEquals(Key.TOKEN_SET_SUCCESS, this.nodeB.aTokenAgreementWasSent("T1", "ev3"));
+        Assert.assertTrue(registration.get(1, TimeUnit.SECONDS));
+
+        CompletableFuture<String> push = this.nodeA.brickWaitsForAServerPush("T1", "8.0", 0);
+        Assert.assertEquals(Key.ROBOT_PUSH_RUN, this.nodeB.run("T1", "ev3", "NEPOprog"));
+        Assert.assertEquals("download", push.get(1, TimeUnit.SECONDS));
+        Assert.assertNull("the state stays at the owning node", this.nodeB.getState("T1"));
+
+        this.nodeB.disconnect("T1");
+        Assert.assertNull(this.nodeA.getState("T1"));
+        Assert.assertNull(this.directory.getOwner("T1"));
+        Assert.assertEquals(3, this.forwarded);
+    }
+
+    @Test
+    public void testRobotInfoAndFirmwareUpdateAreForwardedToTheOwningNode() throws Exception {
+        this.nodeA.brickWantsTokenToBeApproved(robot("T6", "m6"));
+        Assert.assertEquals(Key.TOKEN_SET_SUCCESS, this.nodeB.aTokenAgreementWasSent("T6", "ev3"));
+        CompletableFuture<String> push = this.nodeA.brickWaitsForAServerPush("T6", "7.5", 0);
+
+        JSONObject robotInfo = this.nodeB.getRobotInfo("T6");
+        Assert.assertNotNull("the browser at the other node must see the robot to enable run", robotInfo);
+        Assert.assertEquals("wait", robotInfo.getString("state"));
+        Assert.assertEquals("7.5", robotInfo.getString("battery"));
+        Assert.assertEquals("robot", robotInfo.getString("name"));
+
+        Assert.assertTrue(this.nodeB.firmwareUpdateRequested("T6"));
+        Assert.assertEquals("update", push.get(1, TimeUnit.SECONDS));
+        Assert.assertEquals(3, this.forwarded);
+    }
+
+    @Test
+    public void testRobotInfoOfTheOwningNodeIsCachedUntilACommandIsForwarded() throws Exception {
+        this.nodeA.brickWantsTokenToBeApproved(robot("T7", "m7"));
+        Assert.assertEquals(Key.TOKEN_SET_SUCCESS, this.nodeB.aTokenAgreementWasSent("T7", "ev3"));
+        CompletableFuture<String> push = this.nodeA.brickWaitsForAServerPush("T7", "8.0", 0);
+
+        Assert.assertEquals("wait", this.nodeB.getRobotInfo("T7").getString("state"));
+        Assert.assertEquals("wait", this.nodeB.getRobotInfo("T7").getString("state"));
+        Assert.assertEquals(2, this.forwarded);
+
+        Assert.assertEquals(Key.ROBOT_PUSH_RUN, this.nodeB.run("T7", "ev3", "NEPOprog"));
+        Assert.assertEquals("download", push.get(1, TimeUnit.SECONDS));
+        Assert.assertEquals("busy", this.nodeB.getRobotInfo("T7").getString("state"));
+        Assert.assertEquals(4, this.forwarded);
+    }
+
+    @Test
+    public void testTokenOfAnotherNodeCantBeRegistered() throws Exception {
+        Assert.assertTrue(this.nodeA.addNewRegistration(robot("T2", "m2")));
+        Assert.assertFalse(this.nodeB.addNewRegistration(robot("T2", "m3")));
+        Assert.assertEquals("A", this.directory.getOwner("T2"));
+    }
+
+    @Test
+    public void testReplacedTokenIsReleased() throws Exception {
+        Assert.assertTrue(this.nodeA.addNewRegistration(robot("T3", "m4")));
+        Assert.assertTrue(this.nodeA.addNewRegistration(robot("T4", "m4")));
+        Assert.assertNull(this.directory.getOwner("T3"));
+        Assert.assertEquals("A", this.directory.getOwner("T4"));
+    }
+
+    @Test
+    public void testUnknownTokenIsNotForwarded() throws Exception {
+        Assert.assertEquals(Key.TOKEN_SET_ERROR_NO_ROBOT_WAITING, this.nodeB.aTokenAgreementWasSent("T5", "ev3"));
+        Assert.assertEquals(Key.ROBOT_NOT_CONNECTED, this.nodeB.run("T5", "ev3", "NEPOprog"));
+        Assert.assertFalse(this.nodeB.firmwareUpdateRequested("T5"));
+        Assert.assertNull(this.nodeB.getRobotInfo("T5"));
+        Assert.assertEquals(0, this.forwarded);
+    }
+
+    private static RobotCommunicationData robot(String token, String mac) {
+        return new RobotCommunicationData(token, "ev3", mac, "robot", "8.0", "", "", "lejos", "");
+    }
+}
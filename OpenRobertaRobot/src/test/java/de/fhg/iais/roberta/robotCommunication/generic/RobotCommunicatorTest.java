@@ -1,10 +1,21 @@
 package de.fhg.iais.roberta.robotCommunication.generic;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import de.fhg.iais.roberta.robotCommunication.RobotCommunicationData;
+import de.fhg.iais.roberta.robotCommunication.RobotCommunicationData.State;
 import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
+import de.fhg.iais.roberta.util.Key;
 import de.fhg.iais.roberta.util.dbc.DbcException;
 
 public class RobotCommunicatorTest {
@@ -37,4 +48,181 @@ public class RobotCommunicatorTest {
         robotCommunicator.addNewRegistration(goodRegistration1);
         Assert.assertFalse(robotCommunicator.addNewRegistration(goodRegistration2));
     }
-}
\ No newline at end of file
+
+    /**
+     * simulates some thousand robots, that register, are approved by their users and wait for a command. Waiting robots must not block a thread
+     */
+    @Test
+    public void testThousandsOfWaitingRobotsUseNoThreads() throws Exception {
+        int robots = 3000;
+        RobotCommunicator robotCommunicator = new RobotCommunicator();
+        int threadsBefore = Thread.activeCount();
+        List<CompletableFuture<Boolean>> registrations = new ArrayList<>();
+        for ( int i = 0; i < robots; i++ ) {
+            RobotCommunicationData robot = new RobotCommunicationData("T" + i, "ev3", "mac-" + i, "robot" + i, "8.0", "", "", "lejos", "");
+            registrations.add(robotCommunicator.brickWantsTokenToBeApproved(robot));
+        }
+        for ( int i = 0; i < robots; i++ ) {
+            Assert.assertFalse(registrations.get(i).isDone());
+            Assert.assertEquals(Key.TOKEN_SET_SUCCESS, robotCommunicator.aTokenAgreementWasSent("T" + i, "ev3"));
+            Assert.assertTrue(registrations.get(i).get(1, TimeUnit.SECONDS));
+        }
+        List<CompletableFuture<String>> pushes = new ArrayList<>();
+        for ( int i = 0; i < robots; i++ ) {
+            pushes.add(robotCommunicator.brickWaitsForAServerPush("T" + i, "8.0", 0));
+        }
+        // the timeouts of all waiting robots are managed by at most one additional thread
+        Assert.assertTrue(Thread.activeCount() <= threadsBefore + 1);
+        for ( int i = 0; i < robots; i++ ) {
+            Assert.assertFalse(pushes.get(i).isDone());
+            Assert.assertEquals(State.ROBOT_WAITING_FOR_PUSH_FROM_SERVER, robotCommunicator.getState("T" + i).getState());
+        }
+        for ( int i = 0; i < robots; i++ ) {
+            if ( i % 2 == 0 ) {
+                Assert.assertEquals(Key.ROBOT_PUSH_RUN, robotCommunicator.run("T" + i, "ev3", "NEPOprog"));
+                Assert.assertEquals("download", pushes.get(i).get(1, TimeUnit.SECONDS));
+            } else {
+                robotCommunicator.disconnect("T" + i);
+                pushes.get(i).get(1, TimeUnit.SECONDS);
+                Assert.assertNull(robotCommunicator.getState("T" + i));
+            }
+        }
+        Assert.assertEquals(robots / 2, robotCommunicator.getRobotCommunicationDataSize());
+    }
+
+    /**
+     * a run command, that arrives while the robot is between two push requests, is acknowledged at once and delivered with the next push request
+     */
+    @Test
+    public void testRunIsQueuedUntilTheRobotPushes() throws Exception {
+        RobotCommunicator robotCommunicator = new RobotCommunicator();
+        RobotCommunicationData robot = new RobotCommunicationData("Q1", "ev3", "mac-q1", "robot", "8.0", "", "", "lejos", "");
+        CompletableFuture<Boolean> registration = robotCommunicator.brickWantsTokenToBeApproved(robot);
+        Assert.assertEquals(Key.TOKEN_SET_SUCCESS, robotCommunicator.aTokenAgreementWasSent("Q1", "ev3"));
+        Assert.assertTrue(registration.get(1, TimeUnit.SECONDS));
+        Assert.assertEquals(State.WAIT_FOR_PUSH_CMD_FROM_ROBOT, robot.getState());
+
+        long start = System.currentTimeMillis();
+        Assert.assertEquals(Key.ROBOT_PUSH_RUN, robotCommunicator.run("Q1", "ev3", "NEPOprog"));
+        Assert.assertTrue("the server thread must not wait for the robot", System.currentTimeMillis() - start < 1000);
+        Assert.assertEquals(State.COMMAND_QUEUED_FOR_ROBOT, robot.getState());
+        Assert.assertEquals(Key.ROBOT_NOT_WAITING, robotCommunicator.run("Q1", "ev3", "NEPOprog"));
+
+        CompletableFuture<String> push = robotCommunicator.brickWaitsForAServerPush("Q1", "8.0", 0);
+        Assert.assertEquals("download", push.get(1, TimeUnit.SECONDS));
+        Assert.assertEquals("NEPOprog", robot.getProgramName());
+        Assert.assertEquals(State.ROBOT_IS_BUSY, robot.getState());
+    }
+
+    /**
+     * an idle robot is between a timed out push request and its next one. A run must be queued and kept until the robot pushes again. Waits for the push
+     * timeout of 10 sec
+     */
+    @Test
+    public void testRunIsQueuedAfterAPushTimedOut() throws Exception {
+        RobotCommunicator robotCommunicator = new RobotCommunicator();
+        RobotCommunicationData robot = new RobotCommunicationData("Q2", "ev3", "mac-q2", "robot", "8.0", "", "", "lejos", "");
+        CompletableFuture<Boolean> registration = robotCommunicator.brickWantsTokenToBeApproved(robot);
+        Assert.assertEquals(Key.TOKEN_SET_SUCCESS, robotCommunicator.aTokenAgreementWasSent("Q2", "ev3"));
+        Assert.assertTrue(registration.get(1, TimeUnit.SECONDS));
+        Assert.assertEquals("repeat", robotCommunicator.brickWaitsForAServerPush("Q2", "8.0", 0).get(15, TimeUnit.SECONDS));
+        Assert.assertEquals(State.WAIT_FOR_PUSH_CMD_FROM_ROBOT, robot.getState());
+        Assert.assertFalse(robot.isRobotProbablyDisconnected());
+
+        Assert.assertEquals(Key.ROBOT_PUSH_RUN, robotCommunicator.run("Q2", "ev3", "NEPOprog"));
+        Thread.sleep(500); // the robot needs some time for its next push request
+        Assert.assertEquals("the queued command must not be dropped", State.COMMAND_QUEUED_FOR_ROBOT, robot.getState());
+        Assert.assertEquals("download", robotCommunicator.brickWaitsForAServerPush("Q2", "8.0", 0).get(1, TimeUnit.SECONDS));
+        Assert.assertEquals(State.ROBOT_IS_BUSY, robot.getState());
+    }
+
+    /**
+     * many threads register the same robots with new tokens concurrently. At the end exactly one registration per robot is left, all replaced registrations
+     * are aborted
+     */
+    @Test
+    public void testConcurrentRegistrationsKeepOneStatePerRobot() throws Exception {
+        int robots = 500;
+        int threads = 8;
+        int rounds = 20;
+        RobotCommunicator robotCommunicator = new RobotCommunicator();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<List<CompletableFuture<Boolean>>>> results = new ArrayList<>();
+        for ( int t = 0; t < threads; t++ ) {
+            int thread = t;
+            results.add(executor.submit(() -> {
+                List<CompletableFuture<Boolean>> registrations = new ArrayList<>();
+                for ( int round = 0; round < rounds; round++ ) {
+                    for ( int i = 0; i < robots; i++ ) {
+                        String token = "T" + thread + "-" + round + "-" + i;
+                        RobotCommunicationData robot = new RobotCommunicationData(token, "ev3", "mac-" + i, "robot" + i, "8.0", "", "", "lejos", "");
+                        registrations.add(robotCommunicator.brickWantsTokenToBeApproved(robot));
+                    }
+                }
+                return registrations;
+            }));
+        }
+        List<CompletableFuture<Boolean>> allRegistrations = new ArrayList<>();
+        for ( Future<List<CompletableFuture<Boolean>>> result : results ) {
+            allRegistrations.addAll(result.get(1, TimeUnit.MINUTES));
+        }
+        executor.shutdown();
+        int pending = 0;
+        for ( CompletableFuture<Boolean> registration : allRegistrations ) {
+            if ( registration.isDone() ) {
+                Assert.assertFalse(registration.get());
+            } else {
+                pending++;
+            }
+        }
+        Assert.assertEquals(robots, pending);
+        Assert.assertEquals(robots, robotCommunicator.getRobotCommunicationDataSize());
+    }
+
+    /**
+     * a registration must not scan the states of all connected robots. The connected robots count the accesses to their data, registering further robots
+     * must not access them at all
+     */
+    @Test
+    public void testRegistrationDoesntScanConnectedRobots() throws Exception {
+        RobotCommunicator robotCommunicator = new RobotCommunicator();
+        AtomicInteger accesses = new AtomicInteger(0);
+        for ( int i = 0; i < 1000; i++ ) {
+            Assert.assertTrue(robotCommunicator.addNewRegistration(new CountingRobotCommunicationData("A" + i, "A-mac-" + i, accesses)));
+        }
+        accesses.set(0);
+        for ( int i = 0; i < 100; i++ ) {
+            RobotCommunicationData robot = new RobotCommunicationData("B" + i, "ev3", "B-mac-" + i, "robot", "8.0", "", "", "lejos", "");
+            Assert.assertTrue(robotCommunicator.addNewRegistration(robot));
+        }
+        Assert.assertEquals(1100, robotCommunicator.getRobotCommunicationDataSize());
+        Assert.assertEquals("the data of connected robots was accessed", 0, accesses.get());
+    }
+
+    private static class CountingRobotCommunicationData extends RobotCommunicationData {
+        private final AtomicInteger accesses;
+
+        private CountingRobotCommunicationData(String token, String mac, AtomicInteger accesses) {
+            super(token, "ev3", mac, "robot", "8.0", "", "", "lejos", "");
+            this.accesses = accesses;
+        }
+
+        @Override
+        public String getToken() {
+            this.accesses.incrementAndGet();
+            return super.getToken();
+        }
+
+        @Override
+        public String getRobotIdentificator() {
+            this.accesses.incrementAndGet();
+            return super.getRobotIdentificator();
+        }
+
+        @Override
+        public State getState() {
+            this.accesses.incrementAndGet();
+            return super.getState();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package de.fhg.iais.roberta.robotCommunication.generic;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.fhg.iais.roberta.robotCommunication.SensorTelemetry;
+
+public class SensorTelemetryTest {
+
+    @Test
+    public void testRecentSamplesAreReturnedAsTheyArrived() throws Exception {
+        SensorTelemetry telemetry = new SensorTelemetry();
+        telemetry.add(1000, new JSONObject().put("ultrasonic", 12.5).put("touch", true).put("color", "RED"));
+        telemetry.add(2000, new JSONObject().put("ultrasonic", 13).put("gyro", new JSONArray().put(1).put(2)));
+        JSONObject history = telemetry.query(0, Long.MAX_VALUE);
+        Assert.assertEquals(0, history.getInt("downsampled"));
+        JSONArray time = history.getJSONArray("time");
+        Assert.assertEquals(2, time.length());
+        Assert.assertEquals(1000, time.getLong(0));
+        Assert.assertEquals(2000, time.getLong(1));
+        JSONObject values = history.getJSONObject("values");
+        Assert.assertEquals(12.5, values.getJSONArray("ultrasonic").getDouble(0), 1e-9);
+        Assert.assertEquals(13.0, values.getJSONArray("ultrasonic").getDouble(1), 1e-9);
+        Assert.assertEquals(1.0, values.getJSONArray("touch").getDouble(0), 1e-9);
+        Assert.assertTrue(values.getJSONArray("touch").isNull(1));
+        Assert.assertTrue(values.getJSONArray("gyro[1]").isNull(0));
+        Assert.assertEquals(2.0, values.getJSONArray("gyro[1]").getDouble(1), 1e-9);
+        Assert.assertFalse(values.has("color"));
+        Assert.assertEquals(1, telemetry.query(1500, 2500).getJSONArray("time").length());
+    }
+
+    @Test
+    public void testOldSamplesAreDownsampledIntoBuckets() throws Exception {
+        SensorTelemetry telemetry = new SensorTelemetry();
+        int samples = SensorTelemetry.SAMPLE_CAPACITY + 2 * SensorTelemetry.SAMPLES_PER_BUCKET;
+        for ( int i = 0; i < samples; i++ ) {
+            telemetry.add(i, new JSONObject().put("value", i));
+        }
+        JSONObject history = telemetry.query(0, Long.MAX_VALUE);
+        JSONArray time = history.getJSONArray("time");
+        JSONArray values = history.getJSONObject("values").getJSONArray("value");
+        Assert.assertEquals(2, history.getInt("downsampled"));
+        Assert.assertEquals(2 + SensorTelemetry.SAMPLE_CAPACITY, time.length());
+        Assert.assertEquals(0, time.getLong(0));
+        Assert.assertEquals((SensorTelemetry.SAMPLES_PER_BUCKET - 1) / 2.0, values.getDouble(0), 1e-9);
+        Assert.assertEquals(SensorTelemetry.SAMPLES_PER_BUCKET, time.getLong(1));
+        Assert.assertEquals(2 * SensorTelemetry.SAMPLES_PER_BUCKET, time.getLong(2));
+        Assert.assertEquals(samples - 1, time.getLong(time.length() - 1));
+    }
+
+    @Test
+    public void testOldestBucketsAreDropped() throws Exception {
+        SensorTelemetry telemetry = new SensorTelemetry();
+        int bucketedSamples = (SensorTelemetry.BUCKET_CAPACITY + 3) * SensorTelemetry.SAMPLES_PER_BUCKET;
+        for ( int i = 0; i < SensorTelemetry.SAMPLE_CAPACITY + bucketedSamples; i++ ) {
+            telemetry.add(i, new JSONObject().put("value", i));
+        }
+        JSONObject history = telemetry.query(0, Long.MAX_VALUE);
+        Assert.assertEquals(SensorTelemetry.BUCKET_CAPACITY, history.getInt("downsampled"));
+        Assert.assertEquals(3 * SensorTelemetry.SAMPLES_PER_BUCKET, history.getJSONArray("time").getLong(0));
+    }
+}
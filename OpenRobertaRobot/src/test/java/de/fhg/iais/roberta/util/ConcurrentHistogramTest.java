@@ -0,0 +1,52 @@
+package de.fhg.iais.roberta.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class ConcurrentHistogramTest {
+
+    @Test
+    public void testBucketsAreLogLinear() {
+        for ( long value : new long[] {
+            0,
+            1,
+            7,
+            8,
+            9,
+            100,
+            12345,
+            987654321,
+            Long.MAX_VALUE
+        } ) {
+            int bucket = ConcurrentHistogram.bucketOf(value);
+            long upperBound = ConcurrentHistogram.upperBoundOf(bucket);
+            assertTrue(value + " exceeds its bucket", value <= upperBound);
+            assertTrue(value + " has a bucket too large", upperBound - value <= value / ConcurrentHistogram.SUB_BUCKETS);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        ConcurrentHistogram histogram = new ConcurrentHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99.0));
+        for ( int i = 1; i <= 1000; i++ ) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500500, histogram.getMean());
+        assertWithin(500000, histogram.getValueAtPercentile(50.0));
+        assertWithin(990000, histogram.getValueAtPercentile(99.0));
+        assertEquals(1000000, histogram.getValueAtPercentile(100.0));
+        JSONObject json = histogram.toJson(1000);
+        assertEquals(1000, json.getLong("count"));
+        assertEquals(1000, json.getLong("max"));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected about " + expected + " but got " + actual, actual >= expected && actual <= expected + expected / ConcurrentHistogram.SUB_BUCKETS);
+    }
+}
@@ -0,0 +1,129 @@
+package de.fhg.iais.roberta.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CrosscompilerCacheTest {
+    private Path cacheDir;
+    private PluginProperties pluginProperties;
+
+    @Before
+    public void setup() throws IOException {
+        this.cacheDir = Files.createTempDirectory("crosscompilerCacheTest");
+        Properties properties = new Properties();
+        properties.put(CrosscompilerCache.RESOURCES_VERSION_PROPERTY, "1.0");
+        this.pluginProperties = new PluginProperties("uno", "", "", properties);
+    }
+
+    @After
+    public void teardown() throws IOException {
+        FileUtils.deleteDirectory(this.cacheDir.toFile());
+    }
+
+    @Test
+    public void testDisabledCacheNeverHits() {
+        CrosscompilerCache cache = new CrosscompilerCache(null, 0);
+        String key = cache.makeKey(this.pluginProperties, "uno", "", "void loop() {}");
+        assertNull(key);
+        cache.put(key, "hex".getBytes());
+        assertNull(cache.get(key));
+        assertFalse(CrosscompilerCache.getInstance().isEnabled());
+    }
+
+    @Test
+    public void testHitAndMiss() {
+        CrosscompilerCache cache = new CrosscompilerCache(this.cacheDir, 1000);
+        String key = cache.makeKey(this.pluginProperties, "uno", "standard", "void loop() {}");
+        assertEquals(key, cache.makeKey(this.pluginProperties, "uno", "standard", "void loop() {}"));
+        assertNotEquals(key, cache.makeKey(this.pluginProperties, "uno", "mega", "void loop() {}"));
+        assertNotEquals(key, cache.makeKey(this.pluginProperties, "uno", "standard", "void loop() { }"));
+        assertNull(cache.get(key));
+        cache.put(key, "hex".getBytes());
+        assertArrayEquals("hex".getBytes(), cache.get(key));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testChangedResourcesVersionMisses() {
+        CrosscompilerCache cache = new CrosscompilerCache(this.cacheDir, 1000);
+        String key = cache.makeKey(this.pluginProperties, "uno", "", "void loop() {}");
+        cache.put(key, new byte[10]);
+        this.pluginProperties.setStringProperty(CrosscompilerCache.RESOURCES_VERSION_PROPERTY, "1.1");
+        String newKey = cache.makeKey(this.pluginProperties, "uno", "", "void loop() {}");
+        assertNotEquals(key, newKey);
+        assertNull(cache.get(newKey));
+    }
+
+    @Test
+    public void testChangedNestedResourceMisses() throws IOException {
+        Path resourcesDir = this.cacheDir.resolve("resources");
+        Path header = resourcesDir.resolve("libraries/servo/servo.h");
+        Files.createDirectories(header.getParent());
+        Files.write(header, "v1".getBytes());
+        Properties properties = new Properties();
+        properties.put("robot.plugin.compiler.resources.dir", resourcesDir.toString());
+        PluginProperties computedVersionProperties = new PluginProperties("uno", "", "", properties);
+
+        CrosscompilerCache cache = new CrosscompilerCache(this.cacheDir.resolve("cache"), 1000);
+        String key = cache.makeKey(computedVersionProperties, "uno", "", "void loop() {}");
+        Files.write(header, "v1.1".getBytes());
+        cache.invalidateAll(); // forgets the versions computed
+        assertNotEquals(key, cache.makeKey(computedVersionProperties, "uno", "", "void loop() {}"));
+    }
+
+    @Test
+    public void testLruEviction() {
+        CrosscompilerCache cache = new CrosscompilerCache(this.cacheDir, 25);
+        String key1 = cache.makeKey(this.pluginProperties, "uno", "", "1");
+        String key2 = cache.makeKey(this.pluginProperties, "uno", "", "2");
+        String key3 = cache.makeKey(this.pluginProperties, "uno", "", "3");
+        cache.put(key1, new byte[10]);
+        cache.put(key2, new byte[10]);
+        cache.get(key1); // key2 is now the least recently used
+        cache.put(key3, new byte[10]);
+        assertEquals(2, cache.getNumberOfEntries());
+        assertEquals(20, cache.getSizeInBytes());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get(key2));
+        assertTrue(cache.get(key1) != null);
+        assertTrue(cache.get(key3) != null);
+    }
+
+    @Test
+    public void testPersistentAndInvalidate() throws IOException {
+        CrosscompilerCache cache = new CrosscompilerCache(this.cacheDir, 1000);
+        String key = cache.makeKey(this.pluginProperties, "uno", "", "void loop() {}");
+        String otherKey = cache.makeKey(this.pluginProperties, "mega", "", "void loop() {}");
+        cache.put(key, new byte[10]);
+        cache.put(otherKey, new byte[10]);
+
+        CrosscompilerCache reloadedCache = new CrosscompilerCache(this.cacheDir, 1000);
+        assertEquals(2, reloadedCache.getNumberOfEntries());
+        Path target = Files.createTempFile("program", ".hex");
+        assertTrue(reloadedCache.restore(key, target.toString()));
+        assertEquals(10, Files.size(target));
+        Files.delete(target);
+
+        reloadedCache.invalidate("uno");
+        assertNull(reloadedCache.get(key));
+        assertTrue(reloadedCache.get(otherKey) != null);
+        reloadedCache.invalidateAll();
+        assertEquals(0, reloadedCache.getNumberOfEntries());
+        assertEquals(0, reloadedCache.getSizeInBytes());
+    }
+}
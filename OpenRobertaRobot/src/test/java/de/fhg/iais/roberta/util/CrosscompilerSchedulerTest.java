@@ -0,0 +1,116 @@
+package de.fhg.iais.roberta.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.fhg.iais.roberta.util.dbc.DbcKeyException;
+
+public class CrosscompilerSchedulerTest {
+    private final CrosscompilerScheduler scheduler = new CrosscompilerScheduler(1, new HashMap<>(), 2);
+    private final CountDownLatch blockingJobMayFinish = new CountDownLatch(1);
+    private final List<Thread> threads = new ArrayList<>();
+
+    @After
+    public void teardown() throws InterruptedException {
+        this.blockingJobMayFinish.countDown();
+        for ( Thread thread : this.threads ) {
+            thread.join(5000);
+        }
+    }
+
+    @Test
+    public void testRunIsExecutedInCallerThread() {
+        Thread caller = Thread.currentThread();
+        assertEquals(caller, this.scheduler.run(CrosscompilerScheduler.AVR, "s", () -> Thread.currentThread()));
+        assertEquals(1, this.scheduler.getStatistics(CrosscompilerScheduler.AVR).getLong("completed"));
+        assertEquals(0, this.scheduler.getStatistics(CrosscompilerScheduler.AVR).getInt("running"));
+    }
+
+    @Test
+    public void testFullQueueIsRejectedImmediately() throws Exception {
+        occupyTheSlot(CrosscompilerScheduler.AVR);
+        startWaitingJob(CrosscompilerScheduler.AVR, "s1", new ArrayList<>(), 1);
+        startWaitingJob(CrosscompilerScheduler.AVR, "s2", new ArrayList<>(), 2);
+        try {
+            this.scheduler.run(CrosscompilerScheduler.AVR, "s3", () -> "never executed");
+            fail("the queue is full, the run must be rejected");
+        } catch ( DbcKeyException e ) {
+            assertEquals(Key.COMPILERWORKFLOW_ERROR_CROSSCOMPILER_QUEUE_FULL, e.getKey());
+        }
+        assertEquals(1, this.scheduler.getStatistics(CrosscompilerScheduler.AVR).getLong("rejected"));
+        // other toolchain families are not affected
+        assertEquals("done", this.scheduler.run(CrosscompilerScheduler.ARM, "s3", () -> "done"));
+    }
+
+    @Test
+    public void testSessionsAreServedRoundRobin() throws Exception {
+        CrosscompilerScheduler scheduler = new CrosscompilerScheduler(1, new HashMap<>(), 10);
+        List<String> executionOrder = Collections.synchronizedList(new ArrayList<>());
+        Thread blocking = new Thread(() -> scheduler.run(CrosscompilerScheduler.MBED, "s0", () -> await(this.blockingJobMayFinish)));
+        this.threads.add(blocking);
+        blocking.start();
+        awaitState(scheduler, CrosscompilerScheduler.MBED, "running", 1);
+        int waiting = 0;
+        for ( String session : Arrays.asList("s1", "s1", "s1", "s2") ) {
+            Thread thread = new Thread(() -> scheduler.run(CrosscompilerScheduler.MBED, session, () -> executionOrder.add(session)));
+            this.threads.add(thread);
+            thread.start();
+            awaitState(scheduler, CrosscompilerScheduler.MBED, "waiting", ++waiting);
+        }
+        this.blockingJobMayFinish.countDown();
+        for ( Thread thread : this.threads ) {
+            thread.join(5000);
+        }
+        assertEquals(Arrays.asList("s1", "s2", "s1", "s1"), executionOrder);
+        assertEquals(5, scheduler.getStatistics(CrosscompilerScheduler.MBED).getLong("completed"));
+    }
+
+    private void occupyTheSlot(String family) throws InterruptedException {
+        Thread blocking = new Thread(() -> this.scheduler.run(family, "s0", () -> await(this.blockingJobMayFinish)));
+        this.threads.add(blocking);
+        blocking.start();
+        awaitState(this.scheduler, family, "running", 1);
+    }
+
+    private void startWaitingJob(String family, String session, List<String> executionOrder, int expectedWaiting) throws InterruptedException {
+        Thread thread = new Thread(() -> {
+            try {
+                this.scheduler.run(family, session, () -> executionOrder.add(session));
+            } catch ( DbcKeyException e ) {
+                // expected, if the test terminates
+            }
+        });
+        this.threads.add(thread);
+        thread.start();
+        awaitState(this.scheduler, family, "waiting", expectedWaiting);
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch ( InterruptedException e ) {
+            return false;
+        }
+    }
+
+    private static void awaitState(CrosscompilerScheduler scheduler, String family, String counter, int expected) throws InterruptedException {
+        for ( int i = 0; i < 500; i++ ) {
+            if ( scheduler.getStatistics(family).getInt(counter) == expected ) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("scheduler did not reach " + counter + " == " + expected);
+    }
+}
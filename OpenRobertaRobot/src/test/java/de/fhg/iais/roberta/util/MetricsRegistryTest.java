@@ -0,0 +1,49 @@
+package de.fhg.iais.roberta.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.fhg.iais.roberta.robotCommunication.RobotCommunicationData;
+import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void testTextExposition() {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsRegistry.Counter counter = registry.counter("test_requests_total", "requests");
+        counter.increment();
+        counter.add(2);
+        Assert.assertSame(counter, registry.counter("test_requests_total", "requests"));
+        registry.gauge("test_sessions", "sessions", () -> 42);
+        registry.register("test_queue_seconds", "queue time", "summary", writer -> {
+            writer.sample("_sum").label("toolchain", "avr").value(1.5);
+            writer.sample("_count").label("toolchain", "avr").label("path", "a\"b\\c\nd").value(3);
+        });
+        String expected =
+            "# HELP test_queue_seconds queue time\n"
+                + "# TYPE test_queue_seconds summary\n"
+                + "test_queue_seconds_sum{toolchain=\"avr\"} 1.5\n"
+                + "test_queue_seconds_count{toolchain=\"avr\",path=\"a\\\"b\\\\c\\nd\"} 3\n"
+                + "# HELP test_requests_total requests\n"
+                + "# TYPE test_requests_total counter\n"
+                + "test_requests_total 3\n"
+                + "# HELP test_sessions sessions\n"
+                + "# TYPE test_sessions gauge\n"
+                + "test_sessions 42\n";
+        Assert.assertEquals(expected, registry.scrape());
+    }
+
+    @Test
+    public void testRobotsByState() {
+        MetricsRegistry registry = new MetricsRegistry();
+        RobotCommunicator robotCommunicator = new RobotCommunicator();
+        robotCommunicator.registerMetrics(registry);
+        robotCommunicator.brickWantsTokenToBeApproved(new RobotCommunicationData("T1", "ev3", "m1", "b", "8", "1", "1", "lejos", "1"));
+        robotCommunicator.brickWantsTokenToBeApproved(new RobotCommunicationData("T2", "ev3", "m2", "b", "8", "1", "1", "lejos", "1"));
+        String metrics = registry.scrape();
+        Assert.assertTrue(metrics, metrics.contains("roberta_robots{state=\"WAIT_FOR_TOKENAPPROVAL_FROM_USER\"} 2\n"));
+        Assert.assertTrue(metrics, metrics.contains("roberta_robots{state=\"GARBAGE\"} 0\n"));
+        Assert.assertTrue(metrics, metrics.contains("# TYPE roberta_robot_longest_wait_msec gauge\n"));
+    }
+}
@@ -0,0 +1,119 @@
+package de.fhg.iais.roberta.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * two compile workers listen on local ports. The crosscompiler is a shell command, that converts the source to upper case
+ */
+public class RemoteCrosscompilerTest {
+    private static final String SECRET = "secret";
+
+    private Path tempDir;
+    private String workspaceDir;
+    private CrosscompilerWorker worker1;
+    private CrosscompilerWorker worker2;
+    private RemoteCrosscompiler remoteCrosscompiler;
+
+    @Before
+    public void setup() throws IOException {
+        this.tempDir = Files.createTempDirectory("remoteCrosscompilerTest");
+        this.workspaceDir = this.tempDir.resolve("client/T1/prog").toString() + "/";
+        Files.createDirectories(this.tempDir.resolve("client/T1/prog/source"));
+        Files.write(this.tempDir.resolve("client/T1/prog/source/prog.txt"), "hello".getBytes(StandardCharsets.UTF_8));
+        this.worker1 = createWorker("worker1");
+        this.worker2 = createWorker("worker2");
+        int port1 = this.worker1.start(0, InetAddress.getLoopbackAddress());
+        int port2 = this.worker2.start(0, InetAddress.getLoopbackAddress());
+        this.remoteCrosscompiler = new RemoteCrosscompiler(Arrays.asList("127.0.0.1:" + port1, "127.0.0.1:" + port2), SECRET);
+    }
+
+    @After
+    public void teardown() throws IOException {
+        this.worker1.close();
+        this.worker2.close();
+        FileUtils.deleteDirectory(this.tempDir.toFile());
+    }
+
+    @Test
+    public void testArtifactIsReturnedFromTheWorker() throws Exception {
+        Pair<Boolean, String> result = this.remoteCrosscompiler.run(CrosscompilerScheduler.AVR, "T1", this.workspaceDir, upperCaseCompiler(), "hello");
+        assertTrue(result.getSecond(), result.getFirst());
+        assertEquals("HELLO", new String(Files.readAllBytes(this.tempDir.resolve("client/T1/prog/target/prog.out")), StandardCharsets.UTF_8).trim());
+        assertEquals("the workspaces of the workers are deleted", 0, this.tempDir.resolve("worker1").toFile().list().length + this.tempDir.resolve("worker2").toFile().list().length);
+    }
+
+    @Test
+    public void testRunsAreBalancedAndFailedWorkersAreSkipped() throws Exception {
+        for ( int i = 0; i < 4; i++ ) {
+            assertTrue(this.remoteCrosscompiler.run(CrosscompilerScheduler.AVR, "T1", this.workspaceDir, upperCaseCompiler(), "hello").getFirst());
+        }
+        assertEquals(2, this.worker1.getCompleted());
+        assertEquals(2, this.worker2.getCompleted());
+
+        this.worker1.close();
+        for ( int i = 0; i < 2; i++ ) {
+            assertTrue(this.remoteCrosscompiler.run(CrosscompilerScheduler.AVR, "T1", this.workspaceDir, upperCaseCompiler(), "hello").getFirst());
+        }
+        assertEquals(4, this.worker2.getCompleted());
+    }
+
+    @Test
+    public void testCrosscompilerNotAllowedIsRejected() throws Exception {
+        String[] rm =
+            {
+                "rm",
+                "-rf",
+                this.workspaceDir
+            };
+        Pair<Boolean, String> result = this.remoteCrosscompiler.run(CrosscompilerScheduler.AVR, "T1", this.workspaceDir, rm, "");
+        assertFalse(result.getFirst());
+        assertEquals(1, this.worker1.getRejected() + this.worker2.getRejected());
+        assertTrue(Files.exists(this.tempDir.resolve("client/T1/prog/source/prog.txt")));
+    }
+
+    @Test
+    public void testFailingCrosscompilerReturnsItsMessages() throws Exception {
+        String[] failing =
+            {
+                "sh",
+                "-c",
+                "echo syntax error in " + this.workspaceDir + "source/prog.txt; exit 1"
+            };
+        Pair<Boolean, String> result = this.remoteCrosscompiler.run(CrosscompilerScheduler.AVR, "T1", this.workspaceDir, failing, "hello");
+        assertFalse(result.getFirst());
+        assertEquals("syntax error in " + this.tempDir.resolve("client/T1/prog").toAbsolutePath() + "/source/prog.txt", result.getSecond());
+    }
+
+    private CrosscompilerWorker createWorker(String name) {
+        return new CrosscompilerWorker(
+            this.tempDir.resolve(name),
+            SECRET,
+            Collections.singletonList("sh"),
+            new CrosscompilerScheduler(1, new HashMap<>(), 10),
+            Util::runCrossCompiler);
+    }
+
+    private String[] upperCaseCompiler() {
+        return new String[] {
+            "sh",
+            "-c",
+            "mkdir -p " + this.workspaceDir + "target && tr a-z A-Z < " + this.workspaceDir + "source/prog.txt > " + this.workspaceDir + "target/prog.out"
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package de.fhg.iais.roberta.util.jaxb;
+
+import javax.xml.bind.JAXBException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.fhg.iais.roberta.blockly.generated.BlockSet;
+import de.fhg.iais.roberta.util.Util;
+
+public class BlocklyXmlReaderTest {
+    private static final String[] PROGRAMS =
+        {
+            "/ast/transform/old_control.xml",
+            "/ast/transform/old_functions.xml",
+            "/ast/text/text_string_const2.xml",
+            "/ast/actions/action_BluetoothSend.xml",
+            "/ast/methods/method_call_3.xml",
+            "/loop_counter/loops_with_break_and_continue.xml",
+            "/de/fhg/iais/roberta/util/Xslt_calliope_in.xml"
+        };
+
+    @Test
+    public void testStreamingReaderYieldsTheSameBlockSetAsJaxb() throws Exception {
+        for ( String program : PROGRAMS ) {
+            String xml = Util.readResourceContent(program);
+            BlockSet expected = JaxbHelper.xml2BlockSet(xml, XmlValidationPolicy.FULL);
+            BlockSet actual = JaxbHelper.xml2BlockSet(xml, XmlValidationPolicy.STREAMING);
+            Assert.assertEquals(program, JaxbHelper.blockSet2xml(expected), JaxbHelper.blockSet2xml(actual));
+        }
+    }
+
+    @Test(expected = JAXBException.class)
+    public void testUnknownElementIsRejected() throws Exception {
+        BlocklyXmlReader
+            .xml2BlockSet(
+                "<block_set xmlns='http://de.fhg.iais.roberta.blockly'><instance x='1' y='1'><block type='math_number' id='1'><unknown/></block></instance></block_set>");
+    }
+
+    @Test(expected = JAXBException.class)
+    public void testForeignNamespaceIsRejected() throws Exception {
+        BlocklyXmlReader.xml2BlockSet("<block_set xmlns='http://www.w3.org/1999/xhtml'><instance x='1' y='1'></instance></block_set>");
+    }
+}
@@ -0,0 +1,36 @@
+package de.fhg.iais.roberta.util.jaxb;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.fhg.iais.roberta.blockly.generated.Block;
+import de.fhg.iais.roberta.blockly.generated.BlockSet;
+import de.fhg.iais.roberta.blockly.generated.Instance;
+import de.fhg.iais.roberta.util.Util;
+
+public class BlocklyXmlWriterTest {
+    private static final String[] PROGRAMS =
+        {
+            "/ast/transform/old_control.xml",
+            "/ast/text/text_string_const2.xml",
+            "/ast/methods/method_call_3.xml",
+            "/loop_counter/loops_with_break_and_continue.xml"
+        };
+
+    @Test
+    public void testStreamingWriterYieldsTheSameBlockSetAsJaxb() throws Exception {
+        for ( String program : PROGRAMS ) {
+            BlockSet blockSet = JaxbHelper.xml2BlockSet(Util.readResourceContent(program));
+            BlocklyXmlWriter writer = new BlocklyXmlWriter(blockSet.getRobottype(), blockSet.getXmlversion(), blockSet.getDescription(), blockSet.getTags());
+            for ( Instance instance : blockSet.getInstance() ) {
+                writer.startInstance(instance.getX(), instance.getY());
+                for ( Block block : instance.getBlock() ) {
+                    writer.writeBlock(block);
+                }
+                writer.endInstance();
+            }
+            BlockSet rewritten = JaxbHelper.xml2BlockSet(writer.finish(), XmlValidationPolicy.FULL);
+            Assert.assertEquals(program, JaxbHelper.blockSet2xml(blockSet), JaxbHelper.blockSet2xml(rewritten));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * This is a class GENERATED by the TransportGenerator maven plugin. DON'T MODIFY IT.
+ * IF you modify it, your work may be lost: the class will be overwritten automatically
+ * when the maven plugin is re-executed for any reasons.
+ */
+package de.fhg.iais.roberta.generated.restEntities;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * the request description for the /projectWorkflow/job REST request<br>
+ * <br>
+ * Version: 1<br>
+ * Datum: 2020-06-15
+ */
+public class ProjectWorkflowJobRequest extends BaseRequest {
+    protected String jobId;
+
+    /**
+     * the request description for the /projectWorkflow/job REST request
+     */
+    public static ProjectWorkflowJobRequest make() {
+        return new ProjectWorkflowJobRequest();
+    }
+
+    /**
+     * the request description for the /projectWorkflow/job REST request
+     */
+    public static ProjectWorkflowJobRequest makeFromString(String jsonS) {
+        try {
+            JSONObject jsonO = new JSONObject(jsonS);
+            return make(jsonO);
+        } catch ( JSONException e ) {
+            throw new RuntimeException("JSON parse error when parsing: " + jsonS, e);
+        }
+    }
+
+    /**
+     * the request description for the /projectWorkflow/job REST request
+     */
+    public static ProjectWorkflowJobRequest makeFromProperties(String cmd, String jobId) {
+        ProjectWorkflowJobRequest entity = new ProjectWorkflowJobRequest();
+        entity.setCmd(cmd);
+        entity.setJobId(jobId);
+        entity.immutable();
+        return entity;
+    }
+
+    /**
+     * the request description for the /projectWorkflow/job REST request
+     */
+    public static ProjectWorkflowJobRequest make(JSONObject jsonO) {
+        return make().merge(jsonO).immutable();
+    }
+
+    /**
+     * merge the properties of a JSON-object into this bean. The bean must be "under construction". The keys of the JSON-Object must be valid. The bean remains
+     * "under construction".<br>
+     * Throws a runtime exception if inconsistencies are detected.
+     */
+    @Override
+    public ProjectWorkflowJobRequest merge(JSONObject jsonO) {
+        try {
+            for ( String key : JSONObject.getNames(jsonO) ) {
+                if ( "_version".equals(key) ) {
+                } else if ( "cmd".equals(key) ) {
+                    setCmd(jsonO.optString(key));
+                } else if ( "jobId".equals(key) ) {
+                    setJobId(jsonO.getString(key));
+                } else {
+                    throw new RuntimeException("JSON parse error. Found invalid key: " + key + " in " + jsonO);
+                }
+            }
+            return this;
+        } catch ( Exception e ) {
+            throw new RuntimeException("JSON parse / casting error when parsing: " + jsonO, e);
+        }
+    }
+
+    /**
+     * moves a bean from state "under construction" to state "immutable".<br>
+     * Checks whether all required fields are set. All lists are made immutable.<br>
+     * Throws a runtime exception if inconsistencies are detected.
+     */
+    @Override
+    public ProjectWorkflowJobRequest immutable() {
+        if ( this.immutable ) {
+            return this;
+        }
+        this.immutable = true;
+        return validate();
+    }
+
+    /**
+     * Checks whether all required fields are set.<br>
+     * Throws a runtime exception if inconsistencies are detected.
+     */
+    private ProjectWorkflowJobRequest validate() {
+        String _message = null;
+        if ( !this.immutable ) {
+            _message = "ProjectWorkflowJobRequest-object is already immutable: " + toString();
+        }
+        if ( this.jobId == null ) {
+            _message = "required property jobId of ProjectWorkflowJobRequest-object is not set: " + toString();
+        }
+        if ( _message != null ) {
+            this.immutable = false;
+            throw new RuntimeException(_message);
+        }
+        return this;
+    }
+
+    /**
+     * GET jobId. Object must be immutable. Never return null or an undefined/default value.
+     */
+    public String getJobId() {
+        if ( !this.immutable ) {
+            throw new RuntimeException("no jobId from an object under construction: " + toString());
+        }
+        return this.jobId;
+    }
+
+    /**
+     * SET jobId. Object must be mutable.
+     */
+    public ProjectWorkflowJobRequest setJobId(String jobId) {
+        if ( this.immutable ) {
+            throw new RuntimeException("jobId assigned to an immutable object: " + toString());
+        }
+        this.jobId = jobId;
+        return this;
+    }
+
+    /**
+     * generates a JSON-object from an immutable bean.<br>
+     * Throws a runtime exception if inconsistencies are detected.
+     */
+    @Override
+    public JSONObject toJson() {
+        if ( !this.immutable ) {
+            throw new RuntimeException("no JSON from an object under construction: " + toString());
+        }
+        JSONObject jsonO = new JSONObject();
+        try {
+            jsonO.put("_version", "1");
+            if ( this.cmd != null ) {
+                jsonO.put("cmd", this.cmd);
+            }
+            jsonO.put("jobId", this.jobId);
+        } catch ( JSONException e ) {
+            throw new RuntimeException("JSON unparse error when unparsing: " + this, e);
+        }
+        return jsonO;
+    }
+
+    @Override
+    public String toString() {
+        return "ProjectWorkflowJobRequest [immutable=" + this.immutable + ", cmd=" + this.cmd + ", jobId=" + this.jobId + " ]";
+    }
+
+    @Override
+    public int hashCode() {
+        throw new RuntimeException("no hashCode from transport beans!");
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        throw new RuntimeException("no equals from transport beans!");
+    }
+
+}
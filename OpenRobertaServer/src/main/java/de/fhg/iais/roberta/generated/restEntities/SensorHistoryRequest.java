@@ -0,0 +1,213 @@
+/*
+ * This is a class GENERATED by the TransportGenerator maven plugin. DON'T MODIFY IT.
+ * IF you modify it, your work may be lost: the class will be overwritten automatically
+ * when the maven plugin is re-executed for any reasons.
+ */
+package de.fhg.iais.roberta.generated.restEntities;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * the request description for the /admin/sensorHistory REST request<br>
+ * <br>
+ * Version: 1<br>
+ * Datum: 2020-06-15
+ */
+public class SensorHistoryRequest extends BaseRequest {
+    protected long from;
+    protected boolean fromDefined = false;
+    protected long to;
+    protected boolean toDefined = false;
+
+    /**
+     * the request description for the /admin/sensorHistory REST request
+     */
+    public static SensorHistoryRequest make() {
+        return new SensorHistoryRequest();
+    }
+
+    /**
+     * the request description for the /admin/sensorHistory REST request
+     */
+    public static SensorHistoryRequest makeFromString(String jsonS) {
+        try {
+            JSONObject jsonO = new JSONObject(jsonS);
+            return make(jsonO);
+        } catch ( JSONException e ) {
+            throw new RuntimeException("JSON parse error when parsing: " + jsonS, e);
+        }
+    }
+
+    /**
+     * the request description for the /admin/sensorHistory REST request
+     */
+    public static SensorHistoryRequest makeFromProperties(String cmd, long from, long to) {
+        SensorHistoryRequest entity = new SensorHistoryRequest();
+        entity.setCmd(cmd);
+        entity.setFrom(from);
+        entity.setTo(to);
+        entity.immutable();
+        return entity;
+    }
+
+    /**
+     * the request description for the /admin/sensorHistory REST request
+     */
+    public static SensorHistoryRequest make(JSONObject jsonO) {
+        return make().merge(jsonO).immutable();
+    }
+
+    /**
+     * merge the properties of a JSON-object into this bean. The bean must be "under construction". The keys of the JSON-Object must be valid. The bean remains
+     * "under construction".<br>
+     * Throws a runtime exception if inconsistencies are detected.
+     */
+    @Override
+    public SensorHistoryRequest merge(JSONObject jsonO) {
+        try {
+            for ( String key : JSONObject.getNames(jsonO) ) {
+                if ( "_version".equals(key) ) {
+                } else if ( "cmd".equals(key) ) {
+                    setCmd(jsonO.optString(key));
+                } else if ( "from".equals(key) ) {
+                    setFrom(jsonO.getLong(key));
+                } else if ( "to".equals(key) ) {
+                    setTo(jsonO.getLong(key));
+                } else {
+                    throw new RuntimeException("JSON parse error. Found invalid key: " + key + " in " + jsonO);
+                }
+            }
+            return this;
+        } catch ( Exception e ) {
+            throw new RuntimeException("JSON parse / casting error when parsing: " + jsonO, e);
+        }
+    }
+
+    /**
+     * moves a bean from state "under construction" to state "immutable".<br>
+     * Checks whether all required fields are set. All lists are made immutable.<br>
+     * Throws a runtime exception if inconsistencies are detected.
+     */
+    @Override
+    public SensorHistoryRequest immutable() {
+        if ( this.immutable ) {
+            return this;
+        }
+        this.immutable = true;
+        return validate();
+    }
+
+    /**
+     * Checks whether all required fields are set.<br>
+     * Throws a runtime exception if inconsistencies are detected.
+     */
+    private SensorHistoryRequest validate() {
+        String _message = null;
+        if ( !this.immutable ) {
+            _message = "SensorHistoryRequest-object is already immutable: " + toString();
+        }
+        if ( !this.fromDefined ) {
+            _message = "required property from of SensorHistoryRequest-object is not set: " + toString();
+        }
+        if ( !this.toDefined ) {
+            _message = "required property to of SensorHistoryRequest-object is not set: " + toString();
+        }
+        if ( _message != null ) {
+            this.immutable = false;
+            throw new RuntimeException(_message);
+        }
+        return this;
+    }
+
+    /**
+     * GET from. Object must be immutable. Never return null or an undefined/default value.
+     */
+    public long getFrom() {
+        if ( !this.immutable ) {
+            throw new RuntimeException("no from from an object under construction: " + toString());
+        }
+        return this.from;
+    }
+
+    /**
+     * SET from. Object must be mutable.
+     */
+    public SensorHistoryRequest setFrom(long from) {
+        if ( this.immutable ) {
+            throw new RuntimeException("from assigned to an immutable object: " + toString());
+        }
+        this.from = from;
+        this.fromDefined = true;
+        return this;
+    }
+
+    /**
+     * GET to. Object must be immutable. Never return null or an undefined/default value.
+     */
+    public long getTo() {
+        if ( !this.immutable ) {
+            throw new RuntimeException("no to from an object under construction: " + toString());
+        }
+        return this.to;
+    }
+
+    /**
+     * SET to. Object must be mutable.
+     */
+    public SensorHistoryRequest setTo(long to) {
+        if ( this.immutable ) {
+            throw new RuntimeException("to assigned to an immutable object: " + toString());
+        }
+        this.to = to;
+        this.toDefined = true;
+        return this;
+    }
+
+    /**
+     * generates a JSON-object from an immutable bean.<br>
+     * Throws a runtime exception if inconsistencies are detected.
+     */
+    @Override
+    public JSONObject toJson() {
+        if ( !this.immutable ) {
+            throw new RuntimeException("no JSON from an object under construction: " + toString());
+        }
+        JSONObject jsonO = new JSONObject();
+        try {
+            jsonO.put("_version", "1");
+            if ( this.cmd != null ) {
+                jsonO.put("cmd", this.cmd);
+            }
+            jsonO.put("from", this.from);
+            jsonO.put("to", this.to);
+        } catch ( JSONException e ) {
+            throw new RuntimeException("JSON unparse error when unparsing: " + this, e);
+        }
+        return jsonO;
+    }
+
+    @Override
+    public String toString() {
+        return "SensorHistoryRequest [immutable="
+            + this.immutable
+            + ", cmd="
+            + this.cmd
+            + ", from="
+            + this.from
+            + ", to="
+            + this.to
+            + " ]";
+    }
+
+    @Override
+    public int hashCode() {
+        throw new RuntimeException("no hashCode from transport beans!");
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        throw new RuntimeException("no equals from transport beans!");
+    }
+
+}
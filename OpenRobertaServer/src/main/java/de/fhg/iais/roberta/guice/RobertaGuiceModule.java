@@ -16,6 +16,7 @@ import de.fhg.iais.roberta.javaServer.restServices.all.controller.ClientConfigur
 import de.fhg.iais.roberta.javaServer.restServices.all.controller.ClientPing;
 import de.fhg.iais.roberta.javaServer.restServices.all.controller.ClientUser;
 import de.fhg.iais.roberta.javaServer.restServices.all.controller.RestExample;
+import de.fhg.iais.roberta.javaServer.restServices.all.service.ProjectWorkflowJobs;
 import de.fhg.iais.roberta.javaServer.restServices.robot.RobotCommand;
 import de.fhg.iais.roberta.javaServer.restServices.robot.RobotDownloadProgram;
 import de.fhg.iais.roberta.javaServer.restServices.robot.RobotSensorLogging;
@@ -62,6 +63,7 @@ public class RobertaGuiceModule extends AbstractModule {
         bind(SessionFactoryWrapper.class).in(Singleton.class);
         bind(RobotCommunicator.class).toInstance(this.robotCommunicator);
         bind(MailManagement.class).in(Singleton.class);
+        bind(ProjectWorkflowJobs.class).in(Singleton.class);
         bind(IIpToCountry.class).toInstance(this.ipToCountry);
 
         requestStaticInjection(UtilForREST.class);
@@ -10,6 +10,7 @@ import com.sun.jersey.guice.JerseyServletModule;
 import com.sun.jersey.guice.spi.container.servlet.GuiceContainer;
 
 import de.fhg.iais.roberta.factory.IRobotFactory;
+import de.fhg.iais.roberta.javaServer.restServices.robot.RobotCommandServlet;
 import de.fhg.iais.roberta.main.IIpToCountry;
 import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
 import de.fhg.iais.roberta.util.ServerProperties;
@@ -60,6 +61,8 @@ public class RobertaGuiceServletConfig extends GuiceServletContextListener {
                         + "de.fhg.iais.roberta.javaServer.restServices,"
                         + "de.fhg.iais.roberta.javaServer.provider";
                 initParams.put("com.sun.jersey.config.property.packages", packages);
+                // the robot protocol suspends requests. Jersey 1 cannot do that, thus /pushcmd is served by an async servlet, not by a JAX-RS resource
+                serve("/pushcmd").with(RobotCommandServlet.class);
                 serve("/*").with(GuiceContainer.class, initParams);
             }
         };
@@ -12,10 +12,12 @@ import de.fhg.iais.roberta.util.XsltTransformer;
 
 @Provider
 public class XsltTransProvider implements InjectableProvider<XsltTrans, Parameter> {
+    // the transformer is thread-safe and holds the compiled stylesheets. Share it between all requests
+    private static final XsltTransformer XSLT_TRANSFORMER = new XsltTransformer();
 
     @Override
     public ComponentScope getScope() {
-        return ComponentScope.PerRequest;
+        return ComponentScope.Singleton;
     }
 
     @Override
@@ -28,6 +30,6 @@ public class XsltTransProvider implements InjectableProvider<XsltTrans, Paramete
     }
 
     private Injectable<XsltTransformer> getInjectableXsltTransformer() {
-        return () -> new XsltTransformer();
+        return () -> XSLT_TRANSFORMER;
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package de.fhg.iais.roberta.javaServer.restServices.all;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.ws.rs.GET;
@@ -19,6 +21,11 @@ import de.fhg.iais.roberta.persistence.util.DbSession;
 import de.fhg.iais.roberta.persistence.util.HttpSessionState;
 import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
 import de.fhg.iais.roberta.util.AliveData;
+import de.fhg.iais.roberta.util.CrosscompilerCache;
+import de.fhg.iais.roberta.util.CrosscompilerScheduler;
+import de.fhg.iais.roberta.util.MetricsRegistry;
+import de.fhg.iais.roberta.util.RemoteCrosscompiler;
+import de.fhg.iais.roberta.util.WorkflowMetrics;
 
 @Path("/data")
 public class ServerData {
@@ -46,6 +53,26 @@ public class ServerData {
         return Response.ok(answer.toString()).build();
     }
 
+    /**
+     * latency and allocation percentiles of the workflow stages per robot plugin and workflow, see {@link WorkflowMetrics}
+     */
+    @Path("/server/workflows")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response tellWorkflowMetrics() throws Exception {
+        return Response.ok(WorkflowMetrics.getStatistics().toString()).build();
+    }
+
+    /**
+     * all metrics of the server in the Prometheus text exposition format, see {@link MetricsRegistry}. Cheap enough to be scraped every few seconds
+     */
+    @Path("/server/metrics")
+    @GET
+    @Produces(MetricsRegistry.CONTENT_TYPE)
+    public Response tellMetrics() throws Exception {
+        return Response.ok(MetricsRegistry.getInstance().scrape()).build();
+    }
+
     @Path("/robot/summary")
     @GET
     @Produces(MediaType.TEXT_PLAIN)
@@ -79,6 +106,20 @@ public class ServerData {
         answer.put("unusedDbSessions", DbSession.getUnusedSessionCounter());
         answer.put("cleanedDbSessions", DbSession.getCleanedSessionCounter());
         answer.put("httpSessions", HttpSessionState.getNumberOfHttpSessionStates());
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        answer.put("threads", threads.getThreadCount());
+        answer.put("peakThreads", threads.getPeakThreadCount());
+        return Response.ok(answer.toString()).build();
+    }
+
+    @Path("/server/crosscompiler")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response tellUsageOfCrosscompilers() throws Exception {
+        JSONObject answer = new JSONObject();
+        answer.put("scheduler", CrosscompilerScheduler.getInstance().getStatistics());
+        answer.put("cache", CrosscompilerCache.getInstance().getStatistics());
+        answer.put("remoteWorkers", RemoteCrosscompiler.getInstance().getStatistics());
         return Response.ok(answer.toString()).build();
     }
 
@@ -17,11 +17,14 @@ import com.google.inject.Inject;
 import de.fhg.iais.roberta.factory.IRobotFactory;
 import de.fhg.iais.roberta.generated.restEntities.BaseResponse;
 import de.fhg.iais.roberta.generated.restEntities.FullRestRequest;
+import de.fhg.iais.roberta.generated.restEntities.SensorHistoryRequest;
+import de.fhg.iais.roberta.generated.restEntities.SensorHistoryResponse;
 import de.fhg.iais.roberta.generated.restEntities.SetRobotRequest;
 import de.fhg.iais.roberta.generated.restEntities.SetRobotResponse;
 import de.fhg.iais.roberta.generated.restEntities.SetTokenRequest;
 import de.fhg.iais.roberta.generated.restEntities.SetTokenResponse;
 import de.fhg.iais.roberta.persistence.util.HttpSessionState;
+import de.fhg.iais.roberta.robotCommunication.RobotCommunicationData;
 import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
 import de.fhg.iais.roberta.util.Key;
 import de.fhg.iais.roberta.util.RandomUrlPostfix;
@@ -79,7 +82,9 @@ public class ClientAdmin {
                 switch ( tokenAgreement ) {
                     case TOKEN_SET_SUCCESS:
                         httpSessionState.setToken(token);
-                        String robotMenuVersion = this.brickCommunicator.getState(token).getMenuVersion();
+                        RobotCommunicationData state = this.brickCommunicator.getState(token);
+                        // the state is null, if the robot is connected to another node of a cluster. Then no update is proposed
+                        String robotMenuVersion = state == null ? null : state.getMenuVersion();
                         String serverMenuVersion = httpSessionState.getRobotFactory().getMenuVersion();
                         addRobotUpdateInfo(setTokenResponse, robotMenuVersion, serverMenuVersion);
                         UtilForREST.addSuccessInfo(setTokenResponse, Key.TOKEN_SET_SUCCESS);
@@ -220,6 +225,36 @@ public class ClientAdmin {
         }
     }
 
+    /**
+     * get the history of the sensor values of the robot connected to this session in a time range. The frontend polls this request to chart the values, thus
+     * the call is not remembered as user activity
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/sensorHistory")
+    public Response sensorHistory(FullRestRequest fullRequest) throws Exception //
+    {
+        HttpSessionState httpSessionState = UtilForREST.handleRequestInit(LOG, fullRequest, false);
+        try {
+            SensorHistoryResponse response = SensorHistoryResponse.make();
+            SensorHistoryRequest request = SensorHistoryRequest.make(fullRequest.getData());
+            response.setCmd("sensorHistory");
+            String token = httpSessionState.getToken();
+            RobotCommunicationData state = token == null ? null : this.brickCommunicator.getState(token);
+            if ( state == null ) {
+                return UtilForREST.makeBaseResponseForError(Key.ROBOT_NOT_CONNECTED, httpSessionState, null);
+            }
+            response.setHistory(state.getSensorTelemetry().query(request.getFrom(), request.getTo()));
+            UtilForREST.addSuccessInfo(response, Key.SERVER_SUCCESS);
+            return UtilForREST.responseWithFrontendInfo(response, httpSessionState, this.brickCommunicator);
+        } catch ( Exception e ) {
+            String errorTicketId = Util.getErrorTicketId();
+            LOG.error("Exception. Error ticket: " + errorTicketId, e);
+            return UtilForREST.makeBaseResponseForError(Key.SERVER_ERROR, httpSessionState, null);
+        }
+    }
+
     private static void addRobotUpdateInfo(SetTokenResponse response, String robotMenuVersion, String serverMenuVersion) throws JSONException {
         if ( robotMenuVersion != null && serverMenuVersion != null ) {
             response.setUpdate(Util.versionCompare(robotMenuVersion, serverMenuVersion));
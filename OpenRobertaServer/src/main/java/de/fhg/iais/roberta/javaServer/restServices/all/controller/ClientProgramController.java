@@ -53,6 +53,7 @@ import de.fhg.iais.roberta.persistence.bo.ProgramShare;
 import de.fhg.iais.roberta.persistence.bo.User;
 import de.fhg.iais.roberta.persistence.bo.UserGroup;
 import de.fhg.iais.roberta.persistence.dao.ConfigurationDao;
+import de.fhg.iais.roberta.persistence.dao.GallerySortOrder;
 import de.fhg.iais.roberta.persistence.util.DbSession;
 import de.fhg.iais.roberta.persistence.util.HttpSessionState;
 import de.fhg.iais.roberta.util.Key;
@@ -65,6 +66,7 @@ import de.fhg.iais.roberta.util.UtilForREST;
 import de.fhg.iais.roberta.util.XsltTransformer;
 import de.fhg.iais.roberta.util.dbc.DbcException;
 import de.fhg.iais.roberta.util.jaxb.JaxbHelper;
+import de.fhg.iais.roberta.util.jaxb.XmlValidationPolicy;
 
 @Path("/program")
 public class ClientProgramController {
@@ -182,7 +184,9 @@ public class ClientProgramController {
                 } else {
                     String configText = programProcessor.getProgramsConfig(program);
                     String transformedXml = xsltTransformer.transform(program.getProgramText());
-                    Pair<String, String> progConfPair = transformBetweenVersions(httpSessionState.getRobotFactory(), transformedXml, configText);
+                    // the program is read from the database, not sent by the client
+                    Pair<String, String> progConfPair =
+                        transformBetweenVersions(httpSessionState.getRobotFactory(), transformedXml, configText, XmlValidationPolicy.STREAMING);
                     response.setProgXML(progConfPair.getFirst());
                     response.setConfigName(program.getConfigName()); // may be null, if an anonymous configuration is used
                     response.setConfXML(progConfPair.getSecond()); // may be null, if the default configuration is used
@@ -409,7 +413,8 @@ public class ClientProgramController {
                         transformBetweenVersions(
                             httpSessionState.getRobotFactory(),
                             JaxbHelper.blockSet2xml(jaxbImportExport.getProgram().getBlockSet()),
-                            JaxbHelper.blockSet2xml(jaxbImportExport.getConfig().getBlockSet()));
+                            JaxbHelper.blockSet2xml(jaxbImportExport.getConfig().getBlockSet()),
+                            XmlValidationPolicy.FULL);
                     response.setProgXML(progConfPair.getFirst());
                     response.setConfXML(progConfPair.getSecond());
                     UtilForREST.addSuccessInfo(response, Key.PROGRAM_IMPORT_SUCCESS);
@@ -571,7 +576,7 @@ public class ClientProgramController {
                 String userAccount = user.getAccount();
                 if ( !this.isPublicServer || user != null && user.isActivated() ) {
                     // get the program from the origin user to share with the gallery
-                    Program program = programProcessor.getProgramAndLockTable(programName, userAccount, robot, userAccount);
+                    Program program = programProcessor.getProgram(programName, userAccount, robot, userAccount);
                     String confText;
                     if ( program != null ) {
                         if ( program.getConfigName() == null ) {
@@ -681,7 +686,11 @@ public class ClientProgramController {
             int userId = httpSessionState.getUserId();
             JSONObject data = request.getData();
             String group = data.has("group") ? data.getString("group") : "";
-            JSONArray programInfo = programProcessor.getProgramGallery(userId, group);
+            String search = data.has("search") ? data.getString("search") : null;
+            GallerySortOrder sortOrder = GallerySortOrder.fromName(data.has("sortBy") ? data.getString("sortBy") : null);
+            int limit = data.has("limit") ? data.getInt("limit") : 0;
+            JSONObject after = data.has("after") ? data.getJSONObject("after") : null;
+            JSONArray programInfo = programProcessor.getProgramGallery(userId, group, search, sortOrder, limit, after);
             response.setProgramNames(programInfo);
             UtilForREST.addResultInfo(response, programProcessor);
             Statistics.info("GalleryView", "success", programProcessor.succeeded());
@@ -705,14 +714,24 @@ public class ClientProgramController {
     }
 
     // Transform programs with old xml versions to new xml versions
-    private static Pair<String, String> transformBetweenVersions(IRobotFactory robotFactory, String programText, String configText) {
+    private static Pair<String, String> transformBetweenVersions(
+        IRobotFactory robotFactory,
+        String programText,
+        String configText,
+        XmlValidationPolicy xmlValidationPolicy) {
         if ( robotFactory.hasWorkflow("transform") ) {
             if ( configText == null ) {
                 // programs that do not have any configuration modifications are saved into the database without an associated configuration
                 // when loaded, the default configuration should be used
                 configText = robotFactory.getConfigurationDefault();
             }
-            Project project = new Project.Builder().setFactory(robotFactory).setProgramXml(programText).setConfigurationXml(configText).build();
+            Project project =
+                new Project.Builder()
+                    .setFactory(robotFactory)
+                    .setXmlValidationPolicy(xmlValidationPolicy)
+                    .setProgramXml(programText)
+                    .setConfigurationXml(configText)
+                    .build();
             ProjectService.executeWorkflow("transform", project);
             if ( configText != null ) {
                 if ( project.getRobotFactory().getConfigurationType().equals("new") ) {
@@ -1,5 +1,7 @@
 package de.fhg.iais.roberta.javaServer.restServices.all.controller;
 
+import java.util.function.Supplier;
+
 import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
@@ -21,8 +23,11 @@ import de.fhg.iais.roberta.generated.restEntities.ProjectNativeResponse;
 import de.fhg.iais.roberta.generated.restEntities.ProjectNepoResponse;
 import de.fhg.iais.roberta.generated.restEntities.ProjectSourceResponse;
 import de.fhg.iais.roberta.generated.restEntities.ProjectSourceSimulationResponse;
+import de.fhg.iais.roberta.generated.restEntities.ProjectWorkflowJobRequest;
+import de.fhg.iais.roberta.generated.restEntities.ProjectWorkflowJobResponse;
 import de.fhg.iais.roberta.generated.restEntities.ProjectWorkflowRequest;
 import de.fhg.iais.roberta.javaServer.restServices.all.service.ProjectService;
+import de.fhg.iais.roberta.javaServer.restServices.all.service.ProjectWorkflowJobs;
 import de.fhg.iais.roberta.mode.action.Language;
 import de.fhg.iais.roberta.persistence.util.HttpSessionState;
 import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
@@ -30,16 +35,19 @@ import de.fhg.iais.roberta.util.Key;
 import de.fhg.iais.roberta.util.Pair;
 import de.fhg.iais.roberta.util.Statistics;
 import de.fhg.iais.roberta.util.UtilForREST;
+import de.fhg.iais.roberta.util.dbc.DbcKeyException;
 
 @Path("/projectWorkflow")
 public class ProjectWorkflowRestController {
     private static final Logger LOG = LoggerFactory.getLogger(ProjectWorkflowRestController.class);
 
     private final RobotCommunicator robotCommunicator;
+    private final ProjectWorkflowJobs workflowJobs;
 
     @Inject
-    public ProjectWorkflowRestController(RobotCommunicator robotCommunicator) {
+    public ProjectWorkflowRestController(RobotCommunicator robotCommunicator, ProjectWorkflowJobs workflowJobs) {
         this.robotCommunicator = robotCommunicator;
+        this.workflowJobs = workflowJobs;
     }
 
     @POST
@@ -104,30 +112,16 @@ public class ProjectWorkflowRestController {
     @Produces(MediaType.APPLICATION_JSON)
     public Response runProgram(FullRestRequest fullRequest) {
         HttpSessionState httpSessionState = UtilForREST.handleRequestInit(LOG, fullRequest, true);
-        try {
-            ProjectWorkflowRequest wfRequest = ProjectWorkflowRequest.make(fullRequest.getData());
-            ProjectNepoResponse response = ProjectNepoResponse.make();
-            response.setProgXML(wfRequest.getProgXML()); // always return the program, even if the workflow fails
-            Project project = request2project(wfRequest, httpSessionState, this.robotCommunicator, true, false);
-            ProjectService.executeWorkflow("run", project);
-            response.setCmd("runPBack");
-            response.setConfAnnos(project.getConfAnnotationList());
-            response.setErrorCounter(project.getErrorCounter());
-            response.setCompiledCode(project.getCompiledHex());
-            // TODO auto connection robots return COMPILERWORKFLOW_SUCCESS or COMPILERWORKFLOW_PROGRAM_GENERATION_SUCCESS
-            // TODO which is not mapped to anything in the frontend, ROBOT_PUSH_RUN is mapped to the message that was used before workflows
-            if ( project.getResult() == Key.COMPILERWORKFLOW_SUCCESS || project.getResult() == Key.COMPILERWORKFLOW_PROGRAM_GENERATION_SUCCESS ) {
-                project.setResult(Key.ROBOT_PUSH_RUN);
-            }
-            addProjectResultToResponse(response, project);
-            final int programLength = StringUtils.countMatches(project.getAnnotatedProgramAsXml(), "<block ");
-            Statistics.info("ProgramRun", "LoggedIn", httpSessionState.isUserLoggedIn(), "success", project.hasSucceeded(), "programLength", programLength);
-            return UtilForREST.responseWithFrontendInfo(response, httpSessionState, this.robotCommunicator);
-        } catch ( Exception e ) {
-            LOG.info("runProgram failed", e);
-            Statistics.info("ProgramRun", "LoggedIn", httpSessionState.isUserLoggedIn(), "success", false);
-            return UtilForREST.makeBaseResponseForError(Key.SERVER_ERROR, httpSessionState, this.robotCommunicator);
-        }
+        return executeWorkflow(httpSessionState, () -> executeRun(fullRequest.getData(), httpSessionState));
+    }
+
+    @POST
+    @Path("/runAsync")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response runProgramAsync(FullRestRequest fullRequest) {
+        HttpSessionState httpSessionState = UtilForREST.handleRequestInit(LOG, fullRequest, true);
+        return submitWorkflow("runAsync", httpSessionState, () -> executeRun(fullRequest.getData(), httpSessionState));
     }
 
     /**
@@ -142,23 +136,44 @@ public class ProjectWorkflowRestController {
     @Produces(MediaType.APPLICATION_JSON)
     public Response compileProgram(FullRestRequest fullRequest) {
         HttpSessionState httpSessionState = UtilForREST.handleRequestInit(LOG, fullRequest, true);
+        return executeWorkflow(httpSessionState, () -> executeCompile(fullRequest.getData(), httpSessionState));
+    }
+
+    @POST
+    @Path("/compileProgramAsync")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response compileProgramAsync(FullRestRequest fullRequest) {
+        HttpSessionState httpSessionState = UtilForREST.handleRequestInit(LOG, fullRequest, true);
+        return submitWorkflow("compileProgramAsync", httpSessionState, () -> executeCompile(fullRequest.getData(), httpSessionState));
+    }
+
+    /**
+     * collect the result of a job submitted by /runAsync or /compileProgramAsync. If the job is finished, the response is the same as the response of the
+     * synchronous request (/run or /compileProgram) and the job is removed. Otherwise the state of the job is returned.
+     *
+     * @param fullRequest containing the id of the job
+     * @return the response of the workflow or the state of the job
+     */
+    @POST
+    @Path("/job")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getJobResult(FullRestRequest fullRequest) {
+        HttpSessionState httpSessionState = UtilForREST.handleRequestInit(LOG, fullRequest, false);
         try {
-            ProjectWorkflowRequest wfRequest = ProjectWorkflowRequest.make(fullRequest.getData());
-            ProjectNepoResponse response = ProjectNepoResponse.make();
-            response.setProgXML(wfRequest.getProgXML()); // always return the program, even if the workflow fails
-            Project project = request2project(wfRequest, httpSessionState, this.robotCommunicator, true, true);
-            ProjectService.executeWorkflow("compile", project);
-            response.setCmd("compileP");
-            response.setProgXML(project.getAnnotatedProgramAsXml());
-            response.setErrorCounter(project.getErrorCounter());
-            response.setCompiledCode(project.getCompiledHex());
-            addProjectResultToResponse(response, project);
-            final int programLength = StringUtils.countMatches(project.getAnnotatedProgramAsXml(), "<block ");
-            Statistics.info("ProgramCompile", "LoggedIn", httpSessionState.isUserLoggedIn(), "success", project.hasSucceeded(), "programLength", programLength);
-            return UtilForREST.responseWithFrontendInfo(response, httpSessionState, this.robotCommunicator);
+            ProjectWorkflowJobRequest jobRequest = ProjectWorkflowJobRequest.make(fullRequest.getData());
+            ProjectWorkflowJobs.Job job = this.workflowJobs.get(httpSessionState.getInitToken(), jobRequest.getJobId());
+            if ( job == null ) {
+                return UtilForREST.makeBaseResponseForError(Key.COMPILERWORKFLOW_ERROR_JOB_NOT_FOUND, httpSessionState, this.robotCommunicator);
+            } else if ( !job.isDone() ) {
+                return jobStateResponse("job", job, httpSessionState);
+            } else {
+                this.workflowJobs.remove(job);
+                return UtilForREST.responseWithFrontendInfo(job.getResult(), httpSessionState, this.robotCommunicator);
+            }
         } catch ( Exception e ) {
-            LOG.info("compileProgram failed", e);
-            Statistics.info("ProgramCompile", "LoggedIn", httpSessionState.isUserLoggedIn(), "success", false);
+            LOG.info("getJobResult failed", e);
             return UtilForREST.makeBaseResponseForError(Key.SERVER_ERROR, httpSessionState, this.robotCommunicator);
         }
     }
@@ -242,6 +257,86 @@ public class ProjectWorkflowRestController {
         }
     }
 
+    /**
+     * the synchronous requests execute their workflow in the http thread. Handing it over to the job pool would block two threads per request
+     */
+    private Response executeWorkflow(HttpSessionState httpSessionState, Supplier<BaseResponse> workflow) {
+        try {
+            return UtilForREST.responseWithFrontendInfo(workflow.get(), httpSessionState, this.robotCommunicator);
+        } catch ( Exception e ) {
+            LOG.info("workflow failed", e);
+            return UtilForREST.makeBaseResponseForError(Key.SERVER_ERROR, httpSessionState, this.robotCommunicator);
+        }
+    }
+
+    private Response submitWorkflow(String cmd, HttpSessionState httpSessionState, Supplier<BaseResponse> workflow) {
+        try {
+            ProjectWorkflowJobs.Job job = this.workflowJobs.submit(httpSessionState.getInitToken(), workflow);
+            return jobStateResponse(cmd, job, httpSessionState);
+        } catch ( DbcKeyException e ) {
+            LOG.info("workflow job rejected: " + e.getMessage());
+            return UtilForREST.makeBaseResponseForError(e.getKey(), httpSessionState, this.robotCommunicator);
+        }
+    }
+
+    private Response jobStateResponse(String cmd, ProjectWorkflowJobs.Job job, HttpSessionState httpSessionState) {
+        ProjectWorkflowJobResponse response = ProjectWorkflowJobResponse.make();
+        response.setCmd(cmd);
+        response.setJobId(job.getId());
+        response.setState(job.getState().toString().toLowerCase());
+        UtilForREST.addSuccessInfo(response, Key.SERVER_SUCCESS);
+        return UtilForREST.responseWithFrontendInfo(response, httpSessionState, this.robotCommunicator);
+    }
+
+    private BaseResponse executeRun(JSONObject requestData, HttpSessionState httpSessionState) {
+        try {
+            ProjectWorkflowRequest wfRequest = ProjectWorkflowRequest.make(requestData);
+            ProjectNepoResponse response = ProjectNepoResponse.make();
+            response.setProgXML(wfRequest.getProgXML()); // always return the program, even if the workflow fails
+            Project project = request2project(wfRequest, httpSessionState, this.robotCommunicator, true, false);
+            ProjectService.executeWorkflow("run", project);
+            response.setCmd("runPBack");
+            response.setConfAnnos(project.getConfAnnotationList());
+            response.setErrorCounter(project.getErrorCounter());
+            response.setCompiledCode(project.getCompiledHex());
+            // TODO auto connection robots return COMPILERWORKFLOW_SUCCESS or COMPILERWORKFLOW_PROGRAM_GENERATION_SUCCESS
+            // TODO which is not mapped to anything in the frontend, ROBOT_PUSH_RUN is mapped to the message that was used before workflows
+            if ( project.getResult() == Key.COMPILERWORKFLOW_SUCCESS || project.getResult() == Key.COMPILERWORKFLOW_PROGRAM_GENERATION_SUCCESS ) {
+                project.setResult(Key.ROBOT_PUSH_RUN);
+            }
+            addProjectResultToResponse(response, project);
+            final int programLength = StringUtils.countMatches(project.getAnnotatedProgramAsXml(), "<block ");
+            Statistics.info("ProgramRun", "LoggedIn", httpSessionState.isUserLoggedIn(), "success", project.hasSucceeded(), "programLength", programLength);
+            return response;
+        } catch ( Exception e ) {
+            LOG.info("runProgram failed", e);
+            Statistics.info("ProgramRun", "LoggedIn", httpSessionState.isUserLoggedIn(), "success", false);
+            return UtilForREST.addErrorInfo(BaseResponse.make(), Key.SERVER_ERROR);
+        }
+    }
+
+    private BaseResponse executeCompile(JSONObject requestData, HttpSessionState httpSessionState) {
+        try {
+            ProjectWorkflowRequest wfRequest = ProjectWorkflowRequest.make(requestData);
+            ProjectNepoResponse response = ProjectNepoResponse.make();
+            response.setProgXML(wfRequest.getProgXML()); // always return the program, even if the workflow fails
+            Project project = request2project(wfRequest, httpSessionState, this.robotCommunicator, true, true);
+            ProjectService.executeWorkflow("compile", project);
+            response.setCmd("compileP");
+            response.setProgXML(project.getAnnotatedProgramAsXml());
+            response.setErrorCounter(project.getErrorCounter());
+            response.setCompiledCode(project.getCompiledHex());
+            addProjectResultToResponse(response, project);
+            final int programLength = StringUtils.countMatches(project.getAnnotatedProgramAsXml(), "<block ");
+            Statistics.info("ProgramCompile", "LoggedIn", httpSessionState.isUserLoggedIn(), "success", project.hasSucceeded(), "programLength", programLength);
+            return response;
+        } catch ( Exception e ) {
+            LOG.info("compileProgram failed", e);
+            Statistics.info("ProgramCompile", "LoggedIn", httpSessionState.isUserLoggedIn(), "success", false);
+            return UtilForREST.addErrorInfo(BaseResponse.make(), Key.SERVER_ERROR);
+        }
+    }
+
     private static <T extends BaseResponse> void addProjectResultToResponse(T response, Project project) {
         response.setRc(project.hasSucceeded() ? "ok" : "error");
         response.setMessage(project.getResult().getKey());
@@ -2,23 +2,47 @@ package de.fhg.iais.roberta.javaServer.restServices.all.service;
 
 import java.util.List;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import de.fhg.iais.roberta.components.Project;
+import de.fhg.iais.roberta.util.WorkflowMetrics;
+import de.fhg.iais.roberta.util.dbc.DbcKeyException;
 import de.fhg.iais.roberta.worker.IWorker;
 
 public final class ProjectService {
+    private static final Logger LOG = LoggerFactory.getLogger(ProjectService.class);
+
     private ProjectService() {
     }
 
     public static void executeWorkflow(String workflowName, Project project) {
 
         List<IWorker> workflowPipe = project.getRobotFactory().getWorkerPipe(workflowName);
+        String robot = project.getRobotFactory().getPluginProperties().getRobotName();
         if ( project.hasSucceeded() ) {
-            for ( IWorker worker : workflowPipe ) {
-                worker.execute(project);
-                if ( !project.hasSucceeded() ) {
-                    break;
+            long workflowStartNanos = System.nanoTime();
+            long workflowStartBytes = WorkflowMetrics.allocatedBytes();
+            try {
+                for ( IWorker worker : workflowPipe ) {
+                    long startNanos = System.nanoTime();
+                    long startBytes = WorkflowMetrics.allocatedBytes();
+                    try {
+                        worker.execute(project);
+                    } finally {
+                        WorkflowMetrics.record(robot, workflowName, worker.getClass().getSimpleName(), startNanos, startBytes);
+                    }
+                    if ( !project.hasSucceeded() ) {
+                        break;
+                    }
+                    // TODO: here separators in the worker list should be used and not such a hard condition
                 }
-                // TODO: here separators in the worker list should be used and not such a hard condition
+            } catch ( DbcKeyException e ) {
+                // a worker gave up with a well defined error, e.g. the crosscompiler queue is full. This is the result of the workflow
+                LOG.warn("workflow " + workflowName + " aborted: " + e.getMessage());
+                project.setResult(e.getKey());
+            } finally {
+                WorkflowMetrics.record(robot, workflowName, "total", workflowStartNanos, workflowStartBytes);
             }
         }
     }
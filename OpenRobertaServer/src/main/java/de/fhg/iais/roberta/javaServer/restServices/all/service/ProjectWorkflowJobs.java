@@ -0,0 +1,195 @@
+package de.fhg.iais.roberta.javaServer.restServices.all.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+
+import de.fhg.iais.roberta.generated.restEntities.BaseResponse;
+import de.fhg.iais.roberta.util.Key;
+import de.fhg.iais.roberta.util.ServerProperties;
+import de.fhg.iais.roberta.util.dbc.Assert;
+import de.fhg.iais.roberta.util.dbc.DbcException;
+import de.fhg.iais.roberta.util.dbc.DbcKeyException;
+
+/**
+ * executes project workflows (compile, run, ...) as jobs in a thread pool of its own. A REST request submits a job and gets a job id immediately. The
+ * result is collected later with the job id. Thus no jetty thread is blocked while a crosscompiler is running and the number of concurrent workflows is not
+ * tied to the size of the http thread pool. At most {@link #QUEUE_PROPERTY} jobs wait for a thread, further jobs are rejected.<br>
+ * <br>
+ * A job belongs to the session, that submitted it. The result of a job can be collected once. Jobs, whose result is not collected, are removed after
+ * {@link #EXPIRE_MSEC}.
+ */
+public class ProjectWorkflowJobs {
+    private static final Logger LOG = LoggerFactory.getLogger(ProjectWorkflowJobs.class);
+
+    public static final String THREADS_PROPERTY = "server.workflow.jobs.threads";
+    public static final String QUEUE_PROPERTY = "server.workflow.jobs.queue";
+    public static final long EXPIRE_MSEC = 5L * 60L * 1000L;
+    private static final int DEFAULT_THREADS = 32;
+    private static final int DEFAULT_QUEUE = 256;
+
+    private final ExecutorService executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong jobCounter = new AtomicLong(0);
+
+    @Inject
+    public ProjectWorkflowJobs(ServerProperties serverProperties) {
+        this(serverProperties.getIntProperty(THREADS_PROPERTY, DEFAULT_THREADS), serverProperties.getIntProperty(QUEUE_PROPERTY, DEFAULT_QUEUE));
+    }
+
+    public ProjectWorkflowJobs(int numberOfThreads, int queueCapacity) {
+        Assert.isTrue(numberOfThreads > 0, "the workflow job pool needs at least one thread");
+        Assert.isTrue(queueCapacity > 0, "the workflow job queue needs a capacity of at least one");
+        this.executor =
+            new ThreadPoolExecutor(
+                numberOfThreads,
+                numberOfThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("workflow-job-%d").setDaemon(true).build());
+    }
+
+    /**
+     * submit a workflow for asynchronous execution
+     *
+     * @param owner the session submitting the workflow (its init token), never null
+     * @param workflow the workflow, returns the response for the frontend. The response must NOT be immutable, as frontend data is added when the result is
+     *        collected. Never null
+     * @return the job, never null
+     * @throws DbcKeyException if the queue of waiting jobs is full or the pool is shut down
+     */
+    public Job submit(String owner, Supplier<BaseResponse> workflow) {
+        Assert.notNull(owner);
+        removeExpired();
+        String jobId = Long.toString(this.jobCounter.incrementAndGet());
+        Job job = new Job(jobId, owner);
+        Map<String, String> mdcOfRequest = MDC.getCopyOfContextMap();
+        try {
+            job.future = this.executor.submit(() -> {
+                if ( mdcOfRequest != null ) {
+                    MDC.setContextMap(mdcOfRequest);
+                }
+                job.state = State.RUNNING;
+                try {
+                    return workflow.get();
+                } finally {
+                    job.state = State.DONE;
+                    job.finished = System.currentTimeMillis();
+                    MDC.clear();
+                }
+            });
+        } catch ( RejectedExecutionException e ) {
+            throw new DbcKeyException("workflow job of " + owner + " rejected", Key.COMPILERWORKFLOW_ERROR_CROSSCOMPILER_QUEUE_FULL, null);
+        }
+        this.jobs.put(jobId, job);
+        return job;
+    }
+
+    /**
+     * @param owner the session asking for the job, never null
+     * @param jobId the id of the job
+     * @return the job; null, if the job is not known or belongs to another session
+     */
+    public Job get(String owner, String jobId) {
+        Job job = jobId == null ? null : this.jobs.get(jobId);
+        return job != null && job.owner.equals(owner) ? job : null;
+    }
+
+    /**
+     * remove a job after its result was collected. Does nothing, if the job was already removed
+     *
+     * @param job the job, never null
+     */
+    public void remove(Job job) {
+        this.jobs.remove(job.id);
+    }
+
+    /**
+     * remove all jobs, that are finished for more than {@link #EXPIRE_MSEC}
+     */
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Job> iterator = this.jobs.values().iterator();
+        while ( iterator.hasNext() ) {
+            Job job = iterator.next();
+            if ( job.state == State.DONE && now - job.finished > EXPIRE_MSEC ) {
+                LOG.info("result of workflow job " + job.id + " was never collected. Removed");
+                iterator.remove();
+            }
+        }
+    }
+
+    public int getNumberOfJobs() {
+        return this.jobs.size();
+    }
+
+    /**
+     * stop the pool. Running workflows are interrupted, waiting jobs are dropped
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    public enum State {
+        QUEUED, RUNNING, DONE;
+    }
+
+    public static final class Job {
+        private final String id;
+        private final String owner;
+        private volatile State state = State.QUEUED;
+        private volatile long finished = 0;
+        private volatile Future<BaseResponse> future;
+
+        private Job(String id, String owner) {
+            this.id = id;
+            this.owner = owner;
+        }
+
+        public String getId() {
+            return this.id;
+        }
+
+        public State getState() {
+            return this.state;
+        }
+
+        public boolean isDone() {
+            return this.future.isDone();
+        }
+
+        /**
+         * wait for the job to terminate and return its result
+         *
+         * @return the response of the workflow, never null
+         * @throws DbcException if the workflow terminated with an exception or the waiting thread was interrupted
+         */
+        public BaseResponse getResult() {
+            try {
+                return this.future.get();
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new DbcException("interrupted while waiting for workflow job " + this.id, e);
+            } catch ( ExecutionException e ) {
+                throw new DbcException("workflow job " + this.id + " failed", e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package de.fhg.iais.roberta.javaServer.restServices.robot;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+
+import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
+import de.fhg.iais.roberta.util.HttpRobotNodeClient;
+import de.fhg.iais.roberta.util.Key;
+import de.fhg.iais.roberta.util.ServerProperties;
+
+/**
+ * REST service for the other nodes of a cluster of servers. A node forwards commands for robots connected to this node here, see
+ * {@link HttpRobotNodeClient}. Requests must carry the cluster secret. The answer is <code>{"key":"&lt;name of a Key&gt;"}</code>, the answer of
+ * /robotInfo contains the info about the robot in the field "robot", too
+ */
+@Path("/cluster")
+public class RobotClusterNode {
+    private static final Logger LOG = LoggerFactory.getLogger(RobotClusterNode.class);
+
+    private final RobotCommunicator brickCommunicator;
+    private final byte[] clusterSecret;
+
+    @Inject
+    public RobotClusterNode(RobotCommunicator brickCommunicator, ServerProperties serverProperties) {
+        this.brickCommunicator = brickCommunicator;
+        String secret = serverProperties.getStringProperty(HttpRobotNodeClient.CLUSTER_SECRET_PROPERTY);
+        this.clusterSecret = secret == null ? null : secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @POST
+    @Path("/setToken")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response setToken(@HeaderParam(HttpRobotNodeClient.CLUSTER_SECRET_HEADER) String secret, JSONObject request) {
+        if ( !isNodeOfTheCluster(secret) ) {
+            return Response.status(Response.Status.FORBIDDEN).build();
+        }
+        Key key = this.brickCommunicator.aTokenAgreementWasSent(request.getString("token"), request.getString("robot"));
+        return answer(key);
+    }
+
+    @POST
+    @Path("/run")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response run(@HeaderParam(HttpRobotNodeClient.CLUSTER_SECRET_HEADER) String secret, JSONObject request) {
+        if ( !isNodeOfTheCluster(secret) ) {
+            return Response.status(Response.Status.FORBIDDEN).build();
+        }
+        Key key = this.brickCommunicator.run(request.getString("token"), request.getString("robotName"), request.getString("programName"));
+        return answer(key);
+    }
+
+    @POST
+    @Path("/disconnect")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response disconnect(@HeaderParam(HttpRobotNodeClient.CLUSTER_SECRET_HEADER) String secret, JSONObject request) {
+        if ( !isNodeOfTheCluster(secret) ) {
+            return Response.status(Response.Status.FORBIDDEN).build();
+        }
+        this.brickCommunicator.disconnect(request.getString("token"));
+        return answer(Key.SERVER_SUCCESS);
+    }
+
+    @POST
+    @Path("/updateFirmware")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response updateFirmware(@HeaderParam(HttpRobotNodeClient.CLUSTER_SECRET_HEADER) String secret, JSONObject request) {
+        if ( !isNodeOfTheCluster(secret) ) {
+            return Response.status(Response.Status.FORBIDDEN).build();
+        }
+        boolean isPossible = this.brickCommunicator.firmwareUpdateRequested(request.getString("token"));
+        return answer(isPossible ? Key.ROBOT_FIRMWAREUPDATE_POSSIBLE : Key.ROBOT_FIRMWAREUPDATE_IMPOSSIBLE);
+    }
+
+    @POST
+    @Path("/robotInfo")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response robotInfo(@HeaderParam(HttpRobotNodeClient.CLUSTER_SECRET_HEADER) String secret, JSONObject request) {
+        if ( !isNodeOfTheCluster(secret) ) {
+            return Response.status(Response.Status.FORBIDDEN).build();
+        }
+        JSONObject robotInfo = this.brickCommunicator.getRobotInfo(request.getString("token"));
+        if ( robotInfo == null ) {
+            return answer(Key.ROBOT_NOT_CONNECTED);
+        }
+        return Response.ok(new JSONObject().put("key", Key.SERVER_SUCCESS.name()).put("robot", robotInfo).toString()).build();
+    }
+
+    private boolean isNodeOfTheCluster(String secret) {
+        // compared in constant time, the duration of the comparison must not reveal a prefix of the secret
+        if ( this.clusterSecret == null || secret == null || !MessageDigest.isEqual(this.clusterSecret, secret.getBytes(StandardCharsets.UTF_8)) ) {
+            LOG.error("a forwarded robot command was rejected. The cluster secret is missing or wrong");
+            return false;
+        }
+        return true;
+    }
+
+    private static Response answer(Key key) {
+        return Response.ok(new JSONObject().put("key", key.name()).toString()).build();
+    }
+}
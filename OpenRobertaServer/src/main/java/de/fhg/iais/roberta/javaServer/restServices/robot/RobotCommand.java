@@ -1,14 +1,8 @@
 package de.fhg.iais.roberta.javaServer.restServices.robot;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import javax.ws.rs.Consumes;
-import javax.ws.rs.POST;
-import javax.ws.rs.Path;
-import javax.ws.rs.Produces;
-import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.Response;
-
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -20,7 +14,10 @@ import de.fhg.iais.roberta.robotCommunication.RobotCommunicationData;
 import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
 import de.fhg.iais.roberta.util.AliveData;
 
-@Path("/pushcmd")
+/**
+ * the robot protocol of the /pushcmd endpoint (commands "register" and "push"). The requests are handled asynchronously, the HTTP binding is done in
+ * {@link RobotCommandServlet}.
+ */
 public class RobotCommand {
     private static final Logger LOG = LoggerFactory.getLogger(RobotCommand.class);
 
@@ -41,20 +38,24 @@ public class RobotCommand {
         this.brickCommunicator = brickCommunicator;
     }
 
-    @POST
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response handle(JSONObject requestEntity) throws JSONException, InterruptedException {
+    /**
+     * handle a request of a robot. Never blocks: "register" and "push" requests are completed later, when the user approves the token or pushes a command,
+     * or when a timeout occurs.
+     *
+     * @param requestEntity the JSON sent by the robot
+     * @return future, that is completed with the JSON response for the robot, or with null, if a server error should be returned
+     */
+    public CompletableFuture<JSONObject> handle(JSONObject requestEntity) throws JSONException {
         AliveData.rememberRobotCall(this.brickCommunicator.getRobotCommunicationDataSize());
         String cmd = requestEntity.getString(CMD);
-        String token = null;
-        String firmwarename = null;
+        String token;
+        String firmwarename;
         try {
             token = requestEntity.getString("token");
             firmwarename = requestEntity.getString("firmwarename");
         } catch ( Exception e ) {
             LOG.error("Robot request aborted. Robot uses a wrong JSON: " + requestEntity, e);
-            return Response.serverError().build();
+            return CompletableFuture.completedFuture(null);
         }
         // TODO: move robot to the requested properties for the next version
         String robot = requestEntity.optString("robot", "ev3");
@@ -67,47 +68,44 @@ public class RobotCommand {
         firmwareversion = firmwareversion == null ? requestEntity.optString("lejosversion", "") : firmwareversion;
         int nepoExitValue = requestEntity.optInt("nepoexitvalue", 0);
         // TODO: validate version here!
-        JSONObject response;
         switch ( cmd ) {
             case CMD_REGISTER:
                 LOG.info("ROBOT_PROTOCOL: robot [" + macaddr + "] send token " + token + " for user approval");
                 RobotCommunicationData state =
                     new RobotCommunicationData(token, robot, macaddr, brickname, batteryvoltage, menuversion, runtimeVersion, firmwarename, firmwareversion);
-                boolean result = this.brickCommunicator.brickWantsTokenToBeApproved(state);
-                response = new JSONObject().put("response", result ? "ok" : "error").put("cmd", result ? CMD_REPEAT : CMD_ABORT);
-                return Response.ok(response.toString()).build();
+                return this.brickCommunicator
+                    .brickWantsTokenToBeApproved(state)
+                    .thenApply(result -> new JSONObject().put("response", result ? "ok" : "error").put("cmd", result ? CMD_REPEAT : CMD_ABORT));
             case CMD_PUSH:
                 int counter = pushRequestCounterForLogging.incrementAndGet();
                 boolean logPush = counter % EVERY_REQUEST == 0;
                 if ( logPush ) {
                     LOG.info("/pushcmd - push request for token " + token + " [count:" + counter + "]");
                 }
-                String command = this.brickCommunicator.brickWaitsForAServerPush(token, batteryvoltage, nepoExitValue);
-
-                if ( command == null || this.brickCommunicator.getState(token) == null ) {
-                    LOG.error("ROBOT_PROTOCOL: robot was already disconnected, when a /pushcmd for token " + token + " terminated. We return a server error");
-                    return Response.serverError().build();
-                } else {
-                    if ( !command.equals(CMD_REPEAT) || logPush ) {
-                        LOG
-                            .info(
-                                "ROBOT_PROTOCOL: the command "
-                                    + command
-                                    + " is pushed to robot ["
-                                    + macaddr
-                                    + "] for token "
-                                    + token
-                                    + " [count: "
-                                    + counter
-                                    + "]");
+                return this.brickCommunicator.brickWaitsForAServerPush(token, batteryvoltage, nepoExitValue).thenApply(command -> {
+                    if ( command == null || this.brickCommunicator.getState(token) == null ) {
+                        LOG.error("ROBOT_PROTOCOL: robot was already disconnected, when a /pushcmd for token " + token + " terminated. We return a server error");
+                        return null;
+                    } else {
+                        if ( !command.equals(CMD_REPEAT) || logPush ) {
+                            LOG
+                                .info(
+                                    "ROBOT_PROTOCOL: the command "
+                                        + command
+                                        + " is pushed to robot ["
+                                        + macaddr
+                                        + "] for token "
+                                        + token
+                                        + " [count: "
+                                        + counter
+                                        + "]");
+                        }
+                        return new JSONObject().put(CMD, command).put(SUBTYPE, this.brickCommunicator.getSubtype());
                     }
-                    response = new JSONObject().put(CMD, command);
-                    response.put(SUBTYPE, this.brickCommunicator.getSubtype());
-                    return Response.ok(response.toString()).build();
-                }
+                });
             default:
                 LOG.error("Robot request aborted. Robot uses an invalid \"cmd\" in JSON: " + requestEntity);
-                return Response.serverError().build();
+                return CompletableFuture.completedFuture(null);
         }
     }
 }
@@ -0,0 +1,79 @@
+package de.fhg.iais.roberta.javaServer.restServices.robot;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import de.fhg.iais.roberta.util.UtilForREST;
+
+/**
+ * the /pushcmd endpoint of the robots. Jersey 1 cannot suspend a request, thus this is a servlet using Servlet 3 async processing: the request is suspended
+ * until the future returned by {@link RobotCommand#handle(JSONObject)} is completed. While a robot waits for the user (token approval, run command), no thread
+ * of the container is used.
+ */
+@Singleton
+public class RobotCommandServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOG = LoggerFactory.getLogger(RobotCommandServlet.class);
+
+    private final RobotCommand robotCommand;
+
+    @Inject
+    public RobotCommandServlet(RobotCommand robotCommand) {
+        this.robotCommand = robotCommand;
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        CompletableFuture<JSONObject> pendingResponse;
+        try {
+            pendingResponse = this.robotCommand.handle(new JSONObject(UtilForREST.convertStreamToString(request.getInputStream())));
+        } catch ( JSONException e ) {
+            LOG.error("Robot request aborted. Robot sent invalid JSON", e);
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            return;
+        }
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(0); // the timeouts of the robot protocol are managed by the RobotCommunicationData
+        pendingResponse.whenComplete((responseEntity, e) -> {
+            // the future may be completed by the timeout thread of the robot communication. Write the response with a thread of the container
+            asyncContext.start(() -> writeResponse(asyncContext, responseEntity, e));
+        });
+    }
+
+    private static void writeResponse(AsyncContext asyncContext, JSONObject responseEntity, Throwable e) {
+        HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+        try {
+            if ( e != null || responseEntity == null ) {
+                if ( e != null ) {
+                    LOG.error("Robot request failed", e);
+                }
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            } else {
+                byte[] entity = responseEntity.toString().getBytes(StandardCharsets.UTF_8);
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.setContentType("application/json");
+                response.setCharacterEncoding("UTF-8");
+                response.setContentLength(entity.length);
+                response.getOutputStream().write(entity);
+            }
+        } catch ( IOException | RuntimeException ioe ) {
+            LOG.info("Robot request terminated, but the response could not be written. The robot may have closed the connection: " + ioe.getMessage());
+        } finally {
+            asyncContext.complete();
+        }
+    }
+}
@@ -17,7 +17,7 @@ import de.fhg.iais.roberta.robotCommunication.RobotCommunicationData;
 import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
 
 /**
- * REST service for downloading user program
+ * REST service for robots sending their sensor values. The values are stored in the {@link RobotCommunicationData} of the robot
  */
 @Path("/sensorlogging")
 public class RobotSensorLogging {
@@ -36,8 +36,11 @@ public class RobotSensorLogging {
     public Response handle(JSONObject requestEntity) {
         String token = (String) requestEntity.remove("token");
         RobotCommunicationData state = this.brickCommunicator.getState(token);
-        state.setSensorValues(requestEntity);
-        LOG.info(requestEntity.toString());
+        if ( state == null ) {
+            LOG.debug("sensor values for token " + token + " ignored. No robot is connected with this token");
+        } else {
+            state.setSensorValues(requestEntity);
+        }
         return Response.ok().build();
     }
 }
\ No newline at end of file
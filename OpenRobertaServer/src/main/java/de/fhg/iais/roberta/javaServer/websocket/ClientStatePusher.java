@@ -0,0 +1,167 @@
+package de.fhg.iais.roberta.javaServer.websocket;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import de.fhg.iais.roberta.generated.restEntities.BaseResponse;
+import de.fhg.iais.roberta.persistence.util.HttpSessionState;
+import de.fhg.iais.roberta.robotCommunication.RobotCommunicationData;
+import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
+import de.fhg.iais.roberta.util.Key;
+import de.fhg.iais.roberta.util.NotificationService;
+import de.fhg.iais.roberta.util.UtilForREST;
+
+/**
+ * pushes the state of the robot and the session to the browser frontends connected by a {@link ClientStateWS}. This replaces the frequent /ping requests.<br>
+ * <br>
+ * One thread checks all subscriptions every {@link #CHECK_INTERVAL_MSEC} msec. The check compares the few values the state depends on (robot state, battery,
+ * sensor values, exit value, notification digest, ...) with the values of the last check. Only if something changed, the state is built as for a /ping
+ * response and the keys, whose values changed, are pushed. A key, that was removed, is pushed with the value null.
+ */
+@Singleton
+public class ClientStatePusher {
+    private static final Logger LOG = LoggerFactory.getLogger(ClientStatePusher.class);
+    private static final long CHECK_INTERVAL_MSEC = 500;
+
+    private final RobotCommunicator brickCommunicator;
+    private final NotificationService notificationService;
+    private final Map<Session, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "client-state-push");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Inject
+    public ClientStatePusher(RobotCommunicator brickCommunicator, NotificationService notificationService) {
+        this.brickCommunicator = brickCommunicator;
+        this.notificationService = notificationService;
+        this.scheduler.scheduleWithFixedDelay(this::pushChanges, CHECK_INTERVAL_MSEC, CHECK_INTERVAL_MSEC, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * start pushing the state of a session to a browser frontend. The complete state is pushed immediately
+     *
+     * @param session the websocket connection to the browser
+     * @param httpSessionState the session of the browser frontend
+     */
+    public void subscribe(Session session, HttpSessionState httpSessionState) {
+        Subscription subscription = new Subscription(session, httpSessionState);
+        this.subscriptions.put(session, subscription);
+        this.scheduler.execute(() -> push(subscription));
+    }
+
+    public void unsubscribe(Session session) {
+        this.subscriptions.remove(session);
+    }
+
+    public int getNumberOfSubscriptions() {
+        return this.subscriptions.size();
+    }
+
+    private void pushChanges() {
+        for ( Subscription subscription : this.subscriptions.values() ) {
+            try {
+                push(subscription);
+            } catch ( Exception e ) {
+                LOG.error("pushing the state to a frontend failed. The frontend is disconnected", e);
+                this.subscriptions.remove(subscription.session);
+                subscription.session.close();
+            }
+        }
+    }
+
+    private void push(Subscription subscription) {
+        if ( !subscription.session.isOpen() ) {
+            this.subscriptions.remove(subscription.session);
+            return;
+        }
+        List<Object> fingerprint = fingerprintOf(subscription.httpSessionState);
+        if ( fingerprint.equals(subscription.lastFingerprint) ) {
+            return;
+        }
+        subscription.lastFingerprint = fingerprint;
+        BaseResponse response = BaseResponse.make();
+        UtilForREST.addSuccessInfo(response, Key.SERVER_SUCCESS);
+        UtilForREST.addFrontendInfo(response, subscription.httpSessionState, this.brickCommunicator);
+        JSONObject state = response.immutable().toJson();
+        state.remove("server.time"); // changes always, but is not needed by the frontend
+        JSONObject delta = delta(subscription.lastState, state);
+        subscription.lastState = state;
+        if ( delta.length() > 0 ) {
+            subscription.session.getRemote().sendStringByFuture(delta.toString());
+        }
+    }
+
+    /**
+     * @return the values, the state of the frontend depends on. Sensor values are compared by identity: the robot sends a new object with each update. The
+     *         time since the approval of the robot is shown in seconds, thus it is pushed once per second. On a node of a cluster, that doesn't own the
+     *         token, the (cached) info requested from the owning node is compared
+     */
+    private List<Object> fingerprintOf(HttpSessionState httpSessionState) {
+        String token = httpSessionState.getToken();
+        RobotCommunicationData state = token == null ? null : this.brickCommunicator.getState(token);
+        boolean newNotifications = !this.notificationService.getCurrentDigest().equals(httpSessionState.getReceivedNotificationsDigest());
+        if ( state == null ) {
+            JSONObject remoteRobotInfo = token == null ? null : this.brickCommunicator.getRobotInfo(token);
+            return Arrays.asList(token, httpSessionState.isProcessing(), newNotifications, remoteRobotInfo == null ? null : remoteRobotInfo.toString());
+        } else {
+            return Arrays
+                .asList(
+                    token,
+                    httpSessionState.isProcessing(),
+                    newNotifications,
+                    state,
+                    state.getState(),
+                    state.isRobotProbablyDisconnected(),
+                    state.getBattery(),
+                    state.getSensorValues(),
+                    state.getNepoExitValue(),
+                    Math.floorDiv(state.getElapsedMsecOfStartApproval(), 1000L));
+        }
+    }
+
+    private static JSONObject delta(JSONObject lastState, JSONObject state) {
+        JSONObject delta = new JSONObject();
+        for ( String key : state.keySet() ) {
+            Object value = state.get(key);
+            if ( lastState == null || !lastState.has(key) || !String.valueOf(lastState.get(key)).equals(String.valueOf(value)) ) {
+                delta.put(key, value);
+            }
+        }
+        if ( lastState != null ) {
+            for ( String key : lastState.keySet() ) {
+                if ( !state.has(key) ) {
+                    delta.put(key, JSONObject.NULL);
+                }
+            }
+        }
+        return delta;
+    }
+
+    private static class Subscription {
+        private final Session session;
+        private final HttpSessionState httpSessionState;
+        // only accessed by the thread of the scheduler
+        private List<Object> lastFingerprint = null;
+        private JSONObject lastState = null;
+
+        private Subscription(Session session, HttpSessionState httpSessionState) {
+            this.session = session;
+            this.httpSessionState = httpSessionState;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package de.fhg.iais.roberta.javaServer.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketError;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
+import org.eclipse.jetty.websocket.api.annotations.WebSocket;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Injector;
+
+import de.fhg.iais.roberta.persistence.util.HttpSessionState;
+
+/**
+ * channel, on which the state of the robot and the session is pushed to a browser frontend, see {@link ClientStatePusher}. The frontend sends its initToken
+ * as first message: <code>{"initToken":"..."}</code>. Then it only receives messages. Each message contains the keys of the /ping response, whose values
+ * changed. The first message contains all keys.
+ */
+@WebSocket
+public class ClientStateWS {
+    private static final Logger LOG = LoggerFactory.getLogger(ClientStateWS.class);
+    private static Injector guiceInjector = null;
+
+    private boolean subscribed = false;
+
+    public static void setGuiceInjector(Injector guiceInjector) {
+        if ( ClientStateWS.guiceInjector == null ) {
+            ClientStateWS.guiceInjector = guiceInjector;
+        } else {
+            LOG.error("Guice injector for websockets is set twice, this call is simply ignored");
+        }
+    }
+
+    @OnWebSocketMessage
+    public void handleMessage(Session session, String message) {
+        if ( this.subscribed ) {
+            return; // the frontend may send messages to keep the connection alive
+        }
+        HttpSessionState httpSessionState;
+        try {
+            httpSessionState = HttpSessionState.get(new JSONObject(message).optString("initToken", null));
+        } catch ( JSONException e ) {
+            httpSessionState = null;
+        }
+        if ( httpSessionState == null ) {
+            session.close(StatusCode.POLICY_VIOLATION, "invalid initToken");
+        } else {
+            this.subscribed = true;
+            guiceInjector.getInstance(ClientStatePusher.class).subscribe(session, httpSessionState);
+        }
+    }
+
+    @OnWebSocketClose
+    public void handleClose(Session session, int statusCode, String reason) {
+        guiceInjector.getInstance(ClientStatePusher.class).unsubscribe(session);
+    }
+
+    @OnWebSocketError
+    public void handleError(Throwable e) {
+        LOG.info("error in the state channel of a frontend: " + e.getMessage());
+    }
+}
@@ -41,10 +41,13 @@ public class Ev3SensorLoggingWS {
     @OnWebSocketMessage
     public void handleMessage(JSONObject request) {
         String token = (String) request.remove("token");
-        LOG.info("@OnWebSocketMessage: " + token + " " + request);
         RobotCommunicator communicator = guiceInjector.getInstance(RobotCommunicator.class);
         RobotCommunicationData state = communicator.getState(token);
-        state.setSensorValues(request);
+        if ( state == null ) {
+            LOG.debug("@OnWebSocketMessage: sensor values for token " + token + " ignored. No robot is connected with this token");
+        } else {
+            state.setSensorValues(request);
+        }
     }
 
     @OnWebSocketError
@@ -0,0 +1,88 @@
+package de.fhg.iais.roberta.javaServer.websocket;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketConnect;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketError;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
+import org.eclipse.jetty.websocket.api.annotations.WebSocket;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Injector;
+
+import de.fhg.iais.roberta.javaServer.restServices.robot.RobotCommand;
+import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
+
+/**
+ * bidirectional command channel for robots, an alternative to the HTTP long polling of /pushcmd. The protocol is the same: the robot sends the JSON of a
+ * "register" or "push" command as a text message, the server answers with a text message, when the user approved the token resp. when a command ("repeat",
+ * "download", "update", "abort") has to be pushed to the robot. The requests are handled by {@link RobotCommand}, thus both channels share the state in
+ * {@link RobotCommunicator}.<br>
+ * <br>
+ * One object of this class is created per connection. If the connection is closed, the robot is disconnected.
+ */
+@WebSocket
+public class RobotCommandWS {
+    private static final Logger LOG = LoggerFactory.getLogger(RobotCommandWS.class);
+    // the token approval may take 5 minutes. Until then the robot sends no message
+    private static final long IDLE_TIMEOUT_MSEC = TimeUnit.MINUTES.toMillis(6);
+    private static Injector guiceInjector = null;
+
+    private volatile String token = null;
+
+    public static void setGuiceInjector(Injector guiceInjector) {
+        if ( RobotCommandWS.guiceInjector == null ) {
+            RobotCommandWS.guiceInjector = guiceInjector;
+        } else {
+            LOG.error("Guice injector for websockets is set twice, this call is simply ignored");
+        }
+    }
+
+    @OnWebSocketConnect
+    public void handleConnect(Session session) {
+        session.setIdleTimeout(IDLE_TIMEOUT_MSEC);
+        LOG.info("ROBOT_PROTOCOL_WS: robot connected from " + session.getRemoteAddress());
+    }
+
+    @OnWebSocketClose
+    public void handleClose(int statusCode, String reason) {
+        LOG.info("ROBOT_PROTOCOL_WS: connection of robot with token " + this.token + " closed with statusCode: " + statusCode + " and reason: " + reason);
+        if ( this.token != null ) {
+            guiceInjector.getInstance(RobotCommunicator.class).disconnect(this.token);
+        }
+    }
+
+    @OnWebSocketMessage
+    public void handleMessage(Session session, String message) {
+        JSONObject request;
+        try {
+            request = new JSONObject(message);
+            String requestToken = request.optString("token", null);
+            guiceInjector.getInstance(RobotCommand.class).handle(request).whenComplete((response, e) -> {
+                if ( e != null || response == null ) {
+                    // the HTTP protocol answers with a server error, here the connection is closed
+                    session.close(StatusCode.SERVER_ERROR, "robot request aborted");
+                } else if ( session.isOpen() ) {
+                    if ( !"error".equals(response.optString("response")) ) {
+                        this.token = requestToken; // the token is accepted. A rejected token may belong to another robot and must not be disconnected
+                    }
+                    session.getRemote().sendStringByFuture(response.toString());
+                }
+            });
+        } catch ( JSONException e ) {
+            LOG.error("ROBOT_PROTOCOL_WS: robot request aborted. Robot sent invalid JSON: " + message, e);
+            session.close(StatusCode.BAD_DATA, "invalid JSON");
+        }
+    }
+
+    @OnWebSocketError
+    public void handleError(Throwable e) {
+        LOG.error("ROBOT_PROTOCOL_WS: error in the connection of the robot with token " + this.token, e);
+    }
+}
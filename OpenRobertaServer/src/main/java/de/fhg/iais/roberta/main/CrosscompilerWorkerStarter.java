@@ -0,0 +1,60 @@
+package de.fhg.iais.roberta.main;
+
+import static java.util.Arrays.asList;
+
+import java.util.List;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fhg.iais.roberta.util.CrosscompilerScheduler;
+import de.fhg.iais.roberta.util.CrosscompilerWorker;
+import de.fhg.iais.roberta.util.ServerProperties;
+import de.fhg.iais.roberta.util.Util;
+
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import joptsimple.OptionSpec;
+
+/**
+ * <b>the main class of a compile worker.</b> A compile worker runs the crosscompilers for servers, that set the property
+ * "robot.crosscompiler.remote.workers", see {@link CrosscompilerWorker}. It uses the same properties as the server, the most important ones are
+ * <ul>
+ * <li>robot.crosscompiler.worker.port: the port to listen on</li>
+ * <li>robot.crosscompiler.remote.secret: the secret shared with the servers</li>
+ * <li>robot.crosscompiler.worker.executables: the crosscompilers on the PATH, that may be called</li>
+ * <li>robot.crosscompiler.resourcebase: the crosscompiler resources. Must be the same directory as configured for the servers</li>
+ * <li>robot.crosscompiler.scheduler.*: the slots and the queue size of the worker</li>
+ * </ul>
+ * Start it with <code>java -cp lib/\* de.fhg.iais.roberta.main.CrosscompilerWorkerStarter -d robot.crosscompiler.worker.port=1997 ...</code>
+ */
+public class CrosscompilerWorkerStarter {
+    private static final Logger LOG = LoggerFactory.getLogger(CrosscompilerWorkerStarter.class);
+    private static final int DEFAULT_PORT = 1997;
+
+    /**
+     * startup of a compile worker. The process runs until it is killed
+     *
+     * @param args a sequence of -d key=value for property modifications
+     */
+    public static void main(String[] args) throws Exception {
+        OptionParser parser = new OptionParser();
+        OptionSpec<String> serverDefineOpt = parser.acceptsAll(asList("d", "server-property")).withRequiredArg().ofType(String.class);
+        OptionSet options = parser.parse(args);
+        List<String> serverDefines = serverDefineOpt.values(options);
+
+        Properties properties = Util.loadAndMergeProperties(null, serverDefines);
+        ServerProperties serverProperties = new ServerProperties(properties);
+        CrosscompilerScheduler.configure(serverProperties);
+        int port = serverProperties.getIntProperty(CrosscompilerWorker.PORT_PROPERTY, DEFAULT_PORT);
+        try {
+            CrosscompilerWorker worker = CrosscompilerWorker.create(serverProperties);
+            worker.start(port, null);
+        } catch ( Exception e ) {
+            LOG.error("Exception during startup. Crosscompiler worker NOT started", e);
+            System.exit(12);
+        }
+        Thread.currentThread().join(); // the worker threads are daemons
+    }
+}
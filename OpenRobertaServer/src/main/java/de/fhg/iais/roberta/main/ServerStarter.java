@@ -2,6 +2,7 @@ package de.fhg.iais.roberta.main;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -38,17 +39,29 @@ import ch.qos.logback.classic.joran.JoranConfigurator;
 import ch.qos.logback.core.joran.spi.JoranException;
 import de.fhg.iais.roberta.factory.IRobotFactory;
 import de.fhg.iais.roberta.guice.RobertaGuiceServletConfig;
+import de.fhg.iais.roberta.javaServer.websocket.ClientStatePusher;
+import de.fhg.iais.roberta.javaServer.websocket.ClientStateWS;
 import de.fhg.iais.roberta.javaServer.websocket.Ev3SensorLoggingWS;
+import de.fhg.iais.roberta.javaServer.websocket.RobotCommandWS;
 import de.fhg.iais.roberta.persistence.bo.Robot;
 import de.fhg.iais.roberta.persistence.dao.RobotDao;
+import de.fhg.iais.roberta.persistence.util.DbRobotTokenDirectory;
 import de.fhg.iais.roberta.persistence.util.DbSession;
 import de.fhg.iais.roberta.persistence.util.HttpSessionState;
+import de.fhg.iais.roberta.persistence.util.ProgramCounters;
 import de.fhg.iais.roberta.persistence.util.SessionFactoryWrapper;
 import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
+import de.fhg.iais.roberta.util.AliveData;
+import de.fhg.iais.roberta.util.CrosscompilerCache;
+import de.fhg.iais.roberta.util.CrosscompilerScheduler;
+import de.fhg.iais.roberta.util.HttpRobotNodeClient;
+import de.fhg.iais.roberta.util.MetricsRegistry;
+import de.fhg.iais.roberta.util.RemoteCrosscompiler;
 import de.fhg.iais.roberta.util.ServerProperties;
 import de.fhg.iais.roberta.util.Statistics;
 import de.fhg.iais.roberta.util.Util;
 import de.fhg.iais.roberta.util.UtilForREST;
+import de.fhg.iais.roberta.util.WorkflowMetrics;
 import de.fhg.iais.roberta.util.dbc.DbcException;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
@@ -159,6 +172,9 @@ public class ServerStarter {
         // configure robot plugins
         RobotCommunicator robotCommunicator = new RobotCommunicator();
         Map<String, IRobotFactory> robotPluginMap = configureRobotPlugins(robotCommunicator, this.serverProperties, pluginDefines);
+        CrosscompilerCache.configure(this.serverProperties);
+        CrosscompilerScheduler.configure(this.serverProperties);
+        RemoteCrosscompiler.configure(this.serverProperties);
 
         // setup services and threads to run the services
         IIpToCountry ipToCountry = configureIpToCountryDb();
@@ -173,10 +189,11 @@ public class ServerStarter {
         restHttpHandler.setContextPath("/rest");
         restHttpHandler.setSessionHandler(new SessionHandler());
         restHttpHandler.addEventListener(robertaGuiceServletConfig);
-        restHttpHandler.addFilter(GuiceFilter.class, "/*", null);
+        restHttpHandler.addFilter(GuiceFilter.class, "/*", null).setAsyncSupported(true); // /pushcmd is processed asynchronously
         restHttpHandler.addServlet(DefaultServlet.class, "/*");
 
-        // 2. websockets with /ws/<version>/ prefix
+        // 2. websockets with /ws/<version>/ prefix. /ws/<version>/pushcmd is the command channel for robots, see RobotCommandWS,
+        // /ws/clientState pushes the robot state to the browser, see ClientStateWS
         ServletContextHandler wsHandler = new ServletContextHandler();
         wsHandler.setContextPath("/ws");
         wsHandler.addServlet(WebSocketServiceServlet.class, "/*");
@@ -189,7 +206,7 @@ public class ServerStarter {
 
         // 3.1 REST API without prefix (deprecated, used by very old ev3 robots. Initializes the guice injector and implicitly the db session wrapper a SECOND TIME)
         defaultHandler.addEventListener(robertaGuiceServletConfig);
-        defaultHandler.addFilter(GuiceFilter.class, "/pushcmd/*", null);
+        defaultHandler.addFilter(GuiceFilter.class, "/pushcmd/*", null).setAsyncSupported(true);
         defaultHandler.addFilter(GuiceFilter.class, "/download/*", null);
         defaultHandler.addFilter(GuiceFilter.class, "/update/*", null);
 
@@ -232,6 +249,12 @@ public class ServerStarter {
         }
         this.injector = robertaGuiceServletConfig.getCreatedInjector();
         Ev3SensorLoggingWS.setGuiceInjector(this.injector);
+        RobotCommandWS.setGuiceInjector(this.injector);
+        ClientStateWS.setGuiceInjector(this.injector);
+        joinClusterIfConfigured(this.injector, robotCommunicator);
+        registerMetrics(this.injector);
+        int counterFlushIntervalSec = this.serverProperties.getIntProperty(ProgramCounters.FLUSH_INTERVAL_PROPERTY, ProgramCounters.DEFAULT_FLUSH_INTERVAL_SEC);
+        ProgramCounters.getInstance().start(this.injector.getInstance(SessionFactoryWrapper.class), counterFlushIntervalSec);
 
         checkRobotPluginsDB(robotPluginMap.values());
         Runtime.getRuntime().addShutdownHook(new ShutdownHook("embedded".equals(this.serverProperties.getStringProperty("database.mode")), this.injector));
@@ -241,6 +264,41 @@ public class ServerStarter {
         return server;
     }
 
+    /**
+     * if the property "server.cluster.node" is set, this server is a node of a cluster of servers sharing the database. Robot tokens are claimed in the
+     * table ROBOT_TOKEN, commands for robots connected to other nodes are forwarded to them
+     */
+    private void joinClusterIfConfigured(Injector injector, RobotCommunicator robotCommunicator) {
+        String node = this.serverProperties.getStringProperty(HttpRobotNodeClient.CLUSTER_NODE_PROPERTY);
+        if ( node == null || node.trim().isEmpty() ) {
+            return;
+        }
+        String secret = this.serverProperties.getStringProperty(HttpRobotNodeClient.CLUSTER_SECRET_PROPERTY);
+        if ( secret == null || secret.trim().isEmpty() ) {
+            throw new DbcException("a cluster node needs the property " + HttpRobotNodeClient.CLUSTER_SECRET_PROPERTY);
+        }
+        DbRobotTokenDirectory directory = new DbRobotTokenDirectory(injector.getInstance(SessionFactoryWrapper.class));
+        directory.releaseAll(node.trim());
+        robotCommunicator.joinCluster(node.trim(), directory, new HttpRobotNodeClient(secret));
+    }
+
+    /**
+     * register the metrics of the server, exported by /data/server/metrics
+     */
+    private static void registerMetrics(Injector injector) {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        injector.getInstance(RobotCommunicator.class).registerMetrics(registry);
+        registry.gauge("roberta_http_sessions", "http sessions of browser frontends", HttpSessionState::getNumberOfHttpSessionStates);
+        ClientStatePusher clientStatePusher = injector.getInstance(ClientStatePusher.class);
+        registry.gauge("roberta_client_state_subscriptions", "browser frontends, to which the state is pushed", clientStatePusher::getNumberOfSubscriptions);
+        registry.gauge("roberta_threads", "live threads of the server", () -> ManagementFactory.getThreadMXBean().getThreadCount());
+        DbSession.registerMetrics(registry);
+        ProgramCounters.registerMetrics(registry);
+        AliveData.registerMetrics(registry);
+        CrosscompilerScheduler.registerMetrics(registry);
+        WorkflowMetrics.registerMetrics(registry);
+    }
+
     /**
      * First initialize logging. This is tricky, because we have to avoid any call to a method, that expects logging initialized already. In this case, a
      * default initialization would occur. This is NOT wanted. The variables needed for logging are read from the args assuming a fixed layout (see
@@ -455,6 +513,18 @@ public class ServerStarter {
         @Override
         public void configure(WebSocketServletFactory factory) {
             factory.register(Ev3SensorLoggingWS.class);
+            factory.register(RobotCommandWS.class);
+            factory.register(ClientStateWS.class);
+            factory.setCreator((request, response) -> {
+                String path = request.getRequestPath();
+                if ( path.endsWith("/pushcmd") ) {
+                    return new RobotCommandWS();
+                } else if ( path.endsWith("/clientState") ) {
+                    return new ClientStateWS();
+                } else {
+                    return new Ev3SensorLoggingWS();
+                }
+            });
         }
     }
 }
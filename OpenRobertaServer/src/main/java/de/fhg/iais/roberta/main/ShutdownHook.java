@@ -6,7 +6,9 @@ import org.slf4j.LoggerFactory;
 
 import com.google.inject.Injector;
 
+import de.fhg.iais.roberta.javaServer.restServices.all.service.ProjectWorkflowJobs;
 import de.fhg.iais.roberta.persistence.util.DbExecutor;
+import de.fhg.iais.roberta.persistence.util.ProgramCounters;
 import de.fhg.iais.roberta.persistence.util.SessionFactoryWrapper;
 
 public class ShutdownHook extends Thread {
@@ -21,8 +23,10 @@ public class ShutdownHook extends Thread {
 
     @Override
     public void run() {
+        this.injector.getInstance(ProjectWorkflowJobs.class).shutdown();
+        SessionFactoryWrapper sessionFactoryWrapper = this.injector.getInstance(SessionFactoryWrapper.class);
+        ProgramCounters.getInstance().stop(sessionFactoryWrapper);
         if ( this.embeddedDb ) {
-            SessionFactoryWrapper sessionFactoryWrapper = this.injector.getInstance(SessionFactoryWrapper.class);
             Session nativeSession = sessionFactoryWrapper.getNativeSession();
             DbExecutor dbExecutor = DbExecutor.make(nativeSession);
             nativeSession.beginTransaction();
@@ -11,6 +11,7 @@ import de.fhg.iais.roberta.persistence.bo.ConfigurationData;
 import de.fhg.iais.roberta.persistence.bo.Robot;
 import de.fhg.iais.roberta.persistence.bo.User;
 import de.fhg.iais.roberta.persistence.dao.ConfigurationDao;
+import de.fhg.iais.roberta.persistence.dao.ConfigurationListEntry;
 import de.fhg.iais.roberta.persistence.dao.RobotDao;
 import de.fhg.iais.roberta.persistence.dao.UserDao;
 import de.fhg.iais.roberta.persistence.util.DbSession;
@@ -95,15 +96,15 @@ public class ConfigurationProcessor extends AbstractProcessor {
         User owner = userDao.get(ownerId);
         RobotDao robotDao = new RobotDao(this.dbSession);
         Robot robot = robotDao.loadRobot(robotName);
-        List<Configuration> programs = configurationDao.loadAll(owner, robot);
+        List<ConfigurationListEntry> configurations = configurationDao.loadListing(owner, robot);
         JSONArray configurationInfos = new JSONArray();
-        for ( Configuration program : programs ) {
+        for ( ConfigurationListEntry configuration : configurations ) {
             JSONArray configurationInfo = new JSONArray();
             configurationInfos.put(configurationInfo);
-            configurationInfo.put(program.getName());
-            configurationInfo.put(program.getOwner().getAccount());
-            configurationInfo.put(program.getCreated().getTime());
-            configurationInfo.put(program.getLastChanged().getTime());
+            configurationInfo.put(configuration.getName());
+            configurationInfo.put(configuration.getOwnerAccount());
+            configurationInfo.put(configuration.getCreated().getTime());
+            configurationInfo.put(configuration.getLastChanged().getTime());
         }
         Map<String, String> processorParameters = new HashMap<>();
         processorParameters.put("CONFIG_LENGTH", "" + configurationInfos.length());
@@ -20,7 +20,15 @@ public class LikeProcessor extends AbstractProcessor {
         super(dbSession, httpSessionState.getUserId());
     }
 
-    public Like createLike(String programName, String robotName, String authorName) throws Exception {
+    public Like createLike(String programName, String robotName, String authorName) {
+        return this.dbSession.runWithRetryOnConflict(() -> createLikeOnce(programName, robotName, authorName));
+    }
+
+    public void deleteLike(String programName, String robotName, String authorName) {
+        this.dbSession.runWithRetryOnConflict(() -> deleteLikeOnce(programName, robotName, authorName));
+    }
+
+    private Like createLikeOnce(String programName, String robotName, String authorName) {
         if ( isUserLoggedIn() ) {
             ProgramDao programDao = new ProgramDao(this.dbSession);
             UserDao userDao = new UserDao(this.dbSession);
@@ -56,7 +64,7 @@ public class LikeProcessor extends AbstractProcessor {
         }
     }
 
-    public void deleteLike(String programName, String robotName, String authorName) throws Exception {
+    private void deleteLikeOnce(String programName, String robotName, String authorName) {
         ProgramDao programDao = new ProgramDao(this.dbSession);
         UserDao userDao = new UserDao(this.dbSession);
         RobotDao robotDao = new RobotDao(this.dbSession);
@@ -1,10 +1,11 @@
 package de.fhg.iais.roberta.persistence;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -23,31 +24,30 @@ import de.fhg.iais.roberta.persistence.bo.UserGroup;
 import de.fhg.iais.roberta.persistence.bo.UserGroupProgramShare;
 import de.fhg.iais.roberta.persistence.bo.UserProgramShare;
 import de.fhg.iais.roberta.persistence.dao.ConfigurationDao;
+import de.fhg.iais.roberta.persistence.dao.GallerySortOrder;
 import de.fhg.iais.roberta.persistence.dao.ProgramDao;
+import de.fhg.iais.roberta.persistence.dao.ProgramListEntry;
+import de.fhg.iais.roberta.persistence.dao.ProgramShareListEntry;
 import de.fhg.iais.roberta.persistence.dao.RobotDao;
 import de.fhg.iais.roberta.persistence.dao.UserDao;
-import de.fhg.iais.roberta.persistence.dao.UserGroupDao;
 import de.fhg.iais.roberta.persistence.dao.UserGroupProgramShareDao;
 import de.fhg.iais.roberta.persistence.dao.UserProgramShareDao;
 import de.fhg.iais.roberta.persistence.util.DbSession;
 import de.fhg.iais.roberta.persistence.util.HttpSessionState;
+import de.fhg.iais.roberta.persistence.util.ProgramCounters;
 import de.fhg.iais.roberta.util.Key;
 import de.fhg.iais.roberta.util.Pair;
 import de.fhg.iais.roberta.util.Util;
 
 public class ProgramProcessor extends AbstractProcessor {
     private static final Logger LOG = LoggerFactory.getLogger(ProgramProcessor.class);
+    public static final int GALLERY_DEFAULT_PAGE_SIZE = 48;
+    public static final int GALLERY_MAX_PAGE_SIZE = 100;
 
     public ProgramProcessor(DbSession dbSession, HttpSessionState httpSessionState) {
         super(dbSession, httpSessionState.getUserId());
     }
 
-    public Program getProgramAndLockTable(String programName, String ownerName, String robotName, String authorName) {
-        ProgramDao programDao = new ProgramDao(this.dbSession);
-        programDao.lockTable();
-        return getProgram(programName, ownerName, robotName, authorName);
-    }
-
     /**
      * load a program from the data base. Either the program is owned by 'ownerName' or the program is shared by 'ownerName' to the user requesting the program
      *
@@ -245,7 +245,6 @@ public class ProgramProcessor extends AbstractProcessor {
         ProgramDao programDao = new ProgramDao(this.dbSession);
         UserProgramShareDao userProgramShareDao = new UserProgramShareDao(this.dbSession);
         UserGroupProgramShareDao userGroupProgramShareDao = new UserGroupProgramShareDao(this.dbSession);
-        UserGroupDao userGroupDao = new UserGroupDao(this.dbSession);
         User owner = userDao.get(ownerId);
         Robot robot = robotDao.loadRobot(robotName);
 
@@ -257,17 +256,18 @@ public class ProgramProcessor extends AbstractProcessor {
 
         // First we obtain all programs owned by the user
         {
-            List<Program> programs = programDao.loadAll(owner, robot);
+            List<ProgramListEntry> programs = programDao.loadListing(owner, robot);
 
             UserGroup ownersGroup = owner.getUserGroup();
             User ownersGroupOwner = ownersGroup == null ? null : ownersGroup.getOwner();
 
-            for ( Program program : programs ) {
-                JSONArray programInfo = new JSONArray();
-                programInfo.put(program.getName());
-                programInfo.put(program.getOwner().getAccount());
-                List<UserProgramShare> shares = userProgramShareDao.loadUserProgramSharesByProgram(program);
-                List<UserGroupProgramShare> groupShares = userGroupProgramShareDao.loadUserGroupProgramSharesByProgram(program);
+            List<Integer> programIds = idsOf(programs);
+            Map<Integer, List<ProgramShareListEntry>> sharesByProgram = byProgram(userProgramShareDao.loadShareListingByPrograms(programIds));
+            Map<Integer, List<ProgramShareListEntry>> groupSharesByProgram = byProgram(userGroupProgramShareDao.loadShareListingByPrograms(programIds));
+
+            for ( ProgramListEntry program : programs ) {
+                List<ProgramShareListEntry> shares = sharesByProgram.getOrDefault(program.getId(), Collections.emptyList());
+                List<ProgramShareListEntry> groupShares = groupSharesByProgram.getOrDefault(program.getId(), Collections.emptyList());
                 JSONObject sharedWith = new JSONObject();
                 try {
                     if ( !shares.isEmpty() || !groupShares.isEmpty() || ownersGroup != null && !ownersGroup.getAccessRight().equals(AccessRight.NO_OTHER_READ) ) //
@@ -279,8 +279,8 @@ public class ProgramProcessor extends AbstractProcessor {
                             sharedEntry.put("type", User.class.getSimpleName());
                             sharedEntry.put("label", ownersGroupOwner.getAccount());
                             Relation relation = Relation.READ;
-                            for ( UserProgramShare userProgramShare : shares ) {
-                                if ( userProgramShare.getUser().equals(ownersGroupOwner) ) {
+                            for ( ProgramShareListEntry userProgramShare : shares ) {
+                                if ( isSharedWithUser(userProgramShare, ownersGroupOwner) ) {
                                     relation = userProgramShare.getRelation();
                                     break;
                                 }
@@ -289,15 +289,15 @@ public class ProgramProcessor extends AbstractProcessor {
                             shareArray.put(sharedEntry);
                         }
 
-                        for ( UserGroupProgramShare groupShare : groupShares ) {
+                        for ( ProgramShareListEntry groupShare : groupShares ) {
                             JSONObject sharedEntry = new JSONObject();
                             sharedEntry.put("type", groupShare.getEntityType());
                             sharedEntry.put("label", groupShare.getEntityLabel());
                             sharedEntry.put("right", groupShare.getRelation().toString());
                             shareArray.put(sharedEntry);
                         }
-                        for ( UserProgramShare share : shares ) {
-                            if ( share.getUser().equals(ownersGroupOwner) ) {
+                        for ( ProgramShareListEntry share : shares ) {
+                            if ( isSharedWithUser(share, ownersGroupOwner) ) {
                                 continue;
                             }
                             JSONObject sharedEntry = new JSONObject();
@@ -308,35 +308,16 @@ public class ProgramProcessor extends AbstractProcessor {
                     }
                 } catch ( JSONException e ) {
                 }
-                programInfo.put(sharedWith);
-                programInfo.put(program.getAuthor().getAccount());
-                programInfo.put(program.getCreated().getTime());
-                programInfo.put(program.getLastChanged().getTime());
-                programInfos.put(program.getId(), programInfo);
+                programInfos.put(program.getId(), programInfoOf(program, sharedWith));
             }
         }
 
         // Now we find all the programs which are not owned by the user but have been shared to him/her
         {
-            List<UserProgramShare> sharedPrograms = userProgramShareDao.loadUserProgramsSharedWithUser(owner, robot);
-            for ( UserProgramShare sharedProgram : sharedPrograms ) {
-                Program program = sharedProgram.getProgram();
-                if ( program != null ) {
-                    if ( programInfos.get(program.getId()) == null ) {
-                        JSONArray programInfo = new JSONArray();
-                        programInfo.put(program.getName());
-                        programInfo.put(program.getOwner().getAccount());
-                        JSONObject sharedFrom = new JSONObject();
-                        try {
-                            sharedFrom.put("sharedFrom", sharedProgram.getRelation().toString());
-                        } catch ( JSONException e ) {
-                        }
-                        programInfo.put(sharedFrom);
-                        programInfo.put(program.getAuthor().getAccount());
-                        programInfo.put(program.getCreated().getTime());
-                        programInfo.put(program.getLastChanged().getTime());
-                        programInfos.put(program.getId(), programInfo);
-                    }
+            List<ProgramListEntry> sharedPrograms = userProgramShareDao.loadListingOfProgramsSharedWithUser(owner, robot);
+            for ( ProgramListEntry program : sharedPrograms ) {
+                if ( programInfos.get(program.getId()) == null ) {
+                    programInfos.put(program.getId(), programInfoOf(program, sharedFrom(program.getRelation())));
                 }
             }
         }
@@ -344,53 +325,21 @@ public class ProgramProcessor extends AbstractProcessor {
         // Now, if the user is part of a user group, show all programs that the owner of the group provided for it
         {
             if ( owner.getUserGroup() != null ) {
-                List<UserGroupProgramShare> sharedProgramsForUserGroup = userGroupProgramShareDao.loadProgramSharesForUserGroup(owner.getUserGroup(), robot);
-                for ( UserGroupProgramShare sharedUserGroupProgram : sharedProgramsForUserGroup ) {
-                    Program sharedProgram = sharedUserGroupProgram.getProgram();
-                    if ( sharedProgram != null && programInfos.get(sharedProgram.getId()) == null ) { // right part of condition: already directly shares
-                        JSONArray programInfo = new JSONArray();
-                        programInfo.put(sharedProgram.getName());
-                        programInfo.put(sharedProgram.getOwner().getAccount());
-                        JSONObject sharedFrom = new JSONObject();
-                        try {
-                            sharedFrom.put("sharedFrom", sharedUserGroupProgram.getRelation().toString());
-                        } catch ( JSONException e ) {
-                        }
-                        programInfo.put(sharedFrom);
-                        programInfo.put(sharedProgram.getAuthor().getAccount());
-                        programInfo.put(sharedProgram.getCreated().getTime());
-                        programInfo.put(sharedProgram.getLastChanged().getTime());
-                        programInfos.put(sharedProgram.getId(), programInfo);
+                List<ProgramListEntry> sharedProgramsForUserGroup = userGroupProgramShareDao.loadListingOfProgramsSharedWithUserGroup(owner.getUserGroup(), robot);
+                for ( ProgramListEntry sharedProgram : sharedProgramsForUserGroup ) {
+                    if ( programInfos.get(sharedProgram.getId()) == null ) { // already directly shares
+                        programInfos.put(sharedProgram.getId(), programInfoOf(sharedProgram, sharedFrom(sharedProgram.getRelation())));
                     }
                 }
             }
         }
         //Now, if the user is owner of user groups, show all programs that belong to these groups
         {
-            List<UserGroup> ownersGroups = userGroupDao.loadAll(owner);
-            for ( UserGroup userGroup : ownersGroups ) {
-                for ( User member : userGroup.getMembers() ) {
-                    List<Program> programs = programDao.loadAll(member, robot);
-                    for ( Program program : programs ) {
-                        if ( programInfos.get(program.getId()) == null ) { // right part of condition: already directly shares
-                            JSONArray programInfo = new JSONArray();
-                            programInfo.put(program.getName());
-                            programInfo.put(program.getOwner().getAccount());
-                            JSONObject sharedFrom = new JSONObject();
-                            try {
-                                sharedFrom.put("sharedFrom", "READ");
-                            } catch ( JSONException e ) {
-                            }
-                            programInfo.put(sharedFrom);
-                            programInfo.put(program.getAuthor().getAccount());
-                            programInfo.put(program.getCreated().getTime());
-                            programInfo.put(program.getLastChanged().getTime());
-                            programInfos.put(program.getId(), programInfo);
-                        }
-                    }
-
+            List<ProgramListEntry> programs = programDao.loadListingOfMembersOfUserGroupsOwnedBy(owner, robot);
+            for ( ProgramListEntry program : programs ) {
+                if ( programInfos.get(program.getId()) == null ) { // already directly shares
+                    programInfos.put(program.getId(), programInfoOf(program, sharedFrom(Relation.READ)));
                 }
-
             }
         }
 
@@ -417,36 +366,19 @@ public class ProgramProcessor extends AbstractProcessor {
 
         Robot robot = robotDao.loadRobot(robotName);
 
-        Set<User> members = userGroup.getMembers();
-
         JSONArray programInfos = new JSONArray();
 
-        for ( User member : members ) {
-            List<Program> memberPrograms = programDao.loadAll(member, robot);
-
-            for ( Program program : memberPrograms ) {
-                JSONArray programInfo = new JSONArray();
-                programInfo.put(program.getName());
-                programInfo.put(program.getOwner().getAccount());
-                JSONObject sharedFrom = new JSONObject();
-                try {
-                    Relation relation;
-                    switch ( userGroup.getAccessRight() ) {
-                        case ADMIN_READ:
-                        case ALL_READ:
-                        default:
-                            relation = Relation.READ;
-                            break;
-                    }
-                    sharedFrom.put("sharedFrom", relation.toString());
-                } catch ( JSONException e ) {
-                }
-                programInfo.put(sharedFrom);
-                programInfo.put(program.getAuthor().getAccount());
-                programInfo.put(program.getCreated().getTime());
-                programInfo.put(program.getLastChanged().getTime());
-                programInfos.put(programInfo);
+        List<ProgramListEntry> memberPrograms = programDao.loadListingOfUserGroupMembers(userGroup, robot);
+        for ( ProgramListEntry program : memberPrograms ) {
+            Relation relation;
+            switch ( userGroup.getAccessRight() ) {
+                case ADMIN_READ:
+                case ALL_READ:
+                default:
+                    relation = Relation.READ;
+                    break;
             }
+            programInfos.put(programInfoOf(program, sharedFrom(relation)));
         }
 
         Map<String, String> processorParameters = new HashMap<>();
@@ -463,31 +395,30 @@ public class ProgramProcessor extends AbstractProcessor {
 
         Robot robot = robotDao.loadRobot(robotName);
 
-        JSONArray programInfos = new JSONArray(), programInfo, sharedWithArray;
-        Program program;
+        JSONArray programInfos = new JSONArray(), sharedWithArray;
         JSONObject sharedWith;
 
-        List<UserGroupProgramShare> programShares = userGroupProgramShareDao.loadProgramSharesForUserGroup(userGroup, robot);
+        List<ProgramListEntry> programs = userGroupProgramShareDao.loadListingOfProgramsSharedWithUserGroup(userGroup, robot);
 
-        for ( UserGroupProgramShare programShare : programShares ) {
-            programInfo = new JSONArray();
-            program = programShare.getProgram();
-            programInfo.put(program.getName());
-            programInfo.put(program.getOwner().getAccount());
-            List<UserProgramShare> userProgramShares = userProgramShareDao.loadUserProgramSharesByProgram(program);
-            List<UserGroupProgramShare> userGroupProgramShares = userGroupProgramShareDao.loadUserGroupProgramSharesByProgram(program);
+        List<Integer> programIds = idsOf(programs);
+        Map<Integer, List<ProgramShareListEntry>> userSharesByProgram = byProgram(userProgramShareDao.loadShareListingByPrograms(programIds));
+        Map<Integer, List<ProgramShareListEntry>> userGroupSharesByProgram = byProgram(userGroupProgramShareDao.loadShareListingByPrograms(programIds));
+
+        for ( ProgramListEntry program : programs ) {
+            List<ProgramShareListEntry> userProgramShares = userSharesByProgram.getOrDefault(program.getId(), Collections.emptyList());
+            List<ProgramShareListEntry> userGroupProgramShares = userGroupSharesByProgram.getOrDefault(program.getId(), Collections.emptyList());
             sharedWith = new JSONObject();
             try {
                 if ( !userProgramShares.isEmpty() || !userGroupProgramShares.isEmpty() ) {
                     sharedWithArray = new JSONArray();
-                    for ( UserGroupProgramShare userGroupProgramShare : userGroupProgramShares ) {
+                    for ( ProgramShareListEntry userGroupProgramShare : userGroupProgramShares ) {
                         JSONObject sharedWithUserGroup = new JSONObject();
                         sharedWithUserGroup.put("type", userGroupProgramShare.getEntityType());
                         sharedWithUserGroup.put("label", userGroupProgramShare.getEntityLabel());
                         sharedWithUserGroup.put("right", userGroupProgramShare.getRelation().toString());
                         sharedWithArray.put(sharedWithUserGroup);
                     }
-                    for ( UserProgramShare userProgramShare : userProgramShares ) {
+                    for ( ProgramShareListEntry userProgramShare : userProgramShares ) {
                         JSONObject sharedWithUser = new JSONObject();
 
                         sharedWithUser.put("type", userProgramShare.getEntityType());
@@ -499,11 +430,7 @@ public class ProgramProcessor extends AbstractProcessor {
                 }
             } catch ( JSONException e ) {
             }
-            programInfo.put(sharedWith);
-            programInfo.put(program.getAuthor().getAccount());
-            programInfo.put(program.getCreated().getTime());
-            programInfo.put(program.getLastChanged().getTime());
-            programInfos.put(programInfo);
+            programInfos.put(programInfoOf(program, sharedWith));
 
         }
 
@@ -545,15 +472,24 @@ public class ProgramProcessor extends AbstractProcessor {
     }
 
     /**
-     * Get information about all the programs owned by the gallery
+     * Get information about one page of the programs owned by the gallery, see {@link ProgramDao#loadGallery}
      *
-     * @param galleryId the gallery user
+     * @param userId the user, whose likes are marked
+     * @param robotGroup the robot group; the empty string for all robots
+     * @param search the text searched in program name, author, description and tags; null or the empty string for all entries
+     * @param sortOrder the order of the entries, never null
+     * @param limit the maximal number of entries; if not positive, {@link #GALLERY_DEFAULT_PAGE_SIZE} is used. At most {@link #GALLERY_MAX_PAGE_SIZE}
+     * @param after the cursor of the previous page: the sort value (index 10 of an entry) "value" and the program id "id" of its last entry; null for the
+     *        first page
      */
-    public JSONArray getProgramGallery(int userId, String robotGroup) {
+    public JSONArray getProgramGallery(int userId, String robotGroup, String search, GallerySortOrder sortOrder, int limit, JSONObject after) {
         UserDao userDao = new UserDao(this.dbSession);
         ProgramDao programDao = new ProgramDao(this.dbSession);
         int galleryId = userDao.loadUser(null, "Gallery").getId();
-        JSONArray programs = programDao.loadGallery(galleryId, userId, robotGroup);
+        int pageSize = limit <= 0 ? GALLERY_DEFAULT_PAGE_SIZE : Math.min(limit, GALLERY_MAX_PAGE_SIZE);
+        String afterValue = after == null ? null : after.get("value").toString();
+        int afterId = after == null ? 0 : after.getInt("id");
+        JSONArray programs = programDao.loadGallery(galleryId, userId, robotGroup, search, sortOrder, pageSize, afterValue, afterId);
         Map<String, String> processorParameters = new HashMap<>();
         processorParameters.put("PROGRAMS_LENGTH", "" + programs.length());
         setStatus(ProcessorStatus.SUCCEEDED, Key.PROGRAM_GET_ALL_SUCCESS, processorParameters);
@@ -587,7 +523,23 @@ public class ProgramProcessor extends AbstractProcessor {
             setStatus(ProcessorStatus.FAILED, Key.PROGRAM_ERROR_ID_INVALID, processorParameters);
             return null;
         }
+        return this.dbSession
+            .runWithRetryOnConflict(() -> persistProgramTextOnce(programName, ownerName, programText, configName, configText, robotName, programTimestamp));
+    }
 
+    /**
+     * one attempt to persist a program, see {@link #persistProgramText(String, String, String, String, String, String, Timestamp)}. The timestamp check
+     * and the version of the program row together detect a concurrent update
+     */
+    private Program persistProgramTextOnce(
+        String programName,
+        String ownerName,
+        String programText,
+        String configName,
+        String configText,
+        String robotName,
+        Timestamp programTimestamp) //
+    {
         UserDao userDao = new UserDao(this.dbSession);
         User user = this.isUserLoggedIn() ? userDao.get(this.getIdOfLoggedInUser()) : null;
 
@@ -601,8 +553,6 @@ public class ProgramProcessor extends AbstractProcessor {
         ProgramDao programDao = new ProgramDao(this.dbSession);
         ConfigurationDao confDao = new ConfigurationDao(this.dbSession);
 
-        programDao.lockTable();
-
         Robot robot = robotDao.loadRobot(robotName);
         User owner, author;
 
@@ -741,6 +691,52 @@ public class ProgramProcessor extends AbstractProcessor {
     }
 
     public void addOneView(Program program) {
-        program.incrViewed();
+        ProgramCounters.getInstance().addView(program.getId());
+    }
+
+    /**
+     * the program info of a program list: name, owner, sharing info, author, created and last changed
+     */
+    private static JSONArray programInfoOf(ProgramListEntry program, JSONObject sharing) {
+        JSONArray programInfo = new JSONArray();
+        programInfo.put(program.getName());
+        programInfo.put(program.getOwnerAccount());
+        programInfo.put(sharing);
+        programInfo.put(program.getAuthorAccount());
+        programInfo.put(program.getCreated().getTime());
+        programInfo.put(program.getLastChanged().getTime());
+        return programInfo;
+    }
+
+    private static JSONObject sharedFrom(Relation relation) {
+        JSONObject sharedFrom = new JSONObject();
+        try {
+            sharedFrom.put("sharedFrom", relation.toString());
+        } catch ( JSONException e ) {
+        }
+        return sharedFrom;
+    }
+
+    private static List<Integer> idsOf(List<ProgramListEntry> programs) {
+        List<Integer> ids = new ArrayList<>(programs.size());
+        for ( ProgramListEntry program : programs ) {
+            ids.add(program.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * group the shares of the programs of a program list by program. The order of the shares of a program is kept
+     */
+    private static Map<Integer, List<ProgramShareListEntry>> byProgram(List<ProgramShareListEntry> shares) {
+        Map<Integer, List<ProgramShareListEntry>> sharesByProgram = new HashMap<>();
+        for ( ProgramShareListEntry share : shares ) {
+            sharesByProgram.computeIfAbsent(share.getProgramId(), programId -> new ArrayList<>()).add(share);
+        }
+        return sharesByProgram;
+    }
+
+    private static boolean isSharedWithUser(ProgramShareListEntry share, User user) {
+        return user != null && share.getUserId() != null && share.getUserId() == user.getId();
     }
 }
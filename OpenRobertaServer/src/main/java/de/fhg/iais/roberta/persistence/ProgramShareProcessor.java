@@ -5,6 +5,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import org.hibernate.HibernateException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +47,10 @@ public class ProgramShareProcessor extends AbstractProcessor {
      * @param right "WRITE" or "READ"
      */
     public void shareToUser(int ownerId, String robotName, String programName, int authorId, String userToShareName, String right) {
+        this.dbSession.runWithRetryOnConflict(() -> shareToUserOnce(ownerId, robotName, programName, authorId, userToShareName, right));
+    }
+
+    private void shareToUserOnce(int ownerId, String robotName, String programName, int authorId, String userToShareName, String right) {
         UserDao userDao = new UserDao(this.dbSession);
         User owner = userDao.get(ownerId);
         User author = userDao.get(authorId);
@@ -67,6 +72,10 @@ public class ProgramShareProcessor extends AbstractProcessor {
      * @return A set of all entities to which the specified program was being shared to because of this action with their corresponding relation
      */
     public Set<ProgramShare> shareToEntity(int ownerId, String robotName, String programName, String entityToShareLabel, String entityType, String right) {
+        return this.dbSession.runWithRetryOnConflict(() -> shareToEntityOnce(ownerId, robotName, programName, entityToShareLabel, entityType, right));
+    }
+
+    private Set<ProgramShare> shareToEntityOnce(int ownerId, String robotName, String programName, String entityToShareLabel, String entityType, String right) {
         UserDao userDao = new UserDao(this.dbSession);
         UserGroupDao userGroupDao = new UserGroupDao(this.dbSession);
 
@@ -161,6 +170,10 @@ public class ProgramShareProcessor extends AbstractProcessor {
      * @param userToShareId the account id of the user, who shall no longer have access to the program. Might be the actor on which behalf this request is done.
      */
     public void shareDelete(String ownerName, String robotName, String programName, String authorName, int userToShareId) {
+        this.dbSession.runWithRetryOnConflict(() -> shareDeleteOnce(ownerName, robotName, programName, authorName, userToShareId));
+    }
+
+    private void shareDeleteOnce(String ownerName, String robotName, String programName, String authorName, int userToShareId) {
         UserDao userDao = new UserDao(this.dbSession);
         User owner;
         User userToShare = userDao.get(userToShareId);
@@ -252,6 +265,8 @@ public class ProgramShareProcessor extends AbstractProcessor {
                 this.setStatus(ProcessorStatus.SUCCEEDED, Key.ACCESS_RIGHT_CHANGED, new HashMap<>());
                 return userProgramShare;
             }
+        } catch ( HibernateException e ) {
+            throw e; // a conflict is retried by the caller, other db errors abort the request
         } catch ( Exception e ) {
             String msg =
                 "Invalid share request. Owner:" + owner + ", robot:" + robotName + ", program:" + programName + ", with:" + userToShare + ", right:" + right;
@@ -329,6 +344,8 @@ public class ProgramShareProcessor extends AbstractProcessor {
                 this.setStatus(ProcessorStatus.SUCCEEDED, Key.ACCESS_RIGHT_CHANGED, new HashMap<>());
                 return userGroupProgramShare;
             }
+        } catch ( HibernateException e ) {
+            throw e;
         } catch ( Exception e ) {
             String msg =
                 "Invalid share request. Owner:"
@@ -124,6 +124,17 @@ public class UserGroupProcessor extends AbstractProcessor {
             this.setStatus(ProcessorStatus.FAILED, Key.GROUP_CREATE_ERROR, new HashMap<>());
             return null;
         }
+        int groupOwnerId = groupOwner.getId();
+        return this.dbSession.runWithRetryOnConflict(() -> createGroupOnce(groupName, groupOwnerId, initialMembers));
+    }
+
+    private UserGroup createGroupOnce(String groupName, int groupOwnerId, List<String> initialMembers) {
+        // each attempt loads the owner, the owner loaded by a previous attempt is detached
+        User groupOwner = this.userDao.loadUser(groupOwnerId);
+        if ( groupOwner == null ) {
+            this.setStatus(ProcessorStatus.FAILED, Key.GROUP_CREATE_ERROR, new HashMap<>());
+            return null;
+        }
 
         Map<String, String> processorParameters = new HashMap<>();
         processorParameters.put("USERGROUP_OWNER", groupOwner.getAccount());
@@ -167,8 +178,6 @@ public class UserGroupProcessor extends AbstractProcessor {
             }
         }
 
-        this.userGroupDao.lockTable();
-
         Pair<Key, UserGroup> createStatus = this.userGroupDao.persistGroup(groupName, groupOwner, null);
         UserGroup userGroup = createStatus.getSecond();
 
@@ -215,13 +224,22 @@ public class UserGroupProcessor extends AbstractProcessor {
             this.setStatus(ProcessorStatus.FAILED, Key.GROUP_DELETE_ERROR, new HashMap<>());
             return;
         }
+        int groupOwnerId = groupOwner.getId();
+        this.dbSession.runWithRetryOnConflict(() -> deleteGroupsOnce(groupNames, groupOwnerId, deleteIfGroupHasMembers));
+    }
+
+    private void deleteGroupsOnce(List<String> groupNames, int groupOwnerId, boolean deleteIfGroupHasMembers) {
+        // each attempt loads the owner, the owner loaded by a previous attempt is detached
+        User groupOwner = this.userDao.loadUser(groupOwnerId);
+        if ( groupOwner == null ) {
+            this.setStatus(ProcessorStatus.FAILED, Key.GROUP_DELETE_ERROR, new HashMap<>());
+            return;
+        }
 
         Map<String, String> processorParameters = new HashMap<>();
         processorParameters.put("USERGROUP_OWNER", groupOwner.getAccount());
         int deletedRows;
 
-        this.userGroupDao.lockTable();
-
         for ( String groupName : groupNames ) {
             UserGroup userGroup = this.userGroupDao.load(groupName, groupOwner);
 
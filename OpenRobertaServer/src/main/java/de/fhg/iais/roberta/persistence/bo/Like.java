@@ -10,6 +10,7 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 import de.fhg.iais.roberta.util.Util;
 import de.fhg.iais.roberta.util.dbc.Assert;
@@ -39,6 +40,10 @@ public class Like implements WithSurrogateId {
     @Column(name = "COMMENT")
     private String comment;
 
+    @Version
+    @Column(name = "VERSION")
+    private int version;
+
     protected Like() {
         // Hibernate
     }
@@ -46,10 +51,10 @@ public class Like implements WithSurrogateId {
     /**
      * create a like
      *
-     * @param userId of the user that forgot his password
-     * @throws Exception
+     * @param user the user who likes the program
+     * @param program the program liked
      */
-    public Like(User user, Program program) throws Exception {
+    public Like(User user, Program program) {
         Assert.notNull(user);
         Assert.notNull(program);
         this.user = user;
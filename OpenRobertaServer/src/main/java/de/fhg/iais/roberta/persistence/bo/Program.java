@@ -10,6 +10,7 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 import de.fhg.iais.roberta.util.Util;
 import de.fhg.iais.roberta.util.UtilForHtmlXml;
@@ -41,6 +42,12 @@ public class Program implements WithSurrogateId {
     @Column(name = "PROGRAM_TEXT")
     private String programText;
 
+    /**
+     * the description of the program, taken from the program text when the text is set. Used for listings, that must not load the program text
+     */
+    @Column(name = "DESCRIPTION")
+    private String description;
+
     /**
      * the name of the attached configuration. If null, configHash must be not null. If not null, configHash must be null.
      */
@@ -65,7 +72,11 @@ public class Program implements WithSurrogateId {
     @Column(name = "LAST_ERRORFREE")
     private Timestamp lastErrorFree;
 
-    @Column(name = "VIEWED")
+    /**
+     * the number of views is incremented in the database, see {@link de.fhg.iais.roberta.persistence.util.ProgramCounters}. It is never written by
+     * hibernate, thus an update of the program doesn't conflict with views
+     */
+    @Column(name = "VIEWED", insertable = false, updatable = false)
     private int viewed;
 
     @Column(name = "TAGS")
@@ -74,6 +85,13 @@ public class Program implements WithSurrogateId {
     @Column(name = "ICON_NUMBER")
     private int iconNumber;
 
+    /**
+     * the version of the row for optimistic concurrency control. Incremented by hibernate with each update
+     */
+    @Version
+    @Column(name = "VERSION")
+    private int version;
+
     protected Program() {
         // Hibernate
     }
@@ -119,9 +137,15 @@ public class Program implements WithSurrogateId {
 
     public void setProgramText(String programText) {
         this.programText = UtilForHtmlXml.checkProgramTextForXSS(programText);
+        this.description = UtilForHtmlXml.getAttributeOfRootElement(this.programText, "description");
+        this.tags = UtilForHtmlXml.getAttributeOfRootElement(this.programText, "tags");
         this.lastChanged = Util.getNow();
     }
 
+    public String getDescription() {
+        return this.description;
+    }
+
     /**
      * get the configuration name. At least one of the configuration name and hash must be null.
      *
@@ -174,10 +198,6 @@ public class Program implements WithSurrogateId {
         return this.viewed;
     }
 
-    public void incrViewed() {
-        this.viewed++;
-    }
-
     public String getTags() {
         return this.tags;
     }
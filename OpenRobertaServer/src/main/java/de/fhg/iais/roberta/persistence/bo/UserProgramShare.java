@@ -10,6 +10,7 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 import de.fhg.iais.roberta.util.dbc.Assert;
 
@@ -42,6 +43,10 @@ public class UserProgramShare implements WithSurrogateId, ProgramShare {
     @Column(name = "RELATION")
     private Relation relation;
 
+    @Version
+    @Column(name = "VERSION")
+    private int version;
+
     protected UserProgramShare() {
         // Hibernate
     }
@@ -1,5 +1,8 @@
 package de.fhg.iais.roberta.persistence.dao;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import de.fhg.iais.roberta.persistence.util.DbSession;
 
 /**
@@ -9,6 +12,11 @@ import de.fhg.iais.roberta.persistence.util.DbSession;
  * @author rbudde
  */
 public abstract class AbstractDao<T> {
+    /**
+     * the maximal number of values bound to an "in" clause. Queries for more values are executed in batches of this size
+     */
+    protected static final int IN_BATCH_SIZE = 500;
+
     private Class<T> type;
     protected DbSession session;
 
@@ -38,4 +46,18 @@ public abstract class AbstractDao<T> {
     public T get(int id) {
         return this.session.get(this.type, id);
     }
+
+    /**
+     * split the values, that should be bound to an "in" clause, into batches of at most {@link #IN_BATCH_SIZE} values
+     *
+     * @param values the values, never null
+     * @return the batches; an empty list, if no values are given
+     */
+    protected static <E> List<List<E>> inBatches(List<E> values) {
+        List<List<E>> batches = new ArrayList<>();
+        for ( int from = 0; from < values.size(); from += IN_BATCH_SIZE ) {
+            batches.add(values.subList(from, Math.min(from + IN_BATCH_SIZE, values.size())));
+        }
+        return batches;
+    }
 }
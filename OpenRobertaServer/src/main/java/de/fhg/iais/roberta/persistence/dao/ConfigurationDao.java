@@ -1,5 +1,7 @@
 package de.fhg.iais.roberta.persistence.dao;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -148,6 +150,26 @@ public class ConfigurationDao extends AbstractDao<Program> {
         return Collections.unmodifiableList(il);
     }
 
+    /**
+     * load the list entries of all configurations, which are owned by a given user and defined for a given robot type. Only the columns needed for the
+     * configuration list are read, the configurations are not loaded
+     *
+     * @return the list entries, may be an empty list, but never null
+     */
+    public List<ConfigurationListEntry> loadListing(User owner, Robot robot) {
+        Query hql =
+            this.session.createQuery("select c.name, o.account, c.created, c.lastChanged from Configuration c join c.owner o where c.owner=:owner and c.robot=:robot");
+        hql.setEntity("owner", owner);
+        hql.setEntity("robot", robot);
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = hql.list();
+        List<ConfigurationListEntry> entries = new ArrayList<>(rows.size());
+        for ( Object[] row : rows ) {
+            entries.add(new ConfigurationListEntry((String) row[0], (String) row[1], (Timestamp) row[2], (Timestamp) row[3]));
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
     /**
      * load all Configurations persisted in the database
      *
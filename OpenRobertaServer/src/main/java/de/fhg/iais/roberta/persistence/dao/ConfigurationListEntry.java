@@ -0,0 +1,37 @@
+package de.fhg.iais.roberta.persistence.dao;
+
+import java.sql.Timestamp;
+
+/**
+ * a row of a configuration list, see {@link ConfigurationDao#loadListing(de.fhg.iais.roberta.persistence.bo.User, de.fhg.iais.roberta.persistence.bo.Robot)}.
+ * Immutable.
+ */
+public final class ConfigurationListEntry {
+    private final String name;
+    private final String ownerAccount;
+    private final Timestamp created;
+    private final Timestamp lastChanged;
+
+    ConfigurationListEntry(String name, String ownerAccount, Timestamp created, Timestamp lastChanged) {
+        this.name = name;
+        this.ownerAccount = ownerAccount;
+        this.created = created;
+        this.lastChanged = lastChanged;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getOwnerAccount() {
+        return this.ownerAccount;
+    }
+
+    public Timestamp getCreated() {
+        return this.created;
+    }
+
+    public Timestamp getLastChanged() {
+        return this.lastChanged;
+    }
+}
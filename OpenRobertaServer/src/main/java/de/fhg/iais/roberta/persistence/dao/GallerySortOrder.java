@@ -0,0 +1,86 @@
+package de.fhg.iais.roberta.persistence.dao;
+
+import java.sql.Timestamp;
+
+import de.fhg.iais.roberta.util.dbc.DbcException;
+
+/**
+ * the orders, in which the gallery can be listed. Ties are broken by the program id, in the same direction as the order. Except {@link #ROBOT} each order is
+ * backed by an index on PROGRAM(OWNER_ID, &lt;column&gt;, ID), thus a page is read without looking at the remaining gallery. The robot name is a column of
+ * the joined table ROBOT, ordering by it sorts the programs of the gallery (of the selected robot group)
+ */
+public enum GallerySortOrder {
+    NEWEST("newest", "p.CREATED", false), //
+    OLDEST("oldest", "p.CREATED", true), //
+    LIKES("likes", "p.NUMBER_OF_LIKES", false), //
+    VIEWS("views", "p.VIEWED", false), //
+    PROGRAM_NAME("programName", "p.NAME", true), //
+    ROBOT("robot", "r.NAME", true);
+
+    private final String name;
+    private final String column;
+    private final boolean ascending;
+
+    private GallerySortOrder(String name, String column, boolean ascending) {
+        this.name = name;
+        this.column = column;
+        this.ascending = ascending;
+    }
+
+    /**
+     * get the sort order for the name used by the frontend
+     *
+     * @param name one of "newest", "oldest", "likes", "views", "programName" and "robot"; null for the default order {@link #NEWEST}
+     * @return the sort order, never null
+     * @throws DbcException if the name is unknown
+     */
+    public static GallerySortOrder fromName(String name) {
+        if ( name == null ) {
+            return NEWEST;
+        }
+        for ( GallerySortOrder sortOrder : values() ) {
+            if ( sortOrder.name.equals(name) ) {
+                return sortOrder;
+            }
+        }
+        throw new DbcException("invalid gallery sort order: " + name);
+    }
+
+    /**
+     * @return the SQL column, by which the gallery is sorted
+     */
+    String getColumn() {
+        return this.column;
+    }
+
+    /**
+     * @return true, if the smallest value is listed first; false, if the largest value is listed first
+     */
+    boolean isAscending() {
+        return this.ascending;
+    }
+
+    /**
+     * convert the sort value of the last entry of a page, as sent by the frontend, to the value bound to the SQL query of the next page
+     *
+     * @param value the sort value as returned in a page of the gallery, never null
+     * @return the value for binding
+     * @throws DbcException if the value doesn't match the sort order
+     */
+    Object toSortValue(String value) {
+        try {
+            switch ( this ) {
+                case NEWEST:
+                case OLDEST:
+                    return Timestamp.valueOf(value);
+                case LIKES:
+                case VIEWS:
+                    return Integer.valueOf(value);
+                default:
+                    return value;
+            }
+        } catch ( IllegalArgumentException e ) {
+            throw new DbcException("invalid gallery cursor for the sort order " + this.name + ": " + value, e);
+        }
+    }
+}
@@ -8,7 +8,9 @@ import org.hibernate.Query;
 import de.fhg.iais.roberta.persistence.bo.Like;
 import de.fhg.iais.roberta.persistence.bo.Program;
 import de.fhg.iais.roberta.persistence.bo.User;
+import de.fhg.iais.roberta.persistence.bo.UserGroup;
 import de.fhg.iais.roberta.persistence.util.DbSession;
+import de.fhg.iais.roberta.persistence.util.ProgramCounters;
 import de.fhg.iais.roberta.util.Key;
 import de.fhg.iais.roberta.util.Pair;
 import de.fhg.iais.roberta.util.dbc.Assert;
@@ -29,17 +31,16 @@ public class LikeDao extends AbstractDao<Like> {
      * @param user likes the program
      * @param program liked by the user
      * @return the created object if the creation is successful o/w <b>null</b>
-     * @throws Exception
      */
-    public Pair<Key, Like> persistsLike(User user, Program program) throws Exception {
+    public Pair<Key, Like> persistsLike(User user, Program program) {
         Assert.notNull(user);
         Assert.notNull(program);
-        lockTable();
         Like like = loadLike(user, program);
 
         if ( like == null ) {
             like = new Like(user, program);
             this.session.save(like);
+            updateNumberOfLikes(program, 1);
             return Pair.of(Key.LIKE_SAVE_SUCCESS, like);
         } else {
             return Pair.of(Key.LIKE_SAVE_ERROR_EXISTS, null);
@@ -72,6 +73,7 @@ public class LikeDao extends AbstractDao<Like> {
     public int deleteLike(Like like) {
         Assert.notNull(like);
         this.session.delete(like);
+        updateNumberOfLikes(like.getProgram(), -1);
         return 1;
     }
 
@@ -96,11 +98,48 @@ public class LikeDao extends AbstractDao<Like> {
     }
 
     /**
-     * create a write lock for the table USER_PROGRAM_LIKE to avoid deadlocks. This is a no op if concurrency control is not 2PL, but MVCC
+     * the likes of a user are deleted by the database, when the user is deleted (ON DELETE CASCADE). The users deleted are the user itself and the members
+     * of the groups owned by the user. This method must be called before the user is deleted, to keep the column NUMBER_OF_LIKES consistent
+     *
+     * @param user the user, that is deleted next, never null
+     */
+    public void uncountLikesOfUser(User user) {
+        Assert.notNull(user);
+        uncountLikesOf("USER_ID = :id or USER_ID in (select m.ID from USER m join USERGROUP g on m.USERGROUP_ID = g.ID where g.OWNER_ID = :id)", user.getId());
+    }
+
+    /**
+     * like {@link #uncountLikesOfUser(User)}, for the members of a user group, that is deleted next
+     *
+     * @param userGroup the user group, that is deleted next, never null
+     */
+    public void uncountLikesOfUserGroupMembers(UserGroup userGroup) {
+        Assert.notNull(userGroup);
+        uncountLikesOf("USER_ID in (select m.ID from USER m where m.USERGROUP_ID = :id)", userGroup.getId());
+    }
+
+    private void uncountLikesOf(String likesCondition, int id) {
+        this.session
+            .createSqlQuery(
+                "update PROGRAM p set NUMBER_OF_LIKES = NUMBER_OF_LIKES - (select count(*) from USER_PROGRAM_LIKE where PROGRAM_ID = p.ID and ("
+                    + likesCondition
+                    + ")) where ID in (select PROGRAM_ID from USER_PROGRAM_LIKE where "
+                    + likesCondition
+                    + ")")
+            .setInteger("id", id)
+            .executeUpdate();
+    }
+
+    /**
+     * keep the column NUMBER_OF_LIKES of a program consistent with the likes stored. The change is buffered by {@link ProgramCounters} and written later
+     * together with the changes of other likes. It is buffered only, if the like is committed
+     *
+     * @param program the program liked or disliked, never null
+     * @param delta +1 for a new like, -1 for a deleted like
      */
-    private void lockTable() {
-        this.session.createSqlQuery("lock table USER_PROGRAM_LIKE write").executeUpdate();
-        this.session.addToLog("lock", "is now aquired");
+    private void updateNumberOfLikes(Program program, int delta) {
+        int programId = program.getId();
+        this.session.afterCommit(() -> ProgramCounters.getInstance().addLikes(programId, delta));
     }
 
 }
@@ -1,9 +1,13 @@
 package de.fhg.iais.roberta.persistence.dao;
 
+import java.sql.PreparedStatement;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.hibernate.Query;
 import org.hibernate.SQLQuery;
@@ -15,9 +19,11 @@ import de.fhg.iais.roberta.persistence.bo.Program;
 import de.fhg.iais.roberta.persistence.bo.Relation;
 import de.fhg.iais.roberta.persistence.bo.Robot;
 import de.fhg.iais.roberta.persistence.bo.User;
+import de.fhg.iais.roberta.persistence.bo.UserGroup;
 import de.fhg.iais.roberta.persistence.bo.UserGroupProgramShare;
 import de.fhg.iais.roberta.persistence.bo.UserProgramShare;
 import de.fhg.iais.roberta.persistence.util.DbSession;
+import de.fhg.iais.roberta.persistence.util.ProgramCounters;
 import de.fhg.iais.roberta.util.Key;
 import de.fhg.iais.roberta.util.Pair;
 import de.fhg.iais.roberta.util.dbc.Assert;
@@ -239,6 +245,70 @@ public class ProgramDao extends AbstractDao<Program> {
         return Collections.unmodifiableList(il);
     }
 
+    /**
+     * load the list entries of all programs, which are owned by a given user and written for a given robot type. Only the columns needed for the program
+     * list are read, the programs are not loaded
+     *
+     * @return the list entries, may be an empty list, but never null
+     */
+    public List<ProgramListEntry> loadListing(User owner, Robot robot) {
+        Query hql =
+            this.session
+                .createQuery(
+                    "select p.id, p.name, o.account, a.account, p.created, p.lastChanged from Program p join p.owner o join p.author a "
+                        + "where p.owner=:owner and p.robot=:robot");
+        hql.setEntity("owner", owner);
+        hql.setEntity("robot", robot);
+        return toProgramListEntries(hql);
+    }
+
+    /**
+     * load the list entries of all programs, which are owned by the members of a user group and written for a given robot type. One query for all members
+     *
+     * @return the list entries, may be an empty list, but never null
+     */
+    public List<ProgramListEntry> loadListingOfUserGroupMembers(UserGroup userGroup, Robot robot) {
+        Query hql =
+            this.session
+                .createQuery(
+                    "select p.id, p.name, o.account, a.account, p.created, p.lastChanged from Program p join p.owner o join p.author a "
+                        + "where o.userGroup=:userGroup and p.robot=:robot");
+        hql.setEntity("userGroup", userGroup);
+        hql.setEntity("robot", robot);
+        return toProgramListEntries(hql);
+    }
+
+    /**
+     * load the list entries of all programs, which are owned by the members of all user groups of a group owner and written for a given robot type. One query
+     * for all groups and members
+     *
+     * @return the list entries, may be an empty list, but never null
+     */
+    public List<ProgramListEntry> loadListingOfMembersOfUserGroupsOwnedBy(User groupOwner, Robot robot) {
+        Query hql =
+            this.session
+                .createQuery(
+                    "select p.id, p.name, o.account, a.account, p.created, p.lastChanged from Program p join p.owner o join p.author a join o.userGroup g "
+                        + "where g.owner=:groupOwner and p.robot=:robot");
+        hql.setEntity("groupOwner", groupOwner);
+        hql.setEntity("robot", robot);
+        return toProgramListEntries(hql);
+    }
+
+    /**
+     * map the rows of a program projection query to list entries. The query must select "id, name, owner account, author account, created, lastChanged" and
+     * optionally the relation of a share
+     */
+    static List<ProgramListEntry> toProgramListEntries(Query hql) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = hql.list();
+        List<ProgramListEntry> entries = new ArrayList<>(rows.size());
+        for ( Object[] row : rows ) {
+            entries.add(ProgramListEntry.of(row));
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
     /**
      * load all programs persisted in the database
      *
@@ -251,23 +321,64 @@ public class ProgramDao extends AbstractDao<Program> {
         return Collections.unmodifiableList(il);
     }
 
-    public JSONArray loadGallery(int galleryId, int userId, String robotGroup) {
+    /**
+     * load one page of the gallery. Only summary columns are selected, the program text is loaded when an entry is opened. The page starts after the entry,
+     * whose sort value and id are given (keyset pagination), thus the time to load a page doesn't depend on the size of the gallery.<br>
+     * Each row contains: robot name, program name, description, author, created (as string), number of views, number of likes, tags, true if the user
+     * liked the program, program id, sort value (as string). The client must send the sort value and the id of the last entry as cursor for the next page,
+     * never a displayed column, because the column of the sort value depends on the sort order.<br>
+     * The views and likes not written by {@link ProgramCounters} yet are added to the displayed columns, but the pages are selected and ordered by the
+     * persisted values, which the sort value contains. Thus pending counters never cause an entry to be repeated or skipped, only the displayed views and
+     * likes of a page may be out of order, until the counters are written
+     *
+     * @param galleryId the id of the gallery user
+     * @param userId the id of the user, whose likes are marked
+     * @param robotGroup the robot group; the empty string for all robots
+     * @param search only entries, whose program name, author, description or tags contain this text (ignoring case), are returned; null or the empty
+     *        string for all entries
+     * @param sortOrder the order of the entries, never null
+     * @param limit the maximal number of entries returned
+     * @param afterValue the sort value of the last entry of the previous page, as returned in that page; null for the first page
+     * @param afterId the id of the last entry of the previous page; ignored for the first page
+     * @return the entries of the page, may be empty, but never null
+     */
+    public JSONArray loadGallery(
+        int galleryId,
+        int userId,
+        String robotGroup,
+        String search,
+        GallerySortOrder sortOrder,
+        int limit,
+        String afterValue,
+        int afterId) {
+        String sortColumn = sortOrder.getColumn();
+        String after = sortOrder.isAscending() ? " > " : " < ";
+        String direction = sortOrder.isAscending() ? " asc" : " desc";
+        boolean isSearched = search != null && !search.isEmpty();
         String galleryProgramSql = "" + //
-            "select r.NAME as rname, p.NAME as pname, p.PROGRAM_TEXT as ptext, u.ACCOUNT as owner, p.CREATED as created, p.VIEWED as views," + //
-            "       (select count(l1.ID) from USER_PROGRAM_LIKE l1 where l1.PROGRAM_ID=p.ID) as likes," + //
-            "       p.TAGS as tags," + //
-            "       case when (select count(l2.ID) from USER_PROGRAM_LIKE l2 where l2.PROGRAM_ID=p.ID and l2.USER_ID=:userId)>0 then TRUE " + //
-            "            else FALSE " + //
-            "       end as iLikedIt " + //
-            "from PROGRAM p, ROBOT r, USER u " + //
-            "where p.OWNER_ID = :galleryId " + //
-            "  and p.ROBOT_ID = r.ID " + //
-            "  and p.AUTHOR_ID = u.ID ";
+            "select r.NAME as rname, p.NAME as pname, p.DESCRIPTION as description, u.ACCOUNT as owner, p.CREATED as created, p.VIEWED as views," + //
+            "       p.NUMBER_OF_LIKES as likes, p.TAGS as tags," + //
+            "       case when l.ID is null then FALSE else TRUE end as iLikedIt, p.ID as id, " + sortColumn + " as sortValue " + //
+            "from PROGRAM p" + //
+            "     join ROBOT r on p.ROBOT_ID = r.ID" + //
+            "     join USER u on p.AUTHOR_ID = u.ID" + //
+            "     left join USER_PROGRAM_LIKE l on l.PROGRAM_ID = p.ID and l.USER_ID = :userId " + //
+            "where p.OWNER_ID = :galleryId ";
 
         if ( !robotGroup.isEmpty() ) {
             galleryProgramSql = galleryProgramSql + "" + //
                 " and r.NAME = :robotGroup ";
         }
+        if ( isSearched ) {
+            galleryProgramSql = galleryProgramSql + "" + //
+                " and (lower(p.NAME) like :search escape '\\' or lower(u.ACCOUNT) like :search escape '\\'" + //
+                "      or lower(p.DESCRIPTION) like :search escape '\\' or lower(p.TAGS) like :search escape '\\') ";
+        }
+        if ( afterValue != null ) {
+            galleryProgramSql = galleryProgramSql + "" + //
+                " and (" + sortColumn + after + ":afterValue or (" + sortColumn + " = :afterValue and p.ID" + after + ":afterId)) ";
+        }
+        galleryProgramSql = galleryProgramSql + "order by " + sortColumn + direction + ", p.ID" + direction;
 
         SQLQuery query = this.session.createSqlQuery(galleryProgramSql);
         query.setInteger("userId", userId);
@@ -275,23 +386,50 @@ public class ProgramDao extends AbstractDao<Program> {
         if ( !robotGroup.isEmpty() ) {
             query.setString("robotGroup", robotGroup);
         }
+        if ( isSearched ) {
+            query.setString("search", "%" + search.toLowerCase().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%");
+        }
+        if ( afterValue != null ) {
+            query.setParameter("afterValue", sortOrder.toSortValue(afterValue));
+            query.setInteger("afterId", afterId);
+        }
+        query.setMaxResults(limit);
 
         @SuppressWarnings("unchecked")
         List<Object[]> galleryList = query.list();
 
+        ProgramCounters programCounters = ProgramCounters.getInstance();
         JSONArray programs = new JSONArray();
         for ( Object[] program : galleryList ) {
+            int programId = ((Number) program[9]).intValue();
+            program[4] = program[4].toString();
+            program[10] = program[10].toString();
+            program[5] = ((Number) program[5]).longValue() + programCounters.getPendingViews(programId);
+            program[6] = ((Number) program[6]).longValue() + programCounters.getPendingLikes(programId);
             programs.put(Arrays.asList(program));
         }
         return programs;
     }
 
     /**
-     * create a write lock for the table PROGRAM to avoid deadlocks. This is a no op if concurrency control is not 2PL, but MVCC
+     * add the views and likes collected by {@link ProgramCounters} to the counters of the programs. The counters are incremented in the database with one
+     * JDBC batch, thus concurrent increments are never lost and don't change the version of the programs. Programs deleted meanwhile are skipped
+     *
+     * @param increments maps the id of a program to its increment of views (index 0) and of likes (index 1), never null
      */
-    public void lockTable() {
-        this.session.createSqlQuery("lock table PROGRAM write").executeUpdate();
-        this.session.addToLog("lock", "is now aquired");
+    public void addToCounters(Map<Integer, long[]> increments) {
+        String updateSql = "update PROGRAM set VIEWED = VIEWED + ?, NUMBER_OF_LIKES = NUMBER_OF_LIKES + ? where ID = ?";
+        this.session.getSession().doWork(connection -> {
+            try (PreparedStatement update = connection.prepareStatement(updateSql)) {
+                for ( Entry<Integer, long[]> entry : increments.entrySet() ) {
+                    update.setLong(1, entry.getValue()[0]);
+                    update.setLong(2, entry.getValue()[1]);
+                    update.setInt(3, entry.getKey());
+                    update.addBatch();
+                }
+                update.executeBatch();
+            }
+        });
     }
 
 }
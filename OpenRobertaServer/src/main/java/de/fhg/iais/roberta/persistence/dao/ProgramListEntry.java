@@ -0,0 +1,73 @@
+package de.fhg.iais.roberta.persistence.dao;
+
+import java.sql.Timestamp;
+
+import de.fhg.iais.roberta.persistence.bo.Relation;
+
+/**
+ * a row of a program list. The listing queries of the DAOs project the columns needed for the program lists of the frontend only. Thus the program text and
+ * the entities referenced by a program are never loaded. Immutable.
+ */
+public final class ProgramListEntry {
+    private final int id;
+    private final String name;
+    private final String ownerAccount;
+    private final String authorAccount;
+    private final Timestamp created;
+    private final Timestamp lastChanged;
+    private final Relation relation;
+
+    private ProgramListEntry(int id, String name, String ownerAccount, String authorAccount, Timestamp created, Timestamp lastChanged, Relation relation) {
+        this.id = id;
+        this.name = name;
+        this.ownerAccount = ownerAccount;
+        this.authorAccount = authorAccount;
+        this.created = created;
+        this.lastChanged = lastChanged;
+        this.relation = relation;
+    }
+
+    /**
+     * create an entry from a row of the projection "id, name, owner account, author account, created, lastChanged [, relation]"
+     */
+    static ProgramListEntry of(Object[] row) {
+        Relation relation = row.length > 6 ? (Relation) row[6] : null;
+        return new ProgramListEntry((Integer) row[0], (String) row[1], (String) row[2], (String) row[3], (Timestamp) row[4], (Timestamp) row[5], relation);
+    }
+
+    public int getId() {
+        return this.id;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getOwnerAccount() {
+        return this.ownerAccount;
+    }
+
+    public String getAuthorAccount() {
+        return this.authorAccount;
+    }
+
+    public Timestamp getCreated() {
+        return this.created;
+    }
+
+    public Timestamp getLastChanged() {
+        return this.lastChanged;
+    }
+
+    /**
+     * @return the relation of a program shared with a user or a user group; null for programs listed for their owner
+     */
+    public Relation getRelation() {
+        return this.relation;
+    }
+
+    @Override
+    public String toString() {
+        return "ProgramListEntry [id=" + this.id + ", name=" + this.name + ", owner=" + this.ownerAccount + ", author=" + this.authorAccount + "]";
+    }
+}
@@ -0,0 +1,62 @@
+package de.fhg.iais.roberta.persistence.dao;
+
+import de.fhg.iais.roberta.persistence.bo.Relation;
+import de.fhg.iais.roberta.persistence.bo.User;
+import de.fhg.iais.roberta.persistence.bo.UserGroup;
+
+/**
+ * a share of a program as shown in the program lists: the type and the label of the user or user group, the program is shared with, and the relation. Loaded
+ * by projection queries, that don't load the program shared. Immutable.
+ */
+public final class ProgramShareListEntry {
+    private final int programId;
+    private final Integer userId;
+    private final String entityType;
+    private final String entityLabel;
+    private final Relation relation;
+
+    private ProgramShareListEntry(int programId, Integer userId, String entityType, String entityLabel, Relation relation) {
+        this.programId = programId;
+        this.userId = userId;
+        this.entityType = entityType;
+        this.entityLabel = entityLabel;
+        this.relation = relation;
+    }
+
+    /**
+     * create an entry from a row of the projection "program id, user id, user account, relation"
+     */
+    static ProgramShareListEntry ofUserShare(Object[] row) {
+        return new ProgramShareListEntry((Integer) row[0], (Integer) row[1], User.class.getSimpleName(), (String) row[2], (Relation) row[3]);
+    }
+
+    /**
+     * create an entry from a row of the projection "program id, user group name, relation"
+     */
+    static ProgramShareListEntry ofUserGroupShare(Object[] row) {
+        return new ProgramShareListEntry((Integer) row[0], null, UserGroup.class.getSimpleName(), (String) row[1], (Relation) row[2]);
+    }
+
+    public int getProgramId() {
+        return this.programId;
+    }
+
+    /**
+     * @return the id of the user the program is shared with; null, if the program is shared with a user group
+     */
+    public Integer getUserId() {
+        return this.userId;
+    }
+
+    public String getEntityType() {
+        return this.entityType;
+    }
+
+    public String getEntityLabel() {
+        return this.entityLabel;
+    }
+
+    public Relation getRelation() {
+        return this.relation;
+    }
+}
@@ -120,6 +120,7 @@ public class UserDao extends AbstractDao<User> {
 
     public int deleteUser(User userToBeDeleted) {
         Assert.notNull(userToBeDeleted);
+        new LikeDao(this.session).uncountLikesOfUser(userToBeDeleted);
         this.session.delete(userToBeDeleted);
         return 1;
     }
@@ -110,6 +110,7 @@ public class UserGroupDao extends AbstractDao<UserGroup> {
             return 0;
         }
 
+        new LikeDao(this.session).uncountLikesOfUserGroupMembers(toBeDeleted);
         this.session.delete(toBeDeleted);
         return 1;
     }
@@ -196,12 +197,4 @@ public class UserGroupDao extends AbstractDao<UserGroup> {
         group.rename(newGroupName);
         return Pair.of(Key.GROUP_RENAME_SUCCESS, group);
     }
-
-    /**
-     * create a write lock for the table USERGROUP to avoid deadlocks. This is a no op if concurrency control is not 2PL, but MVCC
-     */
-    public void lockTable() {
-        this.session.createSqlQuery("lock table USERGROUP write").executeUpdate();
-        this.session.addToLog("lock", "is now aquired");
-    }
 }
@@ -1,5 +1,6 @@
 package de.fhg.iais.roberta.persistence.dao;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -32,7 +33,6 @@ public class UserGroupProgramShareDao extends AbstractDao<UserGroupProgramShare>
         Assert.notNull(program);
         Assert.notNull(relation);
 
-        this.lockTable();
         UserGroupProgramShare userGroupProgramShare = this.loadUserGroupProgramShare(userGroup, program);
         if ( userGroupProgramShare == null ) {
             userGroupProgramShare = new UserGroupProgramShare(userGroup, program, relation);
@@ -50,7 +50,6 @@ public class UserGroupProgramShareDao extends AbstractDao<UserGroupProgramShare>
      * @param program the program
      */
     public void deleteUserGroupProgramShare(UserGroup userGroup, Program program) {
-        this.lockTable();
         UserGroupProgramShare toBeDeleted = this.loadUserGroupProgramShare(userGroup, program);
         if ( toBeDeleted != null ) {
             this.session.delete(toBeDeleted);
@@ -120,10 +119,51 @@ public class UserGroupProgramShareDao extends AbstractDao<UserGroupProgramShare>
     }
 
     /**
-     * create a write lock for the table USERGROUP_PROGRAM to avoid deadlocks. This is a no op if concurrency control is not 2PL, but MVCC
+     * load the list entries of all programs, which are shared with a user group given. The relation of the share is part of the entry. The programs are not
+     * loaded
+     *
+     * @param userGroup the user group, never null
+     * @param robot the robot type of the programs; if null, programs of all robot types are listed
+     *
+     * @return the list entries, may be an empty list, but never null
+     */
+    public List<ProgramListEntry> loadListingOfProgramsSharedWithUserGroup(UserGroup userGroup, Robot robot) {
+        Assert.notNull(userGroup);
+        String projection =
+            "select p.id, p.name, o.account, a.account, p.created, p.lastChanged, s.relation from UserGroupProgramShare s join s.program p "
+                + "join p.owner o join p.author a where s.userGroup=:userGroup";
+        Query hql;
+        if ( robot != null ) {
+            hql = this.session.createQuery(projection + " and p.robot=:robot");
+            hql.setEntity("robot", robot);
+        } else {
+            hql = this.session.createQuery(projection);
+        }
+        hql.setEntity("userGroup", userGroup);
+        return ProgramDao.toProgramListEntries(hql);
+    }
+
+    /**
+     * load the shares of programs with user groups for the program lists. Neither the programs nor the user groups are loaded
+     *
+     * @param programIds the ids of the programs shared, never null
+     * @return the shares of all programs given, may be an empty list, but never null
      */
-    private void lockTable() {
-        this.session.createSqlQuery("lock table USERGROUP_PROGRAM write").executeUpdate();
-        this.session.addToLog("lock", "is now aquired");
+    public List<ProgramShareListEntry> loadShareListingByPrograms(List<Integer> programIds) {
+        Assert.notNull(programIds);
+        List<ProgramShareListEntry> entries = new ArrayList<>();
+        for ( List<Integer> batch : inBatches(programIds) ) {
+            Query hql =
+                this.session
+                    .createQuery("select s.program.id, g.name, s.relation from UserGroupProgramShare s join s.userGroup g where s.program.id in (:programIds)");
+            hql.setParameterList("programIds", batch);
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = hql.list();
+            for ( Object[] row : rows ) {
+                entries.add(ProgramShareListEntry.ofUserGroupShare(row));
+            }
+        }
+        return Collections.unmodifiableList(entries);
     }
+
 }
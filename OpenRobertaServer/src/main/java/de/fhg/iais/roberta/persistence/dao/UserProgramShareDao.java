@@ -1,5 +1,6 @@
 package de.fhg.iais.roberta.persistence.dao;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -40,7 +41,6 @@ public class UserProgramShareDao extends AbstractDao<UserProgramShare> {
         Assert.notNull(program);
         Assert.notNull(relation);
 
-        this.lockTable();
         UserProgramShare accessRight = this.loadUserProgramShare(user, program);
         if ( accessRight == null ) {
             accessRight = new UserProgramShare(user, program, relation);
@@ -58,7 +58,6 @@ public class UserProgramShareDao extends AbstractDao<UserProgramShare> {
      * @param program the program affected
      */
     public void deleteUserProgramShare(User user, Program program) {
-        this.lockTable();
         UserProgramShare toBeDeleted = this.loadUserProgramShare(user, program);
         if ( toBeDeleted != null ) {
             this.session.delete(toBeDeleted);
@@ -123,6 +122,48 @@ public class UserProgramShareDao extends AbstractDao<UserProgramShare> {
 
     }
 
+    /**
+     * load the list entries of all programs of a robot type, which are shared with a user given. The relation of the share is part of the entry. The programs
+     * are not loaded
+     *
+     * @return the list entries, may be an empty list, but never null
+     */
+    public List<ProgramListEntry> loadListingOfProgramsSharedWithUser(User user, Robot robot) {
+        Assert.notNull(user);
+        Assert.notNull(robot);
+        Query hql =
+            this.session
+                .createQuery(
+                    "select p.id, p.name, o.account, a.account, p.created, p.lastChanged, s.relation from UserProgramShare s join s.program p join p.owner o "
+                        + "join p.author a where s.user=:user and p.robot=:robot");
+        hql.setEntity("user", user);
+        hql.setEntity("robot", robot);
+        return ProgramDao.toProgramListEntries(hql);
+    }
+
+    /**
+     * load the shares of programs with users for the program lists. Neither the programs nor the users are loaded
+     *
+     * @param programIds the ids of the programs shared, never null
+     * @return the shares of all programs given, may be an empty list, but never null
+     */
+    public List<ProgramShareListEntry> loadShareListingByPrograms(List<Integer> programIds) {
+        Assert.notNull(programIds);
+        List<ProgramShareListEntry> entries = new ArrayList<>();
+        for ( List<Integer> batch : inBatches(programIds) ) {
+            Query hql =
+                this.session
+                    .createQuery("select s.program.id, u.id, u.account, s.relation from UserProgramShare s join s.user u where s.program.id in (:programIds)");
+            hql.setParameterList("programIds", batch);
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = hql.list();
+            for ( Object[] row : rows ) {
+                entries.add(ProgramShareListEntry.ofUserShare(row));
+            }
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
     /**
      * @param userId
      * @param programName
@@ -148,12 +189,4 @@ public class UserProgramShareDao extends AbstractDao<UserProgramShare> {
         return il.size() == 0 ? null : il.get(0);
     }
 
-    /**
-     * create a write lock for the table USER_PROGRAM to avoid deadlocks. This is a no op if concurrency control is not 2PL, but MVCC
-     */
-    private void lockTable() {
-        this.session.createSqlQuery("lock table USER_PROGRAM write").executeUpdate();
-        this.session.addToLog("lock", "is now aquired");
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package de.fhg.iais.roberta.persistence.util;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fhg.iais.roberta.robotCommunication.IRobotTokenDirectory;
+
+/**
+ * a {@link IRobotTokenDirectory} stored in the table ROBOT_TOKEN of the database, that all nodes of a cluster share. Each method is one short transaction,
+ * all statements access the table by its primary key.
+ */
+public class DbRobotTokenDirectory implements IRobotTokenDirectory {
+    private static final Logger LOG = LoggerFactory.getLogger(DbRobotTokenDirectory.class);
+
+    private static final String CLAIM_SQL =
+        "merge into ROBOT_TOKEN using (values(cast(:token as varchar(32)), cast(:node as varchar(255)))) as V(TOKEN, NODE) on ROBOT_TOKEN.TOKEN = V.TOKEN "
+            + "when not matched then insert values (V.TOKEN, V.NODE, current_timestamp)";
+    private static final String OWNER_SQL = "select NODE from ROBOT_TOKEN where TOKEN = :token";
+    private static final String RELEASE_SQL = "delete from ROBOT_TOKEN where TOKEN = :token and NODE = :node";
+    private static final String RELEASE_ALL_SQL = "delete from ROBOT_TOKEN where NODE = :node";
+
+    private final SessionFactoryWrapper sessionFactoryWrapper;
+
+    public DbRobotTokenDirectory(SessionFactoryWrapper sessionFactoryWrapper) {
+        this.sessionFactoryWrapper = sessionFactoryWrapper;
+    }
+
+    @Override
+    public boolean claim(String token, String node) {
+        DbSession session = this.sessionFactoryWrapper.getSession();
+        try {
+            session.createSqlQuery(CLAIM_SQL).setString("token", token).setString("node", node).executeUpdate();
+            boolean claimed = node.equals(getOwner(session, token));
+            session.close();
+            return claimed;
+        } catch ( Exception e ) {
+            // e.g. a concurrent claim of the same token by another node violates the primary key. The robot will try another token
+            LOG.error("claiming token " + token + " for node " + node + " failed", e);
+            session.rollback();
+            return false;
+        }
+    }
+
+    @Override
+    public String getOwner(String token) {
+        DbSession session = this.sessionFactoryWrapper.getSession();
+        try {
+            String owner = getOwner(session, token);
+            session.close();
+            return owner;
+        } catch ( Exception e ) {
+            LOG.error("reading the owner of token " + token + " failed", e);
+            session.rollback();
+            return null;
+        }
+    }
+
+    @Override
+    public void release(String token, String node) {
+        DbSession session = this.sessionFactoryWrapper.getSession();
+        try {
+            session.createSqlQuery(RELEASE_SQL).setString("token", token).setString("node", node).executeUpdate();
+            session.close();
+        } catch ( Exception e ) {
+            LOG.error("releasing token " + token + " of node " + node + " failed", e);
+            session.rollback();
+        }
+    }
+
+    /**
+     * release all tokens of a node. Called when a node starts: the states of the robots connected to its previous incarnation are lost
+     *
+     * @param node the identification of the node
+     */
+    public void releaseAll(String node) {
+        DbSession session = this.sessionFactoryWrapper.getSession();
+        try {
+            int released = session.createSqlQuery(RELEASE_ALL_SQL).setString("node", node).executeUpdate();
+            session.close();
+            LOG.info("released " + released + " robot tokens of a previous run of node " + node);
+        } catch ( Exception e ) {
+            LOG.error("releasing the tokens of node " + node + " failed", e);
+            session.rollback();
+        }
+    }
+
+    private static String getOwner(DbSession session, String token) {
+        @SuppressWarnings("unchecked")
+        List<Object> owners = session.createSqlQuery(OWNER_SQL).setString("token", token).list();
+        return owners.isEmpty() ? null : (String) owners.get(0);
+    }
+}
@@ -1,21 +1,31 @@
 package de.fhg.iais.roberta.persistence.util;
 
 import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
+import org.hibernate.HibernateException;
 import org.hibernate.Query;
 import org.hibernate.SQLQuery;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StaleStateException;
 import org.hibernate.Transaction;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.LockAcquisitionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.fhg.iais.roberta.persistence.bo.WithSurrogateId;
+import de.fhg.iais.roberta.util.MetricsRegistry;
 import de.fhg.iais.roberta.util.dbc.Assert;
 
 /**
@@ -35,14 +45,20 @@ public class DbSession {
      * if a db session is older than this value, it will be closed and removed to avoid a resource leak
      */
     private static final long DURATION_TIMEOUT_MSEC_FOR_CLEANUP = TimeUnit.MINUTES.toMillis(5);
+    /**
+     * how often a unit of work is run, if it conflicts with concurrent transactions, see {@link #runWithRetryOnConflict(Supplier)}
+     */
+    private static final int MAX_ATTEMPTS_ON_CONFLICT = 3;
 
     private Session session;
+    private List<Runnable> afterCommitActions = new ArrayList<>();
 
     // data for analyzing db session usage. Global storage, access MUST be atomically/synchronized
     private static final AtomicLong currentOpenSessionCounter = new AtomicLong(0);
     private static final AtomicLong cleanedSessionCounter = new AtomicLong(0);
     private static final AtomicLong unusedSessionCounter = new AtomicLong(0);
     private static final AtomicLong sessionIdGenerator = new AtomicLong(0);
+    private static final AtomicLong conflictCounter = new AtomicLong(0);
     private static final Map<Long, DbSession> sessionMap = new ConcurrentHashMap<>(); // potentially dangerous resource usage!
 
     // data for analyzing db session usage.
@@ -76,6 +92,7 @@ public class DbSession {
         addTransaction("rollback"); // for analyzing db session usage.
         if ( this.session != null ) {
             LOG.info("rollback");
+            this.afterCommitActions = new ArrayList<>();
             Transaction transaction = this.session.getTransaction();
             transaction.rollback();
             this.session.close();
@@ -94,12 +111,28 @@ public class DbSession {
         // LOG.debug("commit + start transaction [implicitly close session and open a new one]");
         addTransaction("commit"); // for analyzing db session usage.
 
+        List<Runnable> actions = this.afterCommitActions;
+        this.afterCommitActions = new ArrayList<>();
         Transaction transaction = this.session.getTransaction();
         transaction.commit();
+        for ( Runnable action : actions ) {
+            action.run();
+        }
 
         this.session.beginTransaction();
     }
 
+    /**
+     * register an action, that is run after the current transaction is committed. If the transaction is rolled back or the commit fails, the action is
+     * dropped. Used for changes outside of the database, that must only be done for persisted changes
+     *
+     * @param action the action, never null
+     */
+    public void afterCommit(Runnable action) {
+        Assert.notNull(action);
+        this.afterCommitActions.add(action);
+    }
+
     /**
      * commit the current transaction and close the session
      */
@@ -131,6 +164,68 @@ public class DbSession {
         }
     }
 
+    /**
+     * run a unit of work with optimistic concurrency control. Rows are not locked, instead a conflict with a concurrent transaction is detected by the
+     * database: an update of a row, whose version was changed meanwhile (see the <code>@Version</code> columns of the entities), or an insert, that violates
+     * a unique index. In this case the transaction is rolled back, a fresh hibernate session is opened and the unit of work is run again. It has to load
+     * the entities it needs itself, because entities loaded before are detached after a conflict. Other constraint violations (not null, foreign key)
+     * are errors, that a retry doesn't fix, they are thrown immediately.<br>
+     * The work done before in this session is committed first, the unit of work is committed, when it terminates.
+     *
+     * @param unitOfWork the unit of work, never null
+     * @return the result of the unit of work
+     * @throws HibernateException the exception of the last conflict, if the conflict persists after {@link #MAX_ATTEMPTS_ON_CONFLICT} attempts
+     */
+    public <T> T runWithRetryOnConflict(Supplier<T> unitOfWork) {
+        commit();
+        for ( int attempt = 1;; attempt++ ) {
+            try {
+                T result = unitOfWork.get();
+                commit();
+                return result;
+            } catch ( StaleStateException | ConstraintViolationException | LockAcquisitionException e ) {
+                if ( e instanceof ConstraintViolationException && !isUniqueKeyViolation((ConstraintViolationException) e) ) {
+                    throw e;
+                }
+                conflictCounter.incrementAndGet();
+                if ( attempt >= MAX_ATTEMPTS_ON_CONFLICT ) {
+                    throw e;
+                }
+                LOG.info("conflict with a concurrent transaction in attempt " + attempt + ", the unit of work is run again: " + e.getMessage());
+                addTransaction("rollback after a conflict");
+                this.afterCommitActions = new ArrayList<>();
+                SessionFactory sessionFactory = this.session.getSessionFactory();
+                Transaction transaction = this.session.getTransaction();
+                if ( transaction.isActive() ) {
+                    transaction.rollback();
+                }
+                this.session.close();
+                this.session = sessionFactory.openSession();
+                this.session.beginTransaction();
+            }
+        }
+    }
+
+    /**
+     * @return true, if a unique index was violated (SQL state 23505); false for other integrity constraints, e.g. not null or foreign key
+     */
+    private static boolean isUniqueKeyViolation(ConstraintViolationException e) {
+        SQLException sqlException = e.getSQLException();
+        return sqlException != null && "23505".equals(sqlException.getSQLState());
+    }
+
+    /**
+     * run a unit of work without result with optimistic concurrency control, see {@link #runWithRetryOnConflict(Supplier)}
+     *
+     * @param unitOfWork the unit of work, never null
+     */
+    public void runWithRetryOnConflict(Runnable unitOfWork) {
+        runWithRetryOnConflict(() -> {
+            unitOfWork.run();
+            return null;
+        });
+    }
+
     /**
      * load an object persisted in the database, identified by its key.<br>
      * <b>It is assumed, that the object exists! If in doubt, use get :-)</b> If the object doesn't reside in the db, accesssing the proxy returned will
@@ -262,6 +357,19 @@ public class DbSession {
         }
     }
 
+    /**
+     * register the gauges and counters of the db sessions. Sessions closed by {@link #cleanupSessions()} were leaked by their creator
+     *
+     * @param registry the registry of the server
+     */
+    public static void registerMetrics(MetricsRegistry registry) {
+        registry.gauge("roberta_db_sessions_open", "db sessions currently in use", currentOpenSessionCounter::get);
+        registry.counter("roberta_db_sessions_created_total", "db sessions created", sessionIdGenerator::get);
+        registry.counter("roberta_db_sessions_leaked_total", "expired db sessions rolled back by the cleanup", cleanedSessionCounter::get);
+        registry.counter("roberta_db_sessions_unused_total", "db sessions created, but never used", unusedSessionCounter::get);
+        registry.counter("roberta_db_conflicts_total", "conflicts with concurrent transactions, that caused a rollback", conflictCounter::get);
+    }
+
     /**
      * @return the number of open db sessions. Should be 0 or very close to zero, if no deadlock has occured.
      */
@@ -269,6 +377,13 @@ public class DbSession {
         return currentOpenSessionCounter.get();
     }
 
+    /**
+     * @return the number of conflicts with concurrent transactions since server start, see {@link #runWithRetryOnConflict(Supplier)}
+     */
+    public static long getConflictCounter() {
+        return conflictCounter.get();
+    }
+
     public static long getCleanedSessionCounter() {
         return cleanedSessionCounter.get();
     }
@@ -51,6 +51,33 @@ public class DbUpgrader {
                 dbUpgrader4_0_0.run();
             }
 
+            /*
+             * 4.0.11 table ROBOT_TOKEN for the robot token directory of a cluster of servers
+             */
+            DbUpgrader4_0_11 dbUpgrader4_0_11 = new DbUpgrader4_0_11(sessionFactoryWrapper);
+            boolean upgradeDone4_0_11 = dbUpgrader4_0_11.isUpgradeDone();
+            if ( !upgradeDone4_0_11 ) {
+                dbUpgrader4_0_11.run();
+            }
+
+            /*
+             * 4.0.12 description and number of likes of programs, indexes for the gallery
+             */
+            DbUpgrader4_0_12 dbUpgrader4_0_12 = new DbUpgrader4_0_12(sessionFactoryWrapper);
+            boolean upgradeDone4_0_12 = dbUpgrader4_0_12.isUpgradeDone();
+            if ( !upgradeDone4_0_12 ) {
+                dbUpgrader4_0_12.run();
+            }
+
+            /*
+             * 4.0.13 version columns for optimistic concurrency control of programs, shares and likes. Replaces the table locks
+             */
+            DbUpgrader4_0_13 dbUpgrader4_0_13 = new DbUpgrader4_0_13(sessionFactoryWrapper);
+            boolean upgradeDone4_0_13 = dbUpgrader4_0_13.isUpgradeDone();
+            if ( !upgradeDone4_0_13 ) {
+                dbUpgrader4_0_13.run();
+            }
+
             /*
              * x.x.x ... ... ... copy the implementation from above. Start with a clone of the upgrader class DbUpgrader3_1_0
              */
@@ -58,7 +85,8 @@ public class DbUpgrader {
             /*
              * check if at least one upgrade was performed
              */
-            boolean atLeastOneUpgrade = !upgradeDone3_1_0 || !upgradeDone4_0_0; // OR of !upgradeDone*
+            boolean atLeastOneUpgrade = // OR of !upgradeDone*
+                !upgradeDone3_1_0 || !upgradeDone4_0_0 || !upgradeDone4_0_11 || !upgradeDone4_0_12 || !upgradeDone4_0_13;
             if ( !atLeastOneUpgrade ) {
                 LOG.info("no db upgrades needed");
             } else {
@@ -0,0 +1,71 @@
+package de.fhg.iais.roberta.persistence.util;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import org.hibernate.SQLQuery;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fhg.iais.roberta.util.UtilForHtmlXml;
+
+final class DbUpgrader4_0_12 implements DbUpgraderInterface {
+    private static final Logger LOG = LoggerFactory.getLogger(DbUpgrader4_0_12.class);
+
+    private final SessionFactoryWrapper sessionFactoryWrapper;
+
+    DbUpgrader4_0_12(SessionFactoryWrapper sessionFactoryWrapper) {
+        this.sessionFactoryWrapper = sessionFactoryWrapper;
+    }
+
+    @Override
+    public boolean isUpgradeDone() {
+        Session nativeSession = this.sessionFactoryWrapper.getNativeSession();
+        DbExecutor dbExecutor = DbExecutor.make(nativeSession);
+        try {
+            int numberOfLikesColumnCount =
+                ((BigInteger) dbExecutor
+                    .oneValueSelect(
+                        "select count(*) from INFORMATION_SCHEMA.COLUMNS where TABLE_NAME = 'PROGRAM' and COLUMN_NAME = 'NUMBER_OF_LIKES'"))
+                        .intValue();
+            return numberOfLikesColumnCount > 0;
+        } finally {
+            nativeSession.close();
+        }
+    }
+
+    /**
+     * execute the update<br>
+     * 1. add the columns DESCRIPTION and NUMBER_OF_LIKES to PROGRAM, compute the number of likes, add the indexes for the gallery<br>
+     * 2. take description and tags of the gallery programs from their program text. Other programs get them, when they are saved the next time
+     */
+    @Override
+    public void run() {
+        Session nativeSession = this.sessionFactoryWrapper.getNativeSession();
+        nativeSession.beginTransaction();
+        DbSetup dbSetup = new DbSetup(nativeSession);
+        dbSetup
+            .sqlFile(
+                null, //
+                null,
+                "/dbUpgrade/4-0-12.sql");
+        @SuppressWarnings("unchecked")
+        List<Object[]> galleryPrograms =
+            nativeSession
+                .createSQLQuery("select p.ID, p.PROGRAM_TEXT from PROGRAM p, USER u where p.OWNER_ID = u.ID and u.ACCOUNT = 'Gallery'")
+                .list();
+        for ( Object[] galleryProgram : galleryPrograms ) {
+            String programText = (String) galleryProgram[1];
+            SQLQuery update = nativeSession.createSQLQuery("update PROGRAM set DESCRIPTION = :description, TAGS = :tags where ID = :id");
+            update.setString("description", UtilForHtmlXml.getAttributeOfRootElement(programText, "description"));
+            update.setString("tags", UtilForHtmlXml.getAttributeOfRootElement(programText, "tags"));
+            update.setInteger("id", ((Number) galleryProgram[0]).intValue());
+            update.executeUpdate();
+        }
+        LOG.info("description and tags of " + galleryPrograms.size() + " gallery programs updated");
+        nativeSession.getTransaction().commit();
+        nativeSession.close();
+    }
+
+}
@@ -0,0 +1,44 @@
+package de.fhg.iais.roberta.persistence.util;
+
+import java.math.BigInteger;
+
+import org.hibernate.Session;
+
+final class DbUpgrader4_0_13 implements DbUpgraderInterface {
+    private final SessionFactoryWrapper sessionFactoryWrapper;
+
+    DbUpgrader4_0_13(SessionFactoryWrapper sessionFactoryWrapper) {
+        this.sessionFactoryWrapper = sessionFactoryWrapper;
+    }
+
+    @Override
+    public boolean isUpgradeDone() {
+        Session nativeSession = this.sessionFactoryWrapper.getNativeSession();
+        DbExecutor dbExecutor = DbExecutor.make(nativeSession);
+        try {
+            int versionColumnCount =
+                ((BigInteger) dbExecutor
+                    .oneValueSelect("select count(*) from INFORMATION_SCHEMA.COLUMNS where TABLE_NAME = 'PROGRAM' and COLUMN_NAME = 'VERSION'"))
+                        .intValue();
+            return versionColumnCount > 0;
+        } finally {
+            nativeSession.close();
+        }
+    }
+
+    @Override
+    public void run() {
+        Session nativeSession = this.sessionFactoryWrapper.getNativeSession();
+        nativeSession.beginTransaction();
+        DbSetup dbSetup = new DbSetup(nativeSession);
+        dbSetup
+            .sqlFile(
+                null, //
+                null,
+                "/dbUpgrade/4-0-13.sql");
+        nativeSession.getTransaction().commit();
+        nativeSession.close();
+
+    }
+
+}
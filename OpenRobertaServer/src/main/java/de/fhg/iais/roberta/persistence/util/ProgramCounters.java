@@ -0,0 +1,227 @@
+package de.fhg.iais.roberta.persistence.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fhg.iais.roberta.persistence.dao.ProgramDao;
+import de.fhg.iais.roberta.util.MetricsRegistry;
+import de.fhg.iais.roberta.util.dbc.Assert;
+
+/**
+ * write-behind buffer for the counters of a program, that change often: the number of views and the number of likes. Increments are collected in memory per
+ * program and written in one batch to the table PROGRAM
+ * <ul>
+ * <li>periodically, see {@link #start(SessionFactoryWrapper, int)}</li>
+ * <li>when the server shuts down, see {@link #stop(SessionFactoryWrapper)}</li>
+ * </ul>
+ * Thus viewing and liking a program doesn't update the row of the program, that is updated when the program is saved. Readers add the increments not
+ * persisted yet to the values read from the database, see {@link #getPendingViews(int)} and {@link #getPendingLikes(int)}. Increments are lost, if the
+ * server crashes. Thread-safe.
+ */
+public final class ProgramCounters {
+    private static final Logger LOG = LoggerFactory.getLogger(ProgramCounters.class);
+
+    public static final String FLUSH_INTERVAL_PROPERTY = "server.program.counters.flush.sec";
+    public static final int DEFAULT_FLUSH_INTERVAL_SEC = 10;
+
+    private static final ProgramCounters instance = new ProgramCounters();
+
+    /**
+     * the increments of the programs. Entries are never removed, otherwise an increment could be added to an entry removed concurrently. The map grows with
+     * the number of programs viewed or liked since the server started, that are the programs of the gallery
+     */
+    private final ConcurrentMap<Integer, Increments> increments = new ConcurrentHashMap<>();
+    private final AtomicLong flushedPrograms = new AtomicLong(0);
+    private final AtomicLong failedFlushes = new AtomicLong(0);
+    private ScheduledExecutorService scheduler;
+
+    private ProgramCounters() {
+        // singleton
+    }
+
+    /**
+     * @return the counters of the server, never null
+     */
+    public static ProgramCounters getInstance() {
+        return instance;
+    }
+
+    /**
+     * count a view of a program
+     *
+     * @param programId the id of the program viewed
+     */
+    public void addView(int programId) {
+        this.increments.computeIfAbsent(programId, id -> new Increments()).views.increment();
+    }
+
+    /**
+     * change the number of likes of a program. Should be called only after the like was committed, see {@link DbSession#afterCommit(Runnable)}
+     *
+     * @param programId the id of the program liked or disliked
+     * @param delta +1 for a new like, -1 for a deleted like
+     */
+    public void addLikes(int programId, int delta) {
+        this.increments.computeIfAbsent(programId, id -> new Increments()).likes.add(delta);
+    }
+
+    /**
+     * @param programId the id of a program
+     * @return the number of views of the program, that are not persisted yet
+     */
+    public long getPendingViews(int programId) {
+        Increments programIncrements = this.increments.get(programId);
+        return programIncrements == null ? 0 : programIncrements.views.sum() + programIncrements.viewsFlushing.get();
+    }
+
+    /**
+     * @param programId the id of a program
+     * @return the change of the number of likes of the program, that is not persisted yet
+     */
+    public long getPendingLikes(int programId) {
+        Increments programIncrements = this.increments.get(programId);
+        return programIncrements == null ? 0 : programIncrements.likes.sum() + programIncrements.likesFlushing.get();
+    }
+
+    /**
+     * write the increments collected to the database in one transaction. If this fails, the increments are kept and written by the next flush. Increments of
+     * programs deleted meanwhile are dropped. While the increments are written, a reader may see them twice for a moment.
+     *
+     * @param sessionFactoryWrapper the factory for the db session used to write the increments, never null
+     * @return the number of programs, whose counters were written
+     */
+    public synchronized int flush(SessionFactoryWrapper sessionFactoryWrapper) {
+        Map<Integer, long[]> batch = new HashMap<>();
+        for ( Entry<Integer, Increments> entry : this.increments.entrySet() ) {
+            Increments programIncrements = entry.getValue();
+            long views = programIncrements.views.sum();
+            long likes = programIncrements.likes.sum();
+            if ( views != 0 || likes != 0 ) {
+                programIncrements.viewsFlushing.addAndGet(views);
+                programIncrements.likesFlushing.addAndGet(likes);
+                programIncrements.views.add(-views);
+                programIncrements.likes.add(-likes);
+                batch.put(entry.getKey(), new long[] {
+                    views,
+                    likes
+                });
+            }
+        }
+        if ( batch.isEmpty() ) {
+            return 0;
+        }
+        boolean persisted = false;
+        DbSession dbSession = null;
+        try {
+            dbSession = sessionFactoryWrapper.getSession();
+            new ProgramDao(dbSession).addToCounters(batch);
+            dbSession.close();
+            persisted = true;
+        } catch ( Exception e ) {
+            LOG.error("the counters of " + batch.size() + " programs could not be written. They are written by the next flush", e);
+            this.failedFlushes.incrementAndGet();
+            if ( dbSession != null ) {
+                rollbackAndClose(dbSession);
+            }
+        } finally {
+            for ( Entry<Integer, long[]> entry : batch.entrySet() ) {
+                Increments programIncrements = this.increments.get(entry.getKey());
+                if ( !persisted ) {
+                    programIncrements.views.add(entry.getValue()[0]);
+                    programIncrements.likes.add(entry.getValue()[1]);
+                }
+                programIncrements.viewsFlushing.addAndGet(-entry.getValue()[0]);
+                programIncrements.likesFlushing.addAndGet(-entry.getValue()[1]);
+            }
+        }
+        if ( persisted ) {
+            this.flushedPrograms.addAndGet(batch.size());
+            return batch.size();
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * rollback a failed flush. The session is closed afterwards, otherwise it would be counted as open forever. Never throws an exception
+     */
+    private static void rollbackAndClose(DbSession dbSession) {
+        try {
+            dbSession.rollback();
+        } catch ( Exception e ) {
+            LOG.error("the rollback of a failed flush failed", e);
+        }
+        try {
+            dbSession.close();
+        } catch ( Exception e ) {
+            LOG.error("the db session of a failed flush could not be closed", e);
+        }
+    }
+
+    /**
+     * start to flush the increments periodically
+     *
+     * @param sessionFactoryWrapper the factory for the db sessions used to write the increments, never null
+     * @param flushIntervalSec the time between two flushes
+     */
+    public synchronized void start(SessionFactoryWrapper sessionFactoryWrapper, int flushIntervalSec) {
+        Assert.isTrue(this.scheduler == null, "the program counters are flushed already");
+        Assert.isTrue(flushIntervalSec > 0, "the flush interval of the program counters must be positive");
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "program-counters-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(() -> {
+            // an exception escaping would cancel all later flushes
+            try {
+                flush(sessionFactoryWrapper);
+            } catch ( Exception e ) {
+                LOG.error("flushing the counters of programs failed unexpectedly. The next flush is tried as scheduled", e);
+            }
+        }, flushIntervalSec, flushIntervalSec, TimeUnit.SECONDS);
+        LOG.info("the counters of programs are written every " + flushIntervalSec + " sec");
+    }
+
+    /**
+     * stop to flush periodically and write the increments collected. Called when the server shuts down
+     *
+     * @param sessionFactoryWrapper the factory for the db session used to write the increments, never null
+     */
+    public void stop(SessionFactoryWrapper sessionFactoryWrapper) {
+        synchronized ( this ) {
+            if ( this.scheduler != null ) {
+                this.scheduler.shutdown();
+                this.scheduler = null;
+            }
+        }
+        int flushed = flush(sessionFactoryWrapper);
+        LOG.info("the counters of " + flushed + " programs were written at shutdown");
+    }
+
+    public static void registerMetrics(MetricsRegistry registry) {
+        registry.counter("roberta_program_counters_flushed_total", "programs, whose buffered views and likes were written", instance.flushedPrograms::get);
+        registry.counter("roberta_program_counters_failed_total", "writes of buffered views and likes, that failed", instance.failedFlushes::get);
+    }
+
+    /**
+     * the increments of one program. The flushing values are taken from the pending ones, while they are written to the database
+     */
+    private static final class Increments {
+        private final LongAdder views = new LongAdder();
+        private final LongAdder likes = new LongAdder();
+        private final AtomicLong viewsFlushing = new AtomicLong(0);
+        private final AtomicLong likesFlushing = new AtomicLong(0);
+    }
+}
@@ -0,0 +1,122 @@
+package de.fhg.iais.roberta.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fhg.iais.roberta.javaServer.restServices.robot.RobotClusterNode;
+import de.fhg.iais.roberta.robotCommunication.IRobotNodeClient;
+
+/**
+ * forwards robot commands to the node of the cluster owning the robot token by a POST to its {@link RobotClusterNode} REST service. The identification of a
+ * node is its base URL, e.g. <code>http://10.0.0.12:1999</code>. {@link HttpURLConnection} keeps the connections to the other nodes alive, thus a forwarded
+ * command costs one round trip on the internal network.
+ */
+public class HttpRobotNodeClient implements IRobotNodeClient {
+    private static final Logger LOG = LoggerFactory.getLogger(HttpRobotNodeClient.class);
+
+    public static final String CLUSTER_NODE_PROPERTY = "server.cluster.node";
+    public static final String CLUSTER_SECRET_PROPERTY = "server.cluster.secret";
+    public static final String CLUSTER_SECRET_HEADER = "X-Cluster-Secret";
+
+    private static final int CONNECT_TIMEOUT_MSEC = 2000;
+    private static final int READ_TIMEOUT_MSEC = 10000;
+    // the info about a robot is requested for every response to a browser, a slow node must not delay them for long
+    private static final int INFO_READ_TIMEOUT_MSEC = 2000;
+
+    private final String clusterSecret;
+
+    public HttpRobotNodeClient(String clusterSecret) {
+        this.clusterSecret = clusterSecret;
+    }
+
+    @Override
+    public Key aTokenAgreementWasSent(String node, String token, String robot) {
+        Key key = keyOf(forward(node, "setToken", new JSONObject().put("token", token).put("robot", robot), READ_TIMEOUT_MSEC));
+        return key == null ? Key.TOKEN_SET_ERROR_NO_ROBOT_WAITING : key;
+    }
+
+    @Override
+    public Key run(String node, String token, String robotName, String programName) {
+        JSONObject request = new JSONObject().put("token", token).put("robotName", robotName).put("programName", programName);
+        Key key = keyOf(forward(node, "run", request, READ_TIMEOUT_MSEC));
+        return key == null ? Key.ROBOT_NOT_CONNECTED : key;
+    }
+
+    @Override
+    public void disconnect(String node, String token) {
+        forward(node, "disconnect", new JSONObject().put("token", token), READ_TIMEOUT_MSEC);
+    }
+
+    @Override
+    public boolean firmwareUpdateRequested(String node, String token) {
+        Key key = keyOf(forward(node, "updateFirmware", new JSONObject().put("token", token), READ_TIMEOUT_MSEC));
+        return key == Key.ROBOT_FIRMWAREUPDATE_POSSIBLE;
+    }
+
+    @Override
+    public JSONObject getRobotInfo(String node, String token) {
+        JSONObject answer = forward(node, "robotInfo", new JSONObject().put("token", token), INFO_READ_TIMEOUT_MSEC);
+        return answer == null ? null : answer.optJSONObject("robot");
+    }
+
+    /**
+     * @return the key of the answer of a node; null, if there is no answer or the key is unknown
+     */
+    private static Key keyOf(JSONObject answer) {
+        try {
+            return answer == null ? null : Key.valueOf(answer.getString("key"));
+        } catch ( RuntimeException e ) {
+            LOG.error("the answer " + answer + " of a node has no valid key", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the answer of the node; null, if the node could not be reached or answered with an error
+     */
+    private JSONObject forward(String node, String command, JSONObject request, int readTimeoutMsec) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(node + "/rest/cluster/" + command).openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MSEC);
+            connection.setReadTimeout(readTimeoutMsec);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            connection.setRequestProperty(CLUSTER_SECRET_HEADER, this.clusterSecret);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(request.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            int status = connection.getResponseCode();
+            try (InputStream in = status == HttpURLConnection.HTTP_OK ? connection.getInputStream() : connection.getErrorStream()) {
+                String answer = in == null ? "" : readAll(in);
+                if ( status != HttpURLConnection.HTTP_OK ) {
+                    LOG.error("forwarding " + command + " to node " + node + " failed with HTTP status " + status);
+                    return null;
+                }
+                return new JSONObject(answer);
+            }
+        } catch ( IOException | RuntimeException e ) {
+            LOG.error("forwarding " + command + " to node " + node + " failed", e);
+            return null;
+        }
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1024];
+        int length;
+        while ( (length = in.read(chunk)) != -1 ) {
+            buffer.write(chunk, 0, length);
+        }
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -14,6 +14,7 @@ import org.slf4j.LoggerFactory;
 
 public class UtilForHtmlXml {
     private static final Logger LOG = LoggerFactory.getLogger(UtilForHtmlXml.class);
+    private static final Pattern ROOT_START_TAG = Pattern.compile("<[A-Za-z_][^>]*>");
 
     public static String checkProgramTextForXSS(String programText) {
         if ( programText == null ) {
@@ -40,6 +41,26 @@ public class UtilForHtmlXml {
         }
     }
 
+    /**
+     * get the value of an attribute of the root element of a XML document, e.g. the description or the tags of a program. The document is not parsed, only
+     * the first start tag is inspected
+     *
+     * @param xml the XML document, may be null
+     * @param attribute the name of the attribute, never null
+     * @return the unescaped value of the attribute; null, if the attribute is missing
+     */
+    public static String getAttributeOfRootElement(String xml, String attribute) {
+        if ( xml == null ) {
+            return null;
+        }
+        Matcher rootElement = ROOT_START_TAG.matcher(xml);
+        if ( !rootElement.find() ) {
+            return null;
+        }
+        Matcher value = Pattern.compile("\\s" + Pattern.quote(attribute) + "=\"([^\"]*)\"").matcher(rootElement.group());
+        return value.find() ? StringEscapeUtils.unescapeXml(value.group(1)) : null;
+    }
+
     /**
      * Remove unwanted tags and tag/attribute combinations from a string to prevent XSS
      *
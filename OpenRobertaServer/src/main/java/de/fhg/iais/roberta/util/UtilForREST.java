@@ -22,8 +22,6 @@ import de.fhg.iais.roberta.generated.restEntities.FullRestRequest;
 import de.fhg.iais.roberta.javaServer.restServices.all.controller.ClientAdmin;
 import de.fhg.iais.roberta.persistence.AbstractProcessor;
 import de.fhg.iais.roberta.persistence.util.HttpSessionState;
-import de.fhg.iais.roberta.robotCommunication.RobotCommunicationData;
-import de.fhg.iais.roberta.robotCommunication.RobotCommunicationData.State;
 import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
 import de.fhg.iais.roberta.util.dbc.DbcKeyException;
 
@@ -183,25 +181,17 @@ public class UtilForREST {
                     if ( token.equals(ClientAdmin.NO_CONNECT) ) {
                         response.setRobotState("wait");
                     } else if ( brickCommunicator != null ) {
-                        RobotCommunicationData state = brickCommunicator.getState(token);
-                        if ( state != null ) {
-                            response.setRobotWait(state.getElapsedMsecOfStartApproval());
-                            response.setRobotBattery(state.getBattery());
-                            response.setRobotName(state.getRobotName());
-                            response.setRobotVersion(state.getMenuVersion());
-                            response.setRobotFirmwareName(state.getFirmwareName());
-                            response.setRobotSensorvalues(state.getSensorValues());
-                            response.setRobotNepoexitvalue(state.getNepoExitValue());
-                            State communicationState = state.getState();
-                            String infoAboutState;
-                            if ( httpSessionState.isProcessing() || communicationState == State.ROBOT_IS_BUSY ) {
-                                infoAboutState = "busy";
-                            } else if ( state.isRobotProbablyDisconnected() || communicationState == State.GARBAGE ) {
-                                infoAboutState = "disconnected";
-                            } else {
-                                infoAboutState = "wait"; // is there a need to distinguish the communication state more detailed?
-                            }
-                            response.setRobotState(infoAboutState);
+                        // on a node of a cluster, that doesn't own the token, the info is requested from the owning node
+                        JSONObject robotInfo = brickCommunicator.getRobotInfo(token);
+                        if ( robotInfo != null ) {
+                            response.setRobotWait(robotInfo.optLong("wait"));
+                            response.setRobotBattery(robotInfo.optString("battery", null));
+                            response.setRobotName(robotInfo.optString("name", null));
+                            response.setRobotVersion(robotInfo.optString("version", null));
+                            response.setRobotFirmwareName(robotInfo.optString("firmwareName", null));
+                            response.setRobotSensorvalues(robotInfo.optJSONObject("sensorvalues"));
+                            response.setRobotNepoexitvalue(robotInfo.optInt("nepoexitvalue"));
+                            response.setRobotState(httpSessionState.isProcessing() ? "busy" : robotInfo.getString("state"));
                         }
                     }
                 }
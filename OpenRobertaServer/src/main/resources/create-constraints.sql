@@ -13,10 +13,15 @@ alter table PROGRAM add foreign key (AUTHOR_ID) references USER(ID) ON DELETE CA
 commit;
 
 create unique index progNameOwnerRobotIdx on PROGRAM(NAME, OWNER_ID, ROBOT_ID, AUTHOR_ID);
+create index programGalleryCreatedIdx on PROGRAM(OWNER_ID, CREATED, ID);
+create index programGalleryLikesIdx on PROGRAM(OWNER_ID, NUMBER_OF_LIKES, ID);
+create index programGalleryViewedIdx on PROGRAM(OWNER_ID, VIEWED, ID);
+create index programGalleryNameIdx on PROGRAM(OWNER_ID, NAME, ID);
 commit;
 
 alter table USER_PROGRAM       add foreign key (USER_ID)    references USER(ID) ON DELETE CASCADE;
 alter table USER_PROGRAM       add foreign key (PROGRAM_ID) references PROGRAM(ID) ON DELETE CASCADE;
+create unique index userProgramIdx on USER_PROGRAM(USER_ID, PROGRAM_ID);
 alter table USER_PROGRAM_LIKE  add foreign key (USER_ID)    references USER(ID) ON DELETE CASCADE;
 alter table USER_PROGRAM_LIKE  add foreign key (PROGRAM_ID) references PROGRAM(ID) ON DELETE CASCADE;
 
@@ -46,15 +46,18 @@ create cached table PROGRAM (
   AUTHOR_ID INTEGER not null,
   ROBOT_ID INTEGER not null,
   PROGRAM_TEXT varchar(16M),
+  DESCRIPTION varchar(16M), -- the description attribute of the program text, for the gallery
   CONFIG_NAME varchar(255),
   CONFIG_HASH varchar(255),
   CREATED timestamp not null,
   LAST_CHANGED timestamp not null,
   LAST_CHECKED timestamp,
   LAST_ERRORFREE timestamp,
-  VIEWED INTEGER,
+  VIEWED INTEGER default 0,
+  NUMBER_OF_LIKES INTEGER default 0 not null, -- the number of rows in USER_PROGRAM_LIKE for this program, maintained by the server
   TAGS varchar(16M), -- e.g. CAR AUTONOMOUS COOL 3WHEELS
   ICON_NUMBER integer not null,
+  VERSION INTEGER default 0 not null, -- for optimistic concurrency control
   primary key (ID)
 );
 
@@ -62,7 +65,8 @@ create cached table USER_PROGRAM (
   ID INTEGER not null,
   USER_ID INTEGER not null,
   PROGRAM_ID INTEGER not null,
-  RELATION varchar(32) not null -- 1 READ access, 2 WRITE access, 4 DELETE right, (really? not yet used) 8 PROMOTE_READ right, 16 PROMOTE_WRITE right
+  RELATION varchar(32) not null, -- 1 READ access, 2 WRITE access, 4 DELETE right, (really? not yet used) 8 PROMOTE_READ right, 16 PROMOTE_WRITE right
+  VERSION INTEGER default 0 not null
 );
 
 create cached table USER_PROGRAM_LIKE (
@@ -71,7 +75,8 @@ create cached table USER_PROGRAM_LIKE (
   PROGRAM_ID INTEGER not null,
   CREATED timestamp not null,
   MARK varchar(16M),
-  COMMENT varchar(16M)
+  COMMENT varchar(16M),
+  VERSION INTEGER default 0 not null
 );
 
 create cached table CONFIGURATION (
@@ -109,7 +114,15 @@ create cached table USERGROUP_PROGRAM (
   USERGROUP_ID INTEGER not null,
   PROGRAM_ID INTEGER not null,
   RELATION varchar(32) not null, -- [READ | WRITE]
+  VERSION INTEGER default 0 not null,
   primary key (ID)
 );
 
+create cached table ROBOT_TOKEN (
+  TOKEN varchar(32) not null,
+  NODE varchar(255) not null, -- the node of a cluster, to which the robot is connected
+  CREATED timestamp not null,
+  primary key (TOKEN)
+);
+
 commit;
\ No newline at end of file
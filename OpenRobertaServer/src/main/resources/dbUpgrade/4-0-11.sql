@@ -0,0 +1,8 @@
+create cached table ROBOT_TOKEN (
+  TOKEN varchar(32) not null,
+  NODE varchar(255) not null, -- the node of a cluster, to which the robot is connected
+  CREATED timestamp not null,
+  primary key (TOKEN)
+);
+
+commit;
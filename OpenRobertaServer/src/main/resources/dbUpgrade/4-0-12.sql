@@ -0,0 +1,12 @@
+alter table PROGRAM add DESCRIPTION varchar(16M);
+alter table PROGRAM add NUMBER_OF_LIKES INTEGER default 0 not null;
+update PROGRAM set NUMBER_OF_LIKES = (select count(*) from USER_PROGRAM_LIKE where USER_PROGRAM_LIKE.PROGRAM_ID = PROGRAM.ID);
+update PROGRAM set VIEWED = 0 where VIEWED is null;
+alter table PROGRAM alter column VIEWED set default 0;
+commit;
+
+create index programGalleryCreatedIdx on PROGRAM(OWNER_ID, CREATED, ID);
+create index programGalleryLikesIdx on PROGRAM(OWNER_ID, NUMBER_OF_LIKES, ID);
+create index programGalleryViewedIdx on PROGRAM(OWNER_ID, VIEWED, ID);
+create index programGalleryNameIdx on PROGRAM(OWNER_ID, NAME, ID);
+commit;
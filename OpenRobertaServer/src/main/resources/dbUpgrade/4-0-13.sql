@@ -0,0 +1,9 @@
+alter table PROGRAM add VERSION INTEGER default 0 not null;
+alter table USER_PROGRAM add VERSION INTEGER default 0 not null;
+alter table USERGROUP_PROGRAM add VERSION INTEGER default 0 not null;
+alter table USER_PROGRAM_LIKE add VERSION INTEGER default 0 not null;
+commit;
+
+delete from USER_PROGRAM where ID not in (select min(ID) from USER_PROGRAM group by USER_ID, PROGRAM_ID);
+create unique index userProgramIdx on USER_PROGRAM(USER_ID, PROGRAM_ID);
+commit;
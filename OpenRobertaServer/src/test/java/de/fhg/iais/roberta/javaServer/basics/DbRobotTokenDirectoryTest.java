@@ -0,0 +1,99 @@
+package de.fhg.iais.roberta.javaServer.basics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fhg.iais.roberta.persistence.util.DbRobotTokenDirectory;
+import de.fhg.iais.roberta.persistence.util.DbSetup;
+
+/**
+ * the SQL of the directory of robot tokens, that the nodes of a cluster share, runs against the in memory database
+ */
+public class DbRobotTokenDirectoryTest {
+    private DbSetup memoryDbSetup;
+    private DbRobotTokenDirectory directory;
+
+    @Before
+    public void setup() throws Exception {
+        TestConfiguration tc = TestConfiguration.setup();
+        this.memoryDbSetup = tc.getMemoryDbSetup();
+        this.directory = new DbRobotTokenDirectory(tc.getSessionFactoryWrapper());
+    }
+
+    @After
+    public void tearDown() {
+        this.directory.releaseAll("A");
+        this.directory.releaseAll("B");
+    }
+
+    @Test
+    public void testTokenIsOwnedByTheFirstClaimingNode() {
+        Assert.assertNull(this.directory.getOwner("T1"));
+        Assert.assertTrue(this.directory.claim("T1", "A"));
+        Assert.assertTrue("a node may claim its own token again", this.directory.claim("T1", "A"));
+        Assert.assertFalse(this.directory.claim("T1", "B"));
+        Assert.assertEquals("A", this.directory.getOwner("T1"));
+        Assert.assertEquals(1, this.memoryDbSetup.getOneBigIntegerAsLong("select count(*) from ROBOT_TOKEN where TOKEN = 'T1'"));
+    }
+
+    @Test
+    public void testTokenIsReleasedOnlyByTheOwningNode() {
+        Assert.assertTrue(this.directory.claim("T2", "A"));
+        this.directory.release("T2", "B");
+        Assert.assertEquals("A", this.directory.getOwner("T2"));
+        this.directory.release("T2", "A");
+        Assert.assertNull(this.directory.getOwner("T2"));
+        Assert.assertTrue(this.directory.claim("T2", "B"));
+        Assert.assertEquals("B", this.directory.getOwner("T2"));
+    }
+
+    @Test
+    public void testAllTokensOfANodeAreReleased() {
+        Assert.assertTrue(this.directory.claim("T3", "A"));
+        Assert.assertTrue(this.directory.claim("T4", "A"));
+        Assert.assertTrue(this.directory.claim("T5", "B"));
+        this.directory.releaseAll("A");
+        Assert.assertNull(this.directory.getOwner("T3"));
+        Assert.assertNull(this.directory.getOwner("T4"));
+        Assert.assertEquals("B", this.directory.getOwner("T5"));
+    }
+
+    @Test
+    public void testConcurrentClaimsOfATokenHaveOneWinner() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for ( int i = 0; i < 20; i++ ) {
+                String token = "C" + i;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> claims = new ArrayList<>();
+                for ( String node : new String[] {
+                    "A",
+                    "B"
+                } ) {
+                    claims.add(executor.submit(() -> {
+                        start.await();
+                        return this.directory.claim(token, node);
+                    }));
+                }
+                start.countDown();
+                int winners = 0;
+                for ( Future<Boolean> claim : claims ) {
+                    winners += claim.get() ? 1 : 0;
+                }
+                Assert.assertEquals("token " + token, 1, winners);
+                Assert.assertNotNull(this.directory.getOwner(token));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
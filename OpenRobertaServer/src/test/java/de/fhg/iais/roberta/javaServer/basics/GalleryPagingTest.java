@@ -0,0 +1,294 @@
+package de.fhg.iais.roberta.javaServer.basics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fhg.iais.roberta.persistence.ProgramProcessor;
+import de.fhg.iais.roberta.persistence.bo.Program;
+import de.fhg.iais.roberta.persistence.bo.Robot;
+import de.fhg.iais.roberta.persistence.bo.User;
+import de.fhg.iais.roberta.persistence.dao.GallerySortOrder;
+import de.fhg.iais.roberta.persistence.dao.LikeDao;
+import de.fhg.iais.roberta.persistence.dao.ProgramDao;
+import de.fhg.iais.roberta.persistence.dao.RobotDao;
+import de.fhg.iais.roberta.persistence.dao.UserDao;
+import de.fhg.iais.roberta.persistence.util.DbSession;
+import de.fhg.iais.roberta.persistence.util.DbSetup;
+import de.fhg.iais.roberta.persistence.util.HttpSessionState;
+import de.fhg.iais.roberta.persistence.util.ProgramCounters;
+import de.fhg.iais.roberta.persistence.util.SessionFactoryWrapper;
+import de.fhg.iais.roberta.util.ServerProperties;
+import de.fhg.iais.roberta.util.Util;
+import de.fhg.iais.roberta.util.dbc.DbcException;
+
+/**
+ * the gallery is read page by page. Pages must not overlap, must not miss entries and must contain the like counts maintained when liking
+ */
+public class GalleryPagingTest {
+    private static final int GALLERY_PROGRAMS = 7;
+    private static final int PAGE_SIZE = 3;
+
+    private SessionFactoryWrapper sessionFactoryWrapper;
+    private DbSetup memoryDbSetup;
+    private HttpSessionState httpSessionState;
+    private int likerId;
+
+    @Before
+    public void setup() throws Exception {
+        TestConfiguration tc = TestConfiguration.setup();
+        this.sessionFactoryWrapper = tc.getSessionFactoryWrapper();
+        this.memoryDbSetup = tc.getMemoryDbSetup();
+        ServerProperties serverProperties = new ServerProperties(Util.loadProperties(null));
+        this.httpSessionState = HttpSessionState.initOnlyLegalForDebugging("gallery", Collections.emptyMap(), serverProperties, 1);
+        createGallery();
+    }
+
+    @After
+    public void tearDown() {
+        this.memoryDbSetup.deleteAllFromUserAndProgramTmpPasswords();
+    }
+
+    @Test
+    public void testPagesByLikesAreDisjointAndOrdered() throws Exception {
+        List<JSONArray> rows = loadAllPages(GallerySortOrder.LIKES);
+        Assert.assertEquals(GALLERY_PROGRAMS, rows.size());
+        for ( int i = 1; i < rows.size(); i++ ) {
+            int likesBefore = rows.get(i - 1).getInt(6);
+            int likes = rows.get(i).getInt(6);
+            Assert.assertTrue(likesBefore > likes || likesBefore == likes && rows.get(i - 1).getInt(9) > rows.get(i).getInt(9));
+        }
+        JSONArray mostLiked = rows.get(0);
+        Assert.assertEquals((GALLERY_PROGRAMS - 1) / 2, mostLiked.getInt(6));
+        Assert.assertTrue(mostLiked.getBoolean(8));
+        Assert.assertEquals("<b>nice</b>", mostLiked.getString(2));
+        Assert.assertEquals("car", mostLiked.getString(7));
+    }
+
+    @Test
+    public void testPagesByDateContainEachProgramOnce() throws Exception {
+        List<JSONArray> rows = loadAllPages(GallerySortOrder.NEWEST);
+        HashSet<Integer> ids = new HashSet<>();
+        for ( JSONArray row : rows ) {
+            ids.add(row.getInt(9));
+        }
+        Assert.assertEquals(GALLERY_PROGRAMS, ids.size());
+    }
+
+    @Test
+    public void testPagesByViewsAreDisjointAndOrdered() throws Exception {
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        dbSession.createSqlQuery("update PROGRAM set VIEWED = mod(ID, 3)").executeUpdate();
+        dbSession.close();
+
+        List<JSONArray> rows = loadAllPages(GallerySortOrder.VIEWS);
+        HashSet<Integer> ids = new HashSet<>();
+        for ( int i = 0; i < rows.size(); i++ ) {
+            ids.add(rows.get(i).getInt(9));
+            Assert.assertTrue(i == 0 || rows.get(i - 1).getInt(5) >= rows.get(i).getInt(5));
+        }
+        Assert.assertEquals(GALLERY_PROGRAMS, rows.size());
+        Assert.assertEquals(GALLERY_PROGRAMS, ids.size());
+    }
+
+    @Test
+    public void testPendingLikesDontRepeatOrSkipEntries() throws Exception {
+        // pending likes and unlikes change the order by the displayed likes. Pages are selected by the persisted likes nevertheless
+        List<JSONArray> persistedOrder = loadAllPages(GallerySortOrder.LIKES);
+        Map<Integer, Integer> displayedLikes = new HashMap<>();
+        for ( int i = 0; i < persistedOrder.size(); i++ ) {
+            int programId = persistedOrder.get(i).getInt(9);
+            int pending = i % 2 == 0 ? 2 * i : -persistedOrder.get(i).getInt(6);
+            ProgramCounters.getInstance().addLikes(programId, pending);
+            displayedLikes.put(programId, persistedOrder.get(i).getInt(6) + pending);
+        }
+        try {
+            List<JSONArray> rows = loadAllPages(GallerySortOrder.LIKES);
+            HashSet<Integer> ids = new HashSet<>();
+            for ( int i = 0; i < rows.size(); i++ ) {
+                int programId = rows.get(i).getInt(9);
+                ids.add(programId);
+                Assert.assertEquals(persistedOrder.get(i).getInt(9), programId);
+                Assert.assertEquals(displayedLikes.get(programId).intValue(), rows.get(i).getInt(6));
+            }
+            Assert.assertEquals(GALLERY_PROGRAMS, rows.size());
+            Assert.assertEquals(GALLERY_PROGRAMS, ids.size());
+        } finally {
+            ProgramCounters.getInstance().flush(this.sessionFactoryWrapper);
+        }
+    }
+
+    @Test(expected = DbcException.class)
+    public void testCursorOfAnotherSortOrderIsRejected() throws Exception {
+        JSONArray firstOfNewest = loadAllPages(GallerySortOrder.NEWEST).get(0);
+        JSONObject cursor = new JSONObject().put("value", firstOfNewest.get(10)).put("id", firstOfNewest.getInt(9));
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        try {
+            new ProgramProcessor(dbSession, this.httpSessionState).getProgramGallery(this.likerId, "", null, GallerySortOrder.LIKES, PAGE_SIZE, cursor);
+        } finally {
+            dbSession.close();
+        }
+    }
+
+    @Test
+    public void testNumberOfLikesIsMaintained() throws Exception {
+        int mostLikedId = loadAllPages(GallerySortOrder.LIKES).get(0).getInt(9);
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        User liker = new UserDao(dbSession).loadUser(this.likerId);
+        Program program = new ProgramDao(dbSession).load(mostLikedId);
+        LikeDao likeDao = new LikeDao(dbSession);
+        likeDao.deleteLike(likeDao.loadLike(liker, program));
+        dbSession.close();
+
+        for ( JSONArray row : loadAllPages(GallerySortOrder.LIKES) ) {
+            if ( row.getInt(9) == mostLikedId ) {
+                Assert.assertEquals((GALLERY_PROGRAMS - 1) / 2 - 1, row.getInt(6));
+                Assert.assertFalse(row.getBoolean(8));
+            }
+        }
+    }
+
+    @Test
+    public void testViewsAreBufferedAndWrittenByFlush() throws Exception {
+        int programId = loadAllPages(GallerySortOrder.NEWEST).get(0).getInt(9);
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        ProgramProcessor programProcessor = new ProgramProcessor(dbSession, this.httpSessionState);
+        Program program = new ProgramDao(dbSession).load(programId);
+        programProcessor.addOneView(program);
+        programProcessor.addOneView(program);
+        dbSession.close();
+
+        String viewsSql = "select VIEWED from PROGRAM where ID = " + programId;
+        Assert.assertEquals(0, this.memoryDbSetup.<Number> getOne(viewsSql).intValue());
+        Assert.assertEquals(2, loadAllPages(GallerySortOrder.NEWEST).get(0).getInt(5));
+        Assert.assertEquals(1, ProgramCounters.getInstance().flush(this.sessionFactoryWrapper));
+        Assert.assertEquals(2, this.memoryDbSetup.<Number> getOne(viewsSql).intValue());
+        Assert.assertEquals(2, loadAllPages(GallerySortOrder.NEWEST).get(0).getInt(5));
+    }
+
+    @Test
+    public void testFailedFlushKeepsTheIncrementsAndClosesItsSession() throws Exception {
+        int programId = loadAllPages(GallerySortOrder.NEWEST).get(0).getInt(9);
+        executeInAnotherSession("alter table PROGRAM add constraint likesNotNegative check (NUMBER_OF_LIKES >= 0)");
+        try {
+            ProgramCounters.getInstance().addLikes(programId, -100);
+            long openSessions = DbSession.getOpenSessionCounter();
+            Assert.assertEquals(0, ProgramCounters.getInstance().flush(this.sessionFactoryWrapper));
+            Assert.assertEquals(openSessions, DbSession.getOpenSessionCounter());
+            Assert.assertEquals(-100, ProgramCounters.getInstance().getPendingLikes(programId));
+        } finally {
+            executeInAnotherSession("alter table PROGRAM drop constraint likesNotNegative");
+            ProgramCounters.getInstance().addLikes(programId, 100);
+            ProgramCounters.getInstance().flush(this.sessionFactoryWrapper);
+        }
+    }
+
+    @Test
+    public void testLikesOfDeletedUsersAreUncounted() throws Exception {
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        UserDao userDao = new UserDao(dbSession);
+        userDao.deleteUser(userDao.loadUser(this.likerId));
+        dbSession.close();
+
+        long likes = 0;
+        for ( JSONArray row : loadAllPages(GallerySortOrder.LIKES) ) {
+            likes += row.getInt(6);
+        }
+        Assert.assertTrue(likes > 0);
+        Assert.assertEquals(this.memoryDbSetup.getOneBigIntegerAsLong("select count(*) from USER_PROGRAM_LIKE"), likes);
+    }
+
+    @Test
+    public void testPagesByOldestAndByProgramNameAreAscending() throws Exception {
+        List<JSONArray> newest = loadAllPages(GallerySortOrder.NEWEST);
+        List<JSONArray> oldest = loadAllPages(GallerySortOrder.OLDEST);
+        Assert.assertEquals(GALLERY_PROGRAMS, oldest.size());
+        for ( int i = 0; i < GALLERY_PROGRAMS; i++ ) {
+            Assert.assertEquals(newest.get(GALLERY_PROGRAMS - 1 - i).getInt(9), oldest.get(i).getInt(9));
+        }
+        List<JSONArray> byName = loadAllPages(GallerySortOrder.PROGRAM_NAME);
+        for ( int i = 0; i < GALLERY_PROGRAMS; i++ ) {
+            Assert.assertEquals("program" + i, byName.get(i).getString(1));
+        }
+        Assert.assertEquals(GALLERY_PROGRAMS, loadAllPages(GallerySortOrder.ROBOT).size());
+    }
+
+    @Test
+    public void testSearchIsDoneByTheServer() throws Exception {
+        List<JSONArray> found = loadAllPages(GallerySortOrder.NEWEST, "PROGRAM3");
+        Assert.assertEquals(1, found.size());
+        Assert.assertEquals("program3", found.get(0).getString(1));
+        Assert.assertEquals(GALLERY_PROGRAMS, loadAllPages(GallerySortOrder.LIKES, "nice").size());
+        Assert.assertEquals(GALLERY_PROGRAMS, loadAllPages(GallerySortOrder.PROGRAM_NAME, "author").size());
+        Assert.assertEquals("wildcards are searched literally", 0, loadAllPages(GallerySortOrder.NEWEST, "program%").size());
+    }
+
+    private void executeInAnotherSession(String sql) {
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        dbSession.createSqlQuery(sql).executeUpdate();
+        dbSession.close();
+    }
+
+    private List<JSONArray> loadAllPages(GallerySortOrder sortOrder) {
+        return loadAllPages(sortOrder, null);
+    }
+
+    private List<JSONArray> loadAllPages(GallerySortOrder sortOrder, String search) {
+        List<JSONArray> rows = new ArrayList<>();
+        JSONObject after = null;
+        while ( true ) {
+            DbSession dbSession = this.sessionFactoryWrapper.getSession();
+            JSONArray page;
+            try {
+                page = new ProgramProcessor(dbSession, this.httpSessionState).getProgramGallery(this.likerId, "", search, sortOrder, PAGE_SIZE, after);
+            } finally {
+                dbSession.close();
+            }
+            for ( int i = 0; i < page.length(); i++ ) {
+                rows.add(page.getJSONArray(i));
+            }
+            if ( page.length() < PAGE_SIZE ) {
+                return rows;
+            }
+            // the cursor is built as by the frontend and sent as JSON
+            JSONArray last = page.getJSONArray(page.length() - 1);
+            after = new JSONObject(new JSONObject().put("value", last.get(10)).put("id", last.get(9)).toString());
+        }
+    }
+
+    /**
+     * program i of the gallery is liked by i / 2 users, thus some programs have the same number of likes. The first liker likes all programs liked
+     */
+    private void createGallery() throws Exception {
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        Robot robot = new RobotDao(dbSession).loadRobot("ev3");
+        User gallery = TestFixtures.createUser(dbSession, "Gallery");
+        User author = TestFixtures.createUser(dbSession, "author");
+        List<User> likers = new ArrayList<>();
+        for ( int i = 0; i < GALLERY_PROGRAMS / 2; i++ ) {
+            likers.add(TestFixtures.createUser(dbSession, "liker-" + i));
+        }
+        this.likerId = likers.get(0).getId();
+        LikeDao likeDao = new LikeDao(dbSession);
+        for ( int i = 0; i < GALLERY_PROGRAMS; i++ ) {
+            Program program = new Program("program" + i, gallery, robot, author);
+            program.setProgramText("<block_set robottype=\"ev3\" description=\"&lt;b&gt;nice&lt;/b&gt;\" tags=\"car\">...</block_set>");
+            dbSession.save(program);
+            for ( int liker = 0; liker < i / 2; liker++ ) {
+                likeDao.persistsLike(likers.get(liker), program);
+            }
+        }
+        dbSession.close();
+        ProgramCounters.getInstance().flush(this.sessionFactoryWrapper);
+    }
+}
@@ -0,0 +1,151 @@
+package de.fhg.iais.roberta.javaServer.basics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.StaleStateException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fhg.iais.roberta.persistence.bo.Like;
+import de.fhg.iais.roberta.persistence.bo.Program;
+import de.fhg.iais.roberta.persistence.bo.Robot;
+import de.fhg.iais.roberta.persistence.bo.User;
+import de.fhg.iais.roberta.persistence.dao.LikeDao;
+import de.fhg.iais.roberta.persistence.dao.ProgramDao;
+import de.fhg.iais.roberta.persistence.dao.RobotDao;
+import de.fhg.iais.roberta.persistence.dao.UserDao;
+import de.fhg.iais.roberta.persistence.util.DbSession;
+import de.fhg.iais.roberta.persistence.util.DbSetup;
+import de.fhg.iais.roberta.persistence.util.ProgramCounters;
+import de.fhg.iais.roberta.persistence.util.SessionFactoryWrapper;
+import de.fhg.iais.roberta.util.Key;
+
+/**
+ * conflicts of concurrent transactions are simulated by committing a change in a second db session while a unit of work runs in the first one
+ */
+public class OptimisticConcurrencyTest {
+    private SessionFactoryWrapper sessionFactoryWrapper;
+    private DbSetup memoryDbSetup;
+    private int userId;
+    private int programId;
+
+    @Before
+    public void setup() throws Exception {
+        TestConfiguration tc = TestConfiguration.setup();
+        this.sessionFactoryWrapper = tc.getSessionFactoryWrapper();
+        this.memoryDbSetup = tc.getMemoryDbSetup();
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        Robot robot = new RobotDao(dbSession).loadRobot("ev3");
+        User user = TestFixtures.createUser(dbSession, "optimist");
+        Program program = TestFixtures.createProgram(dbSession, "program", user, robot);
+        this.userId = user.getId();
+        this.programId = program.getId();
+        dbSession.close();
+    }
+
+    @After
+    public void tearDown() {
+        this.memoryDbSetup.deleteAllFromUserAndProgramTmpPasswords();
+    }
+
+    @Test(expected = StaleStateException.class)
+    public void testConcurrentUpdateIsDetected() {
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        try {
+            Program program = new ProgramDao(dbSession).load(this.programId);
+            program.getName();
+            updateInAnotherSession("<program>other</program>");
+            program.setProgramText("<program>mine</program>");
+            dbSession.commit();
+        } finally {
+            dbSession.rollback();
+        }
+    }
+
+    @Test
+    public void testConcurrentUpdateIsRetried() {
+        AtomicInteger attempts = new AtomicInteger(0);
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        dbSession.runWithRetryOnConflict(() -> {
+            Program program = new ProgramDao(dbSession).load(this.programId);
+            program.getName();
+            if ( attempts.incrementAndGet() == 1 ) {
+                updateInAnotherSession("<program>other</program>");
+            }
+            program.setProgramText(program.getProgramText().replace("</program>", "+mine</program>"));
+        });
+        dbSession.close();
+
+        Assert.assertEquals(2, attempts.get());
+        Assert.assertEquals("<program>other+mine</program>", loadProgramText());
+    }
+
+    @Test
+    public void testConcurrentLikeIsRetried() {
+        AtomicInteger attempts = new AtomicInteger(0);
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        Key result = dbSession.runWithRetryOnConflict(() -> {
+            User user = new UserDao(dbSession).loadUser(this.userId);
+            Program program = new ProgramDao(dbSession).load(this.programId);
+            LikeDao likeDao = new LikeDao(dbSession);
+            if ( attempts.incrementAndGet() == 1 ) {
+                // the like is checked, but another session inserts it before this one
+                Assert.assertNull(likeDao.loadLike(user, program));
+                likeInAnotherSession();
+                dbSession.save(new Like(user, program));
+                return Key.LIKE_SAVE_SUCCESS;
+            }
+            return likeDao.persistsLike(user, program).getFirst();
+        });
+        dbSession.close();
+
+        Assert.assertEquals(2, attempts.get());
+        Assert.assertEquals(Key.LIKE_SAVE_ERROR_EXISTS, result);
+        ProgramCounters.getInstance().flush(this.sessionFactoryWrapper);
+        Assert.assertEquals(1, this.memoryDbSetup.getOneBigIntegerAsLong("select count(*) from USER_PROGRAM_LIKE"));
+        Assert.assertEquals(1, this.memoryDbSetup.<Number> getOne("select NUMBER_OF_LIKES from PROGRAM where ID = " + this.programId).intValue());
+    }
+
+    @Test
+    public void testForeignKeyViolationIsNotRetried() {
+        AtomicInteger attempts = new AtomicInteger(0);
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        try {
+            dbSession.runWithRetryOnConflict(() -> {
+                attempts.incrementAndGet();
+                dbSession
+                    .createSqlQuery("insert into USER_PROGRAM_LIKE (USER_ID, PROGRAM_ID, CREATED) values (" + this.userId + ", -1, CURRENT_TIMESTAMP)")
+                    .executeUpdate();
+            });
+            Assert.fail("the like of a program, that doesn't exist, must be rejected");
+        } catch ( ConstraintViolationException e ) {
+            Assert.assertEquals(1, attempts.get());
+        } finally {
+            dbSession.rollback();
+        }
+    }
+
+    private void updateInAnotherSession(String programText) {
+        DbSession other = this.sessionFactoryWrapper.getSession();
+        new ProgramDao(other).load(this.programId).setProgramText(programText);
+        other.close();
+    }
+
+    private void likeInAnotherSession() {
+        DbSession other = this.sessionFactoryWrapper.getSession();
+        new LikeDao(other).persistsLike(new UserDao(other).loadUser(this.userId), new ProgramDao(other).load(this.programId));
+        other.close();
+    }
+
+    private String loadProgramText() {
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        try {
+            return new ProgramDao(dbSession).load(this.programId).getProgramText();
+        } finally {
+            dbSession.close();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package de.fhg.iais.roberta.javaServer.basics;
 
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.After;
@@ -14,6 +15,8 @@ import de.fhg.iais.roberta.persistence.bo.Role;
 import de.fhg.iais.roberta.persistence.bo.User;
 import de.fhg.iais.roberta.persistence.bo.UserProgramShare;
 import de.fhg.iais.roberta.persistence.dao.ProgramDao;
+import de.fhg.iais.roberta.persistence.dao.ProgramListEntry;
+import de.fhg.iais.roberta.persistence.dao.ProgramShareListEntry;
 import de.fhg.iais.roberta.persistence.dao.RobotDao;
 import de.fhg.iais.roberta.persistence.dao.UserDao;
 import de.fhg.iais.roberta.persistence.dao.UserProgramShareDao;
@@ -105,6 +108,41 @@ public class PersistUserProgramTest {
         }
     }
 
+    @Test
+    public void testListingsDontLoadPrograms() throws Exception {
+        DbSession hSession = this.sessionFactoryWrapper.getSession();
+        Robot robot = new RobotDao(hSession).loadRobot("ev3");
+        User owner = TestFixtures.createUser(hSession, "listing-owner");
+        User friend = TestFixtures.createUser(hSession, "listing-friend");
+        Program program = TestFixtures.createProgram(hSession, "listing-program", owner, robot);
+        hSession.save(new UserProgramShare(friend, program, Relation.WRITE));
+        hSession.commit();
+        hSession.close();
+
+        hSession = this.sessionFactoryWrapper.getSession();
+        owner = new UserDao(hSession).loadUser(null, "listing-owner");
+        friend = new UserDao(hSession).loadUser(null, "listing-friend");
+        robot = new RobotDao(hSession).loadRobot("ev3");
+        List<ProgramListEntry> ownPrograms = new ProgramDao(hSession).loadListing(owner, robot);
+        Assert.assertEquals(1, ownPrograms.size());
+        Assert.assertEquals("listing-program", ownPrograms.get(0).getName());
+        Assert.assertEquals("listing-owner", ownPrograms.get(0).getAuthorAccount());
+        Assert.assertNotNull(ownPrograms.get(0).getLastChanged());
+        UserProgramShareDao userProgramShareDao = new UserProgramShareDao(hSession);
+        List<ProgramShareListEntry> shares = userProgramShareDao.loadShareListingByPrograms(Collections.singletonList(ownPrograms.get(0).getId()));
+        Assert.assertEquals(1, shares.size());
+        Assert.assertEquals("listing-friend", shares.get(0).getEntityLabel());
+        Assert.assertEquals(Relation.WRITE, shares.get(0).getRelation());
+        List<ProgramListEntry> sharedPrograms = userProgramShareDao.loadListingOfProgramsSharedWithUser(friend, robot);
+        Assert.assertEquals(1, sharedPrograms.size());
+        Assert.assertEquals("listing-owner", sharedPrograms.get(0).getOwnerAccount());
+        Assert.assertEquals(Relation.WRITE, sharedPrograms.get(0).getRelation());
+        for ( Object entityKey : hSession.getSession().getStatistics().getEntityKeys() ) {
+            Assert.assertFalse("a listing loaded " + entityKey, entityKey.toString().contains(Program.class.getName()));
+        }
+        hSession.close();
+    }
+
     private long getOneBigInteger(String sqlStmt) {
         return this.memoryDbSetup.getOneBigIntegerAsLong(sqlStmt);
     }
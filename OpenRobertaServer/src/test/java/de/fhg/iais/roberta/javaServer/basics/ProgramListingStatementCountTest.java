@@ -0,0 +1,131 @@
+package de.fhg.iais.roberta.javaServer.basics;
+
+import java.util.Collections;
+
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.json.JSONArray;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fhg.iais.roberta.persistence.ProgramProcessor;
+import de.fhg.iais.roberta.persistence.bo.Program;
+import de.fhg.iais.roberta.persistence.bo.Relation;
+import de.fhg.iais.roberta.persistence.bo.Robot;
+import de.fhg.iais.roberta.persistence.bo.User;
+import de.fhg.iais.roberta.persistence.bo.UserGroup;
+import de.fhg.iais.roberta.persistence.bo.UserGroupProgramShare;
+import de.fhg.iais.roberta.persistence.bo.UserProgramShare;
+import de.fhg.iais.roberta.persistence.dao.RobotDao;
+import de.fhg.iais.roberta.persistence.dao.UserDao;
+import de.fhg.iais.roberta.persistence.dao.UserGroupDao;
+import de.fhg.iais.roberta.persistence.util.DbSession;
+import de.fhg.iais.roberta.persistence.util.DbSetup;
+import de.fhg.iais.roberta.persistence.util.HttpSessionState;
+import de.fhg.iais.roberta.persistence.util.SessionFactoryWrapper;
+import de.fhg.iais.roberta.util.ServerProperties;
+import de.fhg.iais.roberta.util.Util;
+
+/**
+ * the program lists of a teacher must be computed with a number of SQL statements, that doesn't depend on the number of groups, members and shares
+ */
+public class ProgramListingStatementCountTest {
+    private static final int OWN_PROGRAMS = 3;
+
+    private SessionFactoryWrapper sessionFactoryWrapper;
+    private DbSetup memoryDbSetup;
+    private Statistics statistics;
+    private HttpSessionState httpSessionState;
+
+    @Before
+    public void setup() throws Exception {
+        TestConfiguration tc = TestConfiguration.setup();
+        this.sessionFactoryWrapper = tc.getSessionFactoryWrapper();
+        this.memoryDbSetup = tc.getMemoryDbSetup();
+        Session nativeSession = this.sessionFactoryWrapper.getNativeSession();
+        this.statistics = nativeSession.getSessionFactory().getStatistics();
+        nativeSession.close();
+        this.statistics.setStatisticsEnabled(true);
+        ServerProperties serverProperties = new ServerProperties(Util.loadProperties(null));
+        this.httpSessionState = HttpSessionState.initOnlyLegalForDebugging("statementCount", Collections.emptyMap(), serverProperties, 1);
+    }
+
+    @After
+    public void tearDown() {
+        this.statistics.setStatisticsEnabled(false);
+        this.memoryDbSetup.deleteAllFromUserAndProgramTmpPasswords();
+    }
+
+    @Test
+    public void testStatementCountOfProgramListsIsIndependentOfGroupSize() throws Exception {
+        int smallTeacher = createClass("small", 1, 2);
+        int largeTeacher = createClass("large", 5, 30);
+
+        Assert.assertEquals(OWN_PROGRAMS + 2, listProgramsOfTeacher(smallTeacher).length());
+        long statementsOfSmallClass = this.statistics.getPrepareStatementCount();
+        Assert.assertEquals(OWN_PROGRAMS + 5 * 30, listProgramsOfTeacher(largeTeacher).length());
+        long statementsOfLargeClass = this.statistics.getPrepareStatementCount();
+        Assert.assertEquals(statementsOfSmallClass, statementsOfLargeClass);
+
+        Assert.assertEquals(2, listProgramsOfGroupMembers("small").length());
+        statementsOfSmallClass = this.statistics.getPrepareStatementCount();
+        Assert.assertEquals(30, listProgramsOfGroupMembers("large").length());
+        statementsOfLargeClass = this.statistics.getPrepareStatementCount();
+        Assert.assertEquals(statementsOfSmallClass, statementsOfLargeClass);
+    }
+
+    private JSONArray listProgramsOfTeacher(int teacherId) {
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        try {
+            this.statistics.clear();
+            return new ProgramProcessor(dbSession, this.httpSessionState).getProgramInfoOfProgramsOwnedByOrSharedWithUser(teacherId, "ev3");
+        } finally {
+            dbSession.close();
+        }
+    }
+
+    private JSONArray listProgramsOfGroupMembers(String name) {
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        try {
+            User teacher = new UserDao(dbSession).loadUser(null, name + "-teacher");
+            UserGroup userGroup = new UserGroupDao(dbSession).load(name + "-group-0", teacher);
+            this.statistics.clear();
+            return new ProgramProcessor(dbSession, this.httpSessionState).getProgramInfoOfProgramsOwnedByUserGroupMembers(userGroup, "ev3");
+        } finally {
+            dbSession.close();
+        }
+    }
+
+    /**
+     * create a teacher with some programs, shared with a member and with a group, and groups, whose members own one program each
+     *
+     * @return the id of the teacher
+     */
+    private int createClass(String name, int numberOfGroups, int membersPerGroup) {
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        Robot robot = new RobotDao(dbSession).loadRobot("ev3");
+        User teacher = TestFixtures.createUser(dbSession, null, name + "-teacher");
+        User aMember = null;
+        UserGroup aGroup = null;
+        for ( int groupNumber = 0; groupNumber < numberOfGroups; groupNumber++ ) {
+            UserGroup group = new UserGroup(name + "-group-" + groupNumber, teacher);
+            dbSession.save(group);
+            aGroup = group;
+            for ( int memberNumber = 0; memberNumber < membersPerGroup; memberNumber++ ) {
+                User member = TestFixtures.createUser(dbSession, group, name + "-member-" + memberNumber);
+                aMember = member;
+                TestFixtures.createProgram(dbSession, "program", member, robot);
+            }
+        }
+        for ( int programNumber = 0; programNumber < OWN_PROGRAMS; programNumber++ ) {
+            Program program = TestFixtures.createProgram(dbSession, "teacherProgram-" + programNumber, teacher, robot);
+            dbSession.save(new UserProgramShare(aMember, program, Relation.READ));
+            dbSession.save(new UserGroupProgramShare(aGroup, program, Relation.WRITE));
+        }
+        int teacherId = teacher.getId();
+        dbSession.close();
+        return teacherId;
+    }
+}
@@ -0,0 +1,91 @@
+package de.fhg.iais.roberta.javaServer.basics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.fhg.iais.roberta.generated.restEntities.BaseResponse;
+import de.fhg.iais.roberta.javaServer.restServices.all.service.ProjectWorkflowJobs;
+import de.fhg.iais.roberta.javaServer.restServices.all.service.ProjectWorkflowJobs.Job;
+import de.fhg.iais.roberta.javaServer.restServices.all.service.ProjectWorkflowJobs.State;
+import de.fhg.iais.roberta.util.Key;
+import de.fhg.iais.roberta.util.dbc.DbcKeyException;
+
+public class ProjectWorkflowJobsTest {
+    private final ProjectWorkflowJobs jobs = new ProjectWorkflowJobs(2, 1);
+
+    @After
+    public void teardown() {
+        this.jobs.shutdown();
+    }
+
+    @Test
+    public void testSubmitReturnsImmediatelyAndResultIsCollectedLater() throws Exception {
+        CountDownLatch workflowMayFinish = new CountDownLatch(1);
+        BaseResponse response = BaseResponse.make();
+        Job job = this.jobs.submit("session1", () -> {
+            await(workflowMayFinish);
+            return response;
+        });
+        assertFalse(job.isDone());
+        assertTrue(job.getState() == State.QUEUED || job.getState() == State.RUNNING);
+        workflowMayFinish.countDown();
+        assertSame(response, job.getResult());
+        assertTrue(job.isDone());
+        assertEquals(State.DONE, job.getState());
+    }
+
+    @Test
+    public void testJobIsVisibleForItsOwnerOnly() {
+        Job job = this.jobs.submit("session1", () -> BaseResponse.make());
+        assertSame(job, this.jobs.get("session1", job.getId()));
+        assertNull(this.jobs.get("session2", job.getId()));
+        assertNull(this.jobs.get("session1", "unknownJobId"));
+        job.getResult();
+        this.jobs.remove(job);
+        assertNull(this.jobs.get("session1", job.getId()));
+        assertEquals(0, this.jobs.getNumberOfJobs());
+    }
+
+    @Test
+    public void testJobsAreRejectedIfTheQueueIsFull() {
+        CountDownLatch workflowsMayFinish = new CountDownLatch(1);
+        Job running1 = this.jobs.submit("session1", () -> {
+            await(workflowsMayFinish);
+            return BaseResponse.make();
+        });
+        Job running2 = this.jobs.submit("session1", () -> {
+            await(workflowsMayFinish);
+            return BaseResponse.make();
+        });
+        Job queued = this.jobs.submit("session1", () -> BaseResponse.make());
+        try {
+            this.jobs.submit("session1", () -> BaseResponse.make());
+            fail("the job should have been rejected");
+        } catch ( DbcKeyException e ) {
+            assertEquals(Key.COMPILERWORKFLOW_ERROR_CROSSCOMPILER_QUEUE_FULL, e.getKey());
+        }
+        assertEquals(3, this.jobs.getNumberOfJobs());
+        workflowsMayFinish.countDown();
+        running1.getResult();
+        running2.getResult();
+        queued.getResult();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
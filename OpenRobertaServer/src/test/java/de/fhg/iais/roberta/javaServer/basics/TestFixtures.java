@@ -0,0 +1,45 @@
+package de.fhg.iais.roberta.javaServer.basics;
+
+import de.fhg.iais.roberta.persistence.bo.Program;
+import de.fhg.iais.roberta.persistence.bo.Robot;
+import de.fhg.iais.roberta.persistence.bo.Role;
+import de.fhg.iais.roberta.persistence.bo.User;
+import de.fhg.iais.roberta.persistence.bo.UserGroup;
+import de.fhg.iais.roberta.persistence.util.DbSession;
+
+/**
+ * users and programs saved into the test database. The caller commits or closes the session
+ */
+public final class TestFixtures {
+    private TestFixtures() {
+        // no objects
+    }
+
+    /**
+     * save a student with password "pass", that is not member of a group
+     */
+    public static User createUser(DbSession dbSession, String account) {
+        return createUser(dbSession, null, account);
+    }
+
+    /**
+     * save a student with password "pass"
+     */
+    public static User createUser(DbSession dbSession, UserGroup userGroup, String account) {
+        User user = new User(userGroup, account);
+        user.setPassword("pass");
+        user.setRole(Role.STUDENT);
+        dbSession.save(user);
+        return user;
+    }
+
+    /**
+     * save a program, whose author is its owner
+     */
+    public static Program createProgram(DbSession dbSession, String name, User owner, Robot robot) {
+        Program program = new Program(name, owner, robot, owner);
+        program.setProgramText("<program>...</program>");
+        dbSession.save(program);
+        return program;
+    }
+}
@@ -37,6 +37,7 @@ import de.fhg.iais.roberta.generated.restEntities.FullRestRequest;
 import de.fhg.iais.roberta.javaServer.restServices.all.controller.ClientAdmin;
 import de.fhg.iais.roberta.javaServer.restServices.all.controller.ProjectWorkflowRestController;
 import de.fhg.iais.roberta.javaServer.restServices.all.service.ProjectService;
+import de.fhg.iais.roberta.javaServer.restServices.all.service.ProjectWorkflowJobs;
 import de.fhg.iais.roberta.main.ServerStarter;
 import de.fhg.iais.roberta.mode.action.Language;
 import de.fhg.iais.roberta.persistence.util.DbSession;
@@ -158,7 +159,7 @@ public class CompilerWorkflowRobotCommonIT {
 
     @Before
     public void setupTest() throws Exception {
-        this.restWorkflow = new ProjectWorkflowRestController(robotCommunicator);
+        this.restWorkflow = new ProjectWorkflowRestController(robotCommunicator, new ProjectWorkflowJobs(1, 1));
         this.restAdmin = new ClientAdmin(robotCommunicator, serverProperties);
         when(this.sessionFactoryWrapper.getSession()).thenReturn(this.dbSession);
         doNothing().when(this.dbSession).commit();
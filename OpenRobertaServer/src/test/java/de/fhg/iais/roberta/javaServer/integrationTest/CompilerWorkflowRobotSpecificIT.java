@@ -34,6 +34,7 @@ import de.fhg.iais.roberta.factory.IRobotFactory;
 import de.fhg.iais.roberta.generated.restEntities.FullRestRequest;
 import de.fhg.iais.roberta.javaServer.restServices.all.controller.ClientAdmin;
 import de.fhg.iais.roberta.javaServer.restServices.all.controller.ProjectWorkflowRestController;
+import de.fhg.iais.roberta.javaServer.restServices.all.service.ProjectWorkflowJobs;
 import de.fhg.iais.roberta.main.ServerStarter;
 import de.fhg.iais.roberta.persistence.util.DbSession;
 import de.fhg.iais.roberta.persistence.util.HttpSessionState;
@@ -124,7 +125,7 @@ public class CompilerWorkflowRobotSpecificIT {
 
     @Before
     public void setup() throws Exception {
-        this.restWorkflow = new ProjectWorkflowRestController(robotCommunicator);
+        this.restWorkflow = new ProjectWorkflowRestController(robotCommunicator, new ProjectWorkflowJobs(1, 1));
         this.restAdmin = new ClientAdmin(robotCommunicator, serverProperties);
         when(this.sessionFactoryWrapper.getSession()).thenReturn(this.dbSession);
         doNothing().when(this.dbSession).commit();
@@ -0,0 +1,118 @@
+package de.fhg.iais.roberta.javaServer.integrationTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fhg.iais.roberta.javaServer.basics.TestConfiguration;
+import de.fhg.iais.roberta.javaServer.basics.TestFixtures;
+import de.fhg.iais.roberta.persistence.ProgramProcessor;
+import de.fhg.iais.roberta.persistence.bo.User;
+import de.fhg.iais.roberta.persistence.util.DbSession;
+import de.fhg.iais.roberta.persistence.util.DbSetup;
+import de.fhg.iais.roberta.persistence.util.HttpSessionState;
+import de.fhg.iais.roberta.persistence.util.SessionFactoryWrapper;
+import de.fhg.iais.roberta.util.ServerProperties;
+import de.fhg.iais.roberta.util.Util;
+import de.fhg.iais.roberta.util.testsetup.IntegrationTest;
+
+/**
+ * benchmark for saving programs concurrently. Each simulated user saves its own programs. Without table locks the throughput should grow with the number of
+ * parallel users. The numbers are logged, they depend too much on the machine to be asserted
+ */
+@Category(IntegrationTest.class)
+public class ProgramSaveThroughputIT {
+    private static final Logger LOG = LoggerFactory.getLogger(ProgramSaveThroughputIT.class);
+
+    private static final int[] PARALLEL_USERS = {
+        1,
+        2,
+        4,
+        8
+    };
+    private static final int SAVES_PER_USER = 200;
+
+    private SessionFactoryWrapper sessionFactoryWrapper;
+    private DbSetup memoryDbSetup;
+    private ServerProperties serverProperties;
+
+    @Before
+    public void setup() throws Exception {
+        TestConfiguration tc = TestConfiguration.setup();
+        this.sessionFactoryWrapper = tc.getSessionFactoryWrapper();
+        this.memoryDbSetup = tc.getMemoryDbSetup();
+        this.serverProperties = new ServerProperties(Util.loadProperties(null));
+    }
+
+    @After
+    public void tearDown() {
+        this.memoryDbSetup.deleteAllFromUserAndProgramTmpPasswords();
+    }
+
+    @Test
+    public void testSaveThroughputWithParallelUsers() throws Exception {
+        StringBuilder report = new StringBuilder("program save throughput (users: saves/sec):");
+        for ( int parallelUsers : PARALLEL_USERS ) {
+            List<User> users = createUsers("run" + parallelUsers, parallelUsers);
+            ExecutorService executor = Executors.newFixedThreadPool(parallelUsers);
+            long start = System.nanoTime();
+            List<Future<Integer>> results = new ArrayList<>();
+            for ( User user : users ) {
+                results.add(executor.submit(() -> saveProgramsOfUser(user.getId(), user.getAccount())));
+            }
+            for ( Future<Integer> result : results ) {
+                Assert.assertEquals(SAVES_PER_USER, result.get().intValue());
+            }
+            long msec = Math.max(1, (System.nanoTime() - start) / 1000000);
+            executor.shutdown();
+            report.append(" ").append(parallelUsers).append(": ").append(parallelUsers * SAVES_PER_USER * 1000L / msec);
+        }
+        LOG.info(report.toString());
+        long expectedPrograms = IntStream.of(PARALLEL_USERS).sum() * SAVES_PER_USER;
+        Assert.assertEquals(expectedPrograms, this.memoryDbSetup.getOneBigIntegerAsLong("select count(*) from PROGRAM"));
+    }
+
+    /**
+     * @return the number of successful saves
+     */
+    private int saveProgramsOfUser(int userId, String account) {
+        HttpSessionState httpSessionState = HttpSessionState.initOnlyLegalForDebugging("throughput", Collections.emptyMap(), this.serverProperties, 1);
+        httpSessionState.setUserClearDataKeepTokenAndRobotId(userId);
+        int successfulSaves = 0;
+        for ( int i = 0; i < SAVES_PER_USER; i++ ) {
+            DbSession dbSession = this.sessionFactoryWrapper.getSession();
+            try {
+                ProgramProcessor programProcessor = new ProgramProcessor(dbSession, httpSessionState);
+                programProcessor.persistProgramText("program" + i, account, "<program>" + i + "</program>", null, null, "ev3", null);
+                if ( programProcessor.succeeded() ) {
+                    successfulSaves++;
+                }
+            } finally {
+                dbSession.close();
+            }
+        }
+        return successfulSaves;
+    }
+
+    private List<User> createUsers(String prefix, int number) {
+        List<User> users = new ArrayList<>();
+        DbSession dbSession = this.sessionFactoryWrapper.getSession();
+        for ( int i = 0; i < number; i++ ) {
+            users.add(TestFixtures.createUser(dbSession, prefix + "-" + i));
+        }
+        dbSession.close();
+        return users;
+    }
+}
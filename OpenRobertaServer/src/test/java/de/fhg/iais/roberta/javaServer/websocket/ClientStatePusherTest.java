@@ -0,0 +1,133 @@
+package de.fhg.iais.roberta.javaServer.websocket;
+
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import de.fhg.iais.roberta.persistence.util.HttpSessionState;
+import de.fhg.iais.roberta.robotCommunication.RobotCommunicationData;
+import de.fhg.iais.roberta.robotCommunication.RobotCommunicator;
+import de.fhg.iais.roberta.util.Key;
+import de.fhg.iais.roberta.util.NotificationService;
+import de.fhg.iais.roberta.util.ServerProperties;
+import de.fhg.iais.roberta.util.Util;
+
+/**
+ * the messages pushed to a frontend are collected from a mocked websocket session
+ */
+public class ClientStatePusherTest {
+    private static final long TIMEOUT_MSEC = 3000;
+
+    private final BlockingQueue<JSONObject> pushed = new LinkedBlockingQueue<>();
+    // the session is queried by the thread of the pusher, thus it is not re-stubbed by the test
+    private final AtomicBoolean open = new AtomicBoolean(true);
+    private RobotCommunicator brickCommunicator;
+    private ClientStatePusher pusher;
+    private HttpSessionState httpSessionState;
+    private Session session;
+
+    @Before
+    public void setup() throws Exception {
+        this.brickCommunicator = new RobotCommunicator();
+        NotificationService notificationService = Mockito.mock(NotificationService.class);
+        Mockito.when(notificationService.getCurrentDigest()).thenReturn("digest");
+        this.pusher = new ClientStatePusher(this.brickCommunicator, notificationService);
+        ServerProperties serverProperties = new ServerProperties(Util.loadProperties(null));
+        this.httpSessionState = HttpSessionState.initOnlyLegalForDebugging("pusher" + System.nanoTime(), Collections.emptyMap(), serverProperties, 1);
+
+        RemoteEndpoint remote = Mockito.mock(RemoteEndpoint.class);
+        Mockito.when(remote.sendStringByFuture(Mockito.anyString())).thenAnswer(invocation -> {
+            this.pushed.add(new JSONObject((String) invocation.getArguments()[0]));
+            return null;
+        });
+        this.session = Mockito.mock(Session.class);
+        Mockito.when(this.session.isOpen()).thenAnswer(invocation -> this.open.get());
+        Mockito.when(this.session.getRemote()).thenReturn(remote);
+    }
+
+    @Test
+    public void testOnlyChangesArePushed() throws Exception {
+        connectRobot("T1", "8.0");
+        this.pusher.subscribe(this.session, this.httpSessionState);
+        JSONObject first = awaitPush(state -> true);
+        Assert.assertEquals("wait", first.getString("robot.state"));
+        Assert.assertEquals("8.0", first.getString("robot.battery"));
+        Assert.assertEquals("robot", first.getString("robot.name"));
+
+        this.brickCommunicator.getState("T1").setBattery("7.5");
+        JSONObject delta = awaitPush(state -> state.has("robot.battery"));
+        Assert.assertEquals("7.5", delta.getString("robot.battery"));
+        Assert.assertFalse("unchanged keys are not pushed", delta.has("robot.name"));
+    }
+
+    @Test
+    public void testTimeSinceApprovalIsPushed() throws Exception {
+        connectRobot("T2", "8.0");
+        this.pusher.subscribe(this.session, this.httpSessionState);
+        long firstWait = awaitPush(state -> true).getLong("robot.wait");
+        long laterWait = awaitPush(state -> state.has("robot.wait")).getLong("robot.wait");
+        Assert.assertTrue(laterWait > firstWait);
+    }
+
+    @Test
+    public void testRemovedKeysArePushedAsNull() throws Exception {
+        connectRobot("T3", "8.0");
+        this.pusher.subscribe(this.session, this.httpSessionState);
+        Assert.assertTrue(awaitPush(state -> true).has("robot.state"));
+
+        this.brickCommunicator.disconnect("T3");
+        JSONObject delta = awaitPush(state -> state.has("robot.state"));
+        Assert.assertTrue(delta.isNull("robot.state"));
+        Assert.assertTrue(delta.isNull("robot.battery"));
+    }
+
+    @Test
+    public void testClosedSessionIsUnsubscribed() throws Exception {
+        this.pusher.subscribe(this.session, this.httpSessionState);
+        awaitPush(state -> true);
+        Assert.assertEquals(1, this.pusher.getNumberOfSubscriptions());
+
+        this.open.set(false);
+        long deadline = System.currentTimeMillis() + TIMEOUT_MSEC;
+        while ( this.pusher.getNumberOfSubscriptions() > 0 && System.currentTimeMillis() < deadline ) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(0, this.pusher.getNumberOfSubscriptions());
+    }
+
+    /**
+     * register and approve a robot, which then waits for a command
+     */
+    private void connectRobot(String token, String battery) {
+        RobotCommunicationData robot = new RobotCommunicationData(token, "ev3", "mac-" + token, "robot", battery, "", "", "lejos", "");
+        this.brickCommunicator.brickWantsTokenToBeApproved(robot);
+        Assert.assertEquals(Key.TOKEN_SET_SUCCESS, this.brickCommunicator.aTokenAgreementWasSent(token, "ev3"));
+        this.brickCommunicator.brickWaitsForAServerPush(token, battery, 0);
+        this.httpSessionState.setToken(token);
+    }
+
+    /**
+     * @return the next message pushed, that matches the condition. Messages before it are skipped
+     */
+    private JSONObject awaitPush(Predicate<JSONObject> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MSEC;
+        while ( true ) {
+            JSONObject message = this.pushed.poll(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            Assert.assertNotNull("no matching message was pushed", message);
+            if ( condition.test(message) ) {
+                return message;
+            }
+        }
+    }
+}
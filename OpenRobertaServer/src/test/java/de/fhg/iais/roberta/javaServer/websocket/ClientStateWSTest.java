@@ -0,0 +1,58 @@
+package de.fhg.iais.roberta.javaServer.websocket;
+
+import java.util.Collections;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.google.inject.Injector;
+
+import de.fhg.iais.roberta.persistence.util.HttpSessionState;
+import de.fhg.iais.roberta.util.ServerProperties;
+import de.fhg.iais.roberta.util.Util;
+
+public class ClientStateWSTest {
+    private static final ClientStatePusher pusher = Mockito.mock(ClientStatePusher.class);
+
+    private Session session;
+
+    @BeforeClass
+    public static void setupInjector() {
+        Injector injector = Mockito.mock(Injector.class);
+        Mockito.when(injector.getInstance(ClientStatePusher.class)).thenReturn(pusher);
+        ClientStateWS.setGuiceInjector(injector);
+    }
+
+    @Before
+    public void setup() {
+        Mockito.reset(pusher);
+        this.session = Mockito.mock(Session.class);
+    }
+
+    @Test
+    public void testValidInitTokenIsSubscribedOnce() throws Exception {
+        String initToken = "ws" + System.nanoTime();
+        HttpSessionState httpSessionState =
+            HttpSessionState.initOnlyLegalForDebugging(initToken, Collections.emptyMap(), new ServerProperties(Util.loadProperties(null)), 1);
+        ClientStateWS clientStateWS = new ClientStateWS();
+        clientStateWS.handleMessage(this.session, new JSONObject().put("initToken", initToken).toString());
+        clientStateWS.handleMessage(this.session, "{}"); // a keep alive message of the frontend
+        Mockito.verify(pusher, Mockito.times(1)).subscribe(this.session, httpSessionState);
+
+        clientStateWS.handleClose(this.session, StatusCode.NORMAL, null);
+        Mockito.verify(pusher).unsubscribe(this.session);
+    }
+
+    @Test
+    public void testInvalidInitTokenIsRejected() throws Exception {
+        new ClientStateWS().handleMessage(this.session, new JSONObject().put("initToken", "unknown").toString());
+        new ClientStateWS().handleMessage(this.session, "no json");
+        Mockito.verify(this.session, Mockito.times(2)).close(Mockito.eq(StatusCode.POLICY_VIOLATION), Mockito.anyString());
+        Mockito.verify(pusher, Mockito.never()).subscribe(Mockito.any(Session.class), Mockito.any(HttpSessionState.class));
+    }
+}
@@ -185,8 +185,8 @@ public class JSONUtilForServer {
         ThreadedFunction theBrick = new ThreadedFunction() {
             @Override
             public boolean apply() throws Exception {
-                Response response = brickCommand.handle(JSONUtilForServer.mkRegisterToken(token));
-                return ((JSONObject) response.getEntity()).getString("response").equals("ok");
+                JSONObject response = brickCommand.handle(JSONUtilForServer.mkRegisterToken(token)).get();
+                return response != null && response.getString("response").equals("ok");
             }
         };
         ThreadedFunction theUser = new ThreadedFunction() {
@@ -14,6 +14,11 @@ define([ 'require', 'exports', 'log', 'util', 'comm', 'message', 'guiState.contr
             '#FF69B4', '#DF01D7' ];
     var currentColorIndex;
     var currentViewMode = 'gallery';
+    var GALLERY_PAGE_SIZE = 48;
+    var galleryRequest = 0; // the number of the latest request, responses to older requests are dropped
+    var galleryHasMore = false;
+    var galleryLoading = false;
+    var gallerySearchTimeout = null;
     /**
      * Initialize table of programs
      */
@@ -66,9 +71,6 @@ define([ 'require', 'exports', 'log', 'util', 'comm', 'message', 'guiState.contr
             cardView : 'true',
             rowStyle : rowStyle,
             rowAttributes : rowAttributes,
-            sortName : 4,
-            sortOrder : 'desc',
-            search : true,
             buttonsAlign : 'right',
             resizable : 'true',
             iconsPrefix : 'typcn',
@@ -157,14 +159,20 @@ define([ 'require', 'exports', 'log', 'util', 'comm', 'message', 'guiState.contr
 
         $('#filterRobot').onWrap('change', loadGalleryData, "gallery filter changed");
 
-        $('#fieldOrderBy').change(function(e) {
-            var fieldData = e.target.value.split(':');
-            var row = parseInt(fieldData[0]);
-            console.log(row);
-            $('#galleryTable').bootstrapTable('refreshOptions', {
-                sortName : row,
-                sortOrder : fieldData[1],
-            });
+        $('#fieldOrderBy').onWrap('change', loadGalleryData, "gallery order changed");
+
+        // the search is done by the server, as only some pages of the gallery are loaded. It is requested, when the user stops typing
+        $('#galleryListSearch').on('input', function() {
+            clearTimeout(gallerySearchTimeout);
+            gallerySearchTimeout = setTimeout(loadGalleryData, 300);
+        });
+
+        // the gallery is loaded page by page from the server. The next page is requested, when the last page of the table is shown
+        $('#galleryTable').on('page-change.bs.table', function(e, number, size) {
+            var loaded = $('#galleryTable').bootstrapTable("getData").length;
+            if (number * size >= loaded) {
+                loadNextGalleryPage();
+            }
         });
 //        TODO reactivate this once the table-view is improved
 //        $('#toogleView').click(function (e) {
@@ -182,19 +190,58 @@ define([ 'require', 'exports', 'log', 'util', 'comm', 'message', 'guiState.contr
 //        });
     }
 
-    function loadGalleryData() {
-        var params = {};
+    function getGalleryParams(after) {
+        var params = {
+            sortBy : $('#fieldOrderBy').val(),
+            limit : GALLERY_PAGE_SIZE
+        };
         var group = $('#filterRobot').val();
         if (group !== 'all') {
             params['group'] = group;
         }
-        PROGLIST.loadGalleryList(update, params);
+        var search = $('#galleryListSearch').val();
+        if (search) {
+            params['search'] = search;
+        }
+        if (after) {
+            params['after'] = after;
+        }
+        return params;
+    }
+
+    function loadGalleryData() {
+        var request = ++galleryRequest;
+        galleryLoading = true;
+        PROGLIST.loadGalleryList(function(result) {
+            update(request, 'load', result);
+        }, getGalleryParams());
     }
 
-    function update(result) {
+    function loadNextGalleryPage() {
+        if (galleryLoading || !galleryHasMore) {
+            return;
+        }
+        var data = $('#galleryTable').bootstrapTable("getData");
+        var last = data[data.length - 1];
+        var request = galleryRequest;
+        galleryLoading = true;
+        PROGLIST.loadGalleryList(function(result) {
+            update(request, 'append', result);
+        }, getGalleryParams({
+            value : last[10], // the sort value of the selected order, see ProgramDao.loadGallery
+            id : last[9]
+        }));
+    }
+
+    function update(request, method, result) {
+        if (request !== galleryRequest) {
+            return; // filter or order changed meanwhile
+        }
+        galleryLoading = false;
         UTIL.response(result);
         if (result.rc === 'ok') {
-            $('#galleryTable').bootstrapTable("load", result.programNames);
+            galleryHasMore = result.programNames.length >= GALLERY_PAGE_SIZE;
+            $('#galleryTable').bootstrapTable(method, result.programNames);
         }
         $(".pace").fadeOut(300); // Hide loading icon and show gallery table
     }
@@ -284,8 +331,7 @@ define([ 'require', 'exports', 'log', 'util', 'comm', 'message', 'guiState.contr
     exports.formatProgramName = formatProgramName;
 
     var formatProgramDescription = function(value, row, index) {
-        var xmlDoc = Blockly.Xml.textToDom(value, Blockly.getMainWorkspace());
-        var description = xmlDoc.getAttribute("description");
+        var description = value;
         if (!description) {
             description = "&nbsp;";
         }
@@ -305,8 +351,7 @@ define([ 'require', 'exports', 'log', 'util', 'comm', 'message', 'guiState.contr
     exports.formatDate = formatDate;
 
     var formatTags = function(value, row, index) {
-        var xmlDoc = Blockly.Xml.textToDom(row[2], Blockly.getMainWorkspace());
-        var tags = xmlDoc.getAttribute("tags");
+        var tags = value;
         if (!tags) {
             tags = "&nbsp;";
         }
@@ -4,6 +4,7 @@ define(['exports', 'log', 'util', 'message', 'comm', 'robot.controller', 'socket
         USER_C, USER, NOTIFICATION_C, USERGROUP_C, GUISTATE_C, PROGRAM_C, PROGRAM_M, MULT_SIM, RUN_C, CONFIGURATION_C, IMPORT_C, EnjoyHint, TOUR_C, SIM, PROGLIST, $, Blockly) {
 
     var n = 0;
+    const HEARTBEAT_TIME = 60000; // ping interval, while the server pushes the state
 
     const QUERY_START = '?';
     const QUERY_DELIMITER = '&';
@@ -65,12 +66,16 @@ define(['exports', 'log', 'util', 'message', 'comm', 'robot.controller', 'socket
         initMenu();
         initMenuEvents();
         /**
-         * Regularly ping the server to keep status information up-to-date
+         * Regularly ping the server to keep status information up-to-date. If the server pushes the state, the ping is a rare heartbeat only
          */
         function pingServer() {
             setTimeout(function() {
                 n += 1000;
-                if (n >= GUISTATE_C.getPingTime() && GUISTATE_C.doPing()) {
+                COMM.subscribeToState(function(result) {
+                    GUISTATE_C.setState(result);
+                });
+                var pingTime = COMM.isStatePushed() ? HEARTBEAT_TIME : GUISTATE_C.getPingTime();
+                if (n >= pingTime && GUISTATE_C.doPing()) {
                     COMM.ping(function(result) {
                         GUISTATE_C.setState(result);
                     });
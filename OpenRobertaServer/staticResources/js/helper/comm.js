@@ -134,6 +134,81 @@ define([ 'exports', 'jquery', 'wrap', 'log' ], function(exports, $, WRAP, LOG) {
     }
     exports.ping = ping;
 
+    /**
+     * websocket, on which the server pushes changes of the robot and session state. See subscribeToState().
+     */
+    var stateSocket = undefined;
+    var stateSocketFailures = 0;
+    var MAX_STATE_SOCKET_FAILURES = 3;
+    // after a socket is closed, the next one is opened after a delay, that doubles up to the maximum. It is reset, if a socket stayed open long enough
+    var STATE_SOCKET_MIN_DELAY = 1000;
+    var STATE_SOCKET_MAX_DELAY = 60000;
+    var stateSocketDelay = STATE_SOCKET_MIN_DELAY;
+    var stateSocketNextOpen = 0;
+
+    /**
+     * open a websocket, on which the server pushes changes of the robot and session state. The changes are merged into the state received so far and
+     * successFn is called with the merged state, as if it were the result of a ping. Nothing is done, if the websocket is already open, the init token is
+     * not known yet, the delay after the last close is not over or the websocket failed too often. A websocket fails, if it is closed before the server
+     * sent a message, e.g. because it could not be opened or the server rejected the init token.
+     */
+    function subscribeToState(successFn) {
+        if (stateSocket !== undefined || initToken === undefined || !window.WebSocket || stateSocketFailures >= MAX_STATE_SOCKET_FAILURES
+            || Date.now() < stateSocketNextOpen) {
+            return;
+        }
+        var state = {};
+        var openedAt = undefined;
+        var received = false;
+        var protocol = window.location.protocol === 'https:' ? 'wss://' : 'ws://';
+        var socket = new WebSocket(protocol + window.location.host + '/ws/clientState');
+        stateSocket = socket;
+        socket.onopen = function() {
+            openedAt = Date.now();
+            socket.send(JSON.stringify({
+                'initToken' : initToken
+            }));
+        };
+        socket.onmessage = function(event) {
+            if (!received) {
+                received = true;
+                stateSocketFailures = 0;
+            }
+            var delta = JSON.parse(event.data);
+            for ( var key in delta) {
+                if (delta[key] === null) {
+                    delete state[key];
+                } else {
+                    state[key] = delta[key];
+                }
+            }
+            successFn(state);
+            if (onNotificationsAvailable && delta['notifications.available']) {
+                onNotificationsAvailable();
+            }
+        };
+        socket.onclose = function() {
+            if (!received) {
+                stateSocketFailures++;
+            }
+            if (received && Date.now() - openedAt >= STATE_SOCKET_MAX_DELAY) {
+                stateSocketDelay = STATE_SOCKET_MIN_DELAY;
+            }
+            stateSocketNextOpen = Date.now() + stateSocketDelay;
+            stateSocketDelay = Math.min(2 * stateSocketDelay, STATE_SOCKET_MAX_DELAY);
+            stateSocket = undefined;
+        };
+    }
+    exports.subscribeToState = subscribeToState;
+
+    /**
+     * @return true, if the server pushes the state. Then a ping is only needed as a rare heartbeat.
+     */
+    function isStatePushed() {
+        return stateSocket !== undefined && stateSocket.readyState === WebSocket.OPEN;
+    }
+    exports.isStatePushed = isStatePushed;
+
     function listRobotsFromAgent(successFn, completeFn, onError) {
         var URL = 'http://127.0.0.1:8991/listrobots';
         var response = '';
@@ -14,6 +14,8 @@ import com.google.common.base.Charsets;
 
 import de.fhg.iais.roberta.bean.CompilerSetupBean;
 import de.fhg.iais.roberta.components.Project;
+import de.fhg.iais.roberta.util.CrosscompilerCache;
+import de.fhg.iais.roberta.util.CrosscompilerScheduler;
 import de.fhg.iais.roberta.util.Key;
 import de.fhg.iais.roberta.util.Pair;
 import de.fhg.iais.roberta.util.Util;
@@ -117,35 +119,52 @@ public class ArduinoCompilerWorker implements IWorker {
                 project.getRobot(),
                 arduinoArch
             };
-        Pair<Boolean, String> result = Util.runCrossCompiler(executableWithParameters, crosscompilerSource);
+        String binaryFileName = targetDir + programName + "." + project.getBinaryFileExtension();
+        CrosscompilerCache cache = CrosscompilerCache.getInstance();
+        String cacheKey =
+            cache
+                .makeKey(
+                    project.getRobotFactory().getPluginProperties(),
+                    project.getRobot(),
+                    String.join(",", scriptName.substring(compilerResourcesDir.length()), boardVariant, mmcu, arduinoVariant, arduinoArch),
+                    crosscompilerSource);
+        boolean cacheHit = cache.restore(cacheKey, binaryFileName);
+        String toolchainFamily = arduinoArch.isEmpty() || arduinoArch.endsWith("avr") ? CrosscompilerScheduler.AVR : CrosscompilerScheduler.ARM;
+        Pair<Boolean, String> result =
+            cacheHit
+                ? Pair.of(true, "")
+                : Util.runCrossCompiler(toolchainFamily, token, tempDir + token + "/" + programName + "/", executableWithParameters, crosscompilerSource);
         Key resultKey = result.getFirst() ? Key.COMPILERWORKFLOW_SUCCESS : Key.COMPILERWORKFLOW_ERROR_PROGRAM_COMPILE_FAILED;
         if ( result.getFirst() ) {
             String base64EncodedHex = null;
             switch ( project.getBinaryFileExtension() ) {
                 case "hex":
-                    base64EncodedHex = Util.getBase64EncodedHex(targetDir + programName + "." + project.getBinaryFileExtension());
+                    base64EncodedHex = Util.getBase64EncodedHex(binaryFileName);
                     break;
                 case "bin":
-                    base64EncodedHex = Util.getBase64EncodedBinary(targetDir + programName + "." + project.getBinaryFileExtension());
+                    base64EncodedHex = Util.getBase64EncodedBinary(binaryFileName);
                     break;
                 case "zip":
                     // as we currently only support sending a single file to robots and esp32 needs two files, they are zipped and send the zip is sent to the Connector
                     // the connector then unzips the files and correctly flashes them to the robot
                     // in order to circumvent large changes
+                    // a zip restored from the crosscompiler cache is complete already
                     try {
-                        ZipHelper
-                            .zipFiles(
-                                Stream
-                                    .concat(
-                                        Files.walk(Paths.get(targetDir)).filter(Files::isRegularFile),
-                                        Stream
-                                            .of(
-                                                Paths.get(compilerResourcesDir + "arduino-resources/hardware/esp32/esp32/tools/sdk/bin/bootloader_qio_80m.bin"),
-                                                Paths.get(compilerResourcesDir + "arduino-resources/hardware/esp32/esp32/tools/partitions/boot_app0.bin")))
-                                    .collect(Collectors.toList()),
-                                Paths.get(targetDir, programName + "." + project.getBinaryFileExtension()));
-                        base64EncodedHex =
-                            FileUtils.readFileToString(Paths.get(targetDir + programName + "." + project.getBinaryFileExtension()).toFile(), Charsets.UTF_8);
+                        if ( !cacheHit ) {
+                            String esp32ToolsDir = compilerResourcesDir + "arduino-resources/hardware/esp32/esp32/tools/";
+                            ZipHelper
+                                .zipFiles(
+                                    Stream
+                                        .concat(
+                                            Files.walk(Paths.get(targetDir)).filter(Files::isRegularFile),
+                                            Stream
+                                                .of(
+                                                    Paths.get(esp32ToolsDir + "sdk/bin/bootloader_qio_80m.bin"),
+                                                    Paths.get(esp32ToolsDir + "partitions/boot_app0.bin")))
+                                        .collect(Collectors.toList()),
+                                    Paths.get(binaryFileName));
+                        }
+                        base64EncodedHex = FileUtils.readFileToString(Paths.get(binaryFileName).toFile(), Charsets.UTF_8);
                     } catch ( IOException e ) {
                         LOG.warn("The generated esp32 build files could not be zipped:", e);
                     }
@@ -156,6 +175,9 @@ public class ArduinoCompilerWorker implements IWorker {
             project.setCompiledHex(base64EncodedHex);
             if ( project.getCompiledHex() != null ) {
                 resultKey = Key.COMPILERWORKFLOW_SUCCESS;
+                if ( !cacheHit ) {
+                    cache.store(cacheKey, binaryFileName);
+                }
             } else {
                 resultKey = Key.COMPILERWORKFLOW_ERROR_PROGRAM_COMPILE_FAILED;
             }
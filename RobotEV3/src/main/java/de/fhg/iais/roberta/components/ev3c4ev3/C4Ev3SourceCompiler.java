@@ -2,6 +2,7 @@ package de.fhg.iais.roberta.components.ev3c4ev3;
 
 import org.apache.commons.lang3.SystemUtils;
 
+import de.fhg.iais.roberta.util.CrosscompilerScheduler;
 import de.fhg.iais.roberta.util.Pair;
 import de.fhg.iais.roberta.util.Util;
 import de.fhg.iais.roberta.util.dbc.DbcException;
@@ -43,9 +44,14 @@ public class C4Ev3SourceCompiler {
         return "lib";
     }
 
-    public Pair<Boolean, String> compile(String sourceCodeFileName, String binaryOutputFile, String crosscompilerSourceForDebuggingOnly) {
+    public Pair<Boolean, String> compile(
+        String session,
+        String workspaceDir,
+        String sourceCodeFileName,
+        String binaryOutputFile,
+        String crosscompilerSourceForDebuggingOnly) {
         String[] compilerArguments = getCompilerArguments(this.compilerExecutableFileName, sourceCodeFileName, binaryOutputFile);
-        return Util.runCrossCompiler(compilerArguments, crosscompilerSourceForDebuggingOnly);
+        return Util.runCrossCompiler(CrosscompilerScheduler.ARM, session, workspaceDir, compilerArguments, crosscompilerSourceForDebuggingOnly);
     }
 
     private String[] getCompilerArguments(String compilerExecutableFileName, String sourceCodeFileName, String binaryOutputFile) {
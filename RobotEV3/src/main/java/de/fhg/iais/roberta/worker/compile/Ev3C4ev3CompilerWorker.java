@@ -10,6 +10,7 @@ import de.fhg.iais.roberta.components.Project;
 import de.fhg.iais.roberta.components.ev3c4ev3.C4Ev3SourceCompiler;
 import de.fhg.iais.roberta.components.ev3c4ev3.Uf2Builder;
 import de.fhg.iais.roberta.components.ev3c4ev3.Uf2FileContainer;
+import de.fhg.iais.roberta.util.CrosscompilerCache;
 import de.fhg.iais.roberta.util.Key;
 import de.fhg.iais.roberta.util.Pair;
 import de.fhg.iais.roberta.util.Util;
@@ -51,9 +52,18 @@ public class Ev3C4ev3CompilerWorker implements IWorker {
         Util.storeGeneratedProgram(tempDir, crosscompilerSource, token, programName, "." + project.getSourceCodeFileExtension());
         String sourceCodeFileName = tempDir + token + "/" + programName + "/source/" + programName + "." + project.getSourceCodeFileExtension();
         String binaryFileName = tempDir + token + "/" + programName + "/target/" + programName + ".elf";
-        Pair<Boolean, String> result = compiler.compile(sourceCodeFileName, binaryFileName, crosscompilerSource);
+        CrosscompilerCache cache = CrosscompilerCache.getInstance();
+        String cacheKey = cache.makeKey(project.getRobotFactory().getPluginProperties(), project.getRobot(), "", crosscompilerSource);
+        boolean cacheHit = cache.restore(cacheKey, binaryFileName);
+        Pair<Boolean, String> result =
+            cacheHit
+                ? Pair.of(true, "")
+                : compiler.compile(token, tempDir + token + "/" + programName + "/", sourceCodeFileName, binaryFileName, crosscompilerSource);
         Key resultKey = result.getFirst() ? Key.COMPILERWORKFLOW_SUCCESS : Key.COMPILERWORKFLOW_ERROR_PROGRAM_COMPILE_FAILED;
         if ( result.getFirst() ) {
+            if ( !cacheHit ) {
+                cache.store(cacheKey, binaryFileName);
+            }
             try {
                 Uf2FileContainer uf2 = uf2Builder.createUf2File(programName, binaryFileName);
                 project.setCompiledHex(uf2.toBase64());
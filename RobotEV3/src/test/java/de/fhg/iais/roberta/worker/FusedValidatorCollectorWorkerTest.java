@@ -0,0 +1,156 @@
+package de.fhg.iais.roberta.worker;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fhg.iais.roberta.Ev3LejosAstTest;
+import de.fhg.iais.roberta.bean.UsedHardwareBean;
+import de.fhg.iais.roberta.bean.UsedMethodBean;
+import de.fhg.iais.roberta.components.ConfigurationAst;
+import de.fhg.iais.roberta.components.ConfigurationComponent;
+import de.fhg.iais.roberta.components.Project;
+import de.fhg.iais.roberta.util.Clock;
+import de.fhg.iais.roberta.util.Key;
+import de.fhg.iais.roberta.util.Util;
+import de.fhg.iais.roberta.util.test.UnitTestHelper;
+import de.fhg.iais.roberta.worker.collect.Ev3UsedHardwareCollectorWorker;
+import de.fhg.iais.roberta.worker.collect.Ev3UsedMethodCollectorWorker;
+import de.fhg.iais.roberta.worker.validate.Ev3BrickValidatorWorker;
+
+public class FusedValidatorCollectorWorkerTest extends Ev3LejosAstTest {
+    private static final Logger LOG = LoggerFactory.getLogger(FusedValidatorCollectorWorkerTest.class);
+
+    private static final String[] PROGRAMS =
+        {
+            "/visitors/hardware_check2.xml",
+            "/visitors/hardware_check7.xml",
+            "/visitors/python_global_variables_check_two_used_variables.xml",
+            "/ast/methods/method_return_3.xml",
+            "/ast/lists/ev3dev_lists_get_test.xml"
+        };
+    private static final String LARGE_PROGRAM = "/ast/lists/ev3dev_lists_get_test.xml";
+
+    private final IWorker validator = new Ev3BrickValidatorWorker();
+    private final IWorker hardwareCollector = new Ev3UsedHardwareCollectorWorker();
+    private final IWorker methodCollector = new Ev3UsedMethodCollectorWorker();
+    private final IWorker fused = new FusedValidatorCollectorWorker(Arrays.asList(this.validator, this.hardwareCollector, this.methodCollector));
+
+    @Test
+    public void testFusedWorkerYieldsTheSameResultsAsTheSingleWorkers() {
+        for ( String program : PROGRAMS ) {
+            String programXml = Util.readResourceContent(program);
+            Project multiPass = executeMultiPass(programXml);
+            Project singlePass = executeSinglePass(programXml);
+            Assert.assertEquals(program, multiPass.getResult(), singlePass.getResult());
+            Assert.assertEquals(program, multiPass.getErrorCounter(), singlePass.getErrorCounter());
+            if ( multiPass.hasSucceeded() ) {
+                assertSameHardware(program, multiPass.getWorkerResult(UsedHardwareBean.class), singlePass.getWorkerResult(UsedHardwareBean.class));
+                UsedMethodBean expectedMethods = multiPass.getWorkerResult(UsedMethodBean.class);
+                UsedMethodBean actualMethods = singlePass.getWorkerResult(UsedMethodBean.class);
+                Assert.assertEquals(program, expectedMethods.getUsedMethods(), actualMethods.getUsedMethods());
+                Assert.assertEquals(program, expectedMethods.getAdditionalEnums().toString(), actualMethods.getAdditionalEnums().toString());
+            }
+        }
+    }
+
+    /**
+     * the program uses ports, that are not configured. The hardware collector would fail for these blocks, they must be reported by the validator only
+     */
+    @Test
+    public void testBlocksOnUnconfiguredPortsAreReportedAsInvalid() {
+        String programXml = Util.readResourceContent("/visitors/program_config_compatibility.xml");
+        Project multiPass = executeMultiPass(UnitTestHelper.setupWithProgramXML(testFactory, programXml).setConfigurationAst(touchAndUltrasonicOnly()).build());
+        Project singlePass = UnitTestHelper.setupWithProgramXML(testFactory, programXml).setConfigurationAst(touchAndUltrasonicOnly()).build();
+        this.fused.execute(singlePass);
+        Assert.assertEquals(Key.PROGRAM_INVALID_STATEMETNS, multiPass.getResult());
+        Assert.assertEquals(Key.PROGRAM_INVALID_STATEMETNS, singlePass.getResult());
+        Assert.assertEquals(multiPass.getErrorCounter(), singlePass.getErrorCounter());
+        Assert.assertEquals(4, singlePass.getErrorCounter());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testWrongOrderIsRejected() {
+        new FusedValidatorCollectorWorker(Arrays.asList(this.methodCollector, this.hardwareCollector));
+    }
+
+    /**
+     * benchmark comparing the single workers with the fused worker. Not executed by default, because it takes some seconds
+     */
+    @Ignore
+    @Test
+    public void benchmarkFusedWorker() {
+        String programXml = Util.readResourceContent(LARGE_PROGRAM);
+        int runs = 2000;
+        for ( int i = 0; i < runs / 4; i++ ) {
+            executeMultiPass(programXml);
+            executeSinglePass(programXml);
+        }
+        long multiPassMsec = 0;
+        long singlePassMsec = 0;
+        for ( int i = 0; i < runs; i++ ) {
+            Project multiPass = UnitTestHelper.setupWithProgramXML(testFactory, programXml).build();
+            Project singlePass = UnitTestHelper.setupWithProgramXML(testFactory, programXml).build();
+            Clock clock = Clock.start();
+            this.validator.execute(multiPass);
+            this.hardwareCollector.execute(multiPass);
+            this.methodCollector.execute(multiPass);
+            multiPassMsec += clock.elapsedMsec();
+            clock = Clock.start();
+            this.fused.execute(singlePass);
+            singlePassMsec += clock.elapsedMsec();
+        }
+        LOG.info("validate+collect of {}, {} runs. Multi pass: {} msec, single pass: {} msec", LARGE_PROGRAM, runs, multiPassMsec, singlePassMsec);
+    }
+
+    private Project executeMultiPass(String programXml) {
+        return executeMultiPass(UnitTestHelper.setupWithProgramXML(testFactory, programXml).build());
+    }
+
+    private Project executeMultiPass(Project project) {
+        for ( IWorker worker : Arrays.asList(this.validator, this.hardwareCollector, this.methodCollector) ) {
+            worker.execute(project);
+            if ( !project.hasSucceeded() ) {
+                break;
+            }
+        }
+        return project;
+    }
+
+    private Project executeSinglePass(String programXml) {
+        Project project = UnitTestHelper.setupWithProgramXML(testFactory, programXml).build();
+        this.fused.execute(project);
+        return project;
+    }
+
+    private static ConfigurationAst touchAndUltrasonicOnly() {
+        Map<String, String> motorAproperties = Util.createMap("MOTOR_REGULATION", "TRUE", "MOTOR_REVERSE", "OFF", "MOTOR_DRIVE", "LEFT");
+        Map<String, String> motorBproperties = Util.createMap("MOTOR_REGULATION", "TRUE", "MOTOR_REVERSE", "OFF", "MOTOR_DRIVE", "RIGHT");
+        ConfigurationComponent motorA = new ConfigurationComponent("LARGE", true, "A", "A", motorAproperties);
+        ConfigurationComponent motorB = new ConfigurationComponent("LARGE", true, "B", "B", motorBproperties);
+        ConfigurationComponent touchSensor = new ConfigurationComponent("TOUCH", false, "S1", "1", Util.createMap("TYPE", "TOUCH"));
+        ConfigurationComponent ultrasonicSensor = new ConfigurationComponent("ULTRASONIC", false, "S2", "2", Util.createMap("TYPE", "ULTRASONIC"));
+        return new ConfigurationAst.Builder()
+            .setTrackWidth(17f)
+            .setWheelDiameter(5.6f)
+            .addComponents(Arrays.asList(motorA, motorB, touchSensor, ultrasonicSensor))
+            .build();
+    }
+
+    private static void assertSameHardware(String program, UsedHardwareBean expected, UsedHardwareBean actual) {
+        Assert.assertEquals(program, expected.getUsedSensors(), actual.getUsedSensors());
+        Assert.assertEquals(program, expected.getUsedActors(), actual.getUsedActors());
+        Assert.assertEquals(program, expected.getUsedImages(), actual.getUsedImages());
+        Assert.assertEquals(program, expected.getMarkedVariablesAsGlobal(), actual.getMarkedVariablesAsGlobal());
+        Assert.assertEquals(program, expected.getLoopsLabelContainer(), actual.getLoopsLabelContainer());
+        Assert.assertEquals(program, expected.getVisitedVars().toString(), actual.getVisitedVars().toString());
+        Assert.assertEquals(program, expected.getUserDefinedMethods().toString(), actual.getUserDefinedMethods().toString());
+        Assert.assertEquals(program, expected.isProgramEmpty(), actual.isProgramEmpty());
+        Assert.assertEquals(program, expected.isListsUsed(), actual.isListsUsed());
+    }
+}
@@ -10,6 +10,8 @@ import org.slf4j.LoggerFactory;
 
 import de.fhg.iais.roberta.bean.CompilerSetupBean;
 import de.fhg.iais.roberta.components.Project;
+import de.fhg.iais.roberta.util.CrosscompilerCache;
+import de.fhg.iais.roberta.util.CrosscompilerScheduler;
 import de.fhg.iais.roberta.util.Key;
 import de.fhg.iais.roberta.util.Pair;
 import de.fhg.iais.roberta.util.PluginProperties;
@@ -65,12 +67,28 @@ public class EdisonCompilerWorker implements IWorker {
                 targetFilePath + pyFile + ".wav"
             };
 
-        Pair<Boolean, String> result = Util.runCrossCompiler(executableWithParameters, crosscompilerSource);
+        String binaryFileName = targetFilePath + pyFile + "." + project.getBinaryFileExtension();
+        CrosscompilerCache cache = CrosscompilerCache.getInstance();
+        String cacheKey = cache.makeKey(project.getRobotFactory().getPluginProperties(), project.getRobot(), "", crosscompilerSource);
+        boolean cacheHit = cache.restore(cacheKey, binaryFileName);
+        Pair<Boolean, String> result =
+            cacheHit
+                ? Pair.of(true, "")
+                : Util
+                    .runCrossCompiler(
+                        CrosscompilerScheduler.PYTHON,
+                        token,
+                        tempDir + "/" + token + "/" + pyFile + "/",
+                        executableWithParameters,
+                        crosscompilerSource);
         Key resultKey = result.getFirst() ? Key.COMPILERWORKFLOW_SUCCESS : Key.COMPILERWORKFLOW_ERROR_PROGRAM_COMPILE_FAILED;
         if ( result.getFirst() ) {
             try {
-                byte[] wavBytes = FileUtils.readFileToByteArray(new File(targetFilePath + pyFile + "." + project.getBinaryFileExtension()));
+                byte[] wavBytes = FileUtils.readFileToByteArray(new File(binaryFileName));
                 project.setCompiledHex(Base64.getEncoder().encodeToString(wavBytes));
+                if ( !cacheHit ) {
+                    cache.put(cacheKey, wavBytes);
+                }
                 resultKey = Key.COMPILERWORKFLOW_SUCCESS;
             } catch ( IOException e ) {
                 LOG.error("Compilation successful, but reading WAV file failed (IOException)", e);
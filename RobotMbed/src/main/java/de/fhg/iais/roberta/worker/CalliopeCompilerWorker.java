@@ -13,6 +13,8 @@ import org.slf4j.LoggerFactory;
 
 import de.fhg.iais.roberta.bean.CompilerSetupBean;
 import de.fhg.iais.roberta.components.Project;
+import de.fhg.iais.roberta.util.CrosscompilerCache;
+import de.fhg.iais.roberta.util.CrosscompilerScheduler;
 import de.fhg.iais.roberta.util.Key;
 import de.fhg.iais.roberta.util.Pair;
 import de.fhg.iais.roberta.util.Util;
@@ -63,16 +65,21 @@ public class CalliopeCompilerWorker implements IWorker {
                 bluetoothParam
             };
 
-        Pair<Boolean, String> result = Util.runCrossCompiler(executableWithParameters, crosscompilerSource);
+        String binaryFileName = pathToSrcFile + "/target/" + project.getProgramName() + "." + project.getBinaryFileExtension();
+        CrosscompilerCache cache = CrosscompilerCache.getInstance();
+        String cacheKey = cache.makeKey(project.getRobotFactory().getPluginProperties(), project.getRobot(), bluetoothParam, crosscompilerSource);
+        boolean cacheHit = cache.restore(cacheKey, binaryFileName);
+        Pair<Boolean, String> result =
+            cacheHit
+                ? Pair.of(true, "")
+                : Util.runCrossCompiler(CrosscompilerScheduler.MBED, project.getToken(), pathToSrcFile + "/", executableWithParameters, crosscompilerSource);
         Key resultKey = result.getFirst() ? Key.COMPILERWORKFLOW_SUCCESS : Key.COMPILERWORKFLOW_ERROR_PROGRAM_COMPILE_FAILED;
         if ( result.getFirst() ) {
             try {
-                project
-                    .setCompiledHex(
-                        FileUtils
-                            .readFileToString(
-                                new File(pathToSrcFile + "/target/" + project.getProgramName() + "." + project.getBinaryFileExtension()),
-                                Charset.forName("utf-8")));
+                project.setCompiledHex(FileUtils.readFileToString(new File(binaryFileName), Charset.forName("utf-8")));
+                if ( !cacheHit ) {
+                    cache.store(cacheKey, binaryFileName);
+                }
                 resultKey = Key.COMPILERWORKFLOW_SUCCESS;
             } catch ( IOException e ) {
                 LOG.error("compilation of Calliope program successful, but reading the binary failed", e);
@@ -1,6 +1,7 @@
 package de.fhg.iais.roberta.worker;
 
 import java.lang.ProcessBuilder.Redirect;
+import java.nio.charset.StandardCharsets;
 
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
@@ -8,6 +9,8 @@ import org.slf4j.LoggerFactory;
 
 import de.fhg.iais.roberta.bean.CompilerSetupBean;
 import de.fhg.iais.roberta.components.Project;
+import de.fhg.iais.roberta.util.CrosscompilerCache;
+import de.fhg.iais.roberta.util.CrosscompilerScheduler;
 import de.fhg.iais.roberta.util.Key;
 import de.fhg.iais.roberta.util.Util;
 
@@ -37,8 +40,22 @@ public class MicrobitCompilerWorker implements IWorker {
                 scriptName,
                 sourceCode
             };
-        project.setCompiledHex(this.getBinaryFromCrossCompiler(executableWithParameters));
+        CrosscompilerCache cache = CrosscompilerCache.getInstance();
+        String cacheKey = cache.makeKey(project.getRobotFactory().getPluginProperties(), project.getRobot(), "", sourceCode);
+        byte[] cachedHex = cache.get(cacheKey);
+        if ( cachedHex != null ) {
+            project.setCompiledHex(new String(cachedHex, StandardCharsets.US_ASCII));
+        } else {
+            project
+                .setCompiledHex(
+                    CrosscompilerScheduler
+                        .getInstance()
+                        .run(CrosscompilerScheduler.PYTHON, project.getToken(), () -> getBinaryFromCrossCompiler(executableWithParameters)));
+        }
         if ( project.getCompiledHex() != null ) {
+            if ( cachedHex == null && project.getCompiledHex().startsWith(":") ) { // the exit code is not checked. Cache intel hex only, never error messages
+                cache.put(cacheKey, project.getCompiledHex().getBytes(StandardCharsets.US_ASCII));
+            }
             return Key.COMPILERWORKFLOW_SUCCESS;
         } else {
             Util.logCrosscompilerError(LOG, "no binary returned", sourceCode);
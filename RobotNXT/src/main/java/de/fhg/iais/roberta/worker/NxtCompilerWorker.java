@@ -9,6 +9,8 @@ import org.slf4j.LoggerFactory;
 
 import de.fhg.iais.roberta.bean.CompilerSetupBean;
 import de.fhg.iais.roberta.components.Project;
+import de.fhg.iais.roberta.util.CrosscompilerCache;
+import de.fhg.iais.roberta.util.CrosscompilerScheduler;
 import de.fhg.iais.roberta.util.Key;
 import de.fhg.iais.roberta.util.Pair;
 import de.fhg.iais.roberta.util.Util;
@@ -55,17 +57,27 @@ public class NxtCompilerWorker implements IWorker {
             nbcCompilerFileName = compilerResourcesDir + "/osx/nbc";
         }
 
+        String binaryFileName = tempDir + token + "/" + mainFile + "/target/" + mainFile + "." + project.getBinaryFileExtension();
         String[] executableWithParameters =
             {
                 nbcCompilerFileName,
                 "-q",
                 "-sm-",
                 tempDir + token + "/" + mainFile + "/source/" + mainFile + "." + project.getSourceCodeFileExtension(),
-                "-O=" + tempDir + token + "/" + mainFile + "/target/" + mainFile + "." + project.getBinaryFileExtension(),
+                "-O=" + binaryFileName,
                 "-I=" + base.resolve(path).toAbsolutePath().normalize()
             };
-        Pair<Boolean, String> result = Util.runCrossCompiler(executableWithParameters, crosscompilerSource);
+        CrosscompilerCache cache = CrosscompilerCache.getInstance();
+        String cacheKey = cache.makeKey(project.getRobotFactory().getPluginProperties(), project.getRobot(), "", crosscompilerSource);
+        if ( cache.restore(cacheKey, binaryFileName) ) {
+            return Pair.of(Key.COMPILERWORKFLOW_SUCCESS, "");
+        }
+        Pair<Boolean, String> result =
+            Util.runCrossCompiler(CrosscompilerScheduler.ARM, token, tempDir + token + "/" + mainFile + "/", executableWithParameters, crosscompilerSource);
         Key resultKey = result.getFirst() ? Key.COMPILERWORKFLOW_SUCCESS : Key.COMPILERWORKFLOW_ERROR_PROGRAM_COMPILE_FAILED;
+        if ( result.getFirst() ) {
+            cache.store(cacheKey, binaryFileName);
+        }
         return Pair.of(resultKey, result.getSecond());
     }
 }